@@ -0,0 +1,87 @@
+#!/bin/bash
+# 按提交保存 JMH 基准测试结果，并对比两次结果
+#
+#   script/jmh.sh run [JMH 参数]            运行基准测试，结果保存为 jmh-results/<提交>.json
+#   script/jmh.sh compare <旧结果> <新结果>   逐项对比得分，误差区间不重叠的变化标记为 *
+#
+# 例如对比改动前后的 JSON 序列化：
+#   git switch main && script/jmh.sh run JsonSerializationBenchmark
+#   git switch feature && script/jmh.sh run JsonSerializationBenchmark
+#   script/jmh.sh compare jmh-results/<main>.json jmh-results/<feature>.json
+#
+# compare 需要 jq
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RESULT_DIR="jmh-results"
+
+usage() {
+    echo "Usage: $0 run [jmh args...]"
+    echo "       $0 compare <base.json> <new.json>"
+    exit 1
+}
+
+run() {
+    local commit
+    commit=$(git rev-parse --short HEAD)
+    # 未提交的改动单独标记，避免覆盖该提交的干净结果
+    if ! git diff --quiet HEAD -- .; then
+        commit="${commit}-dirty"
+    fi
+    mkdir -p "${RESULT_DIR}"
+    local result="${PWD}/${RESULT_DIR}/${commit}.json"
+    ./mvnw -B -q -Pjmh test-compile exec:exec \
+        -Djmh.result.file="${result}" -Djmh.args="$*"
+    echo "Saved results to ${RESULT_DIR}/${commit}.json"
+}
+
+compare() {
+    [ $# -eq 2 ] || usage
+    # 以基准测试名和参数为键；scoreError 为 99.9% 置信区间半宽，测量轮数太少时为 NaN，按 0 处理
+    jq -n -r --slurpfile base "$1" --slurpfile new "$2" '
+        def key: (.benchmark | sub("^top\\.phakeandy\\.youchat\\."; ""))
+            + (if .params then " " + (.params | to_entries
+                | map("\(.key)=\(.value)") | join(",")) else "" end);
+        def error: .primaryMetric.scoreError
+            | if type == "number" then . else 0 end;
+        def fmt: (. * 100 | round) / 100 | tostring;
+        ($base[0] | map({key: key, value: .}) | from_entries) as $old
+        | ["Benchmark", "Base", "New", "Unit", "Change", ""],
+          ($new[0][] | key as $k | $old[$k] as $o
+            | .primaryMetric.score as $s
+            | if $o == null then
+                [$k, "-", ($s | fmt), .primaryMetric.scoreUnit, "-", ""]
+              else
+                ($o.primaryMetric.score) as $b
+                | [$k, ($b | fmt), ($s | fmt), .primaryMetric.scoreUnit,
+                   ((($s - $b) / $b * 100) | fmt) + "%",
+                   (if (($s - $b) | fabs) > (($o | error) + error)
+                    then "*" else "" end)]
+              end)
+        | @tsv' | align
+}
+
+# 按列对齐制表符分隔的输出
+align() {
+    awk -F'\t' '
+        { for (i = 1; i <= NF; i++) { cell[NR, i] = $i; if (length($i) > width[i]) width[i] = length($i) }
+          if (NF > cols) cols = NF }
+        END { for (r = 1; r <= NR; r++) { line = ""
+                for (i = 1; i <= cols; i++) line = line sprintf("%-" width[i] + 2 "s", cell[r, i])
+                sub(/ +$/, "", line); print line } }'
+}
+
+case "${1:-}" in
+    run)
+        shift
+        run "$@"
+        ;;
+    compare)
+        shift
+        compare "$@"
+        ;;
+    *)
+        usage
+        ;;
+esac
@@ -0,0 +1,14 @@
+#!/bin/bash
+# 用 COPY 向数据库批量写入基准测试数据集，参数见 src/jmh/java/.../seed/SeedSettings.java
+#
+#   script/seed.sh                                                   默认规模（10 万用户、500 万消息）
+#   script/seed.sh --users=1000000 --groups=100000 --messages=500000000
+#
+# 连接参数取自 PG_JDBC_URL、PG_USER、PG_PASS（见 .envrc.example），也可以用 --jdbc-url 等参数覆盖。
+# 数据追加在已有数据之后，重复运行会继续增加数据。
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+./mvnw -B -q -Pjmh test-compile exec:java \
+    -Dexec.mainClass=top.phakeandy.youchat.seed.DatasetSeeder -Dexec.args="$*"
@@ -0,0 +1,96 @@
+package top.phakeandy.youchat.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import top.phakeandy.youchat.config.PasswordEncoderConfig;
+import top.phakeandy.youchat.config.PasswordProperties;
+
+/**
+ * 密码哈希成本与登录吞吐量
+ *
+ * <p>{@link #verify} 测单次校验的耗时，即一次登录的 CPU 成本；{@link #login} 用远多于 CPU 核数的线程模拟并发登录，
+ * 测经过有界线程池后的整体吞吐量。对比不同 {@code hash} 参数选择成本：单次校验应落在可接受的登录延迟内，同时吞吐量满足高峰期的登录速率。
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="PasswordHashingBenchmark"
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="PasswordHashingBenchmark -p hash=bcrypt:11"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class PasswordHashingBenchmark {
+
+  private static final String RAW_PASSWORD = "Password123!";
+
+  /** {@code 算法:成本}，BCrypt 的成本为 strength，Argon2 的成本为迭代次数 */
+  @Param({"bcrypt:8", "bcrypt:10", "bcrypt:11", "bcrypt:12", "argon2:2"})
+  public String hash;
+
+  /** 哈希线程数，0 表示 CPU 核数 */
+  @Param({"0"})
+  public int poolSize;
+
+  private PasswordEncoder delegate;
+  private BoundedPasswordEncoder bounded;
+  private String encoded;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    String[] spec = hash.split(":");
+    PasswordProperties.Algorithm algorithm =
+        PasswordProperties.Algorithm.valueOf(spec[0].toUpperCase(Locale.ROOT));
+    int cost = Integer.parseInt(spec[1]);
+    PasswordProperties properties =
+        new PasswordProperties(
+            algorithm,
+            new PasswordProperties.BCrypt(
+                algorithm == PasswordProperties.Algorithm.BCRYPT ? cost : 10),
+            new PasswordProperties.Argon2(
+                16, 32, 1, 19_456, algorithm == PasswordProperties.Algorithm.ARGON2 ? cost : 2),
+            new PasswordProperties.Hashing(poolSize, 4096, Duration.ofMinutes(1)),
+            // 哈希不涉及密码规则
+            null);
+    delegate = PasswordEncoderConfig.delegatingPasswordEncoder(properties);
+    bounded = new BoundedPasswordEncoder(delegate, properties.hashing(), new SimpleMeterRegistry());
+    encoded = delegate.encode(RAW_PASSWORD);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    bounded.destroy();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public boolean verify() {
+    return delegate.matches(RAW_PASSWORD, encoded);
+  }
+
+  @Benchmark
+  @Threads(64)
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public boolean login() {
+    return bounded.matches(RAW_PASSWORD, encoded);
+  }
+}
@@ -0,0 +1,94 @@
+package top.phakeandy.youchat.auth;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import top.phakeandy.youchat.config.PasswordProperties;
+
+/**
+ * 密码规则校验：单次码点遍历与原先逐条 {@link String#matches} 的对比
+ *
+ * <p>{@code regex} 保留了替换前的实现，每条规则都重新编译正则并扫描整个密码。{@code password} 覆盖满足规则、只缺特殊字符（正则需要扫描到最后一条）
+ * 和长度超限三种情况。可加 {@code -prof gc} 对比每次校验的内存分配。
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="PasswordPolicyBenchmark"
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="PasswordPolicyBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PasswordPolicyBenchmark {
+
+  @Param({"valid", "missingSpecial", "tooLong"})
+  public String password;
+
+  private String input;
+  private PasswordPolicy policy;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    input =
+        switch (password) {
+          case "valid" -> "Password123!";
+          case "missingSpecial" -> "CorrectHorseBatteryStaple42";
+          case "tooLong" -> "Aa1!".repeat(64);
+          default -> throw new IllegalArgumentException("Unknown password case: " + password);
+        };
+    policy =
+        new PasswordPolicy(
+            new PasswordProperties.Policy(
+                8, 128, true, true, true, true, "!@#$%^&*()_+-=[]{};':\"\\|,.<>/?", List.of()));
+  }
+
+  @Benchmark
+  public List<PasswordViolation> singlePass() {
+    return policy.check(input);
+  }
+
+  @Benchmark
+  public String regex() {
+    return legacyValidate(input);
+  }
+
+  /** 替换前的实现，抛异常改为返回第一条违反规则的提示，避免把异常开销算进来 */
+  private static String legacyValidate(String password) {
+    if (password == null || password.trim().isEmpty()) {
+      return "Password cannot be null or empty";
+    }
+    if (password.length() < 8) {
+      return "Password must be at least 8 characters long";
+    }
+    if (password.length() > 128) {
+      return "Password cannot be longer than 128 characters";
+    }
+    if (!password.matches(".*[A-Z].*")) {
+      return "Password must contain at least one uppercase letter";
+    }
+    if (!password.matches(".*[a-z].*")) {
+      return "Password must contain at least one lowercase letter";
+    }
+    if (!password.matches(".*\\d.*")) {
+      return "Password must contain at least one digit";
+    }
+    if (!password.matches(".*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>\\/?].*")) {
+      return "Password must contain at least one special character";
+    }
+    return null;
+  }
+}
@@ -0,0 +1,71 @@
+package top.phakeandy.youchat.auth;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import top.phakeandy.youchat.common.RawJson;
+import top.phakeandy.youchat.model.Users;
+
+/**
+ * 用户实体到 {@link CustomUserDetails} 的复制：{@link CustomUserDetails#fromUsers} 与逐字段复制的对比
+ *
+ * <p>{@code fromUsers} 通过 {@code BeanUtils.copyProperties} 反射复制属性，登录和每次读取用户缓存都会调用；{@link #copyByAccessors}
+ * 是同样结果的手写版本，作为没有反射开销的基线。
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="UserDetailsBenchmark"
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="UserDetailsBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserDetailsBenchmark {
+
+  private Users user;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    user = new Users();
+    user.setId(1001L);
+    user.setUsername("alice");
+    user.setPassword("{bcrypt}$2a$10$PKXfRbZrGGUD.GLAvBBuse4p0JNLvK5tB6D8/3L4gr6o7cu6RgIy.");
+    user.setNickname("Alice");
+    user.setAvatarUrl("https://example.com/avatar/1001.jpg");
+    user.setSettings(RawJson.EMPTY_OBJECT);
+    user.setCreatedAt(OffsetDateTime.now());
+    user.setUpdatedAt(user.getCreatedAt());
+  }
+
+  @Benchmark
+  public CustomUserDetails fromUsers() {
+    return CustomUserDetails.fromUsers(user);
+  }
+
+  @Benchmark
+  public CustomUserDetails copyByAccessors() {
+    CustomUserDetails details = new CustomUserDetails();
+    details.setId(user.getId());
+    details.setUsername(user.getUsername());
+    details.setPassword(user.getPassword());
+    details.setNickname(user.getNickname());
+    details.setAvatarUrl(user.getAvatarUrl());
+    details.setSettings(user.getSettings());
+    details.setCreatedAt(user.getCreatedAt());
+    details.setUpdatedAt(user.getUpdatedAt());
+    return details;
+  }
+}
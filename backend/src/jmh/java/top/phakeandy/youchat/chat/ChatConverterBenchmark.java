@@ -0,0 +1,64 @@
+package top.phakeandy.youchat.chat;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import top.phakeandy.youchat.common.RawJson;
+import top.phakeandy.youchat.model.ChatGroups;
+
+/**
+ * 群聊实体到响应对象的转换
+ *
+ * <p>群聊列表每页转换一次，每条只是字段复制，应在几十纳秒以内；明显变慢通常说明转换中引入了反射或额外的查询。
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="ChatConverterBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChatConverterBenchmark {
+
+  private final ChatConverter converter = new ChatConverter();
+  private ChatGroups chatGroup;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    chatGroup = chatGroup(1L);
+  }
+
+  @Benchmark
+  public ChatResponse toChatResponse() {
+    return converter.toChatResponse(chatGroup);
+  }
+
+  /** 字段都有值的群聊，其他基准测试共用 */
+  public static ChatGroups chatGroup(long id) {
+    OffsetDateTime now = OffsetDateTime.now();
+    ChatGroups chatGroup = new ChatGroups();
+    chatGroup.setId(id);
+    chatGroup.setName("前端开发交流群 " + id);
+    chatGroup.setDescription("讨论前端开发相关技术问题");
+    chatGroup.setAvatarUrl("https://example.com/avatar/" + id + ".jpg");
+    chatGroup.setOwnerId(1000 + id);
+    chatGroup.setSettings(RawJson.of("{\"muted\": false}"));
+    chatGroup.setAnnouncement(RawJson.of("{\"text\": \"欢迎加入\"}"));
+    chatGroup.setCreatedAt(now);
+    chatGroup.setUpdatedAt(now);
+    return chatGroup;
+  }
+}
@@ -0,0 +1,93 @@
+package top.phakeandy.youchat.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import top.phakeandy.youchat.chat.ChatConverter;
+import top.phakeandy.youchat.chat.ChatConverterBenchmark;
+import top.phakeandy.youchat.chat.ChatResponse;
+import top.phakeandy.youchat.message.MessageResponse;
+import top.phakeandy.youchat.message.MessageType;
+
+/**
+ * 接口响应的 JSON 序列化开销
+ *
+ * <p>{@code payload} 为单个群聊、一页 20 个群聊（{@code GET /api/v1/chats} 的响应）和单条消息（STOMP 推送和历史记录的每一项）。使用与
+ * Spring Boot 默认配置相同的 {@link ObjectMapper}，可加 {@code -prof gc} 对比每次序列化的内存分配。
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="JsonSerializationBenchmark"
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="JsonSerializationBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JsonSerializationBenchmark {
+
+  private static final int PAGE_SIZE = 20;
+
+  @Param({"chat", "chatPage", "message"})
+  public String payload;
+
+  private ObjectMapper objectMapper;
+  private Object value;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    // Spring Boot 在 Jackson2ObjectMapperBuilder 的默认值之外还关闭了时间戳格式的日期
+    objectMapper =
+        Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    ChatConverter converter = new ChatConverter();
+    List<ChatResponse> chats =
+        LongStream.rangeClosed(1, PAGE_SIZE)
+            .mapToObj(id -> converter.toChatResponse(ChatConverterBenchmark.chatGroup(id)))
+            .toList();
+    value =
+        switch (payload) {
+          case "chat" -> chats.getFirst();
+          case "chatPage" -> new PageImpl<>(chats, PageRequest.of(0, PAGE_SIZE), 500);
+          case "message" ->
+              new MessageResponse(
+                  "7212345678901234567",
+                  "d_1001_1002",
+                  "1001",
+                  "alice",
+                  "1002",
+                  RawJson.of("{\"text\": \"晚上一起吃饭吗？\"}"),
+                  MessageType.TEXT,
+                  LocalDateTime.now(),
+                  "SENT");
+          default -> throw new IllegalArgumentException(payload);
+        };
+  }
+
+  @Benchmark
+  public byte[] serialize() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(value);
+  }
+}
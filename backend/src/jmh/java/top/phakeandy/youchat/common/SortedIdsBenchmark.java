@@ -0,0 +1,89 @@
+package top.phakeandy.youchat.common;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 好友判断、共同好友和群消息扇出在缓存命中时的开销
+ *
+ * <p>{@code size} 为每个集合的 ID 数量，对比 {@link SortedIds} 与装箱的 {@code HashSet<Long>}。私信鉴权每次发送都要判断好友，应稳定在亚微秒级；
+ * 共同好友和扇出随集合大小线性增长。
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="SortedIdsBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SortedIdsBenchmark {
+
+  @Param({"200", "5000", "20000"})
+  public int size;
+
+  private SortedIds friends;
+  private SortedIds otherFriends;
+  private Set<Long> boxedFriends;
+  private Set<Long> boxedOtherFriends;
+  private long[] probes;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    SplittableRandom random = new SplittableRandom(42);
+    // ID 取自 4 倍于集合大小的范围，两个集合约有四分之一重合
+    long[] a = random.longs(size, 1, size * 4L).toArray();
+    long[] b = random.longs(size, 1, size * 4L).toArray();
+    friends = SortedIds.of(a);
+    otherFriends = SortedIds.of(b);
+    boxedFriends = new HashSet<>();
+    friends.forEach(boxedFriends::add);
+    boxedOtherFriends = new HashSet<>();
+    otherFriends.forEach(boxedOtherFriends::add);
+    probes = random.longs(1024, 1, size * 4L).toArray();
+  }
+
+  @Benchmark
+  public boolean contains() {
+    return friends.contains(probes[next++ & 1023]);
+  }
+
+  @Benchmark
+  public boolean containsBoxed() {
+    return boxedFriends.contains(probes[next++ & 1023]);
+  }
+
+  @Benchmark
+  public int intersect() {
+    return friends.intersect(otherFriends).size();
+  }
+
+  @Benchmark
+  public int intersectBoxed() {
+    Set<Long> mutual = new HashSet<>(boxedFriends);
+    mutual.retainAll(boxedOtherFriends);
+    return mutual.size();
+  }
+
+  @Benchmark
+  public long fanOut() {
+    return friends.stream().filter(id -> id != 1).sum();
+  }
+}
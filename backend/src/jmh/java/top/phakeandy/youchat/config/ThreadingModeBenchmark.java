@@ -0,0 +1,169 @@
+package top.phakeandy.youchat.config;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import top.phakeandy.youchat.YouchatApplication;
+
+/**
+ * 平台线程与虚拟线程模式下的端到端吞吐量
+ *
+ * <p>每个 {@code mode} 启动一次完整应用，用远多于 Tomcat 线程数和连接池大小的客户端线程并发请求。{@link #chats} 是典型的数据库读请求，
+ * 瓶颈在连接池；{@link #login} 的瓶颈在密码哈希线程池，切换线程模式不应改变它的吞吐量，用来确认虚拟线程没有绕过 CPU 密集任务的限制。
+ * 服务端以 503 拒绝的请求单独计入 {@code busy}，不计入 {@code ok}；加上 {@code -bm sample} 可以对比两种模式的延迟分位数。
+ *
+ * <p>需要可用的 PostgreSQL 和 Redis，与本地运行应用相同（Docker Compose 或 {@code spring.datasource.url} 等配置）：
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="ThreadingModeBenchmark"
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="ThreadingModeBenchmark.chats -bm sample"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(256)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ThreadingModeBenchmark {
+
+  private static final String PASSWORD = "Benchmark123!";
+
+  @Param({"platform", "virtual"})
+  public String mode;
+
+  private ConfigurableApplicationContext context;
+  private URI baseUri;
+  private String username;
+
+  /** 保存登录会话，{@link #chats} 的所有线程共用同一个会话 */
+  private HttpClient sessionClient;
+
+  /** 不保存 Cookie，每次登录都创建新会话 */
+  private HttpClient anonymousClient;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException, InterruptedException {
+    // 命令行参数的优先级高于 application.yml，默认属性（properties）会被配置文件覆盖
+    context =
+        new SpringApplicationBuilder(YouchatApplication.class)
+            .run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + "virtual".equals(mode),
+                "--spring.main.banner-mode=off",
+                "--logging.level.top.phakeandy.youchat=WARN",
+                // 所有请求来自同一 IP 和用户名，限流会让登录基准测试只测到 429
+                "--youchat.auth.login-limit.enabled=false");
+    int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+    baseUri = URI.create("http://localhost:" + port);
+    sessionClient =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .cookieHandler(new CookieManager())
+            .build();
+    anonymousClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    username = "bench_" + UUID.randomUUID().toString().substring(0, 8);
+    expect(
+        201,
+        post(
+            sessionClient,
+            "/api/v1/auth/register",
+            """
+            {"username": "%s", "password": "%s", "confirmPassword": "%s", "nickname": "bench"}
+            """
+                .formatted(username, PASSWORD, PASSWORD)));
+    expect(200, login(sessionClient));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public void chats(Outcomes outcomes) throws IOException, InterruptedException {
+    outcomes.count(
+        sessionClient.send(
+            HttpRequest.newBuilder(baseUri.resolve("/api/v1/chats/scroll?size=20")).build(),
+            HttpResponse.BodyHandlers.discarding()));
+  }
+
+  @Benchmark
+  public void login(Outcomes outcomes) throws IOException, InterruptedException {
+    outcomes.count(login(anonymousClient));
+  }
+
+  /** 每个线程的请求结果计数，JMH 汇总后与吞吐量一起输出 */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Outcomes {
+
+    public long ok;
+    public long busy;
+
+    /** 除 200 和 503 外的状态码说明基准测试本身有问题，直接失败 */
+    void count(HttpResponse<Void> response) {
+      switch (response.statusCode()) {
+        case 200 -> ok++;
+        case 503 -> busy++;
+        default -> throw unexpected(200, response);
+      }
+    }
+  }
+
+  private HttpResponse<Void> login(HttpClient client) throws IOException, InterruptedException {
+    return post(
+        client,
+        "/api/v1/auth/login",
+        """
+        {"username": "%s", "password": "%s"}
+        """
+            .formatted(username, PASSWORD));
+  }
+
+  private HttpResponse<Void> post(HttpClient client, String path, String json)
+      throws IOException, InterruptedException {
+    return client.send(
+        HttpRequest.newBuilder(baseUri.resolve(path))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build(),
+        HttpResponse.BodyHandlers.discarding());
+  }
+
+  private static void expect(int status, HttpResponse<Void> response) {
+    if (response.statusCode() != status) {
+      throw unexpected(status, response);
+    }
+  }
+
+  private static IllegalStateException unexpected(int status, HttpResponse<Void> response) {
+    return new IllegalStateException(
+        "Expected " + status + " but was " + response.statusCode() + " for " + response.uri());
+  }
+}
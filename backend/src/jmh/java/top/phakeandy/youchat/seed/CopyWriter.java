@@ -0,0 +1,97 @@
+package top.phakeandy.youchat.seed;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * 以 {@code COPY ... FROM STDIN} 文本格式向一张表流式写入行
+ *
+ * <p>按列调用 {@code value}，每行以 {@link #endRow} 结束；缓冲区超过 64KB 时发送给服务端，内存占用与总行数无关。
+ */
+final class CopyWriter implements AutoCloseable {
+
+  private static final int FLUSH_CHARS = 1 << 16;
+
+  private final CopyIn copyIn;
+  private final StringBuilder buffer = new StringBuilder(FLUSH_CHARS + 4096);
+  private boolean firstColumn = true;
+
+  CopyWriter(Connection connection, String table, String... columns) throws SQLException {
+    this.copyIn =
+        connection
+            .unwrap(PGConnection.class)
+            .getCopyAPI()
+            .copyIn("COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN");
+  }
+
+  CopyWriter value(long value) {
+    separate();
+    buffer.append(value);
+    return this;
+  }
+
+  CopyWriter value(String value) {
+    separate();
+    if (value == null) {
+      buffer.append("\\N");
+      return this;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '\\' -> buffer.append("\\\\");
+        case '\t' -> buffer.append("\\t");
+        case '\n' -> buffer.append("\\n");
+        case '\r' -> buffer.append("\\r");
+        default -> buffer.append(c);
+      }
+    }
+    return this;
+  }
+
+  /** ISO-8601 UTC 时间，PostgreSQL 直接解析为 TIMESTAMPTZ */
+  CopyWriter timestamp(long epochMillis) {
+    separate();
+    buffer.append(Instant.ofEpochMilli(epochMillis));
+    return this;
+  }
+
+  void endRow() throws SQLException {
+    buffer.append('\n');
+    firstColumn = true;
+    if (buffer.length() >= FLUSH_CHARS) {
+      flush();
+    }
+  }
+
+  /** 结束 COPY，返回服务端确认写入的行数 */
+  long finish() throws SQLException {
+    flush();
+    return copyIn.endCopy();
+  }
+
+  /** 未调用 {@link #finish} 时取消 COPY，已发送的行全部回滚 */
+  @Override
+  public void close() throws SQLException {
+    if (copyIn.isActive()) {
+      copyIn.cancelCopy();
+    }
+  }
+
+  private void separate() {
+    if (!firstColumn) {
+      buffer.append('\t');
+    }
+    firstColumn = false;
+  }
+
+  private void flush() throws SQLException {
+    byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+    copyIn.writeToCopy(bytes, 0, bytes.length);
+    buffer.setLength(0);
+  }
+}
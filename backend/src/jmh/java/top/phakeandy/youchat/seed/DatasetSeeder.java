@@ -0,0 +1,498 @@
+package top.phakeandy.youchat.seed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import net.datafaker.Faker;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.context.properties.bind.Binder;
+import top.phakeandy.youchat.config.PasswordEncoderConfig;
+import top.phakeandy.youchat.config.PasswordProperties;
+import top.phakeandy.youchat.message.ConversationIds;
+import top.phakeandy.youchat.message.MessageContent;
+
+/**
+ * 生成基准测试用的大规模数据集，用 {@code COPY FROM STDIN} 并行写入 users、chat_groups、friendships、group_members、conversations 和
+ * messages
+ *
+ * <p>关系由 {@link SyntheticGraph} 按 Zipf 分布生成：少数群很大、少数用户好友很多且发言频繁。消息均匀分布在最近 {@code months} 个月，
+ * 按时间切片并行生成，每个切片使用独立的节点号（512 起，避开应用节点）按 {@code MessageIdGenerator} 的布局分配 ID，ID 与时间一致且全局唯一。
+ * 所有用户共用一个预先计算的密码哈希。
+ *
+ * <p>数据追加在已有数据之后，不清空任何表；目标库会先执行 Flyway 迁移。写入后同步各表的序列、为新会话生成会话摘要并执行 ANALYZE。
+ * 参数见 {@link SeedSettings}：
+ *
+ * <pre>
+ * script/seed.sh --users=1000000 --groups=100000 --messages=500000000
+ * </pre>
+ */
+@Slf4j
+public final class DatasetSeeder {
+
+  private static final long USER_ROW_STREAM = 3;
+  private static final long GROUP_ROW_STREAM = 4;
+  private static final long FRIENDSHIP_ROW_STREAM = 5;
+  private static final long MESSAGE_STREAM = 6;
+
+  private static final long YEAR_MILLIS = TimeUnit.DAYS.toMillis(365);
+  private static final int POOL_SIZE = 1000;
+
+  // 与 MessageIdGenerator 相同的布局：41 位毫秒时间戳 | 10 位节点号 | 12 位序列号
+  private static final long ID_EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+  private static final int NODE_BITS = 10;
+  private static final int SEQUENCE_BITS = 12;
+  private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+  private static final int FIRST_SEED_NODE = 512;
+  private static final int MAX_MESSAGE_SLICES = (1 << NODE_BITS) - FIRST_SEED_NODE;
+
+  private static final String[] SERIAL_TABLES = {
+    "users", "chat_groups", "group_members", "conversations"
+  };
+
+  private final SeedSettings settings;
+  private final ExecutorService executor;
+  private final String passwordHash;
+  private final List<String> nicknames = new ArrayList<>();
+  private final List<String> messageContents = new ArrayList<>();
+  private final long messagesFrom;
+  private final long messagesTo;
+  private SyntheticGraph graph;
+
+  private DatasetSeeder(SeedSettings settings, ExecutorService executor)
+      throws JsonProcessingException {
+    this.settings = settings;
+    this.executor = executor;
+    this.passwordHash =
+        PasswordEncoderConfig.delegatingPasswordEncoder(
+                new Binder().bindOrCreate("youchat.password", PasswordProperties.class))
+            .encode(settings.userPassword());
+
+    ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+    this.messagesTo = now.toInstant().toEpochMilli();
+    this.messagesFrom = now.minusMonths(settings.months()).toInstant().toEpochMilli();
+    if (messagesFrom < ID_EPOCH_MILLIS) {
+      throw new IllegalArgumentException("Messages must not be older than " + ID_EPOCH_MILLIS);
+    }
+
+    // 逐行调用 Datafaker 太慢，预先生成一批昵称和消息文本循环使用
+    Faker faker = new Faker(Locale.CHINA, new Random(settings.randomSeed()));
+    ObjectMapper objectMapper = new ObjectMapper();
+    for (int i = 0; i < POOL_SIZE; i++) {
+      nicknames.add(faker.name().fullName());
+      String text = faker.lorem().sentence(1 + faker.random().nextInt(20));
+      messageContents.add(objectMapper.writeValueAsString(new MessageContent(text, null)));
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    SeedSettings settings = SeedSettings.parse(args);
+    ExecutorService executor = Executors.newFixedThreadPool(settings.parallelism());
+    try {
+      new DatasetSeeder(settings, executor).run();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void run() throws Exception {
+    Flyway.configure()
+        .dataSource(settings.jdbcUrl(), settings.dbUser(), settings.dbPassword())
+        .load()
+        .migrate();
+
+    SyntheticGraph.IdBase base;
+    try (Connection connection = connect()) {
+      base =
+          new SyntheticGraph.IdBase(
+              maxId(connection, "users"),
+              maxId(connection, "chat_groups"),
+              maxId(connection, "group_members"),
+              maxId(connection, "conversations"));
+      createPartitions(connection);
+    }
+
+    long start = System.nanoTime();
+    graph = new SyntheticGraph(settings, base, executor);
+    log.info(
+        "Generated {} users, {} friendships, {} groups with {} members in {} ms",
+        graph.userCount(),
+        graph.friendshipCount(),
+        graph.groupCount(),
+        graph.memberCount(),
+        elapsedMillis(start));
+
+    // 按外键依赖分阶段写入，同一阶段内的表和分段并行
+    phase("users", chunks(graph.userCount(), this::writeUsers));
+    List<Callable<Long>> groupsAndFriendships = new ArrayList<>();
+    groupsAndFriendships.addAll(chunks(graph.groupCount(), this::writeGroups));
+    groupsAndFriendships.addAll(chunks(graph.userCount(), this::writeFriendships));
+    phase("chat_groups, friendships", groupsAndFriendships);
+    List<Callable<Long>> membersAndConversations = new ArrayList<>();
+    membersAndConversations.addAll(chunks(graph.groupCount(), this::writeMembers));
+    membersAndConversations.addAll(chunks(graph.groupCount(), this::writeGroupConversations));
+    membersAndConversations.addAll(chunks(graph.userCount(), this::writeDirectConversations));
+    phase("group_members, conversations", membersAndConversations);
+    phase("messages", messageSlices());
+
+    syncSequences();
+    phase("conversation_summaries", summaryRanges(base.conversation()));
+    try (Connection connection = connect();
+        Statement statement = connection.createStatement()) {
+      statement.execute(
+          "ANALYZE users, chat_groups, friendships, group_members, conversations, messages,"
+              + " conversation_summaries");
+    }
+    log.info("Seeding finished in {} s", elapsedMillis(start) / 1000);
+  }
+
+  private long writeUsers(Connection connection, int from, int to) throws SQLException {
+    try (CopyWriter copy =
+        new CopyWriter(
+            connection,
+            "users",
+            "id",
+            "username",
+            "password",
+            "nickname",
+            "avatar_url",
+            "created_at",
+            "updated_at")) {
+      for (int user = from; user < to; user++) {
+        SplittableRandom random = graph.random(USER_ROW_STREAM, user);
+        long id = graph.userId(user);
+        long createdAt = messagesFrom - random.nextLong(YEAR_MILLIS);
+        copy.value(id)
+            .value("seed" + id)
+            .value(passwordHash)
+            .value(nicknames.get(random.nextInt(POOL_SIZE)))
+            .value("default-avatar.png")
+            .timestamp(createdAt)
+            .timestamp(createdAt)
+            .endRow();
+      }
+      return copy.finish();
+    }
+  }
+
+  private long writeGroups(Connection connection, int from, int to) throws SQLException {
+    try (CopyWriter copy =
+        new CopyWriter(
+            connection, "chat_groups", "id", "name", "owner_id", "created_at", "updated_at")) {
+      for (int group = from; group < to; group++) {
+        // 第一个随机数是创建时间，与 groupCreatedAt 一致
+        SplittableRandom random = graph.random(GROUP_ROW_STREAM, group);
+        long createdAt = messagesFrom - random.nextLong(1, YEAR_MILLIS);
+        copy.value(graph.groupId(group))
+            .value(nicknames.get(random.nextInt(POOL_SIZE)) + "的群聊")
+            .value(graph.userId(graph.members(group)[0]))
+            .timestamp(createdAt)
+            .timestamp(createdAt)
+            .endRow();
+      }
+      return copy.finish();
+    }
+  }
+
+  private long writeFriendships(Connection connection, int from, int to) throws SQLException {
+    try (CopyWriter copy =
+        new CopyWriter(connection, "friendships", "user1_id", "user2_id", "created_at", "updated_at")) {
+      for (int user = from; user < to; user++) {
+        SplittableRandom random = graph.random(FRIENDSHIP_ROW_STREAM, user);
+        long id = graph.userId(user);
+        for (int friend : graph.friends(user)) {
+          long friendId = graph.userId(friend);
+          long createdAt = messagesFrom - random.nextLong(YEAR_MILLIS);
+          copy.value(Math.min(id, friendId))
+              .value(Math.max(id, friendId))
+              .timestamp(createdAt)
+              .timestamp(createdAt)
+              .endRow();
+        }
+      }
+      return copy.finish();
+    }
+  }
+
+  private long writeMembers(Connection connection, int from, int to) throws SQLException {
+    try (CopyWriter copy =
+        new CopyWriter(
+            connection,
+            "group_members",
+            "id",
+            "group_id",
+            "user_id",
+            "role",
+            "created_at",
+            "updated_at")) {
+      for (int group = from; group < to; group++) {
+        long createdAt = groupCreatedAt(group);
+        int[] members = graph.members(group);
+        for (int i = 0; i < members.length; i++) {
+          copy.value(graph.memberId(group, i))
+              .value(graph.groupId(group))
+              .value(graph.userId(members[i]))
+              .value(i == 0 ? "owner" : "member")
+              .timestamp(createdAt)
+              .timestamp(createdAt)
+              .endRow();
+        }
+      }
+      return copy.finish();
+    }
+  }
+
+  private long writeGroupConversations(Connection connection, int from, int to)
+      throws SQLException {
+    try (CopyWriter copy =
+        new CopyWriter(connection, "conversations", "id", "conversation_key", "created_at")) {
+      for (int group = from; group < to; group++) {
+        copy.value(graph.groupConversationId(group))
+            .value(ConversationIds.group(graph.groupId(group)))
+            .timestamp(groupCreatedAt(group))
+            .endRow();
+      }
+      return copy.finish();
+    }
+  }
+
+  /** 每对好友登记一个私聊会话，没有消息的会话只占注册表中的一行 */
+  private long writeDirectConversations(Connection connection, int from, int to)
+      throws SQLException {
+    try (CopyWriter copy =
+        new CopyWriter(connection, "conversations", "id", "conversation_key", "created_at")) {
+      for (int user = from; user < to; user++) {
+        int[] friends = graph.friends(user);
+        for (int i = 0; i < friends.length; i++) {
+          copy.value(graph.directConversationId(user, i))
+              .value(ConversationIds.direct(graph.userId(user), graph.userId(friends[i])))
+              .timestamp(messagesFrom)
+              .endRow();
+        }
+      }
+      return copy.finish();
+    }
+  }
+
+  /**
+   * 把消息时间范围等分成若干切片，每个切片按时间顺序生成消息
+   *
+   * <p>群消息按群的排名抽取会话（大群更活跃），发送者是群内随机成员；私信按活跃度抽取用户，再从其好友中选一个会话。
+   */
+  private List<Callable<Long>> messageSlices() {
+    int slices =
+        (int) Math.clamp(settings.messages() / 100_000, 1, Math.min(MAX_MESSAGE_SLICES, settings.parallelism() * 8L));
+    double groupShare =
+        graph.friendshipCount() == 0 ? 1 : graph.groupCount() == 0 ? 0 : settings.groupMessageShare();
+    if (graph.friendshipCount() == 0 && graph.groupCount() == 0 && settings.messages() > 0) {
+      throw new IllegalArgumentException("Messages need at least one group or friendship");
+    }
+    ZipfDistribution groupActivity =
+        new ZipfDistribution(Math.max(1, graph.groupCount()), settings.groupSizeExponent());
+    long sliceMillis = (messagesTo - messagesFrom) / slices;
+
+    List<Callable<Long>> tasks = new ArrayList<>();
+    for (int slice = 0; slice < slices; slice++) {
+      long node = FIRST_SEED_NODE + slice;
+      long sliceStart = messagesFrom + slice * sliceMillis;
+      long count = settings.messages() / slices + (slice < settings.messages() % slices ? 1 : 0);
+      SplittableRandom random = graph.random(MESSAGE_STREAM, slice);
+      tasks.add(
+          () -> {
+            try (Connection connection = connect();
+                CopyWriter copy =
+                    new CopyWriter(
+                        connection,
+                        "messages",
+                        "id",
+                        "conversation_id",
+                        "sender_id",
+                        "type",
+                        "content",
+                        "created_at",
+                        "updated_at")) {
+              long state = 0;
+              for (long i = 0; i < count; i++) {
+                long time = sliceStart + (long) ((i + random.nextDouble()) * sliceMillis / count);
+                // 与 MessageIdGenerator 相同：同一毫秒内序列号用尽时借位到下一毫秒
+                state = Math.max((time - ID_EPOCH_MILLIS) << SEQUENCE_BITS, state + 1);
+                long timestamp = state >>> SEQUENCE_BITS;
+                long id =
+                    timestamp << (NODE_BITS + SEQUENCE_BITS)
+                        | node << SEQUENCE_BITS
+                        | state & SEQUENCE_MASK;
+                long conversationId;
+                int sender;
+                if (random.nextDouble() < groupShare) {
+                  int group = groupActivity.sample(random);
+                  int[] members = graph.members(group);
+                  conversationId = graph.groupConversationId(group);
+                  sender = members[random.nextInt(members.length)];
+                } else {
+                  int user = graph.sampleActiveUser(random);
+                  int[] friends = graph.friends(user);
+                  while (friends.length == 0) {
+                    user = graph.sampleActiveUser(random);
+                    friends = graph.friends(user);
+                  }
+                  int friend = random.nextInt(friends.length);
+                  conversationId = graph.directConversationId(user, friend);
+                  sender = random.nextBoolean() ? user : friends[friend];
+                }
+                long createdAt = ID_EPOCH_MILLIS + timestamp;
+                copy.value(id)
+                    .value(conversationId)
+                    .value(graph.userId(sender))
+                    .value("text")
+                    .value(messageContents.get(random.nextInt(POOL_SIZE)))
+                    .timestamp(createdAt)
+                    .timestamp(createdAt)
+                    .endRow();
+              }
+              return copy.finish();
+            }
+          });
+    }
+    return tasks;
+  }
+
+  /** 与 {@code conversation_summaries} 迁移中的回填语句相同，按会话取最新一条消息 */
+  private List<Callable<Long>> summaryRanges(long baseConversationId) {
+    long total = graph.lastConversationId() - baseConversationId;
+    long chunk = Math.max(1, (total + settings.parallelism() * 4L - 1) / (settings.parallelism() * 4L));
+    List<Callable<Long>> tasks = new ArrayList<>();
+    for (long first = baseConversationId + 1; first <= graph.lastConversationId(); first += chunk) {
+      long from = first;
+      long to = Math.min(graph.lastConversationId(), first + chunk - 1);
+      tasks.add(
+          () -> {
+            try (Connection connection = connect();
+                PreparedStatement statement =
+                    connection.prepareStatement(
+                        """
+                        INSERT INTO conversation_summaries (
+                            conversation_id, user1_id, user2_id, last_message_id,
+                            last_sender_id, message_type, preview, last_message_at)
+                        SELECT c.conversation_key,
+                            CASE WHEN c.conversation_key LIKE 'd\\_%'
+                                THEN split_part(c.conversation_key, '_', 2)::BIGINT END,
+                            CASE WHEN c.conversation_key LIKE 'd\\_%'
+                                THEN split_part(c.conversation_key, '_', 3)::BIGINT END,
+                            m.id, m.sender_id, m.type,
+                            left(coalesce(m.content ->> 'text', ''), 100), m.created_at
+                        FROM conversations AS c
+                        CROSS JOIN LATERAL (
+                            SELECT id, sender_id, type, content, created_at FROM messages
+                            WHERE conversation_id = c.id
+                            ORDER BY id DESC LIMIT 1
+                        ) AS m
+                        WHERE c.id BETWEEN ? AND ?
+                        ON CONFLICT (conversation_id) DO NOTHING
+                        """)) {
+              statement.setLong(1, from);
+              statement.setLong(2, to);
+              return (long) statement.executeUpdate();
+            }
+          });
+    }
+    return tasks;
+  }
+
+  /** 显式写入 ID 后序列不会前进，需要手动推到最大值 */
+  private void syncSequences() throws SQLException {
+    try (Connection connection = connect();
+        Statement statement = connection.createStatement()) {
+      for (String table : SERIAL_TABLES) {
+        statement.execute(
+            "SELECT setval(pg_get_serial_sequence('%1$s', 'id'), max(id)) FROM %1$s"
+                .formatted(table));
+      }
+    }
+  }
+
+  private void createPartitions(Connection connection) throws SQLException {
+    try (PreparedStatement statement =
+        connection.prepareStatement("SELECT create_messages_partition(?)")) {
+      YearMonth last = YearMonth.from(Instant.ofEpochMilli(messagesTo).atZone(ZoneOffset.UTC));
+      for (YearMonth month = YearMonth.from(Instant.ofEpochMilli(messagesFrom).atZone(ZoneOffset.UTC));
+          !month.isAfter(last);
+          month = month.plusMonths(1)) {
+        statement.setObject(1, month.atDay(1));
+        statement.execute();
+      }
+    }
+  }
+
+  private long groupCreatedAt(int group) {
+    return messagesFrom - graph.random(GROUP_ROW_STREAM, group).nextLong(1, YEAR_MILLIS);
+  }
+
+  private void phase(String name, List<Callable<Long>> tasks) throws Exception {
+    long start = System.nanoTime();
+    long rows = 0;
+    for (Future<Long> future : executor.invokeAll(tasks)) {
+      rows += future.get();
+    }
+    long millis = Math.max(1, elapsedMillis(start));
+    log.info("{}: {} rows in {} ms ({} rows/s)", name, rows, millis, rows * 1000 / millis);
+  }
+
+  /** 把 {@code 0..count-1} 分段，每段一个连接、一条 COPY */
+  private List<Callable<Long>> chunks(int count, ChunkWriter writer) {
+    List<Callable<Long>> tasks = new ArrayList<>();
+    int chunk = Math.max(1, (count + settings.parallelism() * 4 - 1) / (settings.parallelism() * 4));
+    for (int start = 0; start < count; start += chunk) {
+      int from = start;
+      int to = Math.min(count, start + chunk);
+      tasks.add(
+          () -> {
+            try (Connection connection = connect()) {
+              return writer.write(connection, from, to);
+            }
+          });
+    }
+    return tasks;
+  }
+
+  @FunctionalInterface
+  private interface ChunkWriter {
+    long write(Connection connection, int from, int to) throws SQLException;
+  }
+
+  private Connection connect() throws SQLException {
+    return DriverManager.getConnection(
+        settings.jdbcUrl(), settings.dbUser(), settings.dbPassword());
+  }
+
+  private static long maxId(Connection connection, String table) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet =
+            statement.executeQuery("SELECT coalesce(max(id), 0) FROM " + table)) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    }
+  }
+
+  private static long elapsedMillis(long startNanos) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+  }
+}
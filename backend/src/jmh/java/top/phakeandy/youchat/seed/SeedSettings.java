@@ -0,0 +1,84 @@
+package top.phakeandy.youchat.seed;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+/**
+ * 数据集规模与分布参数，命令行以 {@code --名称=值} 传入，例如 {@code --users=1000000 --messages=500000000}
+ *
+ * <p>连接参数默认取环境变量 {@code PG_JDBC_URL}、{@code PG_USER}、{@code PG_PASS}，与 {@code .envrc} 相同。
+ *
+ * @param jdbcUrl 目标数据库
+ * @param dbUser 数据库用户
+ * @param dbPassword 数据库密码
+ * @param users 用户数
+ * @param groups 群聊数
+ * @param messages 消息总数
+ * @param months 消息分布在最近几个月内
+ * @param avgFriends 每个用户的平均好友数
+ * @param maxFriends 单个用户主动添加的好友数上限
+ * @param minGroupSize 群成员数下限（含群主）
+ * @param maxGroupSize 最大的群的成员数，第 k 大的群约为它的 1/k^{@code groupSizeExponent}
+ * @param groupSizeExponent 群大小 Zipf 分布的指数，越大小群越多
+ * @param activityExponent 用户活跃度 Zipf 分布的指数，决定好友数、入群概率和发私信的频率
+ * @param groupMessageShare 群消息占全部消息的比例
+ * @param userPassword 所有用户的登录密码，只计算一次哈希
+ * @param threads 并行生成和写入的线程数，每个线程一个数据库连接
+ * @param randomSeed 随机种子，相同参数和种子生成相同的关系和消息分布
+ */
+record SeedSettings(
+    String jdbcUrl,
+    String dbUser,
+    String dbPassword,
+    @DefaultValue("100000") int users,
+    @DefaultValue("10000") int groups,
+    @DefaultValue("5000000") long messages,
+    @DefaultValue("6") int months,
+    @DefaultValue("20") int avgFriends,
+    @DefaultValue("5000") int maxFriends,
+    @DefaultValue("3") int minGroupSize,
+    @DefaultValue("2000") int maxGroupSize,
+    @DefaultValue("1.0") double groupSizeExponent,
+    @DefaultValue("1.0") double activityExponent,
+    @DefaultValue("0.6") double groupMessageShare,
+    @DefaultValue("password123") String userPassword,
+    @DefaultValue("0") int threads,
+    @DefaultValue("42") long randomSeed) {
+
+  static SeedSettings parse(String... args) {
+    Map<String, String> values = new HashMap<>();
+    putIfPresent(values, "jdbc-url", System.getenv("PG_JDBC_URL"));
+    putIfPresent(values, "db-user", System.getenv("PG_USER"));
+    putIfPresent(values, "db-password", System.getenv("PG_PASS"));
+    for (String arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("=")) {
+        throw new IllegalArgumentException("Expected --name=value but got " + arg);
+      }
+      String[] pair = arg.substring(2).split("=", 2);
+      values.put(pair[0], pair[1]);
+    }
+    SeedSettings settings =
+        new Binder(new MapConfigurationPropertySource(values)).bindOrCreate("", SeedSettings.class);
+    if (settings.jdbcUrl() == null) {
+      throw new IllegalArgumentException("Set PG_JDBC_URL or pass --jdbc-url");
+    }
+    if (settings.users() < 2 || settings.minGroupSize() > settings.users()) {
+      throw new IllegalArgumentException("users must be at least 2 and at least min-group-size");
+    }
+    return settings;
+  }
+
+  /** 未配置时使用 CPU 核数 */
+  int parallelism() {
+    return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+  }
+
+  private static void putIfPresent(Map<String, String> values, String name, String value) {
+    if (value != null && !value.isBlank()) {
+      values.put(name, value);
+    }
+  }
+}
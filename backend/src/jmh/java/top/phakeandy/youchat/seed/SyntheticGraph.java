@@ -0,0 +1,200 @@
+package top.phakeandy.youchat.seed;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * 用户、好友关系和群成员的确定性模型，所有表的行都由它按序号生成
+ *
+ * <p>用户按活跃度排名，排名服从 Zipf 分布，并经过一个乘法置换打散到用户序号上，活跃用户不会集中在 ID 最小的一段。好友数、被拉进群的概率和发私信的频率都按活跃度加权。
+ *
+ * <p>好友关系由环上顺时针距离小于 {@code users/2} 的一方生成，任意两人之间最多产生一次，写入时不需要去重。每个用户和每个群使用独立的随机流，
+ * 可以在任意线程中重新生成同一个对象。
+ */
+final class SyntheticGraph {
+
+  /** 各表已有数据的最大 ID，新数据从其后开始编号 */
+  record IdBase(long user, long group, long member, long conversation) {}
+
+  private static final long FRIEND_STREAM = 1;
+  private static final long GROUP_STREAM = 2;
+
+  private final SeedSettings settings;
+  private final IdBase base;
+  private final int userCount;
+  private final ZipfDistribution userActivity;
+  private final long multiplier;
+  private final long inverse;
+
+  /** 每个用户主动添加的好友（用户序号），对方序号在环上位于其后 */
+  private final int[][] friends;
+
+  private final long[] friendOffsets;
+
+  /** 每个群的成员（用户序号），第一个是群主 */
+  private final int[][] members;
+
+  private final long[] memberOffsets;
+
+  SyntheticGraph(SeedSettings settings, IdBase base, ExecutorService executor)
+      throws InterruptedException, ExecutionException {
+    this.settings = settings;
+    this.base = base;
+    this.userCount = settings.users();
+    this.userActivity = new ZipfDistribution(userCount, settings.activityExponent());
+    long m = Math.floorMod(0x9E3779B97F4A7C15L, userCount);
+    while (BigInteger.valueOf(m).gcd(BigInteger.valueOf(userCount)).intValue() != 1) {
+      m++;
+    }
+    this.multiplier = m;
+    this.inverse = BigInteger.valueOf(m).modInverse(BigInteger.valueOf(userCount)).longValue();
+
+    this.friends = new int[userCount][];
+    parallel(executor, userCount, settings.parallelism(), u -> friends[u] = generateFriends(u));
+    this.friendOffsets = prefixSums(friends);
+
+    this.members = new int[settings.groups()][];
+    parallel(
+        executor, settings.groups(), settings.parallelism(), g -> members[g] = generateMembers(g));
+    this.memberOffsets = prefixSums(members);
+  }
+
+  int userCount() {
+    return userCount;
+  }
+
+  int groupCount() {
+    return members.length;
+  }
+
+  long userId(int user) {
+    return base.user() + user + 1;
+  }
+
+  long groupId(int group) {
+    return base.group() + group + 1;
+  }
+
+  int[] friends(int user) {
+    return friends[user];
+  }
+
+  int[] members(int group) {
+    return members[group];
+  }
+
+  long friendshipCount() {
+    return friendOffsets[userCount];
+  }
+
+  long memberCount() {
+    return memberOffsets[members.length];
+  }
+
+  /** 群内第 i 个成员在 group_members 中的 ID */
+  long memberId(int group, int index) {
+    return base.member() + memberOffsets[group] + index + 1;
+  }
+
+  /** 会话 ID 先分给所有群聊，再按好友关系的顺序分给私聊 */
+  long groupConversationId(int group) {
+    return base.conversation() + group + 1;
+  }
+
+  long directConversationId(int user, int friendIndex) {
+    return base.conversation() + members.length + friendOffsets[user] + friendIndex + 1;
+  }
+
+  long lastConversationId() {
+    return base.conversation() + members.length + friendshipCount();
+  }
+
+  /** 按活跃度抽取一个用户序号 */
+  int sampleActiveUser(SplittableRandom random) {
+    return permute(userActivity.sample(random), inverse);
+  }
+
+  /** 排名越靠前的群越大，群的活跃度也按排名服从同一 Zipf 分布 */
+  int groupSize(int group) {
+    long size = Math.round(settings.maxGroupSize() * Math.pow(group + 1.0, -settings.groupSizeExponent()));
+    return (int) Math.clamp(size, settings.minGroupSize(), Math.min(settings.maxGroupSize(), userCount));
+  }
+
+  /** 同一实体（用户或群）在任何线程中得到相同的随机流 */
+  SplittableRandom random(long stream, long index) {
+    return new SplittableRandom(settings.randomSeed() ^ stream << 48 ^ index);
+  }
+
+  private int[] generateFriends(int user) {
+    SplittableRandom random = random(FRIEND_STREAM, user);
+    int maxDistance = (userCount - 1) / 2;
+    double expected =
+        settings.avgFriends() / 2.0 * userActivity.weight(permute(user, multiplier));
+    int count =
+        (int) Math.min(Math.min(settings.maxFriends(), maxDistance), (long) (expected + random.nextDouble()));
+    Set<Integer> distances = new HashSet<>();
+    while (distances.size() < count) {
+      distances.add(1 + random.nextInt(maxDistance));
+    }
+    return distances.stream().mapToInt(d -> (user + d) % userCount).toArray();
+  }
+
+  private int[] generateMembers(int group) {
+    SplittableRandom random = random(GROUP_STREAM, group);
+    int size = groupSize(group);
+    Set<Integer> chosen = new HashSet<>();
+    int[] result = new int[size];
+    int attempts = 0;
+    for (int i = 0; i < size; attempts++) {
+      // 活跃度很集中时前几百名用户很快被抽完，之后改为均匀抽样
+      int user =
+          attempts < size * 20 ? sampleActiveUser(random) : random.nextInt(userCount);
+      if (chosen.add(user)) {
+        result[i++] = user;
+      }
+    }
+    return result;
+  }
+
+  private int permute(int index, long factor) {
+    return (int) (index * factor % userCount);
+  }
+
+  private static long[] prefixSums(int[][] rows) {
+    long[] offsets = new long[rows.length + 1];
+    for (int i = 0; i < rows.length; i++) {
+      offsets[i + 1] = offsets[i] + rows[i].length;
+    }
+    return offsets;
+  }
+
+  /** 把 {@code 0..count-1} 分成若干段并行处理 */
+  static void parallel(ExecutorService executor, int count, int parallelism, IntConsumer action)
+      throws InterruptedException, ExecutionException {
+    List<Callable<Void>> tasks = new ArrayList<>();
+    int chunk = Math.max(1, (count + parallelism * 4 - 1) / (parallelism * 4));
+    for (int start = 0; start < count; start += chunk) {
+      int from = start;
+      int to = Math.min(count, start + chunk);
+      tasks.add(
+          () -> {
+            for (int i = from; i < to; i++) {
+              action.accept(i);
+            }
+            return null;
+          });
+    }
+    for (Future<Void> future : executor.invokeAll(tasks)) {
+      future.get();
+    }
+  }
+}
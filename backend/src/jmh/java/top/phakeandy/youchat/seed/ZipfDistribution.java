@@ -0,0 +1,45 @@
+package top.phakeandy.youchat.seed;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * 排名 {@code 0..n-1} 上的 Zipf 分布，排名 k 的概率正比于 1/(k+1)^s
+ *
+ * <p>抽样用连续幂律分布的逆变换近似，每次抽样 O(1)，对生成测试数据足够准确。
+ */
+final class ZipfDistribution {
+
+  private final int n;
+  private final double exponent;
+  private final double harmonic;
+
+  ZipfDistribution(int n, double exponent) {
+    if (n < 1 || exponent < 0) {
+      throw new IllegalArgumentException("n must be positive and exponent must not be negative");
+    }
+    this.n = n;
+    this.exponent = exponent;
+    double sum = 0;
+    for (int k = 1; k <= n; k++) {
+      sum += Math.pow(k, -exponent);
+    }
+    this.harmonic = sum;
+  }
+
+  int sample(RandomGenerator random) {
+    double u = random.nextDouble();
+    double x;
+    if (Math.abs(exponent - 1) < 1e-9) {
+      x = Math.pow(n + 1.0, u);
+    } else {
+      double a = 1 - exponent;
+      x = Math.pow((Math.pow(n + 1.0, a) - 1) * u + 1, 1 / a);
+    }
+    return (int) Math.min(n - 1, Math.max(0, (long) x - 1));
+  }
+
+  /** 排名 k 的相对权重，所有排名的平均值为 1 */
+  double weight(int rank) {
+    return n * Math.pow(rank + 1.0, -exponent) / harmonic;
+  }
+}
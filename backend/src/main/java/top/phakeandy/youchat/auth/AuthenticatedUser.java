@@ -0,0 +1,14 @@
+package top.phakeandy.youchat.auth;
+
+/**
+ * 已认证用户的身份，控制器通过 {@code @AuthenticationPrincipal AuthenticatedUser} 获取
+ *
+ * <p>会话中保存的是只含身份的 {@link UserPrincipal}，需要完整用户信息时按 {@link #getId()} 通过 {@link
+ * CustomUserDetailsService#findById(Long)} 从用户缓存加载。
+ */
+public interface AuthenticatedUser {
+
+  Long getId();
+
+  String getUsername();
+}
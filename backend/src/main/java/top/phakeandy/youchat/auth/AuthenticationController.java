@@ -11,6 +11,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.util.concurrent.CompletableFuture;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -35,6 +36,7 @@ public class AuthenticationController {
 
   private final AuthenticationService authenticationService;
   private final UserService userService;
+  private final BoundedPasswordEncoder passwordEncoder;
 
   @PostMapping("/login")
   @SecurityRequirements
@@ -62,16 +64,23 @@ public class AuthenticationController {
                 @Content(
                     mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
                     schema = @Schema(implementation = ProblemDetail.class))),
+        @ApiResponse(
+            responseCode = "429",
+            description = "同一用户名或 IP 的登录尝试过于频繁，Retry-After 头给出可重试的秒数",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
       })
-  public ResponseEntity<LoginResponse> login(
+  public CompletableFuture<ResponseEntity<LoginResponse>> login(
       @Parameter(description = "登录请求参数，包含用户名和密码", required = true) @Valid @RequestBody
           LoginRequest loginRequest,
       @Parameter(hidden = true) HttpServletRequest request,
       @Parameter(hidden = true) HttpServletResponse response) {
 
-    LoginResponse loginResponse =
-        authenticationService.authenticate(loginRequest, request, response);
-    return ResponseEntity.ok(loginResponse);
+    return authenticationService
+        .authenticate(loginRequest, request, response)
+        .thenApply(ResponseEntity::ok);
   }
 
   @PostMapping("/register")
@@ -102,9 +111,10 @@ public class AuthenticationController {
                     schema = @Schema(implementation = ProblemDetail.class))),
       })
   @ResponseStatus(HttpStatus.CREATED)
-  public RegisterResponse register(
+  public CompletableFuture<RegisterResponse> register(
       @Parameter(description = "用户注册请求参数", required = true) @Valid @RequestBody
           RegisterRequest request) {
-    return userService.createUser(request);
+    // 注册包含密码哈希计算，在哈希线程池上执行，不占用 Servlet 线程
+    return passwordEncoder.supplyAsync(() -> userService.createUser(request));
   }
 }
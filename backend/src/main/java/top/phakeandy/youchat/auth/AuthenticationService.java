@@ -2,12 +2,14 @@ package top.phakeandy.youchat.auth;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.util.concurrent.CompletableFuture;
 import top.phakeandy.youchat.auth.request.LoginRequest;
 import top.phakeandy.youchat.auth.response.LoginResponse;
 
 @SuppressWarnings("PMD.ImplicitFunctionalInterface")
 public interface AuthenticationService {
 
-  LoginResponse authenticate(
+  /** 请求校验和限流在调用线程完成，密码校验和会话写入在哈希线程池上完成 */
+  CompletableFuture<LoginResponse> authenticate(
       LoginRequest loginRequest, HttpServletRequest request, HttpServletResponse response);
 }
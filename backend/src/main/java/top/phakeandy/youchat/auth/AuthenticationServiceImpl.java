@@ -2,6 +2,9 @@ package top.phakeandy.youchat.auth;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -17,6 +20,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import top.phakeandy.youchat.auth.exception.AuthenticationException;
 import top.phakeandy.youchat.auth.exception.InvalidCredentialsException;
+import top.phakeandy.youchat.auth.exception.PasswordHashingBusyException;
 import top.phakeandy.youchat.auth.exception.UserNotFoundException;
 import top.phakeandy.youchat.auth.request.LoginRequest;
 import top.phakeandy.youchat.auth.response.LoginResponse;
@@ -28,12 +32,29 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
   private final AuthenticationManager authenticationManager;
   private final SecurityContextRepository securityContextRepository;
+  private final LoginRateLimiter loginRateLimiter;
+  private final UserSessionRegistry sessionRegistry;
+  private final BoundedPasswordEncoder passwordEncoder;
 
   @Override
-  public LoginResponse authenticate(
+  public CompletableFuture<LoginResponse> authenticate(
       LoginRequest loginRequest, HttpServletRequest request, HttpServletResponse response) {
     validateLoginRequest(loginRequest);
+    // 校验密码之前先限流，被拒绝的尝试不消耗哈希计算
+    // 经过反向代理时 getRemoteAddr() 由 server.forward-headers-strategy 从 X-Forwarded-For 还原为客户端地址
+    LoginRateLimiter.Attempt attempt =
+        loginRateLimiter.acquire(loginRequest.username(), request.getRemoteAddr());
 
+    // 之后的步骤在哈希线程上执行，Servlet 线程立即释放，会话在异步分派时提交
+    return passwordEncoder.supplyAsync(
+        () -> authenticate(loginRequest, attempt, request, response));
+  }
+
+  private LoginResponse authenticate(
+      LoginRequest loginRequest,
+      LoginRateLimiter.Attempt attempt,
+      HttpServletRequest request,
+      HttpServletResponse response) {
     try {
       // 1. 创建未认证的 token
       UsernamePasswordAuthenticationToken authenticationToken =
@@ -43,17 +64,24 @@ public class AuthenticationServiceImpl implements AuthenticationService {
       // 2. 委托 AuthenticationManager 进行认证
       // 如果认证失败，这里会抛出异常
       Authentication authentication = authenticationManager.authenticate(authenticationToken);
+      loginRateLimiter.succeeded(attempt);
 
       // 3. 获取一个新的、干净的 SecurityContext 实例
+      // 会话中只保存用户身份和权限，不保存密码哈希和用户资料
+      UserDetails userDetails = (UserDetails) authentication.getPrincipal();
       SecurityContext context = SecurityContextHolder.createEmptyContext();
-      context.setAuthentication(authentication);
+      context.setAuthentication(
+          UsernamePasswordAuthenticationToken.authenticated(
+              UserPrincipal.from((AuthenticatedUser) userDetails),
+              null,
+              authentication.getAuthorities()));
 
-      // 4. 将新的上下文存入 Holder 和 Repository
-      SecurityContextHolder.setContext(context);
+      // 4. 将新的上下文存入 Repository
+      // 当前是哈希线程，不写入 SecurityContextHolder，避免认证信息残留在线程池线程上
       securityContextRepository.saveContext(context, request, response);
+      registerSession(userDetails, request);
 
       // 5. 提取用户信息并返回
-      UserDetails userDetails = (UserDetails) authentication.getPrincipal();
       log.info("User {} logged in successfully", loginRequest.username());
       return new LoginResponse(userDetails.getUsername(), userDetails.getAuthorities());
 
@@ -61,11 +89,22 @@ public class AuthenticationServiceImpl implements AuthenticationService {
       throw new InvalidCredentialsException("用户名或密码错误", ex);
     } catch (UsernameNotFoundException ex) {
       throw new UserNotFoundException("用户不存在", ex);
+    } catch (PasswordHashingBusyException ex) {
+      throw ex;
     } catch (Exception ex) {
       throw new AuthenticationException("认证过程中发生错误: " + ex.getMessage(), ex);
     }
   }
 
+  /** 登记新会话，超出每个用户的会话数时使最早登录的会话失效 */
+  private void registerSession(UserDetails userDetails, HttpServletRequest request) {
+    HttpSession session = request.getSession(false);
+    if (session != null && userDetails instanceof AuthenticatedUser user) {
+      sessionRegistry.register(
+          user.getId(), session.getId(), Duration.ofSeconds(session.getMaxInactiveInterval()));
+    }
+  }
+
   private void validateLoginRequest(LoginRequest loginRequest) {
     if (!StringUtils.hasText(loginRequest.username())
         || !StringUtils.hasText(loginRequest.password())) {
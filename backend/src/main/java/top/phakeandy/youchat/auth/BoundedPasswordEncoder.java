@@ -0,0 +1,173 @@
+package top.phakeandy.youchat.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import top.phakeandy.youchat.auth.exception.PasswordHashingBusyException;
+import top.phakeandy.youchat.config.PasswordProperties;
+
+/**
+ * 在独立的有界线程池上执行哈希计算的 {@link PasswordEncoder}
+ *
+ * <p>同时进行的哈希计算不超过线程池大小，请求线程等待结果。线程池和队列都已满、或等待超时的请求立即以 {@link PasswordHashingBusyException}
+ * 失败，突发的登录不会让所有 Servlet 线程都卡在哈希计算上。{@link #upgradeEncoding} 不涉及哈希计算，直接在调用线程执行。
+ *
+ * <p>登录和注册通过 {@link #supplyAsync} 把整个流程放到线程池上执行，请求线程立即返回，突发的请求在队列中等待而不占用 Servlet
+ * 线程。流程中的哈希计算直接在当前哈希线程上进行。
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+  private final PasswordEncoder delegate;
+
+  /** 不注册为 Bean，否则会替换掉 Spring Boot 默认的 applicationTaskExecutor */
+  private final ThreadPoolTaskExecutor executor;
+
+  /** 当前线程是否是本线程池的哈希线程，在哈希线程上再提交任务并等待会占满线程池造成死锁 */
+  private final ThreadLocal<Boolean> onHashingThread = ThreadLocal.withInitial(() -> false);
+
+  private final long timeoutNanos;
+  private final Timer encodeTimer;
+  private final Timer matchesTimer;
+  private final Counter rejected;
+
+  public BoundedPasswordEncoder(
+      PasswordEncoder delegate, PasswordProperties.Hashing hashing, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    int poolSize =
+        hashing.poolSize() > 0 ? hashing.poolSize() : Runtime.getRuntime().availableProcessors();
+    this.executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(hashing.queueCapacity());
+    executor.setThreadNamePrefix("password-hash-");
+    executor.setTaskDecorator(
+        task ->
+            () -> {
+              onHashingThread.set(true);
+              try {
+                task.run();
+              } finally {
+                onHashingThread.remove();
+              }
+            });
+    executor.initialize();
+    this.timeoutNanos = hashing.timeout().toNanos();
+    this.encodeTimer = timer(meterRegistry, "encode");
+    this.matchesTimer = timer(meterRegistry, "matches");
+    this.rejected = meterRegistry.counter("youchat.password.rejected");
+    Gauge.builder("youchat.password.queue", executor, ThreadPoolTaskExecutor::getQueueSize)
+        .description("Password hashes waiting for a hashing thread")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return execute(encodeTimer, () -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return execute(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  /**
+   * 在哈希线程池上执行包含哈希计算的整个流程，调用线程不等待
+   *
+   * <p>线程池和队列都已满、或排队超过超时时间仍未开始执行时，返回的 Future 以 {@link PasswordHashingBusyException} 失败；开始执行后不再限制时长。
+   */
+  public <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    long deadline = System.nanoTime() + timeoutNanos;
+    try {
+      executor.execute(
+          () -> {
+            if (System.nanoTime() - deadline > 0) {
+              rejected.increment();
+              result.completeExceptionally(
+                  new PasswordHashingBusyException(new TimeoutException("Queued too long")));
+              return;
+            }
+            try {
+              result.complete(task.get());
+            } catch (RuntimeException e) {
+              result.completeExceptionally(e);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      result.completeExceptionally(new PasswordHashingBusyException(e));
+    }
+    return result;
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdown();
+  }
+
+  /** 计时包含排队时间，即请求线程实际等待的时长；哈希本身抛出的运行时异常原样抛出 */
+  @SuppressWarnings("PMD.PreserveStackTrace")
+  private <T> T execute(Timer timer, Callable<T> task) {
+    long start = System.nanoTime();
+    if (onHashingThread.get()) {
+      try {
+        return task.call();
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new IllegalStateException("Password hashing failed", e);
+      } finally {
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+    }
+    Future<T> future;
+    try {
+      future = executor.submit(task);
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw new PasswordHashingBusyException(e);
+    }
+    try {
+      return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      rejected.increment();
+      throw new PasswordHashingBusyException(e);
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new PasswordHashingBusyException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new IllegalStateException("Password hashing failed", e.getCause());
+    } finally {
+      timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private static Timer timer(MeterRegistry meterRegistry, String operation) {
+    return Timer.builder("youchat.password.hashing")
+        .tag("operation", operation)
+        .description("Time a request thread waits for a password hash, including queueing")
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,41 @@
+package top.phakeandy.youchat.auth;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.time.OffsetDateTime;
+import top.phakeandy.youchat.model.Users;
+
+/**
+ * 缓存中的用户记录，不可变，读取时复制为新的 {@link CustomUserDetails}
+ *
+ * <p>不含密码哈希：记录会写入 Redis，哈希只在认证和修改密码时从数据库读取。从缓存读出的用户密码始终为空。
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+record CachedUser(
+    Long id,
+    String username,
+    String nickname,
+    String avatarUrl,
+    OffsetDateTime createdAt,
+    OffsetDateTime updatedAt) {
+
+  static CachedUser from(Users users) {
+    return new CachedUser(
+        users.getId(),
+        users.getUsername(),
+        users.getNickname(),
+        users.getAvatarUrl(),
+        users.getCreatedAt(),
+        users.getUpdatedAt());
+  }
+
+  CustomUserDetails toUserDetails() {
+    CustomUserDetails details = new CustomUserDetails();
+    details.setId(id);
+    details.setUsername(username);
+    details.setNickname(nickname);
+    details.setAvatarUrl(avatarUrl);
+    details.setCreatedAt(createdAt);
+    details.setUpdatedAt(updatedAt);
+    return details;
+  }
+}
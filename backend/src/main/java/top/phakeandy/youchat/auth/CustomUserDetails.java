@@ -1,5 +1,10 @@
 package top.phakeandy.youchat.auth;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -17,7 +22,7 @@ import top.phakeandy.youchat.model.Users;
 @Setter
 @ToString(callSuper = true)
 @EqualsAndHashCode(callSuper = true)
-public class CustomUserDetails extends Users implements UserDetails {
+public class CustomUserDetails extends Users implements UserDetails, AuthenticatedUser {
 
   private static final long serialVersionUID = 1L;
 
@@ -58,4 +63,29 @@ public class CustomUserDetails extends Users implements UserDetails {
   public boolean isEnabled() {
     return true;
   }
+
+  /** 父类 Users 未实现 Serializable，默认序列化会丢失其全部字段，导致从 Redis 会话恢复的用户 ID 和用户名为 null，因此手动写出父类字段 */
+  @Serial
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    out.writeObject(getId());
+    out.writeObject(getUsername());
+    out.writeObject(getPassword());
+    out.writeObject(getNickname());
+    out.writeObject(getAvatarUrl());
+    out.writeObject(getCreatedAt());
+    out.writeObject(getUpdatedAt());
+  }
+
+  @Serial
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    setId((Long) in.readObject());
+    setUsername((String) in.readObject());
+    setPassword((String) in.readObject());
+    setNickname((String) in.readObject());
+    setAvatarUrl((String) in.readObject());
+    setCreatedAt((OffsetDateTime) in.readObject());
+    setUpdatedAt((OffsetDateTime) in.readObject());
+  }
 }
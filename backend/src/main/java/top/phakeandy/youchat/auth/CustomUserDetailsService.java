@@ -6,6 +6,7 @@ import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -18,18 +19,21 @@ import top.phakeandy.youchat.model.Users;
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
   private final UsersMapper usersMapper;
+  private final UserWriteMapper userWriteMapper;
   private final PasswordEncoder passwordEncoder;
+  private final UserCache userCache;
+  private final PasswordPolicy passwordPolicy;
 
+  /** 认证时需要密码哈希，而缓存中的记录不含哈希，因此总是从数据库读取，读到的记录顺便放入缓存 */
   @Override
   @Transactional(readOnly = true)
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
     log.debug("Loading user by username: {}", username);
 
-    Optional<Users> usersOptional =
-        usersMapper.selectOne(c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(username)));
+    Optional<Users> usersOptional = selectByUsername(username);
 
     if (usersOptional.isEmpty()) {
       log.warn("User not found with username: {}", username);
@@ -38,6 +42,7 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     Users users = usersOptional.get();
     log.debug("User found: {}", users.getUsername());
+    userCache.store(users);
 
     return CustomUserDetails.fromUsers(users);
   }
@@ -46,42 +51,30 @@ public class CustomUserDetailsService implements UserDetailsService {
   public Optional<CustomUserDetails> findByUsername(String username) {
     log.debug("Finding user by username: {}", username);
 
-    return usersMapper
-        .selectOne(c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(username)))
-        .map(CustomUserDetails::fromUsers);
+    return userCache.getByUsername(username, this::selectByUsername);
   }
 
   @Transactional(readOnly = true)
   public Optional<CustomUserDetails> findById(Long id) {
     log.debug("Finding user by id: {}", id);
 
-    return usersMapper.selectByPrimaryKey(id).map(CustomUserDetails::fromUsers);
+    return userCache.getById(id, usersMapper::selectByPrimaryKey);
   }
 
   @Transactional
   public CustomUserDetails createUser(Users users) {
     log.debug("Creating new user: {}", users.getUsername());
 
-    // Validate username uniqueness
-    if (findByUsername(users.getUsername()).isPresent()) {
-      throw new IllegalArgumentException("Username already exists: " + users.getUsername());
-    }
-
     // Validate password
-    validatePassword(users.getPassword());
+    passwordPolicy.validate(users.getPassword());
 
     // Encode password before storing
     users.setPassword(passwordEncoder.encode(users.getPassword()));
 
-    // Insert user (ID will be auto-generated)
-    int result = usersMapper.insertSelective(users);
-    if (result != 1) {
-      throw new RuntimeException("Failed to create user");
-    }
-
-    // Re-fetch the user to get the generated ID
-    return findByUsername(users.getUsername())
-        .orElseThrow(() -> new RuntimeException("Failed to retrieve created user"));
+    // Insert user and read back the generated columns in the same statement
+    // Username uniqueness is enforced by the unique constraint, a duplicate raises
+    // DuplicateKeyException
+    return userCache.store(userWriteMapper.insertSelective(users));
   }
 
   @Transactional
@@ -108,8 +101,10 @@ public class CustomUserDetailsService implements UserDetailsService {
   public void changePassword(Long userId, String oldPassword, String newPassword) {
     log.debug("Changing password for user id: {}", userId);
 
-    CustomUserDetails user =
-        findById(userId)
+    // 缓存中的记录不含密码哈希，旧密码按数据库中的哈希校验
+    Users user =
+        usersMapper
+            .selectByPrimaryKey(userId)
             .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
 
     // Verify old password
@@ -118,69 +113,71 @@ public class CustomUserDetailsService implements UserDetailsService {
     }
 
     // Validate new password
-    validatePassword(newPassword);
+    passwordPolicy.validate(newPassword);
 
     // Update password
     Users usersToUpdate = new Users();
     usersToUpdate.setId(userId);
     usersToUpdate.setPassword(passwordEncoder.encode(newPassword));
 
-    int result = usersMapper.updateByPrimaryKeySelective(usersToUpdate);
-    if (result != 1) {
-      throw new RuntimeException("Failed to update password");
-    }
+    Users updated =
+        userWriteMapper
+            .updateByPrimaryKeySelective(usersToUpdate)
+            .orElseThrow(() -> new RuntimeException("Failed to update password"));
+    userCache.evict(userId, user.getUsername());
+    userCache.store(updated);
   }
 
   @Transactional
   public CustomUserDetails updateUser(CustomUserDetails user) {
     log.debug("Updating user: {}", user.getUsername());
 
-    int result = usersMapper.updateByPrimaryKeySelective(user);
-    if (result != 1) {
-      throw new RuntimeException("Failed to update user");
-    }
+    Users updated =
+        userWriteMapper
+            .updateByPrimaryKeySelective(user)
+            .orElseThrow(() -> new RuntimeException("Failed to update user"));
+    userCache.evict(user.getId(), user.getUsername());
 
-    return findById(user.getId())
-        .orElseThrow(() -> new RuntimeException("Failed to retrieve updated user"));
+    return userCache.store(updated);
   }
 
+  /** 登录成功后哈希算法或成本已过时，由认证流程传入按当前配置重新计算的哈希 */
+  @Override
   @Transactional
-  public boolean existsByUsername(String username) {
-    log.debug("Checking if username exists: {}", username);
-
-    return usersMapper
-        .selectOne(c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(username)))
-        .isPresent();
-  }
-
-  private void validatePassword(String password) {
-    if (password == null || password.trim().isEmpty()) {
-      throw new IllegalArgumentException("Password cannot be null or empty");
-    }
-
-    if (password.length() < 8) {
-      throw new IllegalArgumentException("Password must be at least 8 characters long");
-    }
+  public UserDetails updatePassword(UserDetails user, String newPassword) {
+    log.debug("Upgrading password encoding for user: {}", user.getUsername());
+
+    Long userId =
+        user instanceof CustomUserDetails details
+            ? details.getId()
+            : findByUsername(user.getUsername())
+                .map(CustomUserDetails::getId)
+                .orElseThrow(
+                    () ->
+                        new UsernameNotFoundException(
+                            "User not found with username: " + user.getUsername()));
 
-    if (password.length() > 128) {
-      throw new IllegalArgumentException("Password cannot be longer than 128 characters");
-    }
+    Users usersToUpdate = new Users();
+    usersToUpdate.setId(userId);
+    usersToUpdate.setPassword(newPassword);
 
-    // Add more validation rules as needed
-    if (!password.matches(".*[A-Z].*")) {
-      throw new IllegalArgumentException("Password must contain at least one uppercase letter");
-    }
+    Users updated =
+        userWriteMapper
+            .updateByPrimaryKeySelective(usersToUpdate)
+            .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
+    userCache.evict(userId, updated.getUsername());
+    return userCache.store(updated);
+  }
 
-    if (!password.matches(".*[a-z].*")) {
-      throw new IllegalArgumentException("Password must contain at least one lowercase letter");
-    }
+  @Transactional
+  public boolean existsByUsername(String username) {
+    log.debug("Checking if username exists: {}", username);
 
-    if (!password.matches(".*\\d.*")) {
-      throw new IllegalArgumentException("Password must contain at least one digit");
-    }
+    return findByUsername(username).isPresent();
+  }
 
-    if (!password.matches(".*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>\\/?].*")) {
-      throw new IllegalArgumentException("Password must contain at least one special character");
-    }
+  private Optional<Users> selectByUsername(String username) {
+    return usersMapper.selectOne(
+        c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(username)));
   }
 }
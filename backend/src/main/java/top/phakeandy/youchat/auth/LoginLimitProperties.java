@@ -0,0 +1,47 @@
+package top.phakeandy.youchat.auth;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 登录限流配置
+ *
+ * <p>每次登录尝试先经过本节点的令牌桶，再经过 Redis 中所有节点共享的滑动窗口，两者都通过后才会校验密码。
+ *
+ * @param enabled 是否启用登录限流
+ * @param window 滑动窗口
+ * @param bucket 本节点的令牌桶
+ */
+@ConfigurationProperties(prefix = "youchat.auth.login-limit")
+public record LoginLimitProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue Window window,
+    @DefaultValue Bucket bucket) {
+
+  /**
+   * Redis 滑动窗口，登录成功后清空该用户名的窗口，并从 IP 的窗口中移除这次尝试
+   *
+   * @param size 窗口长度
+   * @param maxAttemptsPerUsername 同一用户名在窗口内的最大尝试次数
+   * @param maxAttemptsPerIp 同一 IP 在窗口内的最大失败次数，成功的登录不计入
+   * @param keyPrefix Redis 键前缀
+   */
+  public record Window(
+      @DefaultValue("15m") Duration size,
+      @DefaultValue("10") int maxAttemptsPerUsername,
+      @DefaultValue("100") int maxAttemptsPerIp,
+      @DefaultValue("youchat:login-limit:") String keyPrefix) {}
+
+  /**
+   * 本节点的令牌桶，用户名和 IP 各一个，拦截突发的尝试而不访问 Redis
+   *
+   * @param capacity 桶容量，即允许的突发次数
+   * @param refillInterval 补充一个令牌的间隔
+   * @param maximumKeys 本节点最多跟踪的用户名和 IP 数
+   */
+  public record Bucket(
+      @DefaultValue("10") int capacity,
+      @DefaultValue("3s") Duration refillInterval,
+      @DefaultValue("100000") long maximumKeys) {}
+}
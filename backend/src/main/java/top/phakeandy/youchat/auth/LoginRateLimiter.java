@@ -0,0 +1,259 @@
+package top.phakeandy.youchat.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import top.phakeandy.youchat.auth.exception.LoginRateLimitedException;
+
+/**
+ * 登录限流，在校验密码之前拒绝暴力破解和撞库请求
+ *
+ * <p>依次检查：
+ *
+ * <ol>
+ *   <li>本节点记录的封禁：Redis 拒绝过的用户名或 IP 在等待时间内直接拒绝，不再访问 Redis；
+ *   <li>本节点的令牌桶：用户名和 IP 各一个，拦截突发的尝试；
+ *   <li>Redis 滑动窗口：所有节点共享，一次脚本调用同时检查并记录用户名和 IP 的尝试次数。
+ * </ol>
+ *
+ * 登录成功后由 {@link #succeeded} 撤销这次尝试在 IP 令牌桶和 IP 窗口中的记录，因此 IP 只累计失败的尝试， 同一出口 IP
+ * 后的大量正常用户不会互相挤占次数。Redis 不可用时放行，密码校验本身仍受哈希线程池限制。
+ */
+@Slf4j
+@Component
+public class LoginRateLimiter {
+
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> SLIDING_WINDOW =
+      RedisScript.of(new ClassPathResource("redis/login-sliding-window.lua"), List.class);
+
+  private final StringRedisTemplate redisTemplate;
+  private final LoginLimitProperties properties;
+  private final Cache<String, TokenBucket> buckets;
+
+  /** 键为用户名或 IP，值为封禁结束的 {@link System#nanoTime()} */
+  private final Cache<String, Long> blockedUntil;
+
+  private final String nodeId = UUID.randomUUID().toString();
+  private final AtomicLong sequence = new AtomicLong();
+  private final Counter allowed;
+  private final Counter rejectedByBlock;
+  private final Counter rejectedByBucket;
+  private final Counter rejectedByWindow;
+  private final Counter failures;
+  private final Timer windowTimer;
+
+  public LoginRateLimiter(
+      StringRedisTemplate redisTemplate,
+      LoginLimitProperties properties,
+      MeterRegistry meterRegistry) {
+    this.redisTemplate = redisTemplate;
+    this.properties = properties;
+    LoginLimitProperties.Bucket bucket = properties.bucket();
+    // 空闲到桶被补满后，丢弃与新建一个满桶等价
+    this.buckets =
+        Caffeine.newBuilder()
+            .maximumSize(bucket.maximumKeys())
+            .expireAfterAccess(bucket.refillInterval().multipliedBy(bucket.capacity()))
+            .build();
+    this.blockedUntil =
+        Caffeine.newBuilder()
+            .maximumSize(bucket.maximumKeys())
+            .expireAfterWrite(properties.window().size())
+            .build();
+    this.allowed = attempts(meterRegistry, "allowed", "none");
+    this.rejectedByBlock = attempts(meterRegistry, "rejected", "block");
+    this.rejectedByBucket = attempts(meterRegistry, "rejected", "bucket");
+    this.rejectedByWindow = attempts(meterRegistry, "rejected", "window");
+    this.failures =
+        Counter.builder("youchat.login.limiter.errors")
+            .description("Login rate limit checks that failed open because Redis was unavailable")
+            .register(meterRegistry);
+    this.windowTimer =
+        Timer.builder("youchat.login.limiter.window")
+            .description("Time spent checking the shared sliding windows in Redis")
+            .register(meterRegistry);
+  }
+
+  /**
+   * 记录一次登录尝试
+   *
+   * @return 这次尝试，登录成功后交给 {@link #succeeded}
+   * @throws LoginRateLimitedException 用户名或 IP 的尝试次数超出限制
+   */
+  public Attempt acquire(String username, String clientIp) {
+    Attempt attempt =
+        new Attempt(userKey(username), "ip:" + clientIp, nodeId + ":" + sequence.incrementAndGet());
+    if (!properties.enabled()) {
+      return attempt;
+    }
+    String userKey = attempt.userKey();
+    String ipKey = attempt.ipKey();
+
+    long now = System.nanoTime();
+    long blocked = Math.max(remainingBlock(userKey, now), remainingBlock(ipKey, now));
+    if (blocked > 0) {
+      rejectedByBlock.increment();
+      throw new LoginRateLimitedException(Duration.ofNanos(blocked));
+    }
+
+    long wait = bucket(ipKey).tryConsume(now);
+    if (wait == 0) {
+      wait = bucket(userKey).tryConsume(now);
+    }
+    if (wait > 0) {
+      rejectedByBucket.increment();
+      throw new LoginRateLimitedException(Duration.ofNanos(wait));
+    }
+
+    List<?> waits;
+    try {
+      waits = windowTimer.record(() -> checkWindows(attempt));
+    } catch (DataAccessException e) {
+      failures.increment();
+      log.warn("Login rate limit check failed, allowing attempt for {}", username, e);
+      return attempt;
+    }
+    long userWait = waits == null ? 0 : ((Number) waits.get(0)).longValue();
+    long ipWait = waits == null ? 0 : ((Number) waits.get(1)).longValue();
+    if (userWait > 0 || ipWait > 0) {
+      block(userKey, userWait, now);
+      block(ipKey, ipWait, now);
+      rejectedByWindow.increment();
+      log.info("Login rate limit exceeded for {} from {}", username, clientIp);
+      throw new LoginRateLimitedException(Duration.ofMillis(Math.max(userWait, ipWait)));
+    }
+    allowed.increment();
+    return attempt;
+  }
+
+  /** 登录成功后清空该用户名的尝试记录，并撤销这次尝试在 IP 令牌桶和 IP 窗口中的记录 */
+  public void succeeded(Attempt attempt) {
+    if (!properties.enabled()) {
+      return;
+    }
+    buckets.invalidate(attempt.userKey());
+    TokenBucket ipBucket = buckets.getIfPresent(attempt.ipKey());
+    if (ipBucket != null) {
+      ipBucket.refund();
+    }
+    String prefix = properties.window().keyPrefix();
+    try {
+      redisTemplate.executePipelined(
+          new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            public Object execute(RedisOperations operations) {
+              operations.delete(prefix + attempt.userKey());
+              operations.opsForZSet().remove(prefix + attempt.ipKey(), attempt.member());
+              return null;
+            }
+          });
+    } catch (DataAccessException e) {
+      log.warn("Failed to reset login attempts for {}", attempt.userKey(), e);
+    }
+  }
+
+  private List<?> checkWindows(Attempt attempt) {
+    LoginLimitProperties.Window window = properties.window();
+    return redisTemplate.execute(
+        SLIDING_WINDOW,
+        List.of(window.keyPrefix() + attempt.userKey(), window.keyPrefix() + attempt.ipKey()),
+        Long.toString(window.size().toMillis()),
+        Integer.toString(window.maxAttemptsPerUsername()),
+        Integer.toString(window.maxAttemptsPerIp()),
+        attempt.member());
+  }
+
+  private long remainingBlock(String key, long now) {
+    Long deadline = blockedUntil.getIfPresent(key);
+    return deadline == null ? 0 : Math.max(0, deadline - now);
+  }
+
+  private void block(String key, long waitMillis, long now) {
+    if (waitMillis > 0) {
+      blockedUntil.put(key, now + TimeUnit.MILLISECONDS.toNanos(waitMillis));
+    }
+  }
+
+  private TokenBucket bucket(String key) {
+    LoginLimitProperties.Bucket bucket = properties.bucket();
+    return buckets.get(
+        key, k -> new TokenBucket(bucket.capacity(), bucket.refillInterval().toNanos()));
+  }
+
+  /** 用户名不区分大小写计数，避免通过变换大小写绕过限制 */
+  private static String userKey(String username) {
+    return "user:" + username.toLowerCase(Locale.ROOT);
+  }
+
+  private static Counter attempts(MeterRegistry meterRegistry, String decision, String stage) {
+    return Counter.builder("youchat.login.attempts")
+        .tag("decision", decision)
+        .tag("stage", stage)
+        .description("Login attempts checked by the rate limiter")
+        .register(meterRegistry);
+  }
+
+  /**
+   * 一次已放行的登录尝试
+   *
+   * @param member 这次尝试在滑动窗口中的唯一标识
+   */
+  public record Attempt(String userKey, String ipKey, String member) {}
+
+  /** 按时间差惰性补充令牌，不需要定时任务 */
+  private static final class TokenBucket {
+
+    private final int capacity;
+    private final long refillNanos;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(int capacity, long refillNanos) {
+      this.capacity = capacity;
+      this.refillNanos = refillNanos;
+      this.tokens = capacity;
+      this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * 尝试取出一个令牌
+     *
+     * @return 0 表示成功，否则为下一个令牌补充前还需等待的纳秒数
+     */
+    synchronized long tryConsume(long now) {
+      // 并发调用的 now 可能早于上次补充的时间
+      if (now > refilledAt) {
+        tokens = Math.min(capacity, tokens + (double) (now - refilledAt) / refillNanos);
+        refilledAt = now;
+      }
+      if (tokens >= 1) {
+        tokens--;
+        return 0;
+      }
+      return Math.max(1, (long) ((1 - tokens) * refillNanos));
+    }
+
+    /** 归还一个令牌 */
+    synchronized void refund() {
+      tokens = Math.min(capacity, tokens + 1);
+    }
+  }
+}
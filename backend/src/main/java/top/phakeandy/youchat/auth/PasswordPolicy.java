@@ -0,0 +1,150 @@
+package top.phakeandy.youchat.auth;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import top.phakeandy.youchat.auth.exception.PasswordPolicyException;
+import top.phakeandy.youchat.config.PasswordProperties;
+
+/**
+ * 密码规则校验
+ *
+ * <p>字符类别表在构造时建好，校验只对密码做一次码点遍历，同时统计长度和出现过的字符类别。密码满足规则时不分配任何对象，不满足时一次返回所有违反的规则，提示信息在构造时生成。
+ */
+public final class PasswordPolicy {
+
+  private static final int ASCII = 128;
+  private static final int UPPERCASE = 1;
+  private static final int LOWERCASE = 1 << 1;
+  private static final int DIGIT = 1 << 2;
+  private static final int SPECIAL = 1 << 3;
+
+  private static final PasswordViolation REQUIRED = new PasswordViolation("required", "密码不能为空");
+  private static final PasswordViolation MISSING_UPPERCASE =
+      new PasswordViolation("missing_uppercase", "密码必须包含大写字母");
+  private static final PasswordViolation MISSING_LOWERCASE =
+      new PasswordViolation("missing_lowercase", "密码必须包含小写字母");
+  private static final PasswordViolation MISSING_DIGIT =
+      new PasswordViolation("missing_digit", "密码必须包含数字");
+  private static final PasswordViolation BLOCKLISTED =
+      new PasswordViolation("blocklisted", "密码过于常见，请更换");
+
+  private final int minLength;
+  private final int maxLength;
+  private final int required;
+  private final PasswordViolation tooShort;
+  private final PasswordViolation tooLong;
+  private final PasswordViolation missingSpecial;
+
+  /** ASCII 字符到类别位的映射，其余字符不属于任何类别 */
+  private final byte[] categories = new byte[ASCII];
+
+  private final Set<String> blocklist = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+  public PasswordPolicy(PasswordProperties.Policy policy) {
+    if (policy.minLength() < 1 || policy.maxLength() < policy.minLength()) {
+      throw new IllegalArgumentException(
+          "Invalid password length range: " + policy.minLength() + "-" + policy.maxLength());
+    }
+    this.minLength = policy.minLength();
+    this.maxLength = policy.maxLength();
+    String specialCharacters = policy.specialCharacters();
+    for (char c = 'A'; c <= 'Z'; c++) {
+      categories[c] = UPPERCASE;
+    }
+    for (char c = 'a'; c <= 'z'; c++) {
+      categories[c] = LOWERCASE;
+    }
+    for (char c = '0'; c <= '9'; c++) {
+      categories[c] = DIGIT;
+    }
+    for (int i = 0; i < specialCharacters.length(); i++) {
+      char c = specialCharacters.charAt(i);
+      if (c >= ASCII || categories[c] != 0) {
+        throw new IllegalArgumentException("Not an ASCII special character: " + c);
+      }
+      categories[c] = SPECIAL;
+    }
+    this.required =
+        (policy.requireUppercase() ? UPPERCASE : 0)
+            | (policy.requireLowercase() ? LOWERCASE : 0)
+            | (policy.requireDigit() ? DIGIT : 0)
+            | (policy.requireSpecial() ? SPECIAL : 0);
+    blocklist.addAll(policy.blocklist());
+    this.tooShort = new PasswordViolation("too_short", "密码长度不能少于" + minLength + "个字符");
+    this.tooLong = new PasswordViolation("too_long", "密码长度不能超过" + maxLength + "个字符");
+    this.missingSpecial =
+        new PasswordViolation("missing_special", "密码必须包含特殊字符（" + specialCharacters + "）");
+  }
+
+  /**
+   * 校验密码
+   *
+   * @return 违反的规则，满足所有规则时为空列表
+   */
+  public List<PasswordViolation> check(CharSequence password) {
+    if (password == null || password.isEmpty()) {
+      return List.of(REQUIRED);
+    }
+
+    int length = 0;
+    int seen = 0;
+    int end = password.length();
+    int i = 0;
+    while (i < end) {
+      int codePoint = Character.codePointAt(password, i);
+      i += Character.charCount(codePoint);
+      length++;
+      if (codePoint < ASCII) {
+        seen |= categories[codePoint];
+      }
+      // 已超出最大长度且所需类别都已出现，剩余部分不会改变结果
+      if (length > maxLength && (seen & required) == required) {
+        break;
+      }
+    }
+
+    int missing = required & ~seen;
+    boolean blocked = !blocklist.isEmpty() && blocklist.contains(password.toString());
+    if (length >= minLength && length <= maxLength && missing == 0 && !blocked) {
+      return List.of();
+    }
+
+    List<PasswordViolation> violations = new ArrayList<>();
+    if (length < minLength) {
+      violations.add(tooShort);
+    }
+    if (length > maxLength) {
+      violations.add(tooLong);
+    }
+    if ((missing & UPPERCASE) != 0) {
+      violations.add(MISSING_UPPERCASE);
+    }
+    if ((missing & LOWERCASE) != 0) {
+      violations.add(MISSING_LOWERCASE);
+    }
+    if ((missing & DIGIT) != 0) {
+      violations.add(MISSING_DIGIT);
+    }
+    if ((missing & SPECIAL) != 0) {
+      violations.add(missingSpecial);
+    }
+    if (blocked) {
+      violations.add(BLOCKLISTED);
+    }
+    return violations;
+  }
+
+  /**
+   * 校验密码，不满足规则时抛出异常
+   *
+   * @throws PasswordPolicyException 包含所有违反的规则
+   */
+  public void validate(CharSequence password) {
+    List<PasswordViolation> violations = check(password);
+    if (!violations.isEmpty()) {
+      throw new PasswordPolicyException(violations);
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package top.phakeandy.youchat.auth;
+
+/**
+ * 密码不满足的一条规则
+ *
+ * @param code 规则标识，供客户端本地化提示
+ * @param message 提示信息
+ */
+public record PasswordViolation(String code, String message) {}
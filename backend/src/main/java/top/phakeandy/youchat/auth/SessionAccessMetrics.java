@@ -0,0 +1,96 @@
+package top.phakeandy.youchat.auth;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.session.Session;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * 统计每个 HTTP 请求读写 Redis 会话的次数
+ *
+ * <p>作为过滤器包在 Spring Session 的过滤器外层，请求结束（会话已写回）时记录本请求的读写次数；读写由 {@link ThrottledSessionRepository}
+ * 上报。 不在请求线程中的会话访问不计入。
+ *
+ * <p>同时保存本请求已读出的会话：Spring Session 取得会话后会清掉自己的缓存，提交会话时再按 ID 读一次，由 {@link ThrottledSessionRepository}
+ * 复用这里的会话，每个请求只读一次 Redis。
+ */
+public class SessionAccessMetrics extends OncePerRequestFilter {
+
+  private final ThreadLocal<RequestAccess> current = new ThreadLocal<>();
+  private final DistributionSummary reads;
+  private final DistributionSummary writes;
+
+  public SessionAccessMetrics(MeterRegistry meterRegistry) {
+    this.reads = summary(meterRegistry, "read");
+    this.writes = summary(meterRegistry, "write");
+  }
+
+  void recordRead() {
+    RequestAccess access = current.get();
+    if (access != null) {
+      access.reads++;
+    }
+  }
+
+  void recordWrite() {
+    RequestAccess access = current.get();
+    if (access != null) {
+      access.writes++;
+    }
+  }
+
+  /** 本请求已读出的会话，不在请求线程中或 ID 不同时返回 {@code null} */
+  Session requestedSession(String id) {
+    RequestAccess access = current.get();
+    return access != null && access.session != null && access.session.getId().equals(id)
+        ? access.session
+        : null;
+  }
+
+  void rememberSession(Session session) {
+    RequestAccess access = current.get();
+    if (access != null) {
+      access.session = session;
+    }
+  }
+
+  /** 会话被删除后不再复用；删除的是其他会话（例如淘汰同一用户的旧会话）时保留本请求的会话 */
+  void forgetSession(String id) {
+    if (requestedSession(id) != null) {
+      rememberSession(null);
+    }
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    RequestAccess access = new RequestAccess();
+    current.set(access);
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      current.remove();
+      reads.record(access.reads);
+      writes.record(access.writes);
+    }
+  }
+
+  private static DistributionSummary summary(MeterRegistry meterRegistry, String operation) {
+    return DistributionSummary.builder("youchat.session.redis.operations")
+        .tag("operation", operation)
+        .description("Redis session reads or writes performed by a single HTTP request")
+        .register(meterRegistry);
+  }
+
+  private static final class RequestAccess {
+    private int reads;
+    private int writes;
+    private Session session;
+  }
+}
@@ -0,0 +1,18 @@
+package top.phakeandy.youchat.auth;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 会话管理配置
+ *
+ * @param lastAccessGranularity 最后访问时间写回 Redis 的最小间隔，间隔内的请求不写会话；会话最多比超时时间提前这么久过期，应远小于会话超时
+ * @param maximumSessions 每个用户同时有效的会话数，超出时使最早登录的会话失效
+ * @param registryKeyPrefix 记录每个用户会话的 Redis 有序集合的键前缀
+ */
+@ConfigurationProperties(prefix = "youchat.session")
+public record SessionManagementProperties(
+    @DefaultValue("1m") Duration lastAccessGranularity,
+    @DefaultValue("1") int maximumSessions,
+    @DefaultValue("youchat:session:user:") String registryKeyPrefix) {}
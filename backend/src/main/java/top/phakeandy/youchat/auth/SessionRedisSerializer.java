@@ -0,0 +1,98 @@
+package top.phakeandy.youchat.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.jackson2.SecurityJackson2Modules;
+
+/**
+ * 会话属性的 Redis 序列化器，以 JSON 代替 JDK 序列化
+ *
+ * <p>反序列化只接受 Spring Security 白名单中的类型和 {@link UserPrincipal}。升级前以 JDK 序列化写入的会话仍可读取，其中的 {@link
+ * CustomUserDetails} 被替换为 {@link UserPrincipal}，下次写入时转为 JSON。JSON 无法表示的属性退回 JDK 序列化并记录日志。
+ */
+@Slf4j
+public class SessionRedisSerializer implements RedisSerializer<Object> {
+
+  /** JDK 序列化流的魔数，JSON 不会以该字节开头 */
+  private static final byte JDK_STREAM_MAGIC = (byte) 0xAC;
+
+  private final ObjectMapper objectMapper;
+  private final JdkSerializationRedisSerializer jdk;
+  private final DistributionSummary jsonSize;
+  private final DistributionSummary jdkSize;
+
+  public SessionRedisSerializer(ClassLoader classLoader, MeterRegistry meterRegistry) {
+    this.objectMapper = new ObjectMapper();
+    objectMapper.registerModules(SecurityJackson2Modules.getModules(classLoader));
+    this.jdk = new JdkSerializationRedisSerializer(classLoader);
+    this.jsonSize = size(meterRegistry, "json");
+    this.jdkSize = size(meterRegistry, "jdk");
+  }
+
+  @Override
+  public byte[] serialize(Object value) {
+    if (value == null) {
+      return new byte[0];
+    }
+    try {
+      byte[] bytes = objectMapper.writeValueAsBytes(value);
+      jsonSize.record(bytes.length);
+      return bytes;
+    } catch (IOException e) {
+      log.warn(
+          "Session attribute {} is not JSON serializable, using JDK serialization",
+          value.getClass().getName(),
+          e);
+      byte[] bytes = jdk.serialize(value);
+      jdkSize.record(bytes.length);
+      return bytes;
+    }
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) {
+    if (bytes == null || bytes.length == 0) {
+      return null;
+    }
+    if (bytes[0] == JDK_STREAM_MAGIC) {
+      return slim(jdk.deserialize(bytes));
+    }
+    try {
+      return objectMapper.readValue(bytes, Object.class);
+    } catch (IOException e) {
+      throw new SerializationException("Could not read session attribute from JSON", e);
+    }
+  }
+
+  /** 将旧会话中带完整用户信息的认证令牌替换为只含身份的令牌 */
+  private static Object slim(Object value) {
+    if (value instanceof SecurityContext context
+        && context.getAuthentication() instanceof Authentication authentication
+        && authentication.getPrincipal() instanceof CustomUserDetails user) {
+      UsernamePasswordAuthenticationToken token =
+          UsernamePasswordAuthenticationToken.authenticated(
+              UserPrincipal.from(user), null, authentication.getAuthorities());
+      token.setDetails(authentication.getDetails());
+      return new SecurityContextImpl(token);
+    }
+    return value;
+  }
+
+  private static DistributionSummary size(MeterRegistry meterRegistry, String format) {
+    return DistributionSummary.builder("youchat.session.attribute.size")
+        .baseUnit("bytes")
+        .tag("format", format)
+        .description("Serialized size of session attributes written to Redis")
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,153 @@
+package top.phakeandy.youchat.auth;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+/**
+ * 减少会话写回的 {@link SessionRepository} 装饰器
+ *
+ * <p>Spring Session 每个请求都会更新最后访问时间，即使属性没有变化也要写回 Redis 并刷新过期时间。本装饰器只在距上次写入的访问时间超过 {@code
+ * lastAccessGranularity} 时才接受新的访问时间，会话没有任何修改时不调用被装饰仓库的保存。依赖 {@code save-mode: on-set-attribute}：
+ * 只有调用 {@code setAttribute} 的属性修改会被保存。
+ */
+public class ThrottledSessionRepository<S extends Session>
+    implements SessionRepository<ThrottledSessionRepository.ThrottledSession<S>> {
+
+  private final SessionRepository<S> delegate;
+  private final Duration lastAccessGranularity;
+  private final SessionAccessMetrics metrics;
+
+  public ThrottledSessionRepository(
+      SessionRepository<S> delegate, Duration lastAccessGranularity, SessionAccessMetrics metrics) {
+    this.delegate = delegate;
+    this.lastAccessGranularity = lastAccessGranularity;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public ThrottledSession<S> createSession() {
+    return new ThrottledSession<>(delegate.createSession(), lastAccessGranularity, true);
+  }
+
+  @Override
+  public void save(ThrottledSession<S> session) {
+    if (!session.dirty) {
+      return;
+    }
+    metrics.recordWrite();
+    delegate.save(session.delegate);
+    session.dirty = false;
+  }
+
+  /** 同一请求内重复读取同一会话时直接返回已读出的会话 */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ThrottledSession<S> findById(String id) {
+    Session requested = metrics.requestedSession(id);
+    if (requested != null) {
+      return (ThrottledSession<S>) requested;
+    }
+    metrics.recordRead();
+    S session = delegate.findById(id);
+    if (session == null) {
+      return null;
+    }
+    ThrottledSession<S> throttled = new ThrottledSession<>(session, lastAccessGranularity, false);
+    metrics.rememberSession(throttled);
+    return throttled;
+  }
+
+  @Override
+  public void deleteById(String id) {
+    metrics.recordWrite();
+    metrics.forgetSession(id);
+    delegate.deleteById(id);
+  }
+
+  /** 记录会话是否被修改的包装 */
+  public static final class ThrottledSession<S extends Session> implements Session {
+
+    private final S delegate;
+    private final Duration lastAccessGranularity;
+    private boolean dirty;
+
+    ThrottledSession(S delegate, Duration lastAccessGranularity, boolean dirty) {
+      this.delegate = delegate;
+      this.lastAccessGranularity = lastAccessGranularity;
+      this.dirty = dirty;
+    }
+
+    @Override
+    public String getId() {
+      return delegate.getId();
+    }
+
+    @Override
+    public String changeSessionId() {
+      dirty = true;
+      return delegate.changeSessionId();
+    }
+
+    @Override
+    public <T> T getAttribute(String attributeName) {
+      return delegate.getAttribute(attributeName);
+    }
+
+    @Override
+    public Set<String> getAttributeNames() {
+      return delegate.getAttributeNames();
+    }
+
+    @Override
+    public void setAttribute(String attributeName, Object attributeValue) {
+      dirty = true;
+      delegate.setAttribute(attributeName, attributeValue);
+    }
+
+    @Override
+    public void removeAttribute(String attributeName) {
+      dirty = true;
+      delegate.removeAttribute(attributeName);
+    }
+
+    @Override
+    public Instant getCreationTime() {
+      return delegate.getCreationTime();
+    }
+
+    /** 与已保存的访问时间相差不足 {@code lastAccessGranularity} 时忽略 */
+    @Override
+    public void setLastAccessedTime(Instant lastAccessedTime) {
+      if (Duration.between(delegate.getLastAccessedTime(), lastAccessedTime)
+              .compareTo(lastAccessGranularity)
+          >= 0) {
+        dirty = true;
+        delegate.setLastAccessedTime(lastAccessedTime);
+      }
+    }
+
+    @Override
+    public Instant getLastAccessedTime() {
+      return delegate.getLastAccessedTime();
+    }
+
+    @Override
+    public void setMaxInactiveInterval(Duration interval) {
+      dirty = true;
+      delegate.setMaxInactiveInterval(interval);
+    }
+
+    @Override
+    public Duration getMaxInactiveInterval() {
+      return delegate.getMaxInactiveInterval();
+    }
+
+    @Override
+    public boolean isExpired() {
+      return delegate.isExpired();
+    }
+  }
+}
@@ -0,0 +1,290 @@
+package top.phakeandy.youchat.auth;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import top.phakeandy.youchat.cache.CacheInvalidationBus;
+import top.phakeandy.youchat.cache.CacheProperties;
+import top.phakeandy.youchat.model.Users;
+
+/**
+ * 用户记录的两级缓存：本地 Caffeine 和可选的 Redis
+ *
+ * <p>记录只按 ID 存放，用户名只映射到 ID，按用户名命中后还要核对记录中的用户名，因此失效时只需清理 ID，改名后旧用户名的映射会自然失效。 不缓存不存在的用户，避免注册后仍然读到空结果。
+ *
+ * <p>写事务中加载的记录在提交后才放入缓存；失效在调用时和提交后各执行一次，并广播给其他节点清理本地缓存。
+ */
+@Slf4j
+@Component
+public class UserCache {
+
+  static final String CACHE_NAME = "users";
+
+  private static final String ID_SEGMENT = "id:";
+  private static final String NAME_SEGMENT = "name:";
+
+  private final StringRedisTemplate redisTemplate;
+  private final ObjectMapper objectMapper;
+  private final CacheInvalidationBus invalidationBus;
+  private final CacheProperties.Users properties;
+
+  private final Cache<Long, CachedUser> usersById;
+  private final Cache<String, Long> idsByUsername;
+
+  private final Counter localHits;
+  private final Counter localMisses;
+  private final Counter redisHits;
+  private final Counter redisMisses;
+
+  public UserCache(
+      StringRedisTemplate redisTemplate,
+      ObjectMapper objectMapper,
+      CacheInvalidationBus invalidationBus,
+      MeterRegistry meterRegistry,
+      CacheProperties properties) {
+    this.redisTemplate = redisTemplate;
+    this.objectMapper = objectMapper;
+    this.invalidationBus = invalidationBus;
+    this.properties = properties.users();
+    this.usersById =
+        Caffeine.newBuilder()
+            .maximumSize(this.properties.localMaximumSize())
+            .expireAfterWrite(this.properties.localTtl())
+            .build();
+    this.idsByUsername =
+        Caffeine.newBuilder()
+            .maximumSize(this.properties.localMaximumSize())
+            .expireAfterWrite(this.properties.localTtl())
+            .build();
+    this.localHits = gets(meterRegistry, "local", "hit");
+    this.localMisses = gets(meterRegistry, "local", "miss");
+    this.redisHits = gets(meterRegistry, "redis", "hit");
+    this.redisMisses = gets(meterRegistry, "redis", "miss");
+    Gauge.builder("youchat.cache.size", usersById, Cache::estimatedSize)
+        .tag("cache", CACHE_NAME)
+        .description("Entries in the local user cache")
+        .register(meterRegistry);
+    invalidationBus.register(CACHE_NAME, this::evictLocal);
+  }
+
+  /**
+   * 按 ID 读取用户
+   *
+   * @param loader 两级缓存都未命中时从数据库加载
+   */
+  public Optional<CustomUserDetails> getById(long id, LongFunction<Optional<Users>> loader) {
+    CachedUser cached = usersById.getIfPresent(id);
+    if (cached != null) {
+      localHits.increment();
+      return Optional.of(cached.toUserDetails());
+    }
+    localMisses.increment();
+    cached = readRedis(id);
+    if (cached != null) {
+      redisHits.increment();
+      putLocal(cached);
+      return Optional.of(cached.toUserDetails());
+    }
+    if (properties.redisEnabled()) {
+      redisMisses.increment();
+    }
+    return loader.apply(id).map(this::store);
+  }
+
+  /**
+   * 按用户名读取用户
+   *
+   * @param loader 两级缓存都未命中时从数据库加载
+   */
+  public Optional<CustomUserDetails> getByUsername(
+      String username, Function<String, Optional<Users>> loader) {
+    Long id = idsByUsername.getIfPresent(username);
+    CachedUser cached = id == null ? null : matching(usersById.getIfPresent(id), username);
+    if (cached != null) {
+      localHits.increment();
+      return Optional.of(cached.toUserDetails());
+    }
+    localMisses.increment();
+    cached = matching(readRedis(username), username);
+    if (cached != null) {
+      redisHits.increment();
+      putLocal(cached);
+      return Optional.of(cached.toUserDetails());
+    }
+    if (properties.redisEnabled()) {
+      redisMisses.increment();
+    }
+    return loader.apply(username).map(this::store);
+  }
+
+  /**
+   * 清理用户的缓存并通知其他节点
+   *
+   * @param id 用户 ID，未知时为 {@code null}，此时按用户名映射找到 ID
+   * @param username 用户名，未知时为 {@code null}
+   */
+  public void evict(Long id, String username) {
+    Long target = id != null || username == null ? id : resolveId(username);
+    List<String> keys = new ArrayList<>(2);
+    if (target != null) {
+      keys.add(ID_SEGMENT + target);
+    }
+    if (username != null) {
+      keys.add(NAME_SEGMENT + username);
+    }
+    if (keys.isEmpty()) {
+      return;
+    }
+    evictAll(keys);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              evictAll(keys);
+              invalidationBus.publish(CACHE_NAME, keys);
+            }
+          });
+    } else {
+      invalidationBus.publish(CACHE_NAME, keys);
+    }
+  }
+
+  /** 放入刚从数据库读到或写入的记录，写事务中的记录在提交后才放入 */
+  public CustomUserDetails store(Users users) {
+    CachedUser cached = CachedUser.from(users);
+    if (TransactionSynchronizationManager.isSynchronizationActive()
+        && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              put(cached);
+            }
+          });
+    } else {
+      put(cached);
+    }
+    return cached.toUserDetails();
+  }
+
+  private void put(CachedUser cached) {
+    putLocal(cached);
+    if (!properties.redisEnabled()) {
+      return;
+    }
+    try {
+      String body = objectMapper.writeValueAsString(cached);
+      redisTemplate
+          .opsForValue()
+          .set(redisKey(ID_SEGMENT + cached.id()), body, properties.redisTtl());
+      redisTemplate
+          .opsForValue()
+          .set(
+              redisKey(NAME_SEGMENT + cached.username()),
+              cached.id().toString(),
+              properties.redisTtl());
+    } catch (JsonProcessingException | DataAccessException e) {
+      log.warn("Failed to write user {} to Redis cache", cached.id(), e);
+    }
+  }
+
+  private void putLocal(CachedUser cached) {
+    usersById.put(cached.id(), cached);
+    idsByUsername.put(cached.username(), cached.id());
+  }
+
+  private CachedUser readRedis(long id) {
+    if (!properties.redisEnabled()) {
+      return null;
+    }
+    try {
+      String body = redisTemplate.opsForValue().get(redisKey(ID_SEGMENT + id));
+      return body == null ? null : objectMapper.readValue(body, CachedUser.class);
+    } catch (JsonProcessingException | DataAccessException e) {
+      log.warn("Failed to read user {} from Redis cache", id, e);
+      return null;
+    }
+  }
+
+  private CachedUser readRedis(String username) {
+    if (!properties.redisEnabled()) {
+      return null;
+    }
+    String id;
+    try {
+      id = redisTemplate.opsForValue().get(redisKey(NAME_SEGMENT + username));
+    } catch (DataAccessException e) {
+      log.warn("Failed to read username {} from Redis cache", username, e);
+      return null;
+    }
+    return id == null ? null : readRedis(Long.parseLong(id));
+  }
+
+  private Long resolveId(String username) {
+    Long id = idsByUsername.getIfPresent(username);
+    if (id != null || !properties.redisEnabled()) {
+      return id;
+    }
+    try {
+      String value = redisTemplate.opsForValue().get(redisKey(NAME_SEGMENT + username));
+      return value == null ? null : Long.valueOf(value);
+    } catch (DataAccessException e) {
+      log.warn("Failed to resolve username {} from Redis cache", username, e);
+      return null;
+    }
+  }
+
+  /** 清理本节点的两级缓存 */
+  private void evictAll(List<String> keys) {
+    keys.forEach(this::evictLocal);
+    if (!properties.redisEnabled()) {
+      return;
+    }
+    try {
+      redisTemplate.delete(keys.stream().map(this::redisKey).toList());
+    } catch (DataAccessException e) {
+      log.warn("Failed to evict {} from Redis cache", keys, e);
+    }
+  }
+
+  /** 只清理本地缓存，Redis 中的条目已由发出广播的节点清理 */
+  private void evictLocal(String key) {
+    if (key.startsWith(ID_SEGMENT)) {
+      usersById.invalidate(Long.valueOf(key.substring(ID_SEGMENT.length())));
+    } else if (key.startsWith(NAME_SEGMENT)) {
+      idsByUsername.invalidate(key.substring(NAME_SEGMENT.length()));
+    }
+  }
+
+  private String redisKey(String key) {
+    return properties.keyPrefix() + key;
+  }
+
+  private static CachedUser matching(CachedUser cached, String username) {
+    return cached != null && cached.username().equals(username) ? cached : null;
+  }
+
+  private static Counter gets(MeterRegistry meterRegistry, String tier, String result) {
+    return Counter.builder("youchat.cache.gets")
+        .tag("cache", CACHE_NAME)
+        .tag("tier", tier)
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
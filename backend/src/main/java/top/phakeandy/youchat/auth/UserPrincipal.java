@@ -0,0 +1,84 @@
+package top.phakeandy.youchat.auth;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * 登录后保存在会话中的用户身份，只包含用户 ID 和用户名
+ *
+ * <p>{@link CustomUserDetails} 带有密码哈希和全部资料，每个请求都要从 Redis 读出并反序列化；会话改为保存本类，权限由认证令牌保存，密码始终为空。JSON
+ * 中只写出字段，并带上类名以通过 Spring Security 的反序列化白名单。
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS)
+@JsonAutoDetect(
+    fieldVisibility = JsonAutoDetect.Visibility.ANY,
+    getterVisibility = JsonAutoDetect.Visibility.NONE,
+    isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public final class UserPrincipal implements UserDetails, AuthenticatedUser {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final List<GrantedAuthority> AUTHORITIES =
+      List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+  private final Long id;
+  private final String username;
+
+  @JsonCreator
+  public UserPrincipal(@JsonProperty("id") Long id, @JsonProperty("username") String username) {
+    this.id = Objects.requireNonNull(id, "id");
+    this.username = Objects.requireNonNull(username, "username");
+  }
+
+  public static UserPrincipal from(AuthenticatedUser user) {
+    return user instanceof UserPrincipal principal
+        ? principal
+        : new UserPrincipal(user.getId(), user.getUsername());
+  }
+
+  @Override
+  public Long getId() {
+    return id;
+  }
+
+  @Override
+  public String getUsername() {
+    return username;
+  }
+
+  @Override
+  public String getPassword() {
+    return null;
+  }
+
+  @Override
+  public Collection<? extends GrantedAuthority> getAuthorities() {
+    return AUTHORITIES;
+  }
+
+  /** 会话注册表以 principal 为键，同一用户的不同会话必须相等 */
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof UserPrincipal other && id.equals(other.id);
+  }
+
+  @Override
+  public int hashCode() {
+    return id.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "UserPrincipal[id=" + id + ", username=" + username + "]";
+  }
+}
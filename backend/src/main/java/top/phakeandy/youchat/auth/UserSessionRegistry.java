@@ -0,0 +1,80 @@
+package top.phakeandy.youchat.auth;
+
+import java.time.Duration;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.session.SessionRepository;
+import org.springframework.stereotype.Component;
+
+/**
+ * 基于 Redis 的并发会话控制，所有节点共享
+ *
+ * <p>每个用户一个有序集合，成员为会话 ID，分数为登录时间。只在登录和注销时访问 Redis，普通请求不查询会话注册表：超出数量的旧会话直接从会话存储中删除，
+ * 持有它的客户端在下一次请求时即为未登录。已过期的会话留在集合中，在之后的登录中按登录时间被淘汰，集合本身随最后一次登录的会话一起过期。
+ */
+@Slf4j
+@Component
+public class UserSessionRegistry {
+
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> REGISTER_SCRIPT =
+      RedisScript.of(new ClassPathResource("redis/session-register.lua"), List.class);
+
+  private final StringRedisTemplate redisTemplate;
+  private final SessionRepository<?> sessionRepository;
+  private final SessionManagementProperties properties;
+
+  public UserSessionRegistry(
+      StringRedisTemplate redisTemplate,
+      SessionRepository<?> sessionRepository,
+      SessionManagementProperties properties) {
+    this.redisTemplate = redisTemplate;
+    this.sessionRepository = sessionRepository;
+    this.properties = properties;
+  }
+
+  /**
+   * 登记登录后的会话，并使超出数量的最早会话失效
+   *
+   * @param timeout 会话的超时时间
+   */
+  public void register(long userId, String sessionId, Duration timeout) {
+    List<?> evicted;
+    try {
+      evicted =
+          redisTemplate.execute(
+              REGISTER_SCRIPT,
+              List.of(key(userId)),
+              sessionId,
+              Integer.toString(properties.maximumSessions()),
+              Long.toString(timeout.toMillis()));
+    } catch (DataAccessException e) {
+      log.warn("Failed to register session for user {}", userId, e);
+      return;
+    }
+    if (evicted == null) {
+      return;
+    }
+    for (Object id : evicted) {
+      log.debug("Expiring session of user {} exceeding the session limit", userId);
+      sessionRepository.deleteById((String) id);
+    }
+  }
+
+  /** 注销时移除会话 */
+  public void unregister(long userId, String sessionId) {
+    try {
+      redisTemplate.opsForZSet().remove(key(userId), sessionId);
+    } catch (DataAccessException e) {
+      log.warn("Failed to unregister session for user {}", userId, e);
+    }
+  }
+
+  private String key(long userId) {
+    return properties.registryKeyPrefix() + userId;
+  }
+}
@@ -0,0 +1,79 @@
+package top.phakeandy.youchat.auth;
+
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+import static top.phakeandy.youchat.mapper.UsersDynamicSqlSupport.avatarUrl;
+import static top.phakeandy.youchat.mapper.UsersDynamicSqlSupport.id;
+import static top.phakeandy.youchat.mapper.UsersDynamicSqlSupport.nickname;
+import static top.phakeandy.youchat.mapper.UsersDynamicSqlSupport.password;
+import static top.phakeandy.youchat.mapper.UsersDynamicSqlSupport.settings;
+import static top.phakeandy.youchat.mapper.UsersDynamicSqlSupport.username;
+import static top.phakeandy.youchat.mapper.UsersDynamicSqlSupport.users;
+
+import java.util.Optional;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.SelectProvider;
+import org.mybatis.dynamic.sql.SqlBuilder;
+import org.mybatis.dynamic.sql.insert.render.InsertStatementProvider;
+import org.mybatis.dynamic.sql.render.RenderingStrategies;
+import org.mybatis.dynamic.sql.update.render.UpdateStatementProvider;
+import top.phakeandy.youchat.common.mybatis.ReturningSqlProvider;
+import top.phakeandy.youchat.model.Users;
+
+/** 生成的 UsersMapper 写入后只返回行数，这里的写操作以 {@code RETURNING *} 直接返回写入后的整行 */
+@Mapper
+public interface UserWriteMapper {
+
+  @SelectProvider(type = ReturningSqlProvider.class, method = "insert")
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  @ResultMap("top.phakeandy.youchat.mapper.UsersMapper.UsersResult")
+  Users insertReturning(InsertStatementProvider<Users> insertStatement);
+
+  @SelectProvider(type = ReturningSqlProvider.class, method = "update")
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  @ResultMap("top.phakeandy.youchat.mapper.UsersMapper.UsersResult")
+  Optional<Users> updateReturning(UpdateStatementProvider updateStatement);
+
+  /** 插入非空字段，id、时间戳等由数据库生成的列随结果返回 */
+  default Users insertSelective(Users row) {
+    return insertReturning(
+        SqlBuilder.insert(row)
+            .into(users)
+            .map(username)
+            .toPropertyWhenPresent("username", row::getUsername)
+            .map(password)
+            .toPropertyWhenPresent("password", row::getPassword)
+            .map(nickname)
+            .toPropertyWhenPresent("nickname", row::getNickname)
+            .map(avatarUrl)
+            .toPropertyWhenPresent("avatarUrl", row::getAvatarUrl)
+            .map(settings)
+            .toPropertyWhenPresent("settings", row::getSettings)
+            .build()
+            .render(RenderingStrategies.MYBATIS3));
+  }
+
+  /**
+   * 按主键更新非空字段，{@code updated_at} 由触发器维护
+   *
+   * @return 更新后的行，主键不存在时为空
+   */
+  default Optional<Users> updateByPrimaryKeySelective(Users row) {
+    return updateReturning(
+        SqlBuilder.update(users)
+            .set(username)
+            .equalToWhenPresent(row::getUsername)
+            .set(password)
+            .equalToWhenPresent(row::getPassword)
+            .set(nickname)
+            .equalToWhenPresent(row::getNickname)
+            .set(avatarUrl)
+            .equalToWhenPresent(row::getAvatarUrl)
+            .set(settings)
+            .equalToWhenPresent(row::getSettings)
+            .where(id, isEqualTo(row::getId))
+            .build()
+            .render(RenderingStrategies.MYBATIS3));
+  }
+}
@@ -0,0 +1,30 @@
+package top.phakeandy.youchat.auth.exception;
+
+import java.time.Duration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.ErrorResponseException;
+
+/** 登录尝试过于频繁，客户端应在 Retry-After 秒后重试 */
+public final class LoginRateLimitedException extends ErrorResponseException {
+
+  private static final long serialVersionUID = 1L;
+
+  public LoginRateLimitedException(Duration retryAfter) {
+    super(
+        HttpStatus.TOO_MANY_REQUESTS,
+        ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, "登录尝试次数过多，请稍后重试"),
+        null);
+    getBody().setTitle("请求过于频繁");
+    // 向上取整到秒，客户端不会在限制解除前重试
+    long seconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+  }
+
+  /** 被拒绝是攻击期间的常态，不需要堆栈 */
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
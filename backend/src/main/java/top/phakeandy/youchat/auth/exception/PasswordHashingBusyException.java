@@ -0,0 +1,23 @@
+package top.phakeandy.youchat.auth.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.ErrorResponseException;
+
+/** 密码哈希线程池已满或等待超时，客户端应稍后重试 */
+public final class PasswordHashingBusyException extends ErrorResponseException {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final String RETRY_AFTER_SECONDS = "1";
+
+  public PasswordHashingBusyException(Throwable cause) {
+    super(
+        HttpStatus.SERVICE_UNAVAILABLE,
+        ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "当前登录请求过多，请稍后重试"),
+        cause);
+    getBody().setTitle("服务繁忙");
+    getHeaders().set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+  }
+}
@@ -0,0 +1,22 @@
+package top.phakeandy.youchat.auth.exception;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import top.phakeandy.youchat.auth.PasswordViolation;
+
+/** 密码不满足密码规则，{@link #getViolations()} 包含所有违反的规则 */
+public final class PasswordPolicyException extends IllegalArgumentException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final transient List<PasswordViolation> violations;
+
+  public PasswordPolicyException(List<PasswordViolation> violations) {
+    super(violations.stream().map(PasswordViolation::message).collect(Collectors.joining("；")));
+    this.violations = List.copyOf(violations);
+  }
+
+  public List<PasswordViolation> getViolations() {
+    return violations;
+  }
+}
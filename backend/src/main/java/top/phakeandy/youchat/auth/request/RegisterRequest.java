@@ -19,11 +19,6 @@ public record RegisterRequest(
             requiredMode = Schema.RequiredMode.REQUIRED,
             example = "Password123!")
         @NotBlank(message = "密码不能为空")
-        @Size(min = 8, max = 100, message = "密码长度必须在8-100个字符之间")
-        @Pattern(
-            regexp =
-                "^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>\\/?]).*$",
-            message = "密码必须包含至少一个大写字母、一个小写字母、一个数字和一个特殊字符")
         String password,
     @Schema(description = "用户昵称", requiredMode = Schema.RequiredMode.REQUIRED, example = "新用户")
         @NotBlank(message = "昵称不能为空")
@@ -0,0 +1,12 @@
+package top.phakeandy.youchat.cache;
+
+import java.util.List;
+
+/**
+ * 节点间广播的缓存失效消息
+ *
+ * @param cache 缓存名称
+ * @param keys 需要失效的键
+ * @param origin 发出消息的节点，节点忽略自己发出的消息
+ */
+record CacheInvalidation(String cache, List<String> keys, String origin) {}
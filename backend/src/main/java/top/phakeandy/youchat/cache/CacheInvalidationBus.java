@@ -0,0 +1,104 @@
+package top.phakeandy.youchat.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * 通过 Redis pub/sub 在节点间广播本地缓存失效
+ *
+ * <p>各缓存按名称注册本地失效回调，回调在订阅连接的线程上执行，只应清理内存中的条目。广播是尽力而为的，丢失的消息由本地缓存的过期时间兜底。
+ */
+@Slf4j
+@Component
+public class CacheInvalidationBus implements MessageListener {
+
+  private final StringRedisTemplate redisTemplate;
+  private final ObjectMapper objectMapper;
+  private final MeterRegistry meterRegistry;
+  private final String channel;
+
+  /** 本节点的标识，用于忽略自己发出的广播 */
+  private final String nodeId = UUID.randomUUID().toString();
+
+  /** 缓存名称 -> 本地失效回调 */
+  private final Map<String, Consumer<String>> handlers = new ConcurrentHashMap<>();
+
+  public CacheInvalidationBus(
+      StringRedisTemplate redisTemplate,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      RedisMessageListenerContainer listenerContainer,
+      CacheProperties properties) {
+    this.redisTemplate = redisTemplate;
+    this.objectMapper = objectMapper;
+    this.meterRegistry = meterRegistry;
+    this.channel = properties.invalidationChannel();
+    listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+  }
+
+  /**
+   * 注册缓存的本地失效回调
+   *
+   * @param cache 缓存名称，同一名称只能注册一次
+   * @param evictor 接收其他节点广播的键并清理本地条目
+   */
+  public void register(String cache, Consumer<String> evictor) {
+    if (handlers.putIfAbsent(cache, evictor) != null) {
+      throw new IllegalStateException("Cache already registered: " + cache);
+    }
+  }
+
+  /** 通知其他节点清理这些键，发布失败只记录日志 */
+  public void publish(String cache, List<String> keys) {
+    if (keys.isEmpty()) {
+      return;
+    }
+    try {
+      String body = objectMapper.writeValueAsString(new CacheInvalidation(cache, keys, nodeId));
+      redisTemplate.convertAndSend(channel, body);
+      meterRegistry
+          .counter("youchat.cache.invalidations", "cache", cache, "direction", "sent")
+          .increment();
+    } catch (JsonProcessingException | DataAccessException e) {
+      log.warn("Failed to broadcast invalidation of {} keys in cache {}", keys.size(), cache, e);
+    }
+  }
+
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    CacheInvalidation invalidation;
+    try {
+      invalidation = objectMapper.readValue(message.getBody(), CacheInvalidation.class);
+    } catch (IOException e) {
+      log.warn("Dropping malformed cache invalidation", e);
+      return;
+    }
+    if (nodeId.equals(invalidation.origin())) {
+      return;
+    }
+    Consumer<String> evictor = handlers.get(invalidation.cache());
+    if (evictor == null) {
+      return;
+    }
+    invalidation.keys().forEach(evictor);
+    meterRegistry
+        .counter(
+            "youchat.cache.invalidations", "cache", invalidation.cache(), "direction", "received")
+        .increment();
+  }
+}
@@ -0,0 +1,64 @@
+package top.phakeandy.youchat.cache;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 缓存配置
+ *
+ * @param invalidationChannel 节点间广播缓存失效的 Redis 频道
+ * @param users 用户缓存配置
+ * @param groupMembers 群成员索引配置
+ * @param friends 好友邻接表配置
+ * @param conversations 会话编号缓存配置
+ */
+@ConfigurationProperties(prefix = "youchat.cache")
+public record CacheProperties(
+    @DefaultValue("youchat:cache:invalidate") String invalidationChannel,
+    @DefaultValue Users users,
+    @DefaultValue GroupMembers groupMembers,
+    @DefaultValue Friends friends,
+    @DefaultValue Conversations conversations) {
+
+  /**
+   * 用户缓存
+   *
+   * @param localMaximumSize 本地缓存的最大条目数
+   * @param localTtl 本地缓存写入后的过期时间，兜底错过的失效广播
+   * @param redisEnabled 是否使用 Redis 作为节点间共享的二级缓存
+   * @param redisTtl Redis 缓存的过期时间
+   * @param keyPrefix Redis 键前缀
+   */
+  public record Users(
+      @DefaultValue("10000") long localMaximumSize,
+      @DefaultValue("5m") Duration localTtl,
+      @DefaultValue("true") boolean redisEnabled,
+      @DefaultValue("30m") Duration redisTtl,
+      @DefaultValue("youchat:cache:user:") String keyPrefix) {}
+
+  /**
+   * 群成员索引，只在本地缓存
+   *
+   * @param localMaximumMembers 所有群聊缓存的成员 ID 总数上限，每个 ID 占 8 字节
+   * @param localTtl 写入后的过期时间，兜底错过的失效广播
+   */
+  public record GroupMembers(
+      @DefaultValue("1000000") long localMaximumMembers, @DefaultValue("10m") Duration localTtl) {}
+
+  /**
+   * 好友邻接表，只在本地缓存
+   *
+   * @param localMaximumIds 所有用户缓存的好友 ID 总数上限，超出后淘汰最近最少使用的用户
+   * @param localTtl 写入后的过期时间，兜底错过的失效广播
+   */
+  public record Friends(
+      @DefaultValue("2000000") long localMaximumIds, @DefaultValue("30m") Duration localTtl) {}
+
+  /**
+   * 会话键与数字编号的映射，只在本地缓存；映射一经分配不再改变，因此不需要失效
+   *
+   * @param localMaximumSize 每个方向缓存的最大映射数
+   */
+  public record Conversations(@DefaultValue("100000") long localMaximumSize) {}
+}
@@ -7,6 +7,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -21,10 +22,12 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import top.phakeandy.youchat.chat.request.CreateChatRequest;
 import top.phakeandy.youchat.chat.request.UpdateChatRequest;
+import top.phakeandy.youchat.common.CursorPage;
 
 @RestController
 @RequestMapping("/api/v1/chats")
@@ -53,13 +56,13 @@ public class ChatController {
                     mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
                     schema = @Schema(implementation = ProblemDetail.class))),
       })
-  public ResponseEntity<ChatResponse> createChat(@RequestBody CreateChatRequest request) {
+  public ResponseEntity<ChatResponse> createChat(@Valid @RequestBody CreateChatRequest request) {
     ChatResponse response = chatService.createChat(request);
     return ResponseEntity.status(HttpStatus.CREATED).body(response);
   }
 
   @GetMapping
-  @Operation(summary = "获取群聊列表", description = "分页获取所有群聊列表")
+  @Operation(summary = "获取群聊列表", description = "分页获取所有群聊列表，页码越大查询越慢，新客户端请使用 /api/v1/chats/scroll")
   @ApiResponses(
       value = {
         @ApiResponse(
@@ -75,6 +78,35 @@ public class ChatController {
     return ResponseEntity.ok(response);
   }
 
+  @GetMapping("/scroll")
+  @Operation(summary = "滚动获取群聊列表", description = "按创建时间倒序的游标分页，使用上一页返回的 nextCursor 获取下一页")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "成功获取群聊列表",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = CursorPage.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "分页游标无效",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+      })
+  public ResponseEntity<CursorPage<ChatResponse>> scrollChats(
+      @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) String cursor,
+      @Parameter(description = "每页数量，1-100", example = "20") @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(description = "是否返回总数估算值") @RequestParam(defaultValue = "false")
+          boolean withTotal) {
+    CursorPage<ChatResponse> response = chatService.scrollChats(cursor, size, withTotal);
+    return ResponseEntity.ok(response);
+  }
+
   @GetMapping("/{chatId}")
   @Operation(summary = "获取群聊详情", description = "根据群聊ID获取群聊详细信息")
   @ApiResponses(
@@ -128,7 +160,7 @@ public class ChatController {
       })
   public ResponseEntity<ChatResponse> updateChat(
       @Parameter(description = "群聊ID", required = true, example = "1") @PathVariable Long chatId,
-      @RequestBody UpdateChatRequest request) {
+      @Valid @RequestBody UpdateChatRequest request) {
     ChatResponse response = chatService.updateChat(chatId, request);
     return ResponseEntity.ok(response);
   }
@@ -3,6 +3,7 @@ package top.phakeandy.youchat.chat;
 import org.springframework.stereotype.Component;
 import top.phakeandy.youchat.chat.request.CreateChatRequest;
 import top.phakeandy.youchat.chat.request.UpdateChatRequest;
+import top.phakeandy.youchat.common.RawJson;
 import top.phakeandy.youchat.model.ChatGroups;
 
 @Component
@@ -27,8 +28,8 @@ public class ChatConverter {
     chatGroup.setDescription(request.description());
     chatGroup.setAvatarUrl(request.avatarUrl());
     chatGroup.setOwnerId(request.ownerId());
-    chatGroup.setSettings("{}");
-    chatGroup.setAnnouncement("{}");
+    chatGroup.setSettings(RawJson.EMPTY_OBJECT);
+    chatGroup.setAnnouncement(RawJson.EMPTY_OBJECT);
     return chatGroup;
   }
 
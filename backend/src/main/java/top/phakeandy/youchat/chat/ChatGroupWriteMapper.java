@@ -0,0 +1,78 @@
+package top.phakeandy.youchat.chat;
+
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+import static top.phakeandy.youchat.mapper.ChatGroupsDynamicSqlSupport.announcement;
+import static top.phakeandy.youchat.mapper.ChatGroupsDynamicSqlSupport.avatarUrl;
+import static top.phakeandy.youchat.mapper.ChatGroupsDynamicSqlSupport.chatGroups;
+import static top.phakeandy.youchat.mapper.ChatGroupsDynamicSqlSupport.description;
+import static top.phakeandy.youchat.mapper.ChatGroupsDynamicSqlSupport.id;
+import static top.phakeandy.youchat.mapper.ChatGroupsDynamicSqlSupport.name;
+import static top.phakeandy.youchat.mapper.ChatGroupsDynamicSqlSupport.ownerId;
+import static top.phakeandy.youchat.mapper.ChatGroupsDynamicSqlSupport.settings;
+
+import java.util.Optional;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.SelectProvider;
+import org.mybatis.dynamic.sql.SqlBuilder;
+import org.mybatis.dynamic.sql.insert.render.InsertStatementProvider;
+import org.mybatis.dynamic.sql.render.RenderingStrategies;
+import org.mybatis.dynamic.sql.update.render.UpdateStatementProvider;
+import top.phakeandy.youchat.common.mybatis.ReturningSqlProvider;
+import top.phakeandy.youchat.model.ChatGroups;
+
+/** 群聊的写操作，以 {@code RETURNING *} 直接返回写入后的整行 */
+@Mapper
+public interface ChatGroupWriteMapper {
+
+  @SelectProvider(type = ReturningSqlProvider.class, method = "insert")
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  @ResultMap("top.phakeandy.youchat.mapper.ChatGroupsMapper.ChatGroupsResult")
+  ChatGroups insertReturning(InsertStatementProvider<ChatGroups> insertStatement);
+
+  @SelectProvider(type = ReturningSqlProvider.class, method = "update")
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  @ResultMap("top.phakeandy.youchat.mapper.ChatGroupsMapper.ChatGroupsResult")
+  Optional<ChatGroups> updateReturning(UpdateStatementProvider updateStatement);
+
+  /** 插入非空字段，id、时间戳等由数据库生成的列随结果返回 */
+  default ChatGroups insertSelective(ChatGroups row) {
+    return insertReturning(
+        SqlBuilder.insert(row)
+            .into(chatGroups)
+            .map(name)
+            .toPropertyWhenPresent("name", row::getName)
+            .map(description)
+            .toPropertyWhenPresent("description", row::getDescription)
+            .map(avatarUrl)
+            .toPropertyWhenPresent("avatarUrl", row::getAvatarUrl)
+            .map(ownerId)
+            .toPropertyWhenPresent("ownerId", row::getOwnerId)
+            .map(settings)
+            .toPropertyWhenPresent("settings", row::getSettings)
+            .map(announcement)
+            .toPropertyWhenPresent("announcement", row::getAnnouncement)
+            .build()
+            .render(RenderingStrategies.MYBATIS3));
+  }
+
+  /**
+   * 覆盖群聊的基本资料，{@code updated_at} 由触发器维护
+   *
+   * @return 更新后的行，群聊不存在时为空
+   */
+  default Optional<ChatGroups> updateProfile(ChatGroups row) {
+    return updateReturning(
+        SqlBuilder.update(chatGroups)
+            .set(name)
+            .equalTo(row::getName)
+            .set(description)
+            .equalTo(row::getDescription)
+            .set(avatarUrl)
+            .equalTo(row::getAvatarUrl)
+            .where(id, isEqualTo(row::getId))
+            .build()
+            .render(RenderingStrategies.MYBATIS3));
+  }
+}
@@ -0,0 +1,69 @@
+package top.phakeandy.youchat.chat;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.handler.annotation.support.MethodArgumentNotValidException;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.ErrorResponseException;
+import top.phakeandy.youchat.config.StompPrincipal;
+import top.phakeandy.youchat.message.MessageDestinations;
+import top.phakeandy.youchat.message.MessageRequest;
+import top.phakeandy.youchat.message.MessageResponse;
+import top.phakeandy.youchat.message.MessageService;
+import top.phakeandy.youchat.read.ReadReceiptCoalescer;
+import top.phakeandy.youchat.read.request.ReadAckRequest;
+
+/** STOMP 实时消息入口，客户端发送到 {@code /app/chat.send}，已读确认发送到 {@code /app/chat.read} */
+@Controller
+@RequiredArgsConstructor
+@Slf4j
+public class ChatMessagingController {
+
+  private final MessageService messageService;
+  private final ReadReceiptCoalescer readReceiptCoalescer;
+
+  /** 接收消息并通过 {@code /user/queue/receipts} 回执服务器分配的消息ID */
+  @MessageMapping("/chat.send")
+  @SendToUser(MessageDestinations.USER_RECEIPTS)
+  public MessageResponse send(@Valid @Payload MessageRequest message, StompPrincipal principal) {
+    return messageService.saveMessage(message, principal.userId(), principal.username());
+  }
+
+  /** 接收已读确认，合并后批量写入，会话中的其他成员随后收到已读进度推送 */
+  @MessageMapping("/chat.read")
+  public void read(@Valid @Payload ReadAckRequest ack, StompPrincipal principal) {
+    readReceiptCoalescer.ack(principal.userId(), ack.conversationId(), ack.messageId());
+  }
+
+  @MessageExceptionHandler
+  @SendToUser(MessageDestinations.USER_ERRORS)
+  public ProblemDetail handleErrorResponse(ErrorResponseException ex) {
+    return ex.getBody();
+  }
+
+  @MessageExceptionHandler
+  @SendToUser(MessageDestinations.USER_ERRORS)
+  public ProblemDetail handleInvalidMessage(MethodArgumentNotValidException ex) {
+    ProblemDetail problemDetail =
+        ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "消息格式错误");
+    problemDetail.setTitle("请求参数错误");
+    return problemDetail;
+  }
+
+  @MessageExceptionHandler
+  @SendToUser(MessageDestinations.USER_ERRORS)
+  public ProblemDetail handleUnexpected(Exception ex) {
+    log.error("Failed to handle STOMP message", ex);
+    ProblemDetail problemDetail =
+        ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR, "系统发生未知错误");
+    problemDetail.setTitle("服务器内部错误");
+    return problemDetail;
+  }
+}
@@ -2,6 +2,7 @@ package top.phakeandy.youchat.chat;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.time.OffsetDateTime;
+import top.phakeandy.youchat.common.RawJson;
 
 @Schema(description = "群聊响应对象")
 public record ChatResponse(
@@ -10,7 +11,7 @@ public record ChatResponse(
     @Schema(description = "群聊描述", example = "讨论前端开发相关技术问题") String description,
     @Schema(description = "群聊头像URL", example = "https://example.com/avatar.jpg") String avatarUrl,
     @Schema(description = "群主ID", example = "1") Long ownerId,
-    @Schema(description = "群聊设置", example = "{}") Object settings,
-    @Schema(description = "群聊公告", example = "{}") Object announcement,
+    @Schema(description = "群聊设置", type = "object", example = "{}") RawJson settings,
+    @Schema(description = "群聊公告", type = "object", example = "{}") RawJson announcement,
     @Schema(description = "创建时间", example = "2024-01-01T12:00:00") OffsetDateTime createdAt,
     @Schema(description = "更新时间", example = "2024-01-01T12:00:00") OffsetDateTime updatedAt) {}
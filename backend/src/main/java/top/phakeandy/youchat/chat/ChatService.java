@@ -1,9 +1,13 @@
 package top.phakeandy.youchat.chat;
 
 import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+import static org.mybatis.dynamic.sql.SqlBuilder.isLessThan;
+import static org.mybatis.dynamic.sql.SqlBuilder.isLessThanOrEqualTo;
+import static org.mybatis.dynamic.sql.SqlBuilder.or;
+import static top.phakeandy.youchat.mapper.ChatGroupsDynamicSqlSupport.chatGroups;
+import static top.phakeandy.youchat.mapper.ChatGroupsDynamicSqlSupport.createdAt;
 import static top.phakeandy.youchat.mapper.ChatGroupsDynamicSqlSupport.id;
 
-import java.time.OffsetDateTime;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -13,6 +17,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import top.phakeandy.youchat.chat.request.CreateChatRequest;
 import top.phakeandy.youchat.chat.request.UpdateChatRequest;
+import top.phakeandy.youchat.common.CursorPage;
+import top.phakeandy.youchat.common.KeysetCursor;
+import top.phakeandy.youchat.common.mybatis.TableStatisticsMapper;
 import top.phakeandy.youchat.exception.ResourceNotFoundException;
 import top.phakeandy.youchat.mapper.ChatGroupsMapper;
 import top.phakeandy.youchat.model.ChatGroups;
@@ -21,16 +28,22 @@ import top.phakeandy.youchat.model.ChatGroups;
 @RequiredArgsConstructor
 public class ChatService {
 
+  private static final int MAX_SCROLL_SIZE = 100;
+
   private final ChatGroupsMapper chatGroupsMapper;
+  private final ChatGroupWriteMapper chatGroupWriteMapper;
   private final ChatConverter chatConverter;
+  private final TableStatisticsMapper tableStatisticsMapper;
+  private final GroupMemberMapper groupMemberMapper;
+  private final GroupMembershipIndex membershipIndex;
 
   @Transactional
   public ChatResponse createChat(CreateChatRequest request) {
-    ChatGroups chatGroup = chatConverter.fromCreateRequest(request);
-    chatGroup.setCreatedAt(OffsetDateTime.now());
-    chatGroup.setUpdatedAt(OffsetDateTime.now());
-
-    chatGroupsMapper.insert(chatGroup);
+    ChatGroups chatGroup =
+        chatGroupWriteMapper.insertSelective(chatConverter.fromCreateRequest(request));
+    groupMemberMapper.insertIfAbsent(
+        chatGroup.getId(), chatGroup.getOwnerId(), GroupMemberService.ROLE_OWNER);
+    membershipIndex.invalidate(chatGroup.getId());
 
     return chatConverter.toChatResponse(chatGroup);
   }
@@ -46,6 +59,48 @@ public class ChatService {
     return new PageImpl<>(responses, pageable, count);
   }
 
+  /**
+   * 按 {@code (created_at, id)} 倒序的游标分页，每页的查询开销与页码无关
+   *
+   * @param cursor 上一页返回的游标，为空时从最新的群聊开始
+   * @param size 每页数量，超出范围时截断到 1-100
+   * @param withTotal 是否返回总数估算值
+   */
+  public CursorPage<ChatResponse> scrollChats(String cursor, int size, boolean withTotal) {
+    int limit = Math.clamp(size, 1, MAX_SCROLL_SIZE);
+    List<ChatGroups> rows =
+        cursor == null || cursor.isBlank()
+            ? chatGroupsMapper.select(
+                c -> c.orderBy(createdAt.descending(), id.descending()).limit(limit + 1L))
+            : selectAfter(KeysetCursor.decode(cursor), limit + 1L);
+
+    boolean hasNext = rows.size() > limit;
+    List<ChatGroups> page = hasNext ? rows.subList(0, limit) : rows;
+    String nextCursor = null;
+    if (hasNext) {
+      ChatGroups last = page.getLast();
+      nextCursor = KeysetCursor.of(last.getCreatedAt(), last.getId()).encode();
+    }
+    Long estimatedTotal =
+        withTotal ? tableStatisticsMapper.estimateRowCount(chatGroups.tableNameAtRuntime()) : null;
+
+    return new CursorPage<>(
+        page.stream().map(chatConverter::toChatResponse).toList(),
+        nextCursor,
+        hasNext,
+        estimatedTotal);
+  }
+
+  private List<ChatGroups> selectAfter(KeysetCursor after, long limit) {
+    // 前一个条件让索引只扫描游标之后的范围，后一个条件处理 created_at 相同的行
+    return chatGroupsMapper.select(
+        c ->
+            c.where(createdAt, isLessThanOrEqualTo(after.createdAt()))
+                .and(createdAt, isLessThan(after.createdAt()), or(id, isLessThan(after.id())))
+                .orderBy(createdAt.descending(), id.descending())
+                .limit(limit));
+  }
+
   public ChatResponse getChat(Long chatId) {
     var chatGroup =
         chatGroupsMapper
@@ -57,17 +112,14 @@ public class ChatService {
 
   @Transactional
   public ChatResponse updateChat(Long chatId, UpdateChatRequest request) {
-    var chatGroup =
-        chatGroupsMapper
-            .selectOne(c -> c.where(id, isEqualTo(chatId)))
-            .orElseThrow(() -> new ResourceNotFoundException("群聊不存在"));
-
+    var chatGroup = new ChatGroups();
+    chatGroup.setId(chatId);
     chatConverter.updateFromRequest(chatGroup, request);
-    chatGroup.setUpdatedAt(OffsetDateTime.now());
-
-    chatGroupsMapper.updateByPrimaryKey(chatGroup);
 
-    return chatConverter.toChatResponse(chatGroup);
+    return chatGroupWriteMapper
+        .updateProfile(chatGroup)
+        .map(chatConverter::toChatResponse)
+        .orElseThrow(() -> new ResourceNotFoundException("群聊不存在"));
   }
 
   @Transactional
@@ -76,5 +128,6 @@ public class ChatService {
     if (deleted == 0) {
       throw new ResourceNotFoundException("群聊不存在");
     }
+    membershipIndex.invalidate(chatId);
   }
 }
@@ -0,0 +1,137 @@
+package top.phakeandy.youchat.chat;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import top.phakeandy.youchat.auth.AuthenticatedUser;
+import top.phakeandy.youchat.chat.request.AddGroupMemberRequest;
+import top.phakeandy.youchat.common.CursorPage;
+
+@RestController
+@RequestMapping("/api/v1/chats/{chatId}/members")
+@Tag(name = "Group Member", description = "群成员相关接口")
+@RequiredArgsConstructor
+public class GroupMemberController {
+
+  private final GroupMemberService groupMemberService;
+
+  @PostMapping
+  @Operation(summary = "添加群成员", description = "群主和管理员将用户加入群聊")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "201",
+            description = "成员添加成功",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = GroupMemberResponse.class))),
+        @ApiResponse(
+            responseCode = "403",
+            description = "不是群主或管理员",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+        @ApiResponse(
+            responseCode = "404",
+            description = "群聊或用户不存在",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+        @ApiResponse(
+            responseCode = "409",
+            description = "用户已经是群成员",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+      })
+  public ResponseEntity<GroupMemberResponse> addMember(
+      @Parameter(description = "群聊ID", required = true, example = "1") @PathVariable Long chatId,
+      @Valid @RequestBody AddGroupMemberRequest request,
+      @Parameter(hidden = true) @AuthenticationPrincipal AuthenticatedUser user) {
+    GroupMemberResponse response =
+        groupMemberService.addMember(chatId, request.userId(), user.getId());
+    return ResponseEntity.status(HttpStatus.CREATED).body(response);
+  }
+
+  @GetMapping
+  @Operation(summary = "获取群成员列表", description = "按用户ID升序的游标分页，使用上一页返回的 nextCursor 获取下一页")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "成功获取群成员列表",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = CursorPage.class))),
+        @ApiResponse(
+            responseCode = "403",
+            description = "不是该群聊的成员",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+      })
+  public ResponseEntity<CursorPage<GroupMemberResponse>> getMembers(
+      @Parameter(description = "群聊ID", required = true, example = "1") @PathVariable Long chatId,
+      @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) String cursor,
+      @Parameter(description = "每页数量，1-100", example = "50") @RequestParam(defaultValue = "50")
+          int size,
+      @Parameter(hidden = true) @AuthenticationPrincipal AuthenticatedUser user) {
+    CursorPage<GroupMemberResponse> response =
+        groupMemberService.listMembers(chatId, user.getId(), cursor, size);
+    return ResponseEntity.ok(response);
+  }
+
+  @DeleteMapping("/{userId}")
+  @Operation(summary = "移出群成员", description = "群主和管理员移出成员，成员也可以移出自己以退出群聊")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "204", description = "成员移出成功"),
+        @ApiResponse(
+            responseCode = "403",
+            description = "无权移出该成员",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+        @ApiResponse(
+            responseCode = "404",
+            description = "群聊不存在或用户不是群成员",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+      })
+  @ResponseStatus(HttpStatus.NO_CONTENT)
+  public void removeMember(
+      @Parameter(description = "群聊ID", required = true, example = "1") @PathVariable Long chatId,
+      @Parameter(description = "用户ID", required = true, example = "2") @PathVariable Long userId,
+      @Parameter(hidden = true) @AuthenticationPrincipal AuthenticatedUser user) {
+    groupMemberService.removeMember(chatId, userId, user.getId());
+  }
+}
@@ -0,0 +1,44 @@
+package top.phakeandy.youchat.chat;
+
+import java.util.Optional;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.Select;
+import top.phakeandy.youchat.model.GroupMembers;
+
+/** 生成的 Mapper 无法表达 upsert 和跨表的成员 ID 查询，这里补充手写语句 */
+@Mapper
+public interface GroupMemberMapper {
+
+  /**
+   * 群聊全部成员的用户 ID，包括群主
+   *
+   * <p>早期创建的群聊没有群主的成员记录，群主从 {@code chat_groups} 补上。
+   */
+  @Select(
+      """
+      SELECT user_id FROM group_members WHERE group_id = #{groupId}
+      UNION
+      SELECT owner_id FROM chat_groups WHERE id = #{groupId}
+      """)
+  long[] selectMemberIds(@Param("groupId") long groupId);
+
+  /**
+   * 添加成员，已是成员时不做任何修改
+   *
+   * @return 新增的行，已是成员时为空
+   */
+  @Select(
+      """
+      INSERT INTO group_members (group_id, user_id, role)
+      VALUES (#{groupId}, #{userId}, #{role})
+      ON CONFLICT (group_id, user_id) DO NOTHING
+      RETURNING *
+      """)
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  @ResultMap("top.phakeandy.youchat.mapper.GroupMembersMapper.GroupMembersResult")
+  Optional<GroupMembers> insertIfAbsent(
+      @Param("groupId") long groupId, @Param("userId") long userId, @Param("role") String role);
+}
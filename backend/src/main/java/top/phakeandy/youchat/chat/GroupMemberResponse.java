@@ -0,0 +1,10 @@
+package top.phakeandy.youchat.chat;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.OffsetDateTime;
+
+@Schema(description = "群成员响应对象")
+public record GroupMemberResponse(
+    @Schema(description = "用户ID", example = "2") Long userId,
+    @Schema(description = "成员角色：owner、admin 或 member", example = "member") String role,
+    @Schema(description = "加入时间", example = "2024-01-01T12:00:00") OffsetDateTime joinedAt) {}
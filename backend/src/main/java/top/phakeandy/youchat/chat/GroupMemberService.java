@@ -0,0 +1,143 @@
+package top.phakeandy.youchat.chat;
+
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+import static org.mybatis.dynamic.sql.SqlBuilder.isGreaterThan;
+import static top.phakeandy.youchat.mapper.GroupMembersDynamicSqlSupport.groupId;
+import static top.phakeandy.youchat.mapper.GroupMembersDynamicSqlSupport.userId;
+
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import top.phakeandy.youchat.chat.exception.GroupMemberAlreadyExistsException;
+import top.phakeandy.youchat.chat.exception.GroupPermissionDeniedException;
+import top.phakeandy.youchat.common.CursorPage;
+import top.phakeandy.youchat.exception.InvalidCursorException;
+import top.phakeandy.youchat.exception.ResourceNotFoundException;
+import top.phakeandy.youchat.mapper.ChatGroupsDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.ChatGroupsMapper;
+import top.phakeandy.youchat.mapper.GroupMembersMapper;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.model.ChatGroups;
+import top.phakeandy.youchat.model.GroupMembers;
+
+/** 群成员的增删查，成员变化后失效 {@link GroupMembershipIndex} */
+@Service
+@RequiredArgsConstructor
+public class GroupMemberService {
+
+  static final String ROLE_OWNER = "owner";
+  static final String ROLE_ADMIN = "admin";
+  static final String ROLE_MEMBER = "member";
+
+  private static final int MAX_PAGE_SIZE = 100;
+
+  private final ChatGroupsMapper chatGroupsMapper;
+  private final GroupMembersMapper groupMembersMapper;
+  private final GroupMemberMapper groupMemberMapper;
+  private final UsersMapper usersMapper;
+  private final GroupMembershipIndex membershipIndex;
+
+  /** 群主和管理员可以添加成员 */
+  @Transactional
+  public GroupMemberResponse addMember(long chatId, long memberId, long operatorId) {
+    ChatGroups group = findGroup(chatId);
+    checkManager(group, operatorId);
+    if (usersMapper.count(c -> c.where(UsersDynamicSqlSupport.id, isEqualTo(memberId))) == 0) {
+      throw new ResourceNotFoundException("用户不存在");
+    }
+    if (group.getOwnerId() == memberId) {
+      throw new GroupMemberAlreadyExistsException();
+    }
+    GroupMembers member =
+        groupMemberMapper
+            .insertIfAbsent(chatId, memberId, ROLE_MEMBER)
+            .orElseThrow(GroupMemberAlreadyExistsException::new);
+    membershipIndex.invalidate(chatId);
+    return toResponse(member);
+  }
+
+  /** 群主和管理员可以移出成员，成员可以自己退出，群主不能退出 */
+  @Transactional
+  public void removeMember(long chatId, long memberId, long operatorId) {
+    ChatGroups group = findGroup(chatId);
+    if (memberId != operatorId) {
+      checkManager(group, operatorId);
+    }
+    if (group.getOwnerId() == memberId) {
+      throw new GroupPermissionDeniedException("群主不能退出或被移出群聊。");
+    }
+    int deleted =
+        groupMembersMapper.delete(
+            c -> c.where(groupId, isEqualTo(chatId)).and(userId, isEqualTo(memberId)));
+    if (deleted == 0) {
+      throw new ResourceNotFoundException("该用户不是群成员");
+    }
+    membershipIndex.invalidate(chatId);
+  }
+
+  /**
+   * 按用户 ID 升序的游标分页，只有群成员可以查看
+   *
+   * @param cursor 上一页返回的游标，为空时从第一页开始
+   * @param size 每页数量，超出范围时截断到 1-100
+   */
+  public CursorPage<GroupMemberResponse> listMembers(
+      long chatId, long operatorId, String cursor, int size) {
+    if (!membershipIndex.isMember(chatId, operatorId)) {
+      findGroup(chatId);
+      throw new GroupPermissionDeniedException("你不是该群聊的成员，无法查看成员列表。");
+    }
+    int limit = Math.clamp(size, 1, MAX_PAGE_SIZE);
+    long after = decodeCursor(cursor);
+    List<GroupMembers> rows =
+        groupMembersMapper.select(
+            c ->
+                c.where(groupId, isEqualTo(chatId))
+                    .and(userId, isGreaterThan(after))
+                    .orderBy(userId)
+                    .limit(limit + 1L));
+
+    boolean hasNext = rows.size() > limit;
+    List<GroupMembers> page = hasNext ? rows.subList(0, limit) : rows;
+    String nextCursor = hasNext ? page.getLast().getUserId().toString() : null;
+    return new CursorPage<>(
+        page.stream().map(GroupMemberService::toResponse).toList(), nextCursor, hasNext, null);
+  }
+
+  private ChatGroups findGroup(long chatId) {
+    return chatGroupsMapper
+        .selectOne(c -> c.where(ChatGroupsDynamicSqlSupport.id, isEqualTo(chatId)))
+        .orElseThrow(() -> new ResourceNotFoundException("群聊不存在"));
+  }
+
+  private void checkManager(ChatGroups group, long operatorId) {
+    if (group.getOwnerId() == operatorId) {
+      return;
+    }
+    Optional<GroupMembers> operator =
+        groupMembersMapper.selectOne(
+            c -> c.where(groupId, isEqualTo(group.getId())).and(userId, isEqualTo(operatorId)));
+    if (operator.map(member -> ROLE_ADMIN.equals(member.getRole())).orElse(false)) {
+      return;
+    }
+    throw new GroupPermissionDeniedException("只有群主和管理员可以管理群成员。");
+  }
+
+  private static long decodeCursor(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return 0;
+    }
+    try {
+      return Long.parseLong(cursor);
+    } catch (NumberFormatException e) {
+      throw new InvalidCursorException(e);
+    }
+  }
+
+  private static GroupMemberResponse toResponse(GroupMembers member) {
+    return new GroupMemberResponse(member.getUserId(), member.getRole(), member.getCreatedAt());
+  }
+}
@@ -0,0 +1,99 @@
+package top.phakeandy.youchat.chat;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import top.phakeandy.youchat.cache.CacheInvalidationBus;
+import top.phakeandy.youchat.cache.CacheProperties;
+import top.phakeandy.youchat.common.SortedIds;
+
+/**
+ * 群聊成员 ID 的本地索引
+ *
+ * <p>首次访问某个群聊时从数据库加载全部成员 ID，之后消息扇出和成员校验都只读内存。按缓存的成员 ID 总数限制大小，成员变化时在调用时和提交后各失效一次，并广播给其他节点。
+ */
+@Component
+public class GroupMembershipIndex {
+
+  static final String CACHE_NAME = "group-members";
+
+  private final GroupMemberMapper groupMemberMapper;
+  private final CacheInvalidationBus invalidationBus;
+  private final Cache<Long, SortedIds> memberIds;
+  private final Counter hits;
+  private final Counter misses;
+
+  public GroupMembershipIndex(
+      GroupMemberMapper groupMemberMapper,
+      CacheInvalidationBus invalidationBus,
+      MeterRegistry meterRegistry,
+      CacheProperties properties) {
+    this.groupMemberMapper = groupMemberMapper;
+    this.invalidationBus = invalidationBus;
+    CacheProperties.GroupMembers groupMembers = properties.groupMembers();
+    this.memberIds =
+        Caffeine.newBuilder()
+            .maximumWeight(groupMembers.localMaximumMembers())
+            .<Long, SortedIds>weigher((groupId, ids) -> ids.size() + 1)
+            .expireAfterWrite(groupMembers.localTtl())
+            .build();
+    this.hits = gets(meterRegistry, "hit");
+    this.misses = gets(meterRegistry, "miss");
+    Gauge.builder("youchat.cache.size", memberIds, Cache::estimatedSize)
+        .tag("cache", CACHE_NAME)
+        .description("Groups in the local membership index")
+        .register(meterRegistry);
+    invalidationBus.register(CACHE_NAME, key -> memberIds.invalidate(Long.valueOf(key)));
+  }
+
+  /** 群聊全部成员的用户 ID，群聊不存在时为空 */
+  public SortedIds members(long groupId) {
+    SortedIds cached = memberIds.getIfPresent(groupId);
+    if (cached != null) {
+      hits.increment();
+      return cached;
+    }
+    misses.increment();
+    return memberIds.get(groupId, this::load);
+  }
+
+  public boolean isMember(long groupId, long userId) {
+    return members(groupId).contains(userId);
+  }
+
+  /** 成员变化后调用，处于事务中时提交后再失效一次，避免并发加载读到提交前的数据 */
+  public void invalidate(long groupId) {
+    memberIds.invalidate(groupId);
+    List<String> keys = List.of(Long.toString(groupId));
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              memberIds.invalidate(groupId);
+              invalidationBus.publish(CACHE_NAME, keys);
+            }
+          });
+    } else {
+      invalidationBus.publish(CACHE_NAME, keys);
+    }
+  }
+
+  private SortedIds load(long groupId) {
+    return SortedIds.of(groupMemberMapper.selectMemberIds(groupId));
+  }
+
+  private static Counter gets(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("youchat.cache.gets")
+        .tag("cache", CACHE_NAME)
+        .tag("tier", "local")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,18 @@
+package top.phakeandy.youchat.chat.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.ErrorResponseException;
+
+public class GroupMemberAlreadyExistsException extends ErrorResponseException {
+
+  private static final long serialVersionUID = 1L;
+
+  public GroupMemberAlreadyExistsException() {
+    super(
+        HttpStatus.CONFLICT,
+        ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "该用户已经是群成员。"),
+        null);
+    getBody().setTitle("群成员已存在");
+  }
+}
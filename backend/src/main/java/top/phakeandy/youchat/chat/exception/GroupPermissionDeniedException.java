@@ -0,0 +1,18 @@
+package top.phakeandy.youchat.chat.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.ErrorResponseException;
+
+public class GroupPermissionDeniedException extends ErrorResponseException {
+
+  private static final long serialVersionUID = 1L;
+
+  public GroupPermissionDeniedException(String message) {
+    super(
+        HttpStatus.FORBIDDEN,
+        ProblemDetail.forStatusAndDetail(HttpStatus.FORBIDDEN, message),
+        null);
+    getBody().setTitle("无权操作群聊");
+  }
+}
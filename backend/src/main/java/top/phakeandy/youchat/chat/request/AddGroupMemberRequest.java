@@ -0,0 +1,12 @@
+package top.phakeandy.youchat.chat.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+
+@Schema(
+    description = "添加群成员请求参数",
+    requiredProperties = {"userId"})
+public record AddGroupMemberRequest(
+    @Schema(description = "用户ID", requiredMode = Schema.RequiredMode.REQUIRED, example = "2")
+        @NotNull(message = "用户ID不能为空")
+        Long userId) {}
@@ -0,0 +1,21 @@
+package top.phakeandy.youchat.common;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import java.util.function.Function;
+
+@Schema(description = "游标分页结果")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CursorPage<T>(
+    @Schema(description = "当前页数据") List<T> content,
+    @Schema(description = "下一页游标，没有更多数据时为空", example = "MTcyNzc3NjAwMDAwMDAwMDoxMjM")
+        String nextCursor,
+    @Schema(description = "是否还有下一页") boolean hasNext,
+    @Schema(description = "总数估算值，仅在请求时返回，来自数据库统计信息，不保证精确", example = "1024") Long estimatedTotal) {
+
+  public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+    return new CursorPage<>(
+        content.stream().<R>map(mapper).toList(), nextCursor, hasNext, estimatedTotal);
+  }
+}
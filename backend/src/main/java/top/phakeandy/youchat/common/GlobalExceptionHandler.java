@@ -1,6 +1,13 @@
 package top.phakeandy.youchat.common;
 
+import java.sql.SQLTransientConnectionException;
+import org.springframework.core.NestedRuntimeException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
@@ -8,11 +15,30 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 @ControllerAdvice
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
+  private static final String RETRY_AFTER_SECONDS = "1";
+
+  /**
+   * 连接池已满或等待连接的请求过多时返回 503，客户端应稍后重试；其他数据库异常仍按未知错误处理
+   *
+   * <p>获取连接失败经 MyBatis 或事务管理器包装后类型各不相同，按异常链中的 {@link SQLTransientConnectionException} 判断。
+   */
+  @ExceptionHandler({DataAccessException.class, TransactionException.class})
+  public ResponseEntity<ProblemDetail> handleDataAccessException(NestedRuntimeException ex) {
+    if (!ex.contains(SQLTransientConnectionException.class)) {
+      return ResponseEntity.internalServerError().body(handleGenericException(ex));
+    }
+    ProblemDetail problemDetail =
+        ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "当前请求过多，请稍后重试");
+    problemDetail.setTitle("服务繁忙");
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+        .body(problemDetail);
+  }
+
   @ExceptionHandler(Exception.class)
   public ProblemDetail handleGenericException(Exception ex) {
     ProblemDetail problemDetail =
-        ProblemDetail.forStatusAndDetail(
-            org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR, "系统发生未知错误");
+        ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR, "系统发生未知错误");
     problemDetail.setTitle("服务器内部错误");
     return problemDetail;
   }
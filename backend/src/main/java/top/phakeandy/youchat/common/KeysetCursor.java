@@ -0,0 +1,44 @@
+package top.phakeandy.youchat.common;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import top.phakeandy.youchat.exception.InvalidCursorException;
+
+/**
+ * 按 {@code (created_at, id)} 定位的分页游标
+ *
+ * <p>对客户端不透明，编码为 URL 安全的 Base64 字符串，时间精确到微秒以与 PostgreSQL 保持一致
+ */
+public record KeysetCursor(OffsetDateTime createdAt, long id) {
+
+  private static final char SEPARATOR = ':';
+
+  public static KeysetCursor of(OffsetDateTime createdAt, long id) {
+    return new KeysetCursor(createdAt, id);
+  }
+
+  public String encode() {
+    long micros = ChronoUnit.MICROS.between(Instant.EPOCH, createdAt.toInstant());
+    String raw = Long.toString(micros) + SEPARATOR + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  public static KeysetCursor decode(String token) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+      int separator = raw.indexOf(SEPARATOR);
+      long micros = Long.parseLong(raw.substring(0, separator));
+      long id = Long.parseLong(raw.substring(separator + 1));
+      Instant instant = Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+      return new KeysetCursor(OffsetDateTime.ofInstant(instant, ZoneOffset.UTC), id);
+    } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+      throw new InvalidCursorException(e);
+    }
+  }
+}
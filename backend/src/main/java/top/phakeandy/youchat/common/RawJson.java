@@ -0,0 +1,57 @@
+package top.phakeandy.youchat.common;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+
+/**
+ * 数据库 JSONB 列的原始 JSON 文本
+ *
+ * <p>读写数据库和序列化响应时都不解析内容：Jackson 输出时把文本原样写入，客户端收到的是 JSON 对象而不是转义后的字符串。只有反序列化时才会解析一次，以校验输入是合法的 JSON。
+ *
+ * @param json 合法的 JSON 文本，由调用方或数据库保证
+ */
+@JsonSerialize(using = RawJson.Serializer.class)
+public record RawJson(String json) {
+
+  public static final RawJson EMPTY_OBJECT = new RawJson("{}");
+
+  public RawJson {
+    if (json == null) {
+      throw new IllegalArgumentException("json must not be null");
+    }
+  }
+
+  public static RawJson of(String json) {
+    return new RawJson(json);
+  }
+
+  @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+  static RawJson fromTree(JsonNode node) {
+    return new RawJson(node.toString());
+  }
+
+  @Override
+  public String toString() {
+    return json;
+  }
+
+  static final class Serializer extends StdSerializer<RawJson> {
+
+    private static final long serialVersionUID = 1L;
+
+    Serializer() {
+      super(RawJson.class);
+    }
+
+    @Override
+    public void serialize(RawJson value, JsonGenerator generator, SerializerProvider provider)
+        throws IOException {
+      generator.writeRawValue(value.json());
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package top.phakeandy.youchat.common;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+/**
+ * 升序去重的 ID 集合，不可变，用于群成员、好友等按用户缓存的 ID 列表
+ *
+ * <p>以 {@code long[]} 保存，一万个 ID 也只占约 80KB，判断包含用二分查找，求交集为线性归并，遍历时不装箱。
+ */
+public final class SortedIds {
+
+  private static final SortedIds NONE = new SortedIds(new long[0]);
+
+  private final long[] ids;
+
+  private SortedIds(long... ids) {
+    this.ids = ids;
+  }
+
+  public static SortedIds empty() {
+    return NONE;
+  }
+
+  /** 复制、排序并去重 */
+  public static SortedIds of(long... ids) {
+    if (ids.length == 0) {
+      return NONE;
+    }
+    long[] sorted = ids.clone();
+    Arrays.sort(sorted);
+    int size = 1;
+    for (int i = 1; i < sorted.length; i++) {
+      if (sorted[i] != sorted[size - 1]) {
+        sorted[size++] = sorted[i];
+      }
+    }
+    return new SortedIds(size == sorted.length ? sorted : Arrays.copyOf(sorted, size));
+  }
+
+  public boolean contains(long userId) {
+    return Arrays.binarySearch(ids, userId) >= 0;
+  }
+
+  /** 两个集合的交集，按较短一方的长度分配 */
+  public SortedIds intersect(SortedIds other) {
+    long[] a = ids;
+    long[] b = other.ids;
+    long[] common = new long[Math.min(a.length, b.length)];
+    int size = 0;
+    int i = 0;
+    int j = 0;
+    while (i < a.length && j < b.length) {
+      if (a[i] < b[j]) {
+        i++;
+      } else if (a[i] > b[j]) {
+        j++;
+      } else {
+        common[size++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    if (size == 0) {
+      return NONE;
+    }
+    return new SortedIds(size == common.length ? common : Arrays.copyOf(common, size));
+  }
+
+  public int size() {
+    return ids.length;
+  }
+
+  public boolean isEmpty() {
+    return ids.length == 0;
+  }
+
+  /** 按用户 ID 升序遍历 */
+  public void forEach(LongConsumer action) {
+    for (long id : ids) {
+      action.accept(id);
+    }
+  }
+
+  public LongStream stream() {
+    return Arrays.stream(ids);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof SortedIds other && Arrays.equals(ids, other.ids);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(ids);
+  }
+
+  @Override
+  public String toString() {
+    return "SortedIds[size=" + ids.length + "]";
+  }
+}
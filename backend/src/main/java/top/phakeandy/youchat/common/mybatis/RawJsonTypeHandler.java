@@ -0,0 +1,50 @@
+package top.phakeandy.youchat.common.mybatis;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.MappedJdbcTypes;
+import org.apache.ibatis.type.MappedTypes;
+import org.springframework.stereotype.Component;
+import top.phakeandy.youchat.common.RawJson;
+
+/**
+ * JSONB 列与 {@link RawJson} 之间的转换，文本原样进出，不经过解析
+ *
+ * <p>参数以 {@link Types#OTHER} 绑定，PostgreSQL 会拒绝把 varchar 隐式转换为 jsonb；结果直接取驱动返回的文本， 避免默认映射产生的 {@code
+ * PGobject}。生成的 Mapper 通过 generatorConfig.xml 中的 columnOverride 使用它。
+ */
+@Component
+@MappedTypes(RawJson.class)
+@MappedJdbcTypes(value = JdbcType.OTHER, includeNullJdbcType = true)
+public class RawJsonTypeHandler extends BaseTypeHandler<RawJson> {
+
+  @Override
+  public void setNonNullParameter(PreparedStatement ps, int i, RawJson parameter, JdbcType jdbcType)
+      throws SQLException {
+    ps.setObject(i, parameter.json(), Types.OTHER);
+  }
+
+  @Override
+  public RawJson getNullableResult(ResultSet rs, String columnName) throws SQLException {
+    return wrap(rs.getString(columnName));
+  }
+
+  @Override
+  public RawJson getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+    return wrap(rs.getString(columnIndex));
+  }
+
+  @Override
+  public RawJson getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+    return wrap(cs.getString(columnIndex));
+  }
+
+  private static RawJson wrap(String json) {
+    return json == null ? null : new RawJson(json);
+  }
+}
@@ -0,0 +1,25 @@
+package top.phakeandy.youchat.common.mybatis;
+
+import org.mybatis.dynamic.sql.insert.render.InsertStatementProvider;
+import org.mybatis.dynamic.sql.update.render.UpdateStatementProvider;
+
+/**
+ * 在 MyBatis Dynamic SQL 渲染的写语句后追加 {@code RETURNING *}，一条语句完成写入和回读
+ *
+ * <p>配合 {@code @SelectProvider} 使用，方法需声明 {@code flushCache = TRUE} 和 {@code useCache = false}，
+ * 否则同一会话内参数相同的写语句会直接命中一级缓存而不执行。
+ */
+public final class ReturningSqlProvider {
+
+  private static final String RETURNING_ALL = " RETURNING *";
+
+  private ReturningSqlProvider() {}
+
+  public static String insert(InsertStatementProvider<?> insertStatement) {
+    return insertStatement.getInsertStatement() + RETURNING_ALL;
+  }
+
+  public static String update(UpdateStatementProvider updateStatement) {
+    return updateStatement.getUpdateStatement() + RETURNING_ALL;
+  }
+}
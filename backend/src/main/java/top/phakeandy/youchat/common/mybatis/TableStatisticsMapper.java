@@ -0,0 +1,22 @@
+package top.phakeandy.youchat.common.mybatis;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/** 读取 PostgreSQL 的表统计信息，用于代替开销较大的 {@code COUNT(*)} */
+@Mapper
+@SuppressWarnings("PMD.ImplicitFunctionalInterface")
+public interface TableStatisticsMapper {
+
+  /**
+   * 按 {@code pg_class.reltuples} 估算表的行数
+   *
+   * @param table 表名
+   * @return 表从未被 ANALYZE 过或不存在时返回 {@code null}
+   */
+  @Select(
+      "SELECT CASE WHEN reltuples < 0 THEN NULL ELSE reltuples::bigint END"
+          + " FROM pg_class WHERE oid = to_regclass(#{table})")
+  Long estimateRowCount(@Param("table") String table);
+}
@@ -0,0 +1,164 @@
+package top.phakeandy.youchat.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * 获取连接前先取得信号量许可的 {@link DataSource}
+ *
+ * <p>许可数不超过连接池大小，连接关闭时归还。等待许可的线程超过 maxWaiting 时立即失败，等待超过 acquireTimeout 时同样失败，两种情况都抛出 {@link
+ * SQLTransientConnectionException}，经 Spring 或 MyBatis 包装后由全局异常处理返回 503。
+ */
+public class BoundedDataSource extends DelegatingDataSource {
+
+  private final Semaphore permits;
+  private final int maxWaiting;
+  private final long acquireTimeoutNanos;
+  private final AtomicInteger waiting = new AtomicInteger();
+
+  private final Timer acquireTimer;
+  private final Counter queueFull;
+  private final Counter timedOut;
+
+  public BoundedDataSource(
+      DataSource target,
+      int maxConcurrent,
+      ThreadingProperties.Database database,
+      MeterRegistry meterRegistry) {
+    super(target);
+    this.permits = new Semaphore(maxConcurrent, true);
+    this.maxWaiting = database.maxWaiting();
+    this.acquireTimeoutNanos = database.acquireTimeout().toNanos();
+    this.acquireTimer =
+        Timer.builder("youchat.datasource.acquire")
+            .description("Time a thread waits for a database permit")
+            .register(meterRegistry);
+    this.queueFull = rejected(meterRegistry, "queue_full");
+    this.timedOut = rejected(meterRegistry, "timeout");
+    Gauge.builder("youchat.datasource.waiting", waiting, AtomicInteger::get)
+        .description("Threads waiting for a database permit")
+        .register(meterRegistry);
+    Gauge.builder("youchat.datasource.active", permits, p -> maxConcurrent - p.availablePermits())
+        .description("Database permits currently held")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    acquire();
+    return bound(() -> super.getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    acquire();
+    return bound(() -> super.getConnection(username, password));
+  }
+
+  private void acquire() throws SQLException {
+    if (waiting.incrementAndGet() > maxWaiting) {
+      waiting.decrementAndGet();
+      queueFull.increment();
+      throw new SQLTransientConnectionException(
+          "Too many threads waiting for a database connection");
+    }
+    long start = System.nanoTime();
+    try {
+      if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+        timedOut.increment();
+        throw new SQLTransientConnectionException("Timed out waiting for a database permit");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLTransientConnectionException("Interrupted waiting for a database permit", e);
+    } finally {
+      waiting.decrementAndGet();
+      acquireTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /** 连接池本身获取失败时立即归还许可，否则许可随连接关闭归还 */
+  @SuppressWarnings("PMD.UseProperClassLoader")
+  private Connection bound(ConnectionSupplier supplier) throws SQLException {
+    Connection target;
+    try {
+      target = supplier.get();
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+    return (Connection)
+        Proxy.newProxyInstance(
+            ConnectionProxy.class.getClassLoader(),
+            new Class<?>[] {ConnectionProxy.class},
+            new PermitReleasingHandler(target));
+  }
+
+  private static Counter rejected(MeterRegistry meterRegistry, String reason) {
+    return Counter.builder("youchat.datasource.rejected")
+        .tag("reason", reason)
+        .description("Connection requests rejected before reaching the pool")
+        .register(meterRegistry);
+  }
+
+  @FunctionalInterface
+  private interface ConnectionSupplier {
+    Connection get() throws SQLException;
+  }
+
+  /** 第一次 close 时归还许可，重复关闭不会多归还 */
+  private final class PermitReleasingHandler implements InvocationHandler {
+
+    private final Connection target;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    PermitReleasingHandler(Connection target) {
+      this.target = target;
+    }
+
+    /** 代理只与自身相等，与 Spring 的 {@code TransactionAwareDataSourceProxy} 一致 */
+    @Override
+    @SuppressWarnings("PMD.CompareObjectsWithEquals")
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "getTargetConnection":
+          return target;
+        case "close":
+          try {
+            target.close();
+          } finally {
+            if (released.compareAndSet(false, true)) {
+              permits.release();
+            }
+          }
+          return null;
+        default:
+          try {
+            return method.invoke(target, args);
+          } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+          }
+      }
+    }
+  }
+}
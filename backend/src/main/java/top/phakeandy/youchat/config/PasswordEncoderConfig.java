@@ -1,15 +1,53 @@
 package top.phakeandy.youchat.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import top.phakeandy.youchat.auth.BoundedPasswordEncoder;
+import top.phakeandy.youchat.auth.PasswordPolicy;
 
 @Configuration
 public class PasswordEncoderConfig {
 
   @Bean
-  PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  BoundedPasswordEncoder passwordEncoder(
+      PasswordProperties properties, MeterRegistry meterRegistry) {
+    return new BoundedPasswordEncoder(
+        delegatingPasswordEncoder(properties), properties.hashing(), meterRegistry);
+  }
+
+  @Bean
+  PasswordPolicy passwordPolicy(PasswordProperties properties) {
+    return new PasswordPolicy(properties.policy());
+  }
+
+  /**
+   * 按配置的算法生成新哈希，校验时按哈希前缀选择算法
+   *
+   * <p>早期存储的哈希没有前缀，按 BCrypt 校验，并在登录成功后被重新哈希。
+   */
+  public static PasswordEncoder delegatingPasswordEncoder(PasswordProperties properties) {
+    BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(properties.bcrypt().strength());
+    PasswordProperties.Argon2 argon2 = properties.argon2();
+    DelegatingPasswordEncoder encoder =
+        new DelegatingPasswordEncoder(
+            properties.algorithm().id(),
+            Map.of(
+                PasswordProperties.Algorithm.BCRYPT.id(),
+                bcrypt,
+                PasswordProperties.Algorithm.ARGON2.id(),
+                new Argon2PasswordEncoder(
+                    argon2.saltLength(),
+                    argon2.hashLength(),
+                    argon2.parallelism(),
+                    argon2.memory(),
+                    argon2.iterations())));
+    encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+    return encoder;
   }
 }
@@ -0,0 +1,99 @@
+package top.phakeandy.youchat.config;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 密码哈希与密码规则配置
+ *
+ * <p>修改算法或成本后，旧哈希仍可校验，并在用户下次登录成功时按新配置重新哈希。
+ *
+ * @param algorithm 新密码使用的哈希算法
+ * @param bcrypt BCrypt 参数
+ * @param argon2 Argon2id 参数
+ * @param hashing 执行哈希计算的线程池
+ * @param policy 新密码需满足的规则
+ */
+@ConfigurationProperties(prefix = "youchat.password")
+public record PasswordProperties(
+    @DefaultValue("bcrypt") Algorithm algorithm,
+    @DefaultValue BCrypt bcrypt,
+    @DefaultValue Argon2 argon2,
+    @DefaultValue Hashing hashing,
+    @DefaultValue Policy policy) {
+
+  /** 哈希算法，{@link #id()} 为存储时的前缀 */
+  public enum Algorithm {
+    BCRYPT("bcrypt"),
+    ARGON2("argon2");
+
+    private final String encodingId;
+
+    Algorithm(String encodingId) {
+      this.encodingId = encodingId;
+    }
+
+    public String id() {
+      return encodingId;
+    }
+  }
+
+  /**
+   * BCrypt
+   *
+   * @param strength 成本因子（4-31），每加一计算时间翻倍
+   */
+  public record BCrypt(@DefaultValue("10") int strength) {}
+
+  /**
+   * Argon2id，默认值取 OWASP 推荐的最低配置
+   *
+   * @param saltLength 盐长度（字节）
+   * @param hashLength 哈希长度（字节）
+   * @param parallelism 并行度
+   * @param memory 内存成本（KiB）
+   * @param iterations 迭代次数
+   */
+  public record Argon2(
+      @DefaultValue("16") int saltLength,
+      @DefaultValue("32") int hashLength,
+      @DefaultValue("1") int parallelism,
+      @DefaultValue("19456") int memory,
+      @DefaultValue("2") int iterations) {}
+
+  /**
+   * 密码哈希线程池，限制同时进行的哈希计算，突发的登录请求排队而不是占满 CPU 和 Servlet 线程
+   *
+   * @param poolSize 线程数，不大于 0 时使用 CPU 核数
+   * @param queueCapacity 等待队列容量，队列已满的请求直接返回 503
+   * @param timeout 登录和注册在队列中等待的最长时间，以及其他调用方等待哈希结果的最长时间，超时返回 503
+   */
+  public record Hashing(
+      @DefaultValue("0") int poolSize,
+      @DefaultValue("64") int queueCapacity,
+      @DefaultValue("5s") Duration timeout) {}
+
+  /**
+   * 密码规则，注册和修改密码时一次返回所有不满足的规则
+   *
+   * @param minLength 最小长度（按 Unicode 码点计）
+   * @param maxLength 最大长度（按 Unicode 码点计）
+   * @param requireUppercase 是否必须包含大写字母（A-Z）
+   * @param requireLowercase 是否必须包含小写字母（a-z）
+   * @param requireDigit 是否必须包含数字（0-9）
+   * @param requireSpecial 是否必须包含 {@code specialCharacters} 中的字符
+   * @param specialCharacters 视为特殊字符的 ASCII 字符
+   * @param blocklist 禁止使用的密码，比较时忽略大小写
+   */
+  public record Policy(
+      @DefaultValue("8") int minLength,
+      @DefaultValue("128") int maxLength,
+      @DefaultValue("true") boolean requireUppercase,
+      @DefaultValue("true") boolean requireLowercase,
+      @DefaultValue("true") boolean requireDigit,
+      @DefaultValue("true") boolean requireSpecial,
+      @DefaultValue("!@#$%^&*()_+-=[]{};':\"\\|,.<>/?") String specialCharacters,
+      @DefaultValue List<String> blocklist) {}
+}
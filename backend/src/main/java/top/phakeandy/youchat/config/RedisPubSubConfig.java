@@ -0,0 +1,25 @@
+package top.phakeandy.youchat.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class RedisPubSubConfig {
+
+  /**
+   * 共享的 Redis 订阅容器
+   *
+   * <p>监听器直接在订阅连接的线程上执行，保证同一频道内的消息按发布顺序处理，监听器内部不应执行阻塞操作
+   */
+  @Bean
+  public RedisMessageListenerContainer redisMessageListenerContainer(
+      RedisConnectionFactory connectionFactory) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.setTaskExecutor(new SyncTaskExecutor());
+    return container;
+  }
+}
@@ -1,5 +1,7 @@
 package top.phakeandy.youchat.config;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,13 +11,16 @@ import org.springframework.security.config.annotation.authentication.builders.Au
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
 import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import top.phakeandy.youchat.auth.AuthenticatedUser;
 import top.phakeandy.youchat.auth.CustomUserDetailsService;
+import top.phakeandy.youchat.auth.UserSessionRegistry;
 
 @Configuration
 @EnableWebSecurity
@@ -24,6 +29,7 @@ public class SecurityConfig {
 
   private final CustomUserDetailsService userService;
   private final PasswordEncoder passwordEncoder;
+  private final UserSessionRegistry sessionRegistry;
 
   @Bean
   SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -51,6 +57,9 @@ public class SecurityConfig {
                 logout
                     .logoutUrl("/api/v1/auth/logout")
                     .logoutSuccessUrl("/api/v1/auth/login?logout=true")
+                    .addLogoutHandler(
+                        (request, response, authentication) ->
+                            unregisterSession(request, authentication))
                     .invalidateHttpSession(true)
                     .clearAuthentication(true)
                     .permitAll())
@@ -59,13 +68,21 @@ public class SecurityConfig {
                 session
                     .sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED)
                     .sessionFixation()
-                    .migrateSession()
-                    .maximumSessions(1)
-                    .maxSessionsPreventsLogin(false));
+                    .migrateSession());
 
     return http.build();
   }
 
+  /** 同时有效的会话数由 {@link UserSessionRegistry} 在登录时控制，普通请求不查询会话注册表 */
+  private void unregisterSession(HttpServletRequest request, Authentication authentication) {
+    HttpSession session = request.getSession(false);
+    if (session != null
+        && authentication != null
+        && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+      sessionRegistry.unregister(user.getId(), session.getId());
+    }
+  }
+
   @Bean
   AuthenticationManager authenticationManager(HttpSecurity http) throws Exception {
     AuthenticationManagerBuilder auth = http.getSharedObject(AuthenticationManagerBuilder.class);
@@ -0,0 +1,71 @@
+package top.phakeandy.youchat.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.session.data.redis.RedisSessionRepository;
+import org.springframework.session.web.http.SessionRepositoryFilter;
+import top.phakeandy.youchat.auth.SessionAccessMetrics;
+import top.phakeandy.youchat.auth.SessionManagementProperties;
+import top.phakeandy.youchat.auth.SessionRedisSerializer;
+import top.phakeandy.youchat.auth.ThrottledSessionRepository;
+
+@Configuration
+public class SessionConfig implements BeanClassLoaderAware {
+
+  private ClassLoader classLoader;
+
+  /** Spring Session 按名称查找该 Bean，用于序列化会话中的所有属性 */
+  @Bean
+  RedisSerializer<Object> springSessionDefaultRedisSerializer(MeterRegistry meterRegistry) {
+    return new SessionRedisSerializer(classLoader, meterRegistry);
+  }
+
+  /**
+   * 用 {@link ThrottledSessionRepository} 包装 Spring Session 创建的仓库，过滤器和业务代码都使用包装后的仓库
+   *
+   * <p>不能直接声明另一个 {@code SessionRepository} Bean，否则 Spring Boot 不再创建 Redis 会话仓库。
+   */
+  @Bean
+  static BeanPostProcessor throttledSessionRepositoryPostProcessor(
+      ObjectProvider<SessionManagementProperties> properties,
+      ObjectProvider<SessionAccessMetrics> sessionAccessMetrics) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof RedisSessionRepository sessionRepository) {
+          return new ThrottledSessionRepository<>(
+              sessionRepository,
+              properties.getObject().lastAccessGranularity(),
+              sessionAccessMetrics.getObject());
+        }
+        return bean;
+      }
+    };
+  }
+
+  @Bean
+  SessionAccessMetrics sessionAccessMetrics(MeterRegistry meterRegistry) {
+    return new SessionAccessMetrics(meterRegistry);
+  }
+
+  /** 排在 Spring Session 的过滤器之前，请求结束时会话已写回 */
+  @Bean
+  FilterRegistrationBean<SessionAccessMetrics> sessionAccessMetricsFilter(
+      SessionAccessMetrics sessionAccessMetrics) {
+    FilterRegistrationBean<SessionAccessMetrics> registration =
+        new FilterRegistrationBean<>(sessionAccessMetrics);
+    registration.setOrder(SessionRepositoryFilter.DEFAULT_ORDER - 1);
+    return registration;
+  }
+
+  @Override
+  public void setBeanClassLoader(ClassLoader classLoader) {
+    this.classLoader = classLoader;
+  }
+}
@@ -0,0 +1,23 @@
+package top.phakeandy.youchat.config;
+
+import java.security.Principal;
+import java.util.Map;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+import top.phakeandy.youchat.auth.AuthenticatedUser;
+
+/** 握手时将 HTTP 会话中已认证的用户转换为 {@link StompPrincipal} */
+public class StompHandshakeHandler extends DefaultHandshakeHandler {
+
+  @Override
+  protected Principal determineUser(
+      ServerHttpRequest request, WebSocketHandler wsHandler, Map<String, Object> attributes) {
+    if (request.getPrincipal() instanceof Authentication authentication
+        && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+      return new StompPrincipal(user.getId(), user.getUsername());
+    }
+    return null;
+  }
+}
@@ -0,0 +1,16 @@
+package top.phakeandy.youchat.config;
+
+import java.security.Principal;
+
+/**
+ * STOMP 会话的用户身份
+ *
+ * <p>{@link #getName()} 返回用户 ID，使 {@code /user/{userId}/queue/...} 可以直接按用户 ID 路由，投递时无需查询用户名。
+ */
+public record StompPrincipal(Long userId, String username) implements Principal {
+
+  @Override
+  public String getName() {
+    return String.valueOf(userId);
+  }
+}
@@ -0,0 +1,42 @@
+package top.phakeandy.youchat.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 虚拟线程模式下的并发限制与诊断，只在 {@code spring.threads.virtual.enabled=true} 时生效
+ *
+ * @param database 数据库连接并发限制
+ * @param pinning 虚拟线程钉住（pinning）检测
+ */
+@ConfigurationProperties(prefix = "youchat.threads")
+public record ThreadingProperties(@DefaultValue Database database, @DefaultValue Pinning pinning) {
+
+  /**
+   * 数据库连接并发限制
+   *
+   * <p>虚拟线程的数量不受限制，成千上万个线程同时等待连接池只会让每个请求都等到超时。获取连接前先取得信号量许可，等待的线程数超过 maxWaiting 或等待超过
+   * acquireTimeout 的请求立即失败并返回 503。
+   *
+   * @param maxConcurrent 同时持有连接的线程数，0 表示与连接池大小相同
+   * @param maxWaiting 等待连接的线程数上限
+   * @param acquireTimeout 等待许可的最长时间
+   */
+  public record Database(
+      @DefaultValue("0") int maxConcurrent,
+      @DefaultValue("1000") int maxWaiting,
+      @DefaultValue("5s") Duration acquireTimeout) {}
+
+  /**
+   * 虚拟线程钉住检测
+   *
+   * <p>在 {@code synchronized} 块内或 JDBC 驱动中阻塞的虚拟线程无法从载体线程卸载，通过 JFR 事件 {@code
+   * jdk.VirtualThreadPinned} 计数。
+   *
+   * @param enabled 是否开启检测
+   * @param threshold 钉住时间超过该值才记录
+   */
+  public record Pinning(
+      @DefaultValue("true") boolean enabled, @DefaultValue("20ms") Duration threshold) {}
+}
@@ -0,0 +1,53 @@
+package top.phakeandy.youchat.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 虚拟线程模式（{@code spring.threads.virtual.enabled=true}）下的并发限制与钉住检测
+ *
+ * <p>平台线程模式下 Tomcat 线程数本身限制了等待连接的请求数，这里的配置都不生效。
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+  /**
+   * 用 {@link BoundedDataSource} 包装 Spring Boot 创建的 Hikari 连接池，MyBatis、事务管理器和 Flyway 都使用包装后的数据源
+   *
+   * <p>与 {@code SessionConfig} 相同，不直接声明另一个 {@code DataSource} Bean，否则 Spring Boot 不再创建并绑定连接池配置。
+   */
+  @Bean
+  static BeanPostProcessor boundedDataSourcePostProcessor(
+      ObjectProvider<ThreadingProperties> properties, ObjectProvider<MeterRegistry> meterRegistry) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource dataSource) {
+          ThreadingProperties.Database database = properties.getObject().database();
+          int maxConcurrent =
+              database.maxConcurrent() > 0
+                  ? database.maxConcurrent()
+                  : dataSource.getMaximumPoolSize();
+          return new BoundedDataSource(
+              dataSource, maxConcurrent, database, meterRegistry.getObject());
+        }
+        return bean;
+      }
+    };
+  }
+
+  @Bean
+  @ConditionalOnBooleanProperty(name = "youchat.threads.pinning.enabled", matchIfMissing = true)
+  VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+      ThreadingProperties properties, MeterRegistry meterRegistry) {
+    return new VirtualThreadPinningMonitor(properties.pinning(), meterRegistry);
+  }
+}
@@ -0,0 +1,95 @@
+package top.phakeandy.youchat.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * 通过 JFR 事件流统计虚拟线程被钉住（pinned）的次数和时长
+ *
+ * <p>虚拟线程在 {@code synchronized} 块内或 JDBC 驱动的同步代码中阻塞时无法卸载，会一直占住载体线程；载体线程数等于 CPU 核数，
+ * 钉住的线程多了所有虚拟线程都会变慢。指标 {@code youchat.threads.pinned} 按 {@code source} 区分：调用栈经过 JDBC 驱动或连接池的为
+ * {@code jdbc}，其他（通常是 {@code synchronized}）为 {@code monitor}。
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+  static final String EVENT = "jdk.VirtualThreadPinned";
+
+  private static final List<String> JDBC_PACKAGES =
+      List.of("org.postgresql.", "com.zaxxer.hikari.", "java.sql.");
+
+  private static final String APPLICATION_PACKAGE = "top.phakeandy.youchat.";
+
+  private final ThreadingProperties.Pinning properties;
+  private final Timer jdbcPinned;
+  private final Timer monitorPinned;
+
+  private RecordingStream stream;
+  private volatile boolean running;
+
+  public VirtualThreadPinningMonitor(
+      ThreadingProperties.Pinning properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.jdbcPinned = timer(meterRegistry, "jdbc");
+    this.monitorPinned = timer(meterRegistry, "monitor");
+  }
+
+  @Override
+  public void start() {
+    stream = new RecordingStream();
+    stream.enable(EVENT).withThreshold(properties.threshold()).withStackTrace();
+    stream.onEvent(EVENT, this::record);
+    stream.startAsync();
+    running = true;
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    stream.close();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void record(RecordedEvent event) {
+    RecordedStackTrace stackTrace = event.getStackTrace();
+    List<RecordedFrame> frames = stackTrace == null ? List.of() : stackTrace.getFrames();
+    boolean jdbc = frames.stream().anyMatch(frame -> startsWithAny(typeName(frame), JDBC_PACKAGES));
+    (jdbc ? jdbcPinned : monitorPinned).record(event.getDuration());
+    if (log.isDebugEnabled()) {
+      log.debug(
+          "Virtual thread pinned for {} ms at {}",
+          event.getDuration().toMillis(),
+          frames.stream()
+              .filter(frame -> typeName(frame).startsWith(APPLICATION_PACKAGE))
+              .findFirst()
+              .map(frame -> typeName(frame) + "." + frame.getMethod().getName())
+              .orElse("<unknown>"));
+    }
+  }
+
+  private static String typeName(RecordedFrame frame) {
+    return frame.getMethod() == null ? "" : frame.getMethod().getType().getName();
+  }
+
+  private static boolean startsWithAny(String name, List<String> prefixes) {
+    return prefixes.stream().anyMatch(name::startsWith);
+  }
+
+  private static Timer timer(MeterRegistry meterRegistry, String source) {
+    return Timer.builder("youchat.threads.pinned")
+        .tag("source", source)
+        .description("Virtual threads pinned to their carrier thread")
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,54 @@
+package top.phakeandy.youchat.config;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * WebSocket / STOMP 配置
+ *
+ * @param endpoint STOMP 握手端点
+ * @param allowedOriginPatterns 允许跨域握手的来源
+ * @param inbound 处理客户端上行消息的线程池
+ * @param outbound 向客户端推送消息的线程池
+ * @param sendTimeLimit 单个会话发送一条消息允许的最长时间，超时的慢客户端会被断开
+ * @param sendBufferSizeLimit 单个会话待发送缓冲区上限，超出的慢客户端会被断开
+ * @param messageSizeLimit 客户端上行单条消息大小上限
+ * @param heartbeat 服务端与客户端的 STOMP 心跳间隔
+ * @param cluster 多节点消息转发配置
+ */
+@ConfigurationProperties(prefix = "youchat.websocket")
+public record WebSocketProperties(
+    @DefaultValue("/ws") String endpoint,
+    @DefaultValue("http://localhost:*") List<String> allowedOriginPatterns,
+    @DefaultValue ChannelPool inbound,
+    @DefaultValue ChannelPool outbound,
+    @DefaultValue("10s") Duration sendTimeLimit,
+    @DefaultValue("512KB") DataSize sendBufferSizeLimit,
+    @DefaultValue("64KB") DataSize messageSizeLimit,
+    @DefaultValue("10s") Duration heartbeat,
+    @DefaultValue Cluster cluster) {
+
+  /**
+   * 消息通道线程池
+   *
+   * @param corePoolSize 核心线程数
+   * @param maxPoolSize 最大线程数，仅在队列已满时才会扩容
+   * @param queueCapacity 等待队列容量
+   */
+  public record ChannelPool(
+      @DefaultValue("8") int corePoolSize,
+      @DefaultValue("8") int maxPoolSize,
+      @DefaultValue("10000") int queueCapacity) {}
+
+  /**
+   * 多节点消息转发
+   *
+   * @param enabled 是否通过 Redis pub/sub 在节点之间转发消息，关闭后只投递给本节点的客户端
+   * @param channelPrefix Redis 频道前缀
+   */
+  public record Cluster(
+      @DefaultValue("true") boolean enabled, @DefaultValue("youchat:ws:") String channelPrefix) {}
+}
@@ -1,6 +1,91 @@
 package top.phakeandy.youchat.config;
 
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import top.phakeandy.youchat.message.DestinationAuthorizationInterceptor;
+import top.phakeandy.youchat.message.MessageDestinations;
 
 @Configuration
-public class WebsoketConfig {}
+@EnableWebSocketMessageBroker
+@RequiredArgsConstructor
+public class WebsoketConfig implements WebSocketMessageBrokerConfigurer {
+
+  private final WebSocketProperties properties;
+  private final WorkerThreads workerThreads;
+  private final DestinationAuthorizationInterceptor destinationAuthorizationInterceptor;
+
+  private TaskScheduler messageBrokerTaskScheduler;
+
+  @Autowired
+  public void setMessageBrokerTaskScheduler(@Lazy TaskScheduler messageBrokerTaskScheduler) {
+    this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
+  }
+
+  @Override
+  public void registerStompEndpoints(StompEndpointRegistry registry) {
+    registry
+        .addEndpoint(properties.endpoint())
+        .setHandshakeHandler(new StompHandshakeHandler())
+        .setAllowedOriginPatterns(properties.allowedOriginPatterns().toArray(String[]::new));
+  }
+
+  @Override
+  public void configureMessageBroker(MessageBrokerRegistry registry) {
+    long heartbeat = properties.heartbeat().toMillis();
+    registry
+        .enableSimpleBroker(MessageDestinations.TOPIC_PREFIX, MessageDestinations.QUEUE_PREFIX)
+        .setHeartbeatValue(new long[] {heartbeat, heartbeat})
+        .setTaskScheduler(messageBrokerTaskScheduler);
+    registry.setApplicationDestinationPrefixes(MessageDestinations.APP_PREFIX);
+    registry.setUserDestinationPrefix(MessageDestinations.USER_PREFIX);
+    // 同一会话的推送保持顺序，不同会话之间仍可并行
+    registry.setPreservePublishOrder(true);
+  }
+
+  @Override
+  public void configureClientInboundChannel(ChannelRegistration registration) {
+    configurePool(registration, "ws-inbound-", properties.inbound());
+    registration.interceptors(destinationAuthorizationInterceptor);
+  }
+
+  @Override
+  public void configureClientOutboundChannel(ChannelRegistration registration) {
+    configurePool(registration, "ws-outbound-", properties.outbound());
+  }
+
+  /** 发送超时或缓冲区超限的慢客户端会被断开，避免其占住推送线程 */
+  @Override
+  public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+    registration
+        .setSendTimeLimit((int) properties.sendTimeLimit().toMillis())
+        .setSendBufferSizeLimit((int) properties.sendBufferSizeLimit().toBytes())
+        .setMessageSizeLimit((int) properties.messageSizeLimit().toBytes());
+  }
+
+  /** 虚拟线程模式下每条消息一个虚拟线程，同时处理的消息数与线程池模式的上限（线程数加队列容量）相同 */
+  private void configurePool(
+      ChannelRegistration registration,
+      String threadNamePrefix,
+      WebSocketProperties.ChannelPool pool) {
+    if (workerThreads.isVirtual()) {
+      registration.executor(
+          workerThreads.virtualExecutor(
+              threadNamePrefix, pool.maxPoolSize() + pool.queueCapacity()));
+      return;
+    }
+    registration
+        .taskExecutor()
+        .corePoolSize(pool.corePoolSize())
+        .maxPoolSize(pool.maxPoolSize())
+        .queueCapacity(pool.queueCapacity());
+  }
+}
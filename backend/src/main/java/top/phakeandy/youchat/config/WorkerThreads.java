@@ -0,0 +1,44 @@
+package top.phakeandy.youchat.config;
+
+import java.util.concurrent.Executor;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 应用自行创建的线程，随 {@code spring.threads.virtual.enabled} 在平台线程和虚拟线程之间切换
+ *
+ * <p>Tomcat、{@code @Async} 和 Spring MVC 异步请求由 Spring Boot 按同一配置切换，这里覆盖 STOMP 消息通道、后台定时任务和写入线程。
+ */
+@Component
+public class WorkerThreads {
+
+  private final boolean virtual;
+
+  public WorkerThreads(Environment environment) {
+    this.virtual = Threading.VIRTUAL.isActive(environment);
+  }
+
+  public boolean isVirtual() {
+    return virtual;
+  }
+
+  /** 启动一个长期运行的后台线程，平台线程模式下为守护线程 */
+  public Thread start(String name, Runnable task) {
+    Thread.Builder builder = virtual ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+    return builder.name(name).start(task);
+  }
+
+  /**
+   * 每个任务一个虚拟线程的执行器，同时执行的任务超过 concurrencyLimit 时提交任务的线程等待
+   *
+   * <p>只在虚拟线程模式下使用，平台线程模式仍使用有界线程池。
+   */
+  public Executor virtualExecutor(String threadNamePrefix, int concurrencyLimit) {
+    SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+    executor.setVirtualThreads(true);
+    executor.setConcurrencyLimit(concurrencyLimit);
+    return executor;
+  }
+}
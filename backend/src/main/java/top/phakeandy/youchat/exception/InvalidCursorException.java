@@ -0,0 +1,18 @@
+package top.phakeandy.youchat.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.ErrorResponseException;
+
+public class InvalidCursorException extends ErrorResponseException {
+
+  private static final long serialVersionUID = 1L;
+
+  public InvalidCursorException(Throwable cause) {
+    super(
+        HttpStatus.BAD_REQUEST,
+        ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "分页游标无效，请从第一页重新加载。"),
+        cause);
+    getBody().setTitle("分页游标无效");
+  }
+}
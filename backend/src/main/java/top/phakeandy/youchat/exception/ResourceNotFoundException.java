@@ -9,10 +9,14 @@ public class ResourceNotFoundException extends ErrorResponseException {
   private static final long serialVersionUID = 1L;
 
   public ResourceNotFoundException(String message) {
+    this(message, null);
+  }
+
+  public ResourceNotFoundException(String message, Throwable cause) {
     super(
         HttpStatus.NOT_FOUND,
         ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, message),
-        null);
+        cause);
     getBody().setTitle("资源不存在");
   }
 }
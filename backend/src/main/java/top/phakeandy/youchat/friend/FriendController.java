@@ -0,0 +1,131 @@
+package top.phakeandy.youchat.friend;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import top.phakeandy.youchat.auth.AuthenticatedUser;
+import top.phakeandy.youchat.common.CursorPage;
+import top.phakeandy.youchat.friend.request.AddFriendRequest;
+
+@RestController
+@RequestMapping("/api/v1/friends")
+@Tag(name = "Friend", description = "好友相关接口")
+@RequiredArgsConstructor
+public class FriendController {
+
+  private final FriendService friendService;
+
+  @PostMapping
+  @Operation(summary = "添加好友", description = "与指定用户建立好友关系")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "201", description = "添加成功"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "不能添加自己为好友",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+        @ApiResponse(
+            responseCode = "404",
+            description = "用户不存在",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+        @ApiResponse(
+            responseCode = "409",
+            description = "已经是好友",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+      })
+  @ResponseStatus(HttpStatus.CREATED)
+  public void addFriend(
+      @Valid @RequestBody AddFriendRequest request,
+      @Parameter(hidden = true) @AuthenticationPrincipal AuthenticatedUser user) {
+    friendService.addFriend(user.getId(), request.userId());
+  }
+
+  @GetMapping
+  @Operation(summary = "获取好友列表", description = "按用户ID升序的游标分页，使用上一页返回的 nextCursor 获取下一页")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "成功获取好友列表",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = CursorPage.class))),
+      })
+  public ResponseEntity<CursorPage<FriendResponse>> getFriends(
+      @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) String cursor,
+      @Parameter(description = "每页数量，1-100", example = "50") @RequestParam(defaultValue = "50")
+          int size,
+      @Parameter(hidden = true) @AuthenticationPrincipal AuthenticatedUser user) {
+    CursorPage<FriendResponse> response = friendService.listFriends(user.getId(), cursor, size);
+    return ResponseEntity.ok(response);
+  }
+
+  @GetMapping("/{userId}/mutual")
+  @Operation(summary = "获取共同好友", description = "当前用户与指定用户的共同好友")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "成功获取共同好友",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = MutualFriendsResponse.class))),
+      })
+  public ResponseEntity<MutualFriendsResponse> getMutualFriends(
+      @Parameter(description = "对方的用户ID", required = true, example = "2") @PathVariable Long userId,
+      @Parameter(hidden = true) @AuthenticationPrincipal AuthenticatedUser user) {
+    MutualFriendsResponse response = friendService.mutualFriends(user.getId(), userId);
+    return ResponseEntity.ok(response);
+  }
+
+  @DeleteMapping("/{userId}")
+  @Operation(summary = "删除好友", description = "解除与指定用户的好友关系")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "204", description = "删除成功"),
+        @ApiResponse(
+            responseCode = "404",
+            description = "对方不是好友",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+      })
+  @ResponseStatus(HttpStatus.NO_CONTENT)
+  public void removeFriend(
+      @Parameter(description = "对方的用户ID", required = true, example = "2") @PathVariable Long userId,
+      @Parameter(hidden = true) @AuthenticationPrincipal AuthenticatedUser user) {
+    friendService.removeFriend(user.getId(), userId);
+  }
+}
@@ -0,0 +1,105 @@
+package top.phakeandy.youchat.friend;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import top.phakeandy.youchat.cache.CacheInvalidationBus;
+import top.phakeandy.youchat.cache.CacheProperties;
+import top.phakeandy.youchat.common.SortedIds;
+
+/**
+ * 按用户缓存的好友邻接表
+ *
+ * <p>未命中时用一条查询加载用户的全部好友 ID，之后判断好友和求共同好友都只读内存。按缓存的好友 ID 总数限制大小，超出后淘汰最近最少使用的用户；好友关系变化时失效双方，
+ * 在调用时和提交后各失效一次，并广播给其他节点。
+ */
+@Component
+public class FriendGraph {
+
+  static final String CACHE_NAME = "friends";
+
+  private final FriendshipMapper friendshipMapper;
+  private final CacheInvalidationBus invalidationBus;
+  private final Cache<Long, SortedIds> adjacency;
+  private final Counter hits;
+  private final Counter misses;
+
+  public FriendGraph(
+      FriendshipMapper friendshipMapper,
+      CacheInvalidationBus invalidationBus,
+      MeterRegistry meterRegistry,
+      CacheProperties properties) {
+    this.friendshipMapper = friendshipMapper;
+    this.invalidationBus = invalidationBus;
+    CacheProperties.Friends friends = properties.friends();
+    this.adjacency =
+        Caffeine.newBuilder()
+            .maximumWeight(friends.localMaximumIds())
+            .<Long, SortedIds>weigher((userId, ids) -> ids.size() + 1)
+            .expireAfterWrite(friends.localTtl())
+            .build();
+    this.hits = gets(meterRegistry, "hit");
+    this.misses = gets(meterRegistry, "miss");
+    Gauge.builder("youchat.cache.size", adjacency, Cache::estimatedSize)
+        .tag("cache", CACHE_NAME)
+        .description("Users in the local friend adjacency cache")
+        .register(meterRegistry);
+    invalidationBus.register(CACHE_NAME, key -> adjacency.invalidate(Long.valueOf(key)));
+  }
+
+  /** 用户全部好友的用户 ID */
+  public SortedIds friendsOf(long userId) {
+    SortedIds cached = adjacency.getIfPresent(userId);
+    if (cached != null) {
+      hits.increment();
+      return cached;
+    }
+    misses.increment();
+    return adjacency.get(userId, this::load);
+  }
+
+  public boolean areFriends(long userId, long otherUserId) {
+    return friendsOf(userId).contains(otherUserId);
+  }
+
+  /** 两个用户的共同好友 */
+  public SortedIds mutualFriends(long userId, long otherUserId) {
+    return friendsOf(userId).intersect(friendsOf(otherUserId));
+  }
+
+  /** 好友关系变化后调用，双方的邻接表都会失效 */
+  public void invalidate(long userId, long otherUserId) {
+    adjacency.invalidateAll(List.of(userId, otherUserId));
+    List<String> keys = List.of(Long.toString(userId), Long.toString(otherUserId));
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              adjacency.invalidateAll(List.of(userId, otherUserId));
+              invalidationBus.publish(CACHE_NAME, keys);
+            }
+          });
+    } else {
+      invalidationBus.publish(CACHE_NAME, keys);
+    }
+  }
+
+  private SortedIds load(long userId) {
+    return SortedIds.of(friendshipMapper.selectFriendIds(userId));
+  }
+
+  private static Counter gets(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("youchat.cache.gets")
+        .tag("cache", CACHE_NAME)
+        .tag("tier", "local")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,9 @@
+package top.phakeandy.youchat.friend;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.OffsetDateTime;
+
+@Schema(description = "好友响应对象")
+public record FriendResponse(
+    @Schema(description = "好友的用户ID", example = "2") Long userId,
+    @Schema(description = "成为好友的时间", example = "2024-01-01T12:00:00") OffsetDateTime since) {}
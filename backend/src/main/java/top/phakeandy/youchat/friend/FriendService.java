@@ -0,0 +1,84 @@
+package top.phakeandy.youchat.friend;
+
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import top.phakeandy.youchat.common.CursorPage;
+import top.phakeandy.youchat.common.SortedIds;
+import top.phakeandy.youchat.exception.InvalidCursorException;
+import top.phakeandy.youchat.exception.ResourceNotFoundException;
+import top.phakeandy.youchat.friend.exception.FriendshipAlreadyExistsException;
+import top.phakeandy.youchat.friend.exception.InvalidFriendshipException;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.UsersMapper;
+
+/** 好友关系的增删查，写入后失效 {@link FriendGraph} 中双方的邻接表 */
+@Service
+@RequiredArgsConstructor
+public class FriendService {
+
+  private static final int MAX_PAGE_SIZE = 100;
+
+  private final FriendshipMapper friendshipMapper;
+  private final UsersMapper usersMapper;
+  private final FriendGraph friendGraph;
+
+  @Transactional
+  public void addFriend(long userId, long friendId) {
+    if (userId == friendId) {
+      throw new InvalidFriendshipException();
+    }
+    if (usersMapper.count(c -> c.where(UsersDynamicSqlSupport.id, isEqualTo(friendId))) == 0) {
+      throw new ResourceNotFoundException("用户不存在");
+    }
+    if (friendshipMapper.insertIfAbsent(Math.min(userId, friendId), Math.max(userId, friendId))
+        == 0) {
+      throw new FriendshipAlreadyExistsException();
+    }
+    friendGraph.invalidate(userId, friendId);
+  }
+
+  @Transactional
+  public void removeFriend(long userId, long friendId) {
+    if (friendshipMapper.delete(Math.min(userId, friendId), Math.max(userId, friendId)) == 0) {
+      throw new ResourceNotFoundException("对方不是你的好友");
+    }
+    friendGraph.invalidate(userId, friendId);
+  }
+
+  /**
+   * 按好友的用户 ID 升序的游标分页
+   *
+   * @param cursor 上一页返回的游标，为空时从第一页开始
+   * @param size 每页数量，超出范围时截断到 1-100
+   */
+  public CursorPage<FriendResponse> listFriends(long userId, String cursor, int size) {
+    int limit = Math.clamp(size, 1, MAX_PAGE_SIZE);
+    List<FriendResponse> rows =
+        friendshipMapper.selectFriends(userId, decodeCursor(cursor), limit + 1L);
+
+    boolean hasNext = rows.size() > limit;
+    List<FriendResponse> page = hasNext ? rows.subList(0, limit) : rows;
+    String nextCursor = hasNext ? page.getLast().userId().toString() : null;
+    return new CursorPage<>(page, nextCursor, hasNext, null);
+  }
+
+  public MutualFriendsResponse mutualFriends(long userId, long otherUserId) {
+    SortedIds mutual = friendGraph.mutualFriends(userId, otherUserId);
+    return new MutualFriendsResponse(mutual.size(), mutual.stream().boxed().toList());
+  }
+
+  private static long decodeCursor(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return 0;
+    }
+    try {
+      return Long.parseLong(cursor);
+    } catch (NumberFormatException e) {
+      throw new InvalidCursorException(e);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package top.phakeandy.youchat.friend;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import org.apache.ibatis.annotations.Arg;
+import org.apache.ibatis.annotations.ConstructorArgs;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 好友关系的手写语句
+ *
+ * <p>每对好友只存一行且 {@code user1_id < user2_id}，查询某个用户的好友要同时按两列查找。两侧用 {@code UNION ALL} 合并为一条语句，分别命中
+ * {@code idx_friendships_user1_id} 和 {@code idx_friendships_user2_id}；同一对好友只有一行，两侧不会重复，不需要去重。
+ */
+@Mapper
+public interface FriendshipMapper {
+
+  @Select(
+      """
+      SELECT user2_id FROM friendships WHERE user1_id = #{userId}
+      UNION ALL
+      SELECT user1_id FROM friendships WHERE user2_id = #{userId}
+      """)
+  long[] selectFriendIds(@Param("userId") long userId);
+
+  /**
+   * 按好友的用户 ID 升序分页
+   *
+   * @param afterId 上一页最后一位好友的用户 ID，首页传 0
+   */
+  @Select(
+      """
+      SELECT friend_id, created_at FROM (
+          SELECT user2_id AS friend_id, created_at FROM friendships
+          WHERE user1_id = #{userId} AND user2_id > #{afterId}
+          UNION ALL
+          SELECT user1_id AS friend_id, created_at FROM friendships
+          WHERE user2_id = #{userId} AND user1_id > #{afterId}
+      ) AS f
+      ORDER BY friend_id
+      LIMIT #{limit}
+      """)
+  @ConstructorArgs({
+    @Arg(column = "friend_id", javaType = Long.class),
+    @Arg(column = "created_at", javaType = OffsetDateTime.class)
+  })
+  List<FriendResponse> selectFriends(
+      @Param("userId") long userId, @Param("afterId") long afterId, @Param("limit") long limit);
+
+  /**
+   * 建立好友关系，已是好友时不做任何修改
+   *
+   * @param user1Id 两个用户中较小的 ID
+   * @param user2Id 两个用户中较大的 ID
+   * @return 新建时返回 1，已是好友时返回 0
+   */
+  @Insert(
+      """
+      INSERT INTO friendships (user1_id, user2_id)
+      VALUES (#{user1Id}, #{user2Id})
+      ON CONFLICT (user1_id, user2_id) DO NOTHING
+      """)
+  int insertIfAbsent(@Param("user1Id") long user1Id, @Param("user2Id") long user2Id);
+
+  /**
+   * 解除好友关系
+   *
+   * @return 删除的行数
+   */
+  @Delete("DELETE FROM friendships WHERE user1_id = #{user1Id} AND user2_id = #{user2Id}")
+  int delete(@Param("user1Id") long user1Id, @Param("user2Id") long user2Id);
+}
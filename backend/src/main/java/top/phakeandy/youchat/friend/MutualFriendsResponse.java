@@ -0,0 +1,9 @@
+package top.phakeandy.youchat.friend;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+@Schema(description = "共同好友响应对象")
+public record MutualFriendsResponse(
+    @Schema(description = "共同好友数量", example = "2") int count,
+    @Schema(description = "共同好友的用户ID，按升序排列", example = "[3, 5]") List<Long> userIds) {}
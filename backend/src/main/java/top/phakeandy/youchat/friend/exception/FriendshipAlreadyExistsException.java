@@ -0,0 +1,18 @@
+package top.phakeandy.youchat.friend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.ErrorResponseException;
+
+public class FriendshipAlreadyExistsException extends ErrorResponseException {
+
+  private static final long serialVersionUID = 1L;
+
+  public FriendshipAlreadyExistsException() {
+    super(
+        HttpStatus.CONFLICT,
+        ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "你们已经是好友了。"),
+        null);
+    getBody().setTitle("好友关系已存在");
+  }
+}
@@ -0,0 +1,18 @@
+package top.phakeandy.youchat.friend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.ErrorResponseException;
+
+public class InvalidFriendshipException extends ErrorResponseException {
+
+  private static final long serialVersionUID = 1L;
+
+  public InvalidFriendshipException() {
+    super(
+        HttpStatus.BAD_REQUEST,
+        ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "不能添加自己为好友。"),
+        null);
+    getBody().setTitle("好友操作无效");
+  }
+}
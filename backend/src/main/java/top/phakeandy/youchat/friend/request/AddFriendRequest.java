@@ -0,0 +1,12 @@
+package top.phakeandy.youchat.friend.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+
+@Schema(
+    description = "添加好友请求参数",
+    requiredProperties = {"userId"})
+public record AddFriendRequest(
+    @Schema(description = "对方的用户ID", requiredMode = Schema.RequiredMode.REQUIRED, example = "2")
+        @NotNull(message = "用户ID不能为空")
+        Long userId) {}
@@ -0,0 +1,12 @@
+package top.phakeandy.youchat.inbox;
+
+import java.time.OffsetDateTime;
+
+/** 会话的最新消息摘要，每个会话一份，由所有成员共享 */
+public record ConversationSummary(
+    String conversationId,
+    long lastMessageId,
+    long lastSenderId,
+    String messageType,
+    String preview,
+    OffsetDateTime lastMessageAt) {}
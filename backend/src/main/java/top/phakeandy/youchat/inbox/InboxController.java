@@ -0,0 +1,58 @@
+package top.phakeandy.youchat.inbox;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import top.phakeandy.youchat.auth.AuthenticatedUser;
+import top.phakeandy.youchat.common.CursorPage;
+
+@RestController
+@RequestMapping("/api/v1/conversations")
+@Tag(name = "Inbox", description = "会话列表相关接口")
+@RequiredArgsConstructor
+public class InboxController {
+
+  private final InboxService inboxService;
+
+  @GetMapping
+  @Operation(
+      summary = "获取会话列表",
+      description = "按最新消息倒序返回当前用户的会话，包含最新消息预览和未读数；首页数据来自缓存，使用上一页返回的 nextCursor 获取下一页")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "成功获取会话列表",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = CursorPage.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "游标无效",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+      })
+  public ResponseEntity<CursorPage<InboxEntryResponse>> getInbox(
+      @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) String cursor,
+      @Parameter(description = "每页数量，1-100", example = "20") @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(hidden = true) @AuthenticationPrincipal AuthenticatedUser user) {
+    return ResponseEntity.ok(inboxService.getInbox(user.getId(), cursor, size));
+  }
+}
@@ -0,0 +1,29 @@
+package top.phakeandy.youchat.inbox;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import top.phakeandy.youchat.message.MessageType;
+
+@Schema(description = "会话列表中的一个会话")
+public record InboxEntryResponse(
+    @Schema(description = "会话ID", example = "d_12345_67890") String conversationId,
+    @Schema(description = "最新一条消息的ID", example = "1234567890123456789") String lastMessageId,
+    @Schema(description = "最新一条消息的发送者ID", example = "12345") String lastSenderId,
+    @Schema(description = "最新一条消息的类型", example = "TEXT") MessageType messageType,
+    @Schema(description = "最新一条消息的预览，图片消息为 [图片]", example = "你好") String preview,
+    @Schema(description = "最新一条消息的发送时间", example = "2025-01-01T12:00:00")
+        LocalDateTime lastMessageAt,
+    @Schema(description = "未读消息数", example = "3") long unreadCount) {
+
+  static InboxEntryResponse of(ConversationSummary summary, long unreadCount) {
+    return new InboxEntryResponse(
+        summary.conversationId(),
+        String.valueOf(summary.lastMessageId()),
+        String.valueOf(summary.lastSenderId()),
+        MessageType.valueOf(summary.messageType().toUpperCase(Locale.ROOT)),
+        summary.preview(),
+        summary.lastMessageAt().toLocalDateTime(),
+        unreadCount);
+  }
+}
@@ -0,0 +1,107 @@
+package top.phakeandy.youchat.inbox;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.apache.ibatis.annotations.Arg;
+import org.apache.ibatis.annotations.ConstructorArgs;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/** 会话摘要的 upsert 和按用户列出会话的语句 */
+@Mapper
+public interface InboxMapper {
+
+  /**
+   * 批量写入会话的最新消息摘要，已有摘要不旧于新值时不做修改，同一批次内每个会话最多出现一次
+   *
+   * @return 实际写入的行数
+   */
+  @Insert(
+      """
+      <script>
+      INSERT INTO conversation_summaries AS s (
+          conversation_id, user1_id, user2_id, last_message_id,
+          last_sender_id, message_type, preview, last_message_at)
+      SELECT v.conversation_id,
+          CASE WHEN v.conversation_id LIKE 'd\\_%' THEN split_part(v.conversation_id, '_', 2)::BIGINT END,
+          CASE WHEN v.conversation_id LIKE 'd\\_%' THEN split_part(v.conversation_id, '_', 3)::BIGINT END,
+          v.last_message_id, v.last_sender_id, v.message_type, v.preview, v.last_message_at
+      FROM (VALUES
+      <foreach collection="summaries" item="s" separator=",">
+          (#{s.conversationId}, #{s.lastMessageId}::BIGINT, #{s.lastSenderId}::BIGINT,
+           #{s.messageType}, #{s.preview}, #{s.lastMessageAt}::TIMESTAMPTZ)
+      </foreach>
+      ) AS v (conversation_id, last_message_id, last_sender_id, message_type, preview, last_message_at)
+      ON CONFLICT (conversation_id) DO UPDATE
+      SET last_message_id = EXCLUDED.last_message_id,
+          last_sender_id = EXCLUDED.last_sender_id,
+          message_type = EXCLUDED.message_type,
+          preview = EXCLUDED.preview,
+          last_message_at = EXCLUDED.last_message_at
+      WHERE s.last_message_id &lt; EXCLUDED.last_message_id
+      </script>
+      """)
+  int upsertAll(@Param("summaries") List<ConversationSummary> summaries);
+
+  /**
+   * 按最新消息倒序列出用户参与的会话：私聊来自摘要表中的参与者，群聊来自加入或创建的群聊
+   *
+   * @param beforeMessageId 只返回最新消息 ID 小于该值的会话，首页传 {@link Long#MAX_VALUE}
+   */
+  @Select(
+      """
+      SELECT s.conversation_id, s.last_message_id, s.last_sender_id,
+          s.message_type, s.preview, s.last_message_at
+      FROM conversation_summaries AS s
+      WHERE s.conversation_id IN (
+          SELECT conversation_id FROM conversation_summaries WHERE user1_id = #{userId}
+          UNION ALL
+          SELECT conversation_id FROM conversation_summaries WHERE user2_id = #{userId}
+          UNION ALL
+          SELECT 'g_' || group_id FROM group_members WHERE user_id = #{userId}
+          UNION ALL
+          SELECT 'g_' || id FROM chat_groups WHERE owner_id = #{userId}
+      )
+        AND s.last_message_id < #{beforeMessageId}
+      ORDER BY s.last_message_id DESC
+      LIMIT #{limit}
+      """)
+  @ConstructorArgs({
+    @Arg(column = "conversation_id", javaType = String.class),
+    @Arg(column = "last_message_id", javaType = long.class),
+    @Arg(column = "last_sender_id", javaType = long.class),
+    @Arg(column = "message_type", javaType = String.class),
+    @Arg(column = "preview", javaType = String.class),
+    @Arg(column = "last_message_at", javaType = OffsetDateTime.class)
+  })
+  List<ConversationSummary> selectInbox(
+      @Param("userId") long userId,
+      @Param("beforeMessageId") long beforeMessageId,
+      @Param("limit") long limit);
+
+  @Select(
+      """
+      <script>
+      SELECT conversation_id, last_message_id, last_sender_id,
+          message_type, preview, last_message_at
+      FROM conversation_summaries
+      WHERE conversation_id IN
+      <foreach collection="conversationIds" item="id" open="(" separator="," close=")">
+          #{id}
+      </foreach>
+      </script>
+      """)
+  @ConstructorArgs({
+    @Arg(column = "conversation_id", javaType = String.class),
+    @Arg(column = "last_message_id", javaType = long.class),
+    @Arg(column = "last_sender_id", javaType = long.class),
+    @Arg(column = "message_type", javaType = String.class),
+    @Arg(column = "preview", javaType = String.class),
+    @Arg(column = "last_message_at", javaType = OffsetDateTime.class)
+  })
+  List<ConversationSummary> selectByIds(
+      @Param("conversationIds") Collection<String> conversationIds);
+}
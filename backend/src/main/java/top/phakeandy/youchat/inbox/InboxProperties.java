@@ -0,0 +1,22 @@
+package top.phakeandy.youchat.inbox;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 会话列表（收件箱）配置
+ *
+ * @param keyPrefix 收件箱的 Redis 键前缀，每个用户一个有序集合，成员为会话 ID，分数为最新消息时间
+ * @param summaryKeyPrefix 会话摘要的 Redis 键前缀，每个会话一个 Hash，所有成员共享
+ * @param cachedConversations 每个用户在 Redis 中保留的最近会话数，不超过该数量的首页请求只读 Redis
+ * @param ttl 收件箱和摘要缓存的过期时间，每次更新时续期，过期后在下次读取时从数据库重建
+ * @param previewLength 消息预览保留的最大字符数，不能超过 conversation_summaries.preview 的长度 200
+ */
+@ConfigurationProperties(prefix = "youchat.inbox")
+public record InboxProperties(
+    @DefaultValue("youchat:inbox:") String keyPrefix,
+    @DefaultValue("youchat:inbox:summary:") String summaryKeyPrefix,
+    @DefaultValue("100") int cachedConversations,
+    @DefaultValue("7d") Duration ttl,
+    @DefaultValue("100") int previewLength) {}
@@ -0,0 +1,381 @@
+package top.phakeandy.youchat.inbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import top.phakeandy.youchat.chat.GroupMembershipIndex;
+import top.phakeandy.youchat.common.CursorPage;
+import top.phakeandy.youchat.exception.InvalidCursorException;
+import top.phakeandy.youchat.message.ConversationIds;
+import top.phakeandy.youchat.message.ConversationRegistry;
+import top.phakeandy.youchat.message.MessageConverter;
+import top.phakeandy.youchat.message.MessageType;
+import top.phakeandy.youchat.message.MessagesPersistedEvent;
+import top.phakeandy.youchat.model.Messages;
+import top.phakeandy.youchat.read.ReadProperties;
+import top.phakeandy.youchat.read.UnreadCounterService;
+
+/**
+ * 会话列表（收件箱）
+ *
+ * <p>每批消息落库后按会话合并出最新消息，写入每个会话一行的摘要表，并在 Redis 中推进每个接收者收件箱有序集合里该会话的位置。 首页请求先由一个 Lua
+ * 脚本取回会话顺序和未读数，再用一次流水线按会话读取摘要，脚本只访问声明过的键；收件箱缺失时从摘要表重建，超出缓存范围的分页直接查询摘要表。
+ */
+@Slf4j
+@Service
+public class InboxService {
+
+  static final String IMAGE_PREVIEW = "[图片]";
+
+  private static final int MAX_PAGE_SIZE = 100;
+
+  /** 单次脚本调用携带的最大键数，超大群聊的接收者仍然在一次调用中完成 */
+  private static final int MAX_KEYS_PER_PUSH = 1000;
+
+  /** 摘要 Hash 中保存 JSON 的字段，与 inbox-push.lua 一致 */
+  private static final String SUMMARY_FIELD = "summary";
+
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> READ_SCRIPT =
+      RedisScript.of(new ClassPathResource("redis/inbox-read.lua"), List.class);
+
+  private static final RedisScript<Long> PUSH_SCRIPT =
+      RedisScript.of(new ClassPathResource("redis/inbox-push.lua"), Long.class);
+
+  private final InboxMapper inboxMapper;
+  private final StringRedisTemplate redisTemplate;
+  private final GroupMembershipIndex membershipIndex;
+  private final ConversationRegistry conversationRegistry;
+  private final UnreadCounterService unreadCounterService;
+  private final MessageConverter messageConverter;
+  private final ObjectMapper objectMapper;
+  private final InboxProperties properties;
+  private final String unreadKeyPrefix;
+  private final Counter failedUpdates;
+
+  public InboxService(
+      InboxMapper inboxMapper,
+      StringRedisTemplate redisTemplate,
+      GroupMembershipIndex membershipIndex,
+      ConversationRegistry conversationRegistry,
+      UnreadCounterService unreadCounterService,
+      MessageConverter messageConverter,
+      ObjectMapper objectMapper,
+      InboxProperties properties,
+      ReadProperties readProperties,
+      MeterRegistry meterRegistry) {
+    this.inboxMapper = inboxMapper;
+    this.redisTemplate = redisTemplate;
+    this.membershipIndex = membershipIndex;
+    this.conversationRegistry = conversationRegistry;
+    this.unreadCounterService = unreadCounterService;
+    this.messageConverter = messageConverter;
+    this.objectMapper = objectMapper;
+    this.properties = properties;
+    this.unreadKeyPrefix = readProperties.unread().keyPrefix();
+    this.failedUpdates =
+        Counter.builder("youchat.inbox.update.failures")
+            .description("更新会话摘要或收件箱缓存失败的批次数")
+            .register(meterRegistry);
+  }
+
+  /** 在写入线程上运行，每个会话只写入本批次中最新的一条消息 */
+  @EventListener
+  public void onMessagesPersisted(MessagesPersistedEvent event) {
+    Map<Long, Messages> latest = new LinkedHashMap<>();
+    for (Messages message : event.messages()) {
+      latest.merge(
+          message.getConversationId(),
+          message,
+          (current, candidate) -> candidate.getId() > current.getId() ? candidate : current);
+    }
+    List<ConversationSummary> summaries = latest.values().stream().map(this::summarize).toList();
+    try {
+      inboxMapper.upsertAll(summaries);
+    } catch (DataAccessException e) {
+      failedUpdates.increment();
+      log.warn("Failed to update {} conversation summaries", summaries.size(), e);
+    }
+    try {
+      push(summaries, this::recipients);
+    } catch (DataAccessException e) {
+      failedUpdates.increment();
+      log.warn("Failed to update cached inboxes for {} conversations", summaries.size(), e);
+    }
+  }
+
+  /**
+   * 按最新消息倒序列出用户的会话
+   *
+   * @param cursor 上一页返回的游标，为空时从第一页开始
+   * @param size 每页数量，超出范围时截断到 1-100
+   */
+  public CursorPage<InboxEntryResponse> getInbox(long userId, String cursor, int size) {
+    int limit = Math.clamp(size, 1, MAX_PAGE_SIZE);
+    long beforeMessageId = decodeCursor(cursor);
+    List<ConversationSummary> rows;
+    Map<String, Long> unread = null;
+    if (beforeMessageId == Long.MAX_VALUE && limit < properties.cachedConversations()) {
+      CachedPage cached = readCached(userId, limit + 1);
+      if (cached == null) {
+        rows = rebuild(userId);
+        rows = rows.subList(0, Math.min(rows.size(), limit + 1));
+      } else {
+        rows = cached.summaries();
+        unread = cached.unread();
+      }
+    } else {
+      rows = inboxMapper.selectInbox(userId, beforeMessageId, limit + 1L);
+    }
+    if (unread == null) {
+      unread = unreadCounterService.getBadges(userId).conversations();
+    }
+
+    boolean hasNext = rows.size() > limit;
+    List<ConversationSummary> page = hasNext ? rows.subList(0, limit) : rows;
+    Map<String, Long> counts = unread;
+    List<InboxEntryResponse> content =
+        page.stream()
+            .map(
+                summary ->
+                    InboxEntryResponse.of(
+                        summary, counts.getOrDefault(summary.conversationId(), 0L)))
+            .toList();
+    String nextCursor = hasNext ? String.valueOf(page.getLast().lastMessageId()) : null;
+    return new CursorPage<>(content, nextCursor, hasNext, null);
+  }
+
+  /** 收件箱首页；缓存的收件箱不存在时返回 null，未读计数不完整时 unread 为 null */
+  private CachedPage readCached(long userId, int count) {
+    List<?> result =
+        redisTemplate.execute(
+            READ_SCRIPT,
+            List.of(inboxKey(userId), unreadKeyPrefix + userId),
+            Integer.toString(count),
+            UnreadCounterService.REBUILT_FIELD);
+    if (result == null || result.isEmpty()) {
+      return null;
+    }
+    boolean unreadComplete = Long.valueOf(1).equals(result.getFirst());
+    Map<String, Long> unread = unreadComplete ? new HashMap<>() : null;
+    List<String> conversationIds = new ArrayList<>(result.size() / 2);
+    for (int i = 1; i + 1 < result.size(); i += 2) {
+      String conversationId = (String) result.get(i);
+      conversationIds.add(conversationId);
+      if (unreadComplete && result.get(i + 1) != null) {
+        unread.put(conversationId, Long.parseLong((String) result.get(i + 1)));
+      }
+    }
+    Map<String, ConversationSummary> summaries = readSummaries(conversationIds);
+    loadMissingSummaries(summaries);
+
+    // 已退出或被移出的群聊、已删除的会话只在读取时从缓存中清理
+    List<String> stale = new ArrayList<>();
+    List<ConversationSummary> rows = new ArrayList<>(summaries.size());
+    summaries.forEach(
+        (conversationId, summary) -> {
+          if (summary == null || !isParticipant(userId, conversationId)) {
+            stale.add(conversationId);
+          } else {
+            rows.add(summary);
+          }
+        });
+    if (!stale.isEmpty()) {
+      redisTemplate.opsForZSet().remove(inboxKey(userId), stale.toArray());
+    }
+    return new CachedPage(rows, unread);
+  }
+
+  /** 按顺序读取摘要缓存，一次往返完成，已过期的会话对应 null */
+  private Map<String, ConversationSummary> readSummaries(List<String> conversationIds) {
+    byte[] field = SUMMARY_FIELD.getBytes(StandardCharsets.UTF_8);
+    List<Object> jsons =
+        redisTemplate.executePipelined(
+            (RedisCallback<Object>)
+                connection -> {
+                  for (String conversationId : conversationIds) {
+                    byte[] key =
+                        (properties.summaryKeyPrefix() + conversationId)
+                            .getBytes(StandardCharsets.UTF_8);
+                    connection.hashCommands().hGet(key, field);
+                  }
+                  return null;
+                });
+    Map<String, ConversationSummary> summaries = new LinkedHashMap<>();
+    for (int i = 0; i < conversationIds.size(); i++) {
+      String json = (String) jsons.get(i);
+      summaries.put(conversationIds.get(i), json == null ? null : fromJson(json));
+    }
+    return summaries;
+  }
+
+  /** 摘要缓存已过期的会话从数据库补齐并写回缓存 */
+  private void loadMissingSummaries(Map<String, ConversationSummary> summaries) {
+    Set<String> missing = new HashSet<>();
+    summaries.forEach(
+        (conversationId, summary) -> {
+          if (summary == null) {
+            missing.add(conversationId);
+          }
+        });
+    if (missing.isEmpty()) {
+      return;
+    }
+    List<ConversationSummary> loaded = inboxMapper.selectByIds(missing);
+    loaded.forEach(summary -> summaries.put(summary.conversationId(), summary));
+    push(loaded, summary -> new long[0]);
+  }
+
+  /** 从摘要表重新加载用户最近的会话并整体替换缓存的收件箱 */
+  private List<ConversationSummary> rebuild(long userId) {
+    List<ConversationSummary> rows =
+        inboxMapper.selectInbox(userId, Long.MAX_VALUE, properties.cachedConversations());
+    if (rows.isEmpty()) {
+      return rows;
+    }
+    Set<TypedTuple<String>> entries = new HashSet<>();
+    for (ConversationSummary summary : rows) {
+      entries.add(TypedTuple.of(summary.conversationId(), score(summary)));
+    }
+    String key = inboxKey(userId);
+    redisTemplate.delete(key);
+    redisTemplate.opsForZSet().add(key, entries);
+    redisTemplate.expire(key, properties.ttl());
+    push(rows, summary -> new long[0]);
+    log.debug("Rebuilt inbox for user {}: {} conversations", userId, rows.size());
+    return rows;
+  }
+
+  /** 写入摘要缓存并推进接收者的收件箱，按键数分批调用脚本 */
+  private void push(
+      List<ConversationSummary> summaries, Function<ConversationSummary, long[]> recipients) {
+    List<String> keys = new ArrayList<>();
+    List<String> args = new ArrayList<>();
+    for (ConversationSummary summary : summaries) {
+      long[] userIds = recipients.apply(summary);
+      keys.add(properties.summaryKeyPrefix() + summary.conversationId());
+      for (long userId : userIds) {
+        keys.add(inboxKey(userId));
+      }
+      args.add(summary.conversationId());
+      args.add(Long.toString(summary.lastMessageId()));
+      args.add(toJson(summary));
+      args.add(Long.toString((long) score(summary)));
+      args.add(Integer.toString(userIds.length));
+      if (keys.size() >= MAX_KEYS_PER_PUSH) {
+        executePush(keys, args);
+        keys.clear();
+        args.clear();
+      }
+    }
+    if (!keys.isEmpty()) {
+      executePush(keys, args);
+    }
+  }
+
+  private void executePush(List<String> keys, List<String> args) {
+    List<String> argv = new ArrayList<>(args.size() + 2);
+    argv.add(Integer.toString(properties.cachedConversations()));
+    argv.add(Long.toString(properties.ttl().toMillis()));
+    argv.addAll(args);
+    redisTemplate.execute(PUSH_SCRIPT, keys, argv.toArray());
+  }
+
+  /** 会话的全部成员，包括发送者自己 */
+  private long[] recipients(ConversationSummary summary) {
+    String conversationId = summary.conversationId();
+    if (ConversationIds.isGroup(conversationId)) {
+      return membershipIndex.members(ConversationIds.groupId(conversationId)).stream().toArray();
+    }
+    long[] participants = ConversationIds.participants(conversationId);
+    return participants[0] == participants[1] ? new long[] {participants[0]} : participants;
+  }
+
+  private boolean isParticipant(long userId, String conversationId) {
+    return !ConversationIds.isGroup(conversationId)
+        || membershipIndex.isMember(ConversationIds.groupId(conversationId), userId);
+  }
+
+  private ConversationSummary summarize(Messages message) {
+    boolean image =
+        MessageType.valueOf(message.getType().toUpperCase(Locale.ROOT)) == MessageType.IMAGE;
+    String preview = image ? IMAGE_PREVIEW : preview(messageConverter.readContent(message).text());
+    return new ConversationSummary(
+        conversationRegistry.keyOf(message.getConversationId()),
+        message.getId(),
+        message.getSenderId(),
+        message.getType(),
+        preview,
+        message.getCreatedAt());
+  }
+
+  private String preview(String text) {
+    if (text == null) {
+      return "";
+    }
+    int length = properties.previewLength();
+    if (text.codePointCount(0, text.length()) <= length) {
+      return text;
+    }
+    return text.substring(0, text.offsetByCodePoints(0, length));
+  }
+
+  /** 有序集合的分数为毫秒时间戳，double 可以精确表示，而 64 位消息 ID 不能 */
+  private static double score(ConversationSummary summary) {
+    return summary.lastMessageAt().toInstant().toEpochMilli();
+  }
+
+  private String inboxKey(long userId) {
+    return properties.keyPrefix() + userId;
+  }
+
+  private String toJson(ConversationSummary summary) {
+    try {
+      return objectMapper.writeValueAsString(summary);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize conversation summary", e);
+    }
+  }
+
+  private ConversationSummary fromJson(String json) {
+    try {
+      return objectMapper.readValue(json, ConversationSummary.class);
+    } catch (JsonProcessingException e) {
+      log.warn("Ignoring malformed cached conversation summary", e);
+      return null;
+    }
+  }
+
+  private static long decodeCursor(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return Long.MAX_VALUE;
+    }
+    try {
+      return Long.parseLong(cursor);
+    } catch (NumberFormatException e) {
+      throw new InvalidCursorException(e);
+    }
+  }
+
+  private record CachedPage(List<ConversationSummary> summaries, Map<String, Long> unread) {}
+}
@@ -0,0 +1,67 @@
+package top.phakeandy.youchat.message;
+
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.stereotype.Component;
+import top.phakeandy.youchat.config.WebSocketProperties;
+
+/** STOMP 目的地与节点间 Redis 频道的映射 */
+@Component
+public class ClusterChannels {
+
+  private static final String USER_SEGMENT = "user:";
+  private static final String GROUP_SEGMENT = "group:";
+
+  /** 需要跨节点转发的用户队列，订阅其中任意一个都会监听该用户的频道 */
+  private static final Set<String> RELAYED_USER_DESTINATIONS =
+      Set.of(
+          MessageDestinations.USER_PREFIX + MessageDestinations.USER_MESSAGES,
+          MessageDestinations.USER_PREFIX + MessageDestinations.USER_READ_RECEIPTS);
+
+  private final String userPrefix;
+  private final String groupPrefix;
+
+  public ClusterChannels(WebSocketProperties properties) {
+    String prefix = properties.cluster().channelPrefix();
+    this.userPrefix = prefix + USER_SEGMENT;
+    this.groupPrefix = prefix + GROUP_SEGMENT;
+  }
+
+  public String user(long userId) {
+    return userPrefix + userId;
+  }
+
+  public String group(long groupId) {
+    return groupPrefix + groupId;
+  }
+
+  /**
+   * 根据客户端订阅的目的地推导需要监听的频道
+   *
+   * @param destination 客户端 SUBSCRIBE 帧中的原始目的地
+   * @param userId 当前连接的用户，匿名连接为 {@code null}
+   * @return 不需要跨节点转发的目的地返回空
+   */
+  public Optional<String> forDestination(String destination, Long userId) {
+    if (destination == null) {
+      return Optional.empty();
+    }
+    if (userId != null && RELAYED_USER_DESTINATIONS.contains(destination)) {
+      return Optional.of(user(userId));
+    }
+    return MessageDestinations.groupId(destination).map(this::group);
+  }
+
+  boolean isUser(String channel) {
+    return channel.startsWith(userPrefix);
+  }
+
+  boolean isGroup(String channel) {
+    return channel.startsWith(groupPrefix);
+  }
+
+  long targetId(String channel) {
+    String prefix = isUser(channel) ? userPrefix : groupPrefix;
+    return Long.parseLong(channel.substring(prefix.length()));
+  }
+}
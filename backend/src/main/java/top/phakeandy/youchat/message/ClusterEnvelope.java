@@ -0,0 +1,11 @@
+package top.phakeandy.youchat.message;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * 节点之间通过 Redis 转发的推送
+ *
+ * @param destination 接收节点上的 STOMP 目的地，用户频道为不带 {@code /user} 前缀的队列，群组频道为完整主题
+ * @param payload 推送内容，原样转交给本地代理
+ */
+record ClusterEnvelope(String destination, JsonNode payload) {}
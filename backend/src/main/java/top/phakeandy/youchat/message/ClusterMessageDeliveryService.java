@@ -0,0 +1,66 @@
+package top.phakeandy.youchat.message;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * 通过 Redis pub/sub 在节点之间转发消息
+ *
+ * <p>每次推送只向目标频道发布一次：群聊发布到群组频道，私聊发布到双方各自的用户频道。各节点由 {@link ClusterSubscriptionRegistry}
+ * 按本地订阅情况监听频道，收到后再交给本地代理推送。本节点的客户端同样经由 Redis 收到消息，避免重复投递。
+ */
+@Slf4j
+@Primary
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(
+    prefix = "youchat.websocket.cluster",
+    name = "enabled",
+    havingValue = "true",
+    matchIfMissing = true)
+public class ClusterMessageDeliveryService implements MessageDeliveryService {
+
+  private final StringRedisTemplate redisTemplate;
+  private final ClusterChannels channels;
+  private final LocalMessageDeliveryService localDelivery;
+  private final ObjectMapper objectMapper;
+
+  @Override
+  public void deliverToUser(long userId, String destination, Object payload) {
+    publish(
+        channels.user(userId),
+        destination,
+        payload,
+        () -> localDelivery.deliverToUser(userId, destination, payload));
+  }
+
+  @Override
+  public void deliverToGroup(long groupId, String destination, Object payload) {
+    publish(
+        channels.group(groupId),
+        destination,
+        payload,
+        () -> localDelivery.deliverToGroup(groupId, destination, payload));
+  }
+
+  private void publish(String channel, String destination, Object payload, Runnable fallback) {
+    try {
+      redisTemplate.convertAndSend(
+          channel,
+          objectMapper.writeValueAsString(
+              new ClusterEnvelope(destination, objectMapper.valueToTree(payload))));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize payload for " + destination, e);
+    } catch (RuntimeException e) {
+      // Redis 不可用时至少保证本节点的客户端能收到
+      log.warn("Failed to publish message to channel {}, delivering locally only", channel, e);
+      fallback.run();
+    }
+  }
+}
@@ -0,0 +1,184 @@
+package top.phakeandy.youchat.message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+import top.phakeandy.youchat.config.StompPrincipal;
+
+/**
+ * 按本节点的 STOMP 订阅动态监听 Redis 频道
+ *
+ * <p>对每个频道的本地订阅做引用计数，第一个订阅出现时开始监听，最后一个订阅取消或连接断开时停止监听，节点只会收到有本地接收者的消息。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(
+    prefix = "youchat.websocket.cluster",
+    name = "enabled",
+    havingValue = "true",
+    matchIfMissing = true)
+public class ClusterSubscriptionRegistry implements MessageListener {
+
+  private final RedisMessageListenerContainer listenerContainer;
+  private final ClusterChannels channels;
+  private final LocalMessageDeliveryService localDelivery;
+  private final ObjectMapper objectMapper;
+  private final Counter received;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /** 频道 -> 本地订阅数 */
+  private final Map<String, Integer> channelRefs = new HashMap<>();
+
+  /** STOMP 会话 -> (订阅 ID -> 频道) */
+  private final Map<String, Map<String, String>> sessionSubscriptions = new HashMap<>();
+
+  public ClusterSubscriptionRegistry(
+      RedisMessageListenerContainer listenerContainer,
+      ClusterChannels channels,
+      LocalMessageDeliveryService localDelivery,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry) {
+    this.listenerContainer = listenerContainer;
+    this.channels = channels;
+    this.localDelivery = localDelivery;
+    this.objectMapper = objectMapper;
+    this.received = meterRegistry.counter("youchat.message.cluster.received");
+    Gauge.builder(
+            "youchat.message.cluster.channels", this, ClusterSubscriptionRegistry::channelCount)
+        .description("Redis channels this node is listening on")
+        .register(meterRegistry);
+  }
+
+  @EventListener
+  public void onSubscribe(SessionSubscribeEvent event) {
+    StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+    String sessionId = accessor.getSessionId();
+    String subscriptionId = accessor.getSubscriptionId();
+    if (sessionId == null || subscriptionId == null) {
+      return;
+    }
+    channels
+        .forDestination(accessor.getDestination(), userId(event.getUser()))
+        .ifPresent(channel -> addSubscription(sessionId, subscriptionId, channel));
+  }
+
+  @EventListener
+  public void onUnsubscribe(SessionUnsubscribeEvent event) {
+    StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+    String sessionId = accessor.getSessionId();
+    String subscriptionId = accessor.getSubscriptionId();
+    if (sessionId == null || subscriptionId == null) {
+      return;
+    }
+    lock.lock();
+    try {
+      Map<String, String> subscriptions = sessionSubscriptions.get(sessionId);
+      if (subscriptions == null) {
+        return;
+      }
+      String channel = subscriptions.remove(subscriptionId);
+      if (subscriptions.isEmpty()) {
+        sessionSubscriptions.remove(sessionId);
+      }
+      if (channel != null) {
+        release(channel);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @EventListener
+  public void onDisconnect(SessionDisconnectEvent event) {
+    lock.lock();
+    try {
+      Map<String, String> subscriptions = sessionSubscriptions.remove(event.getSessionId());
+      if (subscriptions != null) {
+        subscriptions.values().forEach(this::release);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+    ClusterEnvelope envelope;
+    try {
+      envelope = objectMapper.readValue(message.getBody(), ClusterEnvelope.class);
+    } catch (IOException e) {
+      log.warn("Discarding malformed message on channel {}", channel, e);
+      return;
+    }
+    received.increment();
+    if (channels.isUser(channel)) {
+      localDelivery.deliverToUser(
+          channels.targetId(channel), envelope.destination(), envelope.payload());
+    } else if (channels.isGroup(channel)) {
+      localDelivery.deliverToGroup(
+          channels.targetId(channel), envelope.destination(), envelope.payload());
+    }
+  }
+
+  private void addSubscription(String sessionId, String subscriptionId, String channel) {
+    lock.lock();
+    try {
+      String previous =
+          sessionSubscriptions
+              .computeIfAbsent(sessionId, id -> new HashMap<>())
+              .put(subscriptionId, channel);
+      if (previous != null) {
+        release(previous);
+      }
+      if (channelRefs.merge(channel, 1, Integer::sum) == 1) {
+        listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+        log.debug("Listening on channel {}", channel);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void release(String channel) {
+    Integer remaining =
+        channelRefs.computeIfPresent(channel, (key, refs) -> refs > 1 ? refs - 1 : null);
+    if (remaining == null) {
+      listenerContainer.removeMessageListener(this, new ChannelTopic(channel));
+      log.debug("Stopped listening on channel {}", channel);
+    }
+  }
+
+  private int channelCount() {
+    lock.lock();
+    try {
+      return channelRefs.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static Long userId(Principal principal) {
+    return principal instanceof StompPrincipal stompPrincipal ? stompPrincipal.userId() : null;
+  }
+}
@@ -0,0 +1,46 @@
+package top.phakeandy.youchat.message;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import top.phakeandy.youchat.chat.GroupMembershipIndex;
+import top.phakeandy.youchat.common.SortedIds;
+import top.phakeandy.youchat.exception.ResourceNotFoundException;
+import top.phakeandy.youchat.message.exception.ConversationAccessDeniedException;
+
+/** 校验用户能否读取某个会话的消息：私聊限双方，群聊限群主和群成员，群成员从 {@link GroupMembershipIndex} 读取 */
+@Service
+@RequiredArgsConstructor
+public class ConversationAccessService {
+
+  private final GroupMembershipIndex membershipIndex;
+
+  public void checkAccess(String conversationId, long userId) {
+    boolean participant;
+    try {
+      participant = isParticipant(conversationId, userId);
+    } catch (IllegalArgumentException e) {
+      throw new ResourceNotFoundException("会话不存在", e);
+    }
+    if (!participant) {
+      throw new ConversationAccessDeniedException();
+    }
+  }
+
+  /**
+   * 用户是否为会话的参与者
+   *
+   * @throws IllegalArgumentException 会话 ID 格式不正确
+   */
+  public boolean isParticipant(String conversationId, long userId) {
+    if (ConversationIds.isGroup(conversationId)) {
+      return membershipIndex.isMember(ConversationIds.groupId(conversationId), userId);
+    }
+    long[] participants = ConversationIds.participants(conversationId);
+    return participants[0] == userId || participants[1] == userId;
+  }
+
+  /** 群聊的全部成员，包括群主，群聊不存在时为空 */
+  public SortedIds groupMemberIds(long groupId) {
+    return membershipIndex.members(groupId);
+  }
+}
@@ -0,0 +1,132 @@
+package top.phakeandy.youchat.message;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.concurrent.Callable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import top.phakeandy.youchat.auth.AuthenticatedUser;
+import top.phakeandy.youchat.common.CursorPage;
+
+@RestController
+@RequestMapping("/api/v1/conversations")
+@RequiredArgsConstructor
+@Tag(name = "Conversation", description = "会话历史消息相关接口")
+public class ConversationController {
+
+  private static final String EXPORT_PERMIT_KEY =
+      ConversationController.class.getName() + ".EXPORT";
+
+  private final MessageHistoryService messageHistoryService;
+  private final ConversationAccessService conversationAccessService;
+
+  @GetMapping("/{conversationId}/messages")
+  @Operation(summary = "获取历史消息", description = "按游标翻页读取会话的历史消息，每页内的消息按发送时间正序排列")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "成功获取历史消息",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = CursorPage.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "分页游标无效",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+        @ApiResponse(
+            responseCode = "403",
+            description = "不是该会话的成员",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+      })
+  public ResponseEntity<CursorPage<MessageResponse>> getHistory(
+      @Parameter(description = "会话ID", required = true, example = "d_12345_67890") @PathVariable
+          String conversationId,
+      @Parameter(description = "上一页返回的游标，首页不传") @RequestParam(required = false) String cursor,
+      @Parameter(description = "翻页方向，BEFORE 向更早的消息，AFTER 向更新的消息")
+          @RequestParam(defaultValue = "BEFORE")
+          HistoryDirection direction,
+      @Parameter(description = "每页数量，1-100", example = "50") @RequestParam(defaultValue = "50")
+          int size,
+      @Parameter(hidden = true) @AuthenticationPrincipal AuthenticatedUser user) {
+    CursorPage<MessageResponse> response =
+        messageHistoryService.getHistory(conversationId, user.getId(), cursor, direction, size);
+    return ResponseEntity.ok(response);
+  }
+
+  @GetMapping("/{conversationId}/messages/export")
+  @Operation(summary = "导出会话消息", description = "以 NDJSON 格式流式导出会话的全部消息，每行一条，按发送时间正序排列")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "开始导出",
+            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)),
+        @ApiResponse(
+            responseCode = "403",
+            description = "不是该会话的成员",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+        @ApiResponse(
+            responseCode = "503",
+            description = "同时进行的导出过多，Retry-After 头给出建议的重试秒数",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+      })
+  public ResponseEntity<StreamingResponseBody> exportMessages(
+      @Parameter(description = "会话ID", required = true, example = "d_12345_67890") @PathVariable
+          String conversationId,
+      @Parameter(hidden = true) @AuthenticationPrincipal AuthenticatedUser user,
+      @Parameter(hidden = true) HttpServletRequest request) {
+    // 开始写出响应后就无法再返回错误状态码，权限和导出名额都必须提前校验
+    conversationAccessService.checkAccess(conversationId, user.getId());
+    messageHistoryService.acquireExport();
+    // 名额在异步处理结束时归还，导出任务因超时被取消、没有执行时同样归还
+    WebAsyncUtils.getAsyncManager(request)
+        .registerCallableInterceptor(
+            EXPORT_PERMIT_KEY,
+            new CallableProcessingInterceptor() {
+              @Override
+              public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                messageHistoryService.releaseExport();
+              }
+            });
+    ContentDisposition disposition =
+        ContentDisposition.attachment().filename(conversationId + ".ndjson").build();
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+        .body(out -> messageHistoryService.export(conversationId, out));
+  }
+}
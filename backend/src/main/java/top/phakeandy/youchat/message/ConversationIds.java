@@ -0,0 +1,72 @@
+package top.phakeandy.youchat.message;
+
+/** 会话 ID 工具类：私聊为 {@code d_<较小用户ID>_<较大用户ID>}，群聊为 {@code g_<群聊ID>} */
+public final class ConversationIds {
+
+  private static final String DIRECT_PREFIX = "d_";
+  private static final String GROUP_PREFIX = "g_";
+
+  private ConversationIds() {
+    // 工具类
+  }
+
+  public static String direct(long userId, long otherUserId) {
+    return DIRECT_PREFIX + Math.min(userId, otherUserId) + "_" + Math.max(userId, otherUserId);
+  }
+
+  public static String group(long groupId) {
+    return GROUP_PREFIX + groupId;
+  }
+
+  public static String of(ConversationType type, long senderId, long receiverId) {
+    return switch (type) {
+      case PRIVATE -> direct(senderId, receiverId);
+      case GROUP -> group(receiverId);
+    };
+  }
+
+  /** 是否为群聊会话 ID */
+  public static boolean isGroup(String conversationId) {
+    return conversationId.startsWith(GROUP_PREFIX);
+  }
+
+  /**
+   * 解析群聊会话 ID 中的群聊 ID
+   *
+   * @throws IllegalArgumentException 不是合法的群聊会话 ID
+   */
+  public static long groupId(String conversationId) {
+    if (!isGroup(conversationId)) {
+      throw new IllegalArgumentException("Not a group conversation: " + conversationId);
+    }
+    return Long.parseLong(conversationId.substring(GROUP_PREFIX.length()));
+  }
+
+  /**
+   * 解析私聊会话 ID 中的两个参与者
+   *
+   * @throws IllegalArgumentException 不是合法的私聊会话 ID
+   */
+  public static long[] participants(String conversationId) {
+    if (!conversationId.startsWith(DIRECT_PREFIX)) {
+      throw new IllegalArgumentException("Not a direct conversation: " + conversationId);
+    }
+    int separator = conversationId.indexOf('_', DIRECT_PREFIX.length());
+    if (separator < 0) {
+      throw new IllegalArgumentException("Not a direct conversation: " + conversationId);
+    }
+    return new long[] {
+      Long.parseLong(conversationId.substring(DIRECT_PREFIX.length(), separator)),
+      Long.parseLong(conversationId.substring(separator + 1))
+    };
+  }
+
+  /** 消息的接收方：私聊为另一位参与者，群聊为群聊 ID */
+  public static long receiverOf(String conversationId, long senderId) {
+    if (isGroup(conversationId)) {
+      return groupId(conversationId);
+    }
+    long[] participants = participants(conversationId);
+    return participants[0] == senderId ? participants[1] : participants[0];
+  }
+}
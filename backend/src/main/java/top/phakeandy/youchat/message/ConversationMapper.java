@@ -0,0 +1,32 @@
+package top.phakeandy.youchat.message;
+
+import java.util.Optional;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/** 会话键与数字编号的注册表 */
+@Mapper
+public interface ConversationMapper {
+
+  @Select("SELECT id FROM conversations WHERE conversation_key = #{conversationKey}")
+  Optional<Long> selectId(@Param("conversationKey") String conversationKey);
+
+  @Select("SELECT conversation_key FROM conversations WHERE id = #{id}")
+  Optional<String> selectKey(@Param("id") long id);
+
+  /**
+   * 为会话键分配编号
+   *
+   * @return 会话键已被并发注册时为空
+   */
+  @Select(
+      """
+      INSERT INTO conversations (conversation_key) VALUES (#{conversationKey})
+      ON CONFLICT (conversation_key) DO NOTHING
+      RETURNING id
+      """)
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  Optional<Long> insertIfAbsent(@Param("conversationKey") String conversationKey);
+}
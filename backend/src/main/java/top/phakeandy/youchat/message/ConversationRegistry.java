@@ -0,0 +1,128 @@
+package top.phakeandy.youchat.message;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Optional;
+import java.util.OptionalLong;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import top.phakeandy.youchat.cache.CacheProperties;
+
+/**
+ * 会话键（{@link ConversationIds}）与数字编号的双向映射
+ *
+ * <p>接口和其他表仍以会话键标识会话，messages 表只保存数字编号，使消息行和索引键都是定长的 BIGINT。编号在第一条消息发送时分配，之后不再改变，
+ * 因此两个方向的本地缓存都不需要失效，只按数量淘汰。
+ */
+@Component
+public class ConversationRegistry {
+
+  static final String CACHE_NAME = "conversations";
+
+  private final ConversationMapper conversationMapper;
+
+  /** 分配编号总是在独立事务中提交，消息由写入线程异步落库，外键检查时编号必须已经可见 */
+  private final TransactionTemplate registerTransaction;
+
+  private final Cache<String, Long> idsByKey;
+  private final Cache<Long, String> keysById;
+  private final Counter hits;
+  private final Counter misses;
+
+  public ConversationRegistry(
+      ConversationMapper conversationMapper,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      CacheProperties properties) {
+    this.conversationMapper = conversationMapper;
+    this.registerTransaction = new TransactionTemplate(transactionManager);
+    this.registerTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    long maximumSize = properties.conversations().localMaximumSize();
+    this.idsByKey = Caffeine.newBuilder().maximumSize(maximumSize).build();
+    this.keysById = Caffeine.newBuilder().maximumSize(maximumSize).build();
+    this.hits = gets(meterRegistry, "hit");
+    this.misses = gets(meterRegistry, "miss");
+    Gauge.builder("youchat.cache.size", idsByKey, Cache::estimatedSize)
+        .tag("cache", CACHE_NAME)
+        .description("Conversation keys in the local registry cache")
+        .register(meterRegistry);
+  }
+
+  /** 会话的数字编号，尚未注册时分配一个，用于写入消息 */
+  public long register(String conversationKey) {
+    Long cached = cachedId(conversationKey);
+    if (cached != null) {
+      return cached;
+    }
+    Long id =
+        conversationMapper
+            .selectId(conversationKey)
+            .or(
+                () ->
+                    registerTransaction.execute(
+                        status -> conversationMapper.insertIfAbsent(conversationKey)))
+            .or(() -> conversationMapper.selectId(conversationKey))
+            .orElseThrow(() -> new IllegalStateException("Failed to register " + conversationKey));
+    remember(conversationKey, id);
+    return id;
+  }
+
+  /** 会话的数字编号，还没有任何消息的会话没有编号，查询时不会为其分配 */
+  public OptionalLong find(String conversationKey) {
+    Long cached = cachedId(conversationKey);
+    if (cached != null) {
+      return OptionalLong.of(cached);
+    }
+    Optional<Long> id = conversationMapper.selectId(conversationKey);
+    id.ifPresent(value -> remember(conversationKey, value));
+    return id.map(OptionalLong::of).orElseGet(OptionalLong::empty);
+  }
+
+  /**
+   * 数字编号对应的会话键
+   *
+   * @throws IllegalStateException 编号未注册，说明消息行引用了不存在的会话
+   */
+  public String keyOf(long id) {
+    String cached = keysById.getIfPresent(id);
+    if (cached != null) {
+      hits.increment();
+      return cached;
+    }
+    misses.increment();
+    String key =
+        conversationMapper
+            .selectKey(id)
+            .orElseThrow(() -> new IllegalStateException("Unknown conversation " + id));
+    remember(key, id);
+    return key;
+  }
+
+  private Long cachedId(String conversationKey) {
+    Long cached = idsByKey.getIfPresent(conversationKey);
+    if (cached != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+    }
+    return cached;
+  }
+
+  private void remember(String conversationKey, long id) {
+    idsByKey.put(conversationKey, id);
+    keysById.put(id, conversationKey);
+  }
+
+  private static Counter gets(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("youchat.cache.gets")
+        .tag("cache", CACHE_NAME)
+        .tag("tier", "local")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
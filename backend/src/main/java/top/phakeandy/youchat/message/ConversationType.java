@@ -0,0 +1,8 @@
+package top.phakeandy.youchat.message;
+
+public enum ConversationType {
+  /** 一对一私聊，receiverId 为对方用户 ID */
+  PRIVATE,
+  /** 群聊，receiverId 为群聊 ID */
+  GROUP,
+}
@@ -0,0 +1,81 @@
+package top.phakeandy.youchat.message;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import top.phakeandy.youchat.config.StompPrincipal;
+
+/**
+ * 校验客户端 STOMP 帧的目的地，未列出的目的地一律拒绝
+ *
+ * <ul>
+ *   <li>SEND 只能发往 {@code /app/...}，由应用处理并完成好友、成员等校验，不能直接发往代理的主题或队列
+ *   <li>SUBSCRIBE 只能订阅自己的 {@code /user/queue/...}，以及自己所在群聊的主题和已读进度主题
+ *   <li>简单代理按通配符匹配订阅，目的地中含有通配符或模板变量的订阅一律拒绝
+ * </ul>
+ *
+ * <p>拒绝时抛出异常，客户端收到 ERROR 帧，消息不会到达代理，{@link ClusterSubscriptionRegistry} 也不会开始监听对应的频道。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DestinationAuthorizationInterceptor implements ChannelInterceptor {
+
+  private static final String APP_DESTINATION_PREFIX = MessageDestinations.APP_PREFIX + "/";
+  private static final String USER_QUEUE_PREFIX =
+      MessageDestinations.USER_PREFIX + MessageDestinations.QUEUE_PREFIX + "/";
+
+  private final ConversationAccessService conversationAccessService;
+
+  @Override
+  public Message<?> preSend(Message<?> message, MessageChannel channel) {
+    StompHeaderAccessor accessor =
+        MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+    if (accessor == null) {
+      return message;
+    }
+    StompCommand command = accessor.getCommand();
+    String destination = accessor.getDestination();
+    boolean allowed =
+        switch (command) {
+          case SEND -> destination != null && destination.startsWith(APP_DESTINATION_PREFIX);
+          case SUBSCRIBE -> destination != null && canSubscribe(destination, accessor);
+          case null, default -> true;
+        };
+    if (!allowed) {
+      log.debug("Rejected {} to {} by {}", command, destination, accessor.getUser());
+      throw new MessageDeliveryException(message, "Not allowed to " + command + " " + destination);
+    }
+    return message;
+  }
+
+  private boolean canSubscribe(String destination, StompHeaderAccessor accessor) {
+    if (isPattern(destination)) {
+      return false;
+    }
+    if (destination.startsWith(USER_QUEUE_PREFIX)) {
+      return true;
+    }
+    return MessageDestinations.groupId(destination)
+        .filter(
+            groupId ->
+                accessor.getUser() instanceof StompPrincipal principal
+                    && conversationAccessService.isParticipant(
+                        ConversationIds.group(groupId), principal.userId()))
+        .isPresent();
+  }
+
+  /** 简单代理用 AntPathMatcher 匹配订阅，这些字符会让一个订阅匹配多个目的地 */
+  private static boolean isPattern(String destination) {
+    return destination.indexOf('*') >= 0
+        || destination.indexOf('?') >= 0
+        || destination.indexOf('{') >= 0;
+  }
+}
@@ -0,0 +1,9 @@
+package top.phakeandy.youchat.message;
+
+/** 历史消息的翻页方向 */
+public enum HistoryDirection {
+  /** 向更早的消息翻页，不带游标时从最新一条开始 */
+  BEFORE,
+  /** 向更新的消息翻页，不带游标时从最早一条开始 */
+  AFTER,
+}
@@ -0,0 +1,23 @@
+package top.phakeandy.youchat.message;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+/** 通过本节点的 STOMP 代理推送消息，只能送达连接在本节点上的客户端 */
+@Service
+@RequiredArgsConstructor
+public class LocalMessageDeliveryService implements MessageDeliveryService {
+
+  private final SimpMessagingTemplate messagingTemplate;
+
+  @Override
+  public void deliverToUser(long userId, String destination, Object payload) {
+    messagingTemplate.convertAndSendToUser(String.valueOf(userId), destination, payload);
+  }
+
+  @Override
+  public void deliverToGroup(long groupId, String destination, Object payload) {
+    messagingTemplate.convertAndSend(destination, payload);
+  }
+}
@@ -0,0 +1,13 @@
+package top.phakeandy.youchat.message;
+
+/**
+ * 消息已被接收并进入写入队列，此时尚未落库
+ *
+ * <p>同步发布，监听器运行在发送请求的线程上，不应执行耗时操作
+ */
+public record MessageAcceptedEvent(
+    long messageId,
+    String conversationId,
+    ConversationType conversationType,
+    long senderId,
+    long receiverId) {}
@@ -0,0 +1,10 @@
+package top.phakeandy.youchat.message;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/** messages.content 列中保存的 JSON 结构，响应中原样输出，只有需要其中字段时才解析 */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MessageContent(
+    @Schema(description = "文本内容", example = "你好，最近怎么样？") String text,
+    @Schema(description = "回复的消息ID（可选）", example = "msg_67890") String replyToMessageId) {}
@@ -1,25 +1,71 @@
 package top.phakeandy.youchat.message;
 
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import top.phakeandy.youchat.auth.AuthenticatedUser;
 
 @RestController
 @RequestMapping("/api/v1/messages")
 @RequiredArgsConstructor
-@Tag(name = "Message")
+@Tag(name = "Message", description = "聊天消息相关接口")
 public class MessageController {
 
   private final MessageService messageService;
 
   @PostMapping
-  @ResponseStatus(HttpStatus.CREATED)
-  public void saveMessage(@RequestBody MessageRequest message) {
-    messageService.saveMessage(message);
+  @Operation(summary = "发送消息", description = "接收一条消息并立即返回服务器分配的消息ID，消息随后被批量写入数据库")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "202",
+            description = "消息已接收",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = MessageResponse.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "请求参数错误",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+        @ApiResponse(
+            responseCode = "403",
+            description = "不是群聊成员，或私信要求好友关系时对方不是好友",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+        @ApiResponse(
+            responseCode = "503",
+            description = "消息队列已满，请按 Retry-After 稍后重试",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+      })
+  @ResponseStatus(HttpStatus.ACCEPTED)
+  public MessageResponse saveMessage(
+      @Parameter(description = "消息请求参数", required = true) @Valid @RequestBody
+          MessageRequest message,
+      @Parameter(hidden = true) @AuthenticationPrincipal AuthenticatedUser sender) {
+    return messageService.saveMessage(message, sender.getId(), sender.getUsername());
   }
 }
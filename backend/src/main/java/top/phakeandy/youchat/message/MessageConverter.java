@@ -0,0 +1,43 @@
+package top.phakeandy.youchat.message;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Locale;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import top.phakeandy.youchat.model.Messages;
+
+/** 将已持久化的消息行转换为接口响应 */
+@Component
+@RequiredArgsConstructor
+public class MessageConverter {
+
+  private static final String STATUS_SENT = "SENT";
+
+  private final ObjectMapper objectMapper;
+  private final ConversationRegistry conversationRegistry;
+
+  /** 消息内容按数据库中的原始 JSON 输出，不逐行解析 */
+  public MessageResponse toResponse(Messages row, String senderUsername) {
+    String conversationId = conversationRegistry.keyOf(row.getConversationId());
+    return new MessageResponse(
+        String.valueOf(row.getId()),
+        conversationId,
+        String.valueOf(row.getSenderId()),
+        senderUsername,
+        String.valueOf(ConversationIds.receiverOf(conversationId, row.getSenderId())),
+        row.getContent(),
+        MessageType.valueOf(row.getType().toUpperCase(Locale.ROOT)),
+        row.getCreatedAt().toLocalDateTime(),
+        STATUS_SENT);
+  }
+
+  /** 解析消息行中的 JSON 内容，只用于需要读取文本的场景，例如收件箱预览 */
+  public MessageContent readContent(Messages row) {
+    try {
+      return objectMapper.readValue(row.getContent().json(), MessageContent.class);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Malformed content in message " + row.getId(), e);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package top.phakeandy.youchat.message;
+
+/** 向在线客户端实时推送，不访问数据库 */
+public interface MessageDeliveryService {
+
+  /** 将已接收的消息推送给接收者，私聊同时推送给发送者的其他在线设备 */
+  default void deliver(
+      ConversationType type, long senderId, long receiverId, MessageResponse message) {
+    switch (type) {
+      case PRIVATE -> {
+        deliverToUser(receiverId, MessageDestinations.USER_MESSAGES, message);
+        if (senderId != receiverId) {
+          deliverToUser(senderId, MessageDestinations.USER_MESSAGES, message);
+        }
+      }
+      case GROUP -> deliverToGroup(receiverId, MessageDestinations.group(receiverId), message);
+    }
+  }
+
+  /**
+   * 推送到用户的私有队列
+   *
+   * @param destination 不带 {@code /user} 前缀的队列，例如 {@link MessageDestinations#USER_MESSAGES}
+   */
+  void deliverToUser(long userId, String destination, Object payload);
+
+  /**
+   * 推送到群聊下的主题
+   *
+   * @param destination 完整的主题，例如 {@link MessageDestinations#group(long)}
+   */
+  void deliverToGroup(long groupId, String destination, Object payload);
+}
@@ -0,0 +1,61 @@
+package top.phakeandy.youchat.message;
+
+import java.util.Optional;
+
+/** STOMP 目的地常量 */
+public final class MessageDestinations {
+
+  public static final String APP_PREFIX = "/app";
+  public static final String USER_PREFIX = "/user";
+  public static final String TOPIC_PREFIX = "/topic";
+  public static final String QUEUE_PREFIX = "/queue";
+
+  /** 用户私有队列，客户端订阅 {@code /user/queue/messages} */
+  public static final String USER_MESSAGES = "/queue/messages";
+
+  /** 发送回执，客户端订阅 {@code /user/queue/receipts} */
+  public static final String USER_RECEIPTS = "/queue/receipts";
+
+  /** 发送失败通知，客户端订阅 {@code /user/queue/errors} */
+  public static final String USER_ERRORS = "/queue/errors";
+
+  /** 私聊对方的已读进度，客户端订阅 {@code /user/queue/read-receipts} */
+  public static final String USER_READ_RECEIPTS = "/queue/read-receipts";
+
+  private static final String GROUP_TOPIC_PREFIX = TOPIC_PREFIX + "/groups/";
+  private static final String READ_RECEIPTS_SUFFIX = "/read-receipts";
+
+  private MessageDestinations() {
+    // 常量类
+  }
+
+  /** 群聊主题，客户端订阅 {@code /topic/groups/{groupId}} */
+  public static String group(long groupId) {
+    return GROUP_TOPIC_PREFIX + groupId;
+  }
+
+  /** 群成员的已读进度，客户端订阅 {@code /topic/groups/{groupId}/read-receipts} */
+  public static String groupReadReceipts(long groupId) {
+    return group(groupId) + READ_RECEIPTS_SUFFIX;
+  }
+
+  /** 解析群聊主题（包括其下的已读进度主题）中的群组 ID，不是群聊主题时返回空 */
+  public static Optional<Long> groupId(String destination) {
+    if (!destination.startsWith(GROUP_TOPIC_PREFIX)) {
+      return Optional.empty();
+    }
+    String id = destination.substring(GROUP_TOPIC_PREFIX.length());
+    if (id.endsWith(READ_RECEIPTS_SUFFIX)) {
+      id = id.substring(0, id.length() - READ_RECEIPTS_SUFFIX.length());
+    }
+    // 只接受规范写法，"+1"、"01" 等能解析为数字的变体不算群聊主题
+    try {
+      long groupId = Long.parseLong(id);
+      return destination.equals(group(groupId)) || destination.equals(groupReadReceipts(groupId))
+          ? Optional.of(groupId)
+          : Optional.empty();
+    } catch (NumberFormatException e) {
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,222 @@
+package top.phakeandy.youchat.message;
+
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+import static org.mybatis.dynamic.sql.SqlBuilder.isGreaterThan;
+import static org.mybatis.dynamic.sql.SqlBuilder.isGreaterThanOrEqualTo;
+import static org.mybatis.dynamic.sql.SqlBuilder.isIn;
+import static org.mybatis.dynamic.sql.SqlBuilder.isLessThan;
+import static org.mybatis.dynamic.sql.SqlBuilder.isLessThanOrEqualTo;
+import static org.mybatis.dynamic.sql.SqlBuilder.or;
+import static top.phakeandy.youchat.mapper.MessagesDynamicSqlSupport.conversationId;
+import static top.phakeandy.youchat.mapper.MessagesDynamicSqlSupport.createdAt;
+import static top.phakeandy.youchat.mapper.MessagesDynamicSqlSupport.id;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import top.phakeandy.youchat.common.CursorPage;
+import top.phakeandy.youchat.common.KeysetCursor;
+import top.phakeandy.youchat.mapper.MessagesMapper;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.message.exception.MessageExportBusyException;
+import top.phakeandy.youchat.model.Messages;
+import top.phakeandy.youchat.model.Users;
+
+/**
+ * 会话历史消息
+ *
+ * <p>所有查询都沿 {@code (conversation_id, created_at, id)} 索引定位到游标后按顺序取一页，开销只与页大小有关。messages 表中的会话是
+ * {@link ConversationRegistry} 分配的数字编号，还没有编号的会话没有任何消息
+ */
+@Service
+public class MessageHistoryService {
+
+  private static final int MAX_PAGE_SIZE = 100;
+
+  private final ConversationAccessService conversationAccessService;
+  private final ConversationRegistry conversationRegistry;
+  private final MessagesMapper messagesMapper;
+  private final UsersMapper usersMapper;
+  private final MessageConverter messageConverter;
+  private final ObjectMapper objectMapper;
+
+  /** 导出的每一页在独立的只读事务中读取消息和发送者，页与页之间不占用连接 */
+  private final TransactionTemplate exportPageTransaction;
+
+  private final int exportPageSize;
+  private final Semaphore exportPermits;
+
+  public MessageHistoryService(
+      ConversationAccessService conversationAccessService,
+      ConversationRegistry conversationRegistry,
+      MessagesMapper messagesMapper,
+      UsersMapper usersMapper,
+      MessageConverter messageConverter,
+      ObjectMapper objectMapper,
+      PlatformTransactionManager transactionManager,
+      MessageProperties properties) {
+    this.conversationAccessService = conversationAccessService;
+    this.conversationRegistry = conversationRegistry;
+    this.messagesMapper = messagesMapper;
+    this.usersMapper = usersMapper;
+    this.messageConverter = messageConverter;
+    this.objectMapper = objectMapper;
+    this.exportPageTransaction = new TransactionTemplate(transactionManager);
+    this.exportPageTransaction.setReadOnly(true);
+    this.exportPageSize = properties.export().pageSize();
+    this.exportPermits = new Semaphore(properties.export().maxConcurrent());
+  }
+
+  /**
+   * 按游标翻页读取历史消息，无论方向如何，返回的消息都按时间正序排列
+   *
+   * @param cursor 上一页返回的游标，为空时从会话的一端开始
+   * @param direction 翻页方向
+   * @param size 每页数量，超出范围时截断到 1-100
+   */
+  public CursorPage<MessageResponse> getHistory(
+      String conversation, long userId, String cursor, HistoryDirection direction, int size) {
+    conversationAccessService.checkAccess(conversation, userId);
+    int limit = Math.clamp(size, 1, MAX_PAGE_SIZE);
+    KeysetCursor from = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+    OptionalLong registered = conversationRegistry.find(conversation);
+    if (registered.isEmpty()) {
+      return new CursorPage<>(List.of(), null, false, null);
+    }
+
+    long ref = registered.getAsLong();
+    List<Messages> rows =
+        direction == HistoryDirection.BEFORE
+            ? selectBefore(ref, from, limit + 1L)
+            : selectAfter(ref, from, limit + 1L);
+    boolean hasNext = rows.size() > limit;
+    List<Messages> page = new ArrayList<>(hasNext ? rows.subList(0, limit) : rows);
+
+    String nextCursor = null;
+    if (hasNext) {
+      Messages last = page.getLast();
+      nextCursor = KeysetCursor.of(last.getCreatedAt(), last.getId()).encode();
+    }
+    if (direction == HistoryDirection.BEFORE) {
+      Collections.reverse(page);
+    }
+
+    Map<Long, String> usernames =
+        loadUsernames(page.stream().map(Messages::getSenderId).collect(Collectors.toSet()));
+    List<MessageResponse> content =
+        page.stream()
+            .map(row -> messageConverter.toResponse(row, usernames.get(row.getSenderId())))
+            .toList();
+    return new CursorPage<>(content, nextCursor, hasNext, null);
+  }
+
+  /**
+   * 占用一个导出名额，导出结束后必须调用 {@link #releaseExport()} 归还
+   *
+   * @throws MessageExportBusyException 同时进行的导出已达上限
+   */
+  public void acquireExport() {
+    if (!exportPermits.tryAcquire()) {
+      throw new MessageExportBusyException();
+    }
+  }
+
+  public void releaseExport() {
+    exportPermits.release();
+  }
+
+  /**
+   * 将整个会话按时间正序以 NDJSON 写出
+   *
+   * <p>沿 {@code (created_at, id)} 逐页读取，每页连同发送者用户名在一个短的只读事务中查出后再写出，慢速客户端不会长时间占用数据库连接。 调用前应先通过 {@link
+   * ConversationAccessService} 校验权限并占用导出名额
+   */
+  public void export(String conversation, OutputStream out) {
+    OptionalLong registered = conversationRegistry.find(conversation);
+    try (SequenceWriter writer =
+        objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+      if (registered.isEmpty()) {
+        return;
+      }
+      long ref = registered.getAsLong();
+      KeysetCursor after = null;
+      int fetched;
+      do {
+        KeysetCursor from = after;
+        List<Messages> page = new ArrayList<>(exportPageSize);
+        Map<Long, String> usernames = new HashMap<>();
+        exportPageTransaction.executeWithoutResult(
+            status -> {
+              page.addAll(selectAfter(ref, from, exportPageSize));
+              usernames.putAll(
+                  loadUsernames(
+                      page.stream().map(Messages::getSenderId).collect(Collectors.toSet())));
+            });
+        for (Messages row : page) {
+          writer.write(messageConverter.toResponse(row, usernames.get(row.getSenderId())));
+        }
+        fetched = page.size();
+        if (fetched > 0) {
+          after = KeysetCursor.of(page.getLast().getCreatedAt(), page.getLast().getId());
+        }
+      } while (fetched == exportPageSize);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private List<Messages> selectBefore(long conversation, KeysetCursor before, long limit) {
+    if (before == null) {
+      return messagesMapper.select(
+          c ->
+              c.where(conversationId, isEqualTo(conversation))
+                  .orderBy(createdAt.descending(), id.descending())
+                  .limit(limit));
+    }
+    return messagesMapper.select(
+        c ->
+            c.where(conversationId, isEqualTo(conversation))
+                .and(createdAt, isLessThanOrEqualTo(before.createdAt()))
+                .and(createdAt, isLessThan(before.createdAt()), or(id, isLessThan(before.id())))
+                .orderBy(createdAt.descending(), id.descending())
+                .limit(limit));
+  }
+
+  private List<Messages> selectAfter(long conversation, KeysetCursor after, long limit) {
+    if (after == null) {
+      return messagesMapper.select(
+          c ->
+              c.where(conversationId, isEqualTo(conversation)).orderBy(createdAt, id).limit(limit));
+    }
+    return messagesMapper.select(
+        c ->
+            c.where(conversationId, isEqualTo(conversation))
+                .and(createdAt, isGreaterThanOrEqualTo(after.createdAt()))
+                .and(createdAt, isGreaterThan(after.createdAt()), or(id, isGreaterThan(after.id())))
+                .orderBy(createdAt, id)
+                .limit(limit));
+  }
+
+  private Map<Long, String> loadUsernames(Set<Long> userIds) {
+    if (userIds.isEmpty()) {
+      return Map.of();
+    }
+    return usersMapper.select(c -> c.where(UsersDynamicSqlSupport.id, isIn(userIds))).stream()
+        .collect(Collectors.toMap(Users::getId, Users::getUsername));
+  }
+}
@@ -0,0 +1,62 @@
+package top.phakeandy.youchat.message;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+
+/**
+ * 基于时间戳的消息 ID 生成器（Snowflake 布局：41 位毫秒时间戳 | 10 位节点号 | 12 位序列号）
+ *
+ * <p>消息在写入数据库之前就需要确认 ID，因此不能依赖 BIGSERIAL。生成的 ID 在单节点内严格递增，跨节点按时间近似有序。
+ */
+@Component
+public class MessageIdGenerator {
+
+  private static final long EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+  private static final int NODE_BITS = 10;
+  private static final int SEQUENCE_BITS = 12;
+  private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+  private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+  /** created_at 可能早于 ID 中的时间戳：发送时先取时间再生成 ID，多节点之间也存在时钟偏差 */
+  private static final Duration CLOCK_SKEW = Duration.ofMinutes(1);
+
+  private final long nodeId;
+
+  /** 高位为时间戳，低位为序列号；序列号溢出时借位到时间戳，保证单调递增 */
+  private final AtomicLong state = new AtomicLong();
+
+  public MessageIdGenerator(MessageProperties properties) {
+    if (properties.nodeId() < 0 || properties.nodeId() > MAX_NODE_ID) {
+      throw new IllegalArgumentException(
+          "youchat.message.node-id must be between 0 and " + MAX_NODE_ID);
+    }
+    this.nodeId = properties.nodeId();
+  }
+
+  /**
+   * 由消息 ID 推算 ID 大于它的消息 created_at 的下界，带上这个条件按 created_at 分区的查询才能跳过更早的分区
+   *
+   * <p>改用 Snowflake 之前由 BIGSERIAL 分配的旧 ID 不含时间戳，此时不设下界
+   */
+  public static OffsetDateTime createdAtLowerBound(long id) {
+    long timestamp = id >>> (NODE_BITS + SEQUENCE_BITS);
+    if (timestamp == 0) {
+      return OffsetDateTime.ofInstant(Instant.EPOCH, ZoneOffset.UTC);
+    }
+    return OffsetDateTime.ofInstant(Instant.ofEpochMilli(EPOCH_MILLIS + timestamp), ZoneOffset.UTC)
+        .minus(CLOCK_SKEW);
+  }
+
+  public long nextId() {
+    long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+    long next = state.updateAndGet(prev -> Math.max(now, prev + 1));
+    long timestamp = next >>> SEQUENCE_BITS;
+    return timestamp << (NODE_BITS + SEQUENCE_BITS)
+        | nodeId << SEQUENCE_BITS
+        | next & SEQUENCE_MASK;
+  }
+}
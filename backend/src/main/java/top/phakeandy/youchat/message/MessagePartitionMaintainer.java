@@ -0,0 +1,115 @@
+package top.phakeandy.youchat.message;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * messages 按月分区的定时维护
+ *
+ * <p>messages 没有默认分区，写入时间超出已有分区的消息会写入失败，因此启动时和之后每隔 maintenanceInterval 预先创建未来几个月的分区。 配置了
+ * retainedMonths 时，把更早月份的分区以 CONCURRENTLY 方式分离，分离后的表保留在库中，由运维归档后删除。多个节点同时维护是安全的。
+ *
+ * <p>CONCURRENTLY 分离被中断（连接断开、语句取消、节点重启）时分区停留在等待分离状态，之后对它的分离都会失败，每次维护先以 FINALIZE 完成这些分离。
+ */
+@Slf4j
+@Component
+public class MessagePartitionMaintainer {
+
+  private static final Pattern PARTITION_NAME = Pattern.compile("messages_(\\d{4})_(\\d{2})");
+
+  private final MessagePartitionMapper partitionMapper;
+  private final MessageProperties.Partitions properties;
+
+  /** 最近一次维护后，当前月份之后已经存在分区的月数 */
+  private final AtomicInteger premadeMonths = new AtomicInteger();
+
+  public MessagePartitionMaintainer(
+      MessagePartitionMapper partitionMapper,
+      MessageProperties properties,
+      MeterRegistry meterRegistry) {
+    this.partitionMapper = partitionMapper;
+    this.properties = properties.partitions();
+    Gauge.builder("youchat.message.partitions.premade", premadeMonths, AtomicInteger::get)
+        .description("当前月份之后已创建的消息分区月数，降到 0 时下个月的消息将无法写入")
+        .register(meterRegistry);
+  }
+
+  @Scheduled(
+      initialDelay = 0,
+      fixedDelayString = "${youchat.message.partitions.maintenance-interval:1h}")
+  public void maintain() {
+    YearMonth current = YearMonth.now(ZoneOffset.UTC);
+    try {
+      createUpcoming(current);
+    } catch (DataAccessException e) {
+      log.error("Failed to create message partitions", e);
+    }
+    finalizePendingDetaches();
+    if (properties.retainedMonths() > 0) {
+      detachExpired(current.minusMonths(properties.retainedMonths()));
+    }
+  }
+
+  /** 完成被中断的分离，与当前配置的保留月数无关，已经开始的分离总要完成 */
+  private void finalizePendingDetaches() {
+    List<String> pending;
+    try {
+      pending = partitionMapper.selectDetachPendingPartitionNames();
+    } catch (DataAccessException e) {
+      log.error("Failed to list message partitions pending detach", e);
+      return;
+    }
+    for (String partition : pending) {
+      if (!PARTITION_NAME.matcher(partition).matches()) {
+        continue;
+      }
+      try {
+        partitionMapper.finalizeDetach(partition);
+        log.info("Finalized interrupted detach of message partition {}", partition);
+      } catch (DataAccessException e) {
+        log.error("Failed to finalize detach of message partition {}", partition, e);
+      }
+    }
+  }
+
+  private void createUpcoming(YearMonth current) {
+    for (int offset = 0; offset <= properties.premadeMonths(); offset++) {
+      YearMonth month = current.plusMonths(offset);
+      if (partitionMapper.createPartition(month.atDay(1))) {
+        log.info("Created message partition for {}", month);
+      }
+      premadeMonths.set(offset);
+    }
+  }
+
+  /** 分离早于 {@code oldestRetained} 的分区，单个分区失败不影响其他分区 */
+  private void detachExpired(YearMonth oldestRetained) {
+    for (String partition : partitionMapper.selectPartitionNames()) {
+      Matcher matcher = PARTITION_NAME.matcher(partition);
+      if (!matcher.matches()) {
+        continue;
+      }
+      YearMonth month =
+          YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+      if (!month.isBefore(oldestRetained)) {
+        continue;
+      }
+      try {
+        partitionMapper.detachPartition(partition);
+        log.info("Detached message partition {} for archival", partition);
+      } catch (DataAccessException e) {
+        log.error("Failed to detach message partition {}", partition, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package top.phakeandy.youchat.message;
+
+import java.time.LocalDate;
+import java.util.List;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/** messages 按月分区的维护语句，分区的创建逻辑在数据库函数 create_messages_partition 中 */
+@Mapper
+public interface MessagePartitionMapper {
+
+  /**
+   * 创建指定日期所在月份的分区
+   *
+   * @return 分区已存在时返回 false
+   */
+  @Select("SELECT create_messages_partition(#{month})")
+  boolean createPartition(@Param("month") LocalDate month);
+
+  /** 当前挂在 messages 下的全部分区名，包括等待完成分离的分区 */
+  @Select(
+      """
+      SELECT c.relname FROM pg_inherits AS i
+      INNER JOIN pg_class AS c ON c.oid = i.inhrelid
+      WHERE i.inhparent = 'messages'::regclass
+      ORDER BY c.relname
+      """)
+  List<String> selectPartitionNames();
+
+  /** CONCURRENTLY 分离被中断、仍处于等待分离状态的分区名 */
+  @Select(
+      """
+      SELECT c.relname FROM pg_inherits AS i
+      INNER JOIN pg_class AS c ON c.oid = i.inhrelid
+      WHERE i.inhparent = 'messages'::regclass AND i.inhdetachpending
+      ORDER BY c.relname
+      """)
+  List<String> selectDetachPendingPartitionNames();
+
+  /**
+   * 以 CONCURRENTLY 方式分离分区，只短暂持有锁，分离后的表保留原名等待归档
+   *
+   * <p>不能在事务中执行；分区名无法作为参数绑定，调用方必须先校验
+   */
+  @Update("ALTER TABLE messages DETACH PARTITION ${partition} CONCURRENTLY")
+  void detachPartition(@Param("partition") String partition);
+
+  /**
+   * 完成被中断的 CONCURRENTLY 分离，等待分离的分区不能再次以 CONCURRENTLY 方式分离
+   *
+   * <p>不能在事务中执行；分区名无法作为参数绑定，调用方必须先校验
+   */
+  @Update("ALTER TABLE messages DETACH PARTITION ${partition} FINALIZE")
+  void finalizeDetach(@Param("partition") String partition);
+}
@@ -0,0 +1,59 @@
+package top.phakeandy.youchat.message;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 消息模块配置
+ *
+ * @param nodeId 当前节点编号（0-1023），用于生成全局唯一的消息 ID，多节点部署时必须互不相同
+ * @param writeBehind 异步批量写入配置
+ * @param directRequiresFriendship 是否只允许给好友发送私信
+ * @param partitions 按月分区的维护配置
+ * @param export 会话导出配置
+ */
+@ConfigurationProperties(prefix = "youchat.message")
+public record MessageProperties(
+    @DefaultValue("0") int nodeId,
+    @DefaultValue WriteBehind writeBehind,
+    @DefaultValue("false") boolean directRequiresFriendship,
+    @DefaultValue Partitions partitions,
+    @DefaultValue Export export) {
+
+  /**
+   * 消息异步批量写入配置
+   *
+   * @param queueCapacity 内存队列容量，队列满时拒绝新消息
+   * @param batchSize 单次批量写入的最大行数
+   * @param flushInterval 一个批次从收到第一条消息到写入的最长等待时间
+   * @param offerTimeout 队列满时入队的最长等待时间，超时后返回 503
+   * @param shutdownTimeout 应用关闭时等待队列写完的最长时间
+   */
+  public record WriteBehind(
+      @DefaultValue("10000") int queueCapacity,
+      @DefaultValue("500") int batchSize,
+      @DefaultValue("50ms") Duration flushInterval,
+      @DefaultValue("100ms") Duration offerTimeout,
+      @DefaultValue("10s") Duration shutdownTimeout) {}
+
+  /**
+   * messages 按月（UTC）分区的维护配置
+   *
+   * @param premadeMonths 预先创建当前月份之后几个月的分区
+   * @param retainedMonths 保留最近几个月的分区，更早的分区会被分离以便归档；0 表示从不分离
+   * @param maintenanceInterval 检查和维护分区的间隔
+   */
+  public record Partitions(
+      @DefaultValue("3") int premadeMonths,
+      @DefaultValue("0") int retainedMonths,
+      @DefaultValue("1h") Duration maintenanceInterval) {}
+
+  /**
+   * 会话导出配置
+   *
+   * @param pageSize 每次查询读取的消息数，每页在独立的短事务中读取，写出时不占用数据库连接
+   * @param maxConcurrent 同时进行的导出数上限，超出时返回 503
+   */
+  public record Export(@DefaultValue("1000") int pageSize, @DefaultValue("4") int maxConcurrent) {}
+}
@@ -3,5 +3,6 @@ package top.phakeandy.youchat.message;
 @SuppressWarnings("PMD.ImplicitFunctionalInterface")
 public interface MessageService {
 
-  void saveMessage(MessageRequest message);
+  /** 接收一条消息并分配消息 ID，消息会被异步批量写入数据库 */
+  MessageResponse saveMessage(MessageRequest message, Long senderId, String senderUsername);
 }
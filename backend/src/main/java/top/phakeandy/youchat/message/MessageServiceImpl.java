@@ -1,12 +1,96 @@
 package top.phakeandy.youchat.message;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.OffsetDateTime;
+import java.util.Locale;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import top.phakeandy.youchat.common.RawJson;
+import top.phakeandy.youchat.friend.FriendGraph;
+import top.phakeandy.youchat.message.exception.DirectMessageNotAllowedException;
+import top.phakeandy.youchat.model.Messages;
 
 @Service
+@RequiredArgsConstructor
+@Slf4j
 public class MessageServiceImpl implements MessageService {
 
+  private static final String STATUS_SENT = "SENT";
+
+  private final MessageIdGenerator messageIdGenerator;
+  private final ConversationAccessService conversationAccessService;
+  private final ConversationRegistry conversationRegistry;
+  private final MessageWriteBuffer messageWriteBuffer;
+  private final MessageDeliveryService messageDeliveryService;
+  private final ObjectMapper objectMapper;
+  private final ApplicationEventPublisher eventPublisher;
+  private final FriendGraph friendGraph;
+  private final MessageProperties properties;
+
   @Override
-  public void saveMessage(MessageRequest message) {
-    // TODO Auto-generated method stub
+  public MessageResponse saveMessage(MessageRequest message, Long senderId, String senderUsername) {
+    checkDirectMessageAllowed(message, senderId);
+    OffsetDateTime now = OffsetDateTime.now();
+    String conversationId =
+        ConversationIds.of(message.conversationType(), senderId, message.receiverId());
+    // 群聊只允许成员发送，校验必须在注册会话之前，否则不存在的群也会被分配会话编号
+    conversationAccessService.checkAccess(conversationId, senderId);
+
+    Messages row = new Messages();
+    row.setId(messageIdGenerator.nextId());
+    row.setConversationId(conversationRegistry.register(conversationId));
+    row.setSenderId(senderId);
+    row.setType(message.messageType().name().toLowerCase(Locale.ROOT));
+    row.setContent(toContentJson(message));
+    row.setCreatedAt(now);
+    row.setUpdatedAt(now);
+
+    messageWriteBuffer.enqueue(row);
+    log.debug("Accepted message {} in conversation {}", row.getId(), conversationId);
+    eventPublisher.publishEvent(
+        new MessageAcceptedEvent(
+            row.getId(),
+            conversationId,
+            message.conversationType(),
+            senderId,
+            message.receiverId()));
+
+    MessageResponse response =
+        new MessageResponse(
+            String.valueOf(row.getId()),
+            conversationId,
+            String.valueOf(senderId),
+            senderUsername,
+            String.valueOf(message.receiverId()),
+            row.getContent(),
+            message.messageType(),
+            now.toLocalDateTime(),
+            STATUS_SENT);
+    messageDeliveryService.deliver(
+        message.conversationType(), senderId, message.receiverId(), response);
+    return response;
+  }
+
+  /** 私信的好友校验在每次发送时执行，只读 {@link FriendGraph} 的本地邻接表 */
+  private void checkDirectMessageAllowed(MessageRequest message, long senderId) {
+    if (properties.directRequiresFriendship()
+        && message.conversationType() == ConversationType.PRIVATE
+        && senderId != message.receiverId()
+        && !friendGraph.areFriends(senderId, message.receiverId())) {
+      throw new DirectMessageNotAllowedException();
+    }
+  }
+
+  private RawJson toContentJson(MessageRequest message) {
+    try {
+      return RawJson.of(
+          objectMapper.writeValueAsString(
+              new MessageContent(message.content(), message.replyToMessageId())));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize message content", e);
+    }
   }
 }
@@ -0,0 +1,234 @@
+package top.phakeandy.youchat.message;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import top.phakeandy.youchat.config.WorkerThreads;
+import top.phakeandy.youchat.mapper.MessagesMapper;
+import top.phakeandy.youchat.message.exception.MessageBackpressureException;
+import top.phakeandy.youchat.model.Messages;
+
+/**
+ * 消息异步批量写入缓冲区（write-behind）
+ *
+ * <p>消息先进入有界内存队列并立即确认，由单独的写入线程按 batchSize / flushInterval 聚合后 以多行 INSERT 批量落库。队列满时按 offerTimeout
+ * 等待，仍无空位则抛出 {@link MessageBackpressureException}。每个批次落库后发布 {@link MessagesPersistedEvent}。
+ */
+@Component
+@Slf4j
+public class MessageWriteBuffer implements SmartLifecycle {
+
+  /** 晚于 Web 服务器停止，保证关闭时不再有新消息进入队列 */
+  private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+  private static final int MAX_FLUSH_ATTEMPTS = 3;
+
+  private final MessagesMapper messagesMapper;
+  private final ApplicationEventPublisher eventPublisher;
+  private final MessageProperties.WriteBehind properties;
+  private final BlockingQueue<Messages> queue;
+  private final WorkerThreads workerThreads;
+
+  private final Timer flushTimer;
+  private final DistributionSummary batchSizeSummary;
+  private final Counter rejectedCounter;
+  private final Counter droppedCounter;
+
+  /** 入队持有读锁，停止持有写锁：判断 running 与放入队列之间不会插入停止，写入线程看到 running 为 false 时，所有已确认的消息都已在队列中 */
+  private final ReadWriteLock intakeLock = new ReentrantReadWriteLock();
+
+  private volatile boolean running;
+  private Thread writer;
+
+  public MessageWriteBuffer(
+      MessagesMapper messagesMapper,
+      ApplicationEventPublisher eventPublisher,
+      MessageProperties properties,
+      WorkerThreads workerThreads,
+      MeterRegistry meterRegistry) {
+    this.messagesMapper = messagesMapper;
+    this.eventPublisher = eventPublisher;
+    this.properties = properties.writeBehind();
+    this.queue = new ArrayBlockingQueue<>(this.properties.queueCapacity());
+    this.workerThreads = workerThreads;
+
+    Gauge.builder("youchat.message.write.queue.size", queue, BlockingQueue::size)
+        .description("等待写入数据库的消息数")
+        .register(meterRegistry);
+    this.flushTimer =
+        Timer.builder("youchat.message.write.flush")
+            .description("单个批次写入数据库的耗时")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    this.batchSizeSummary =
+        DistributionSummary.builder("youchat.message.write.batch.size")
+            .description("单个批次写入的消息行数")
+            .baseUnit("rows")
+            .register(meterRegistry);
+    this.rejectedCounter =
+        Counter.builder("youchat.message.write.rejected")
+            .description("因队列已满被拒绝的消息数")
+            .register(meterRegistry);
+    this.droppedCounter =
+        Counter.builder("youchat.message.write.dropped")
+            .description("重试后仍写入失败而被丢弃的消息数")
+            .register(meterRegistry);
+  }
+
+  /**
+   * 将消息放入写入队列
+   *
+   * @throws MessageBackpressureException 队列已满或缓冲区已停止
+   */
+  public void enqueue(Messages message) {
+    boolean accepted;
+    intakeLock.readLock().lock();
+    try {
+      accepted =
+          running
+              && queue.offer(message, properties.offerTimeout().toNanos(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      accepted = false;
+    } finally {
+      intakeLock.readLock().unlock();
+    }
+    if (!accepted) {
+      rejectedCounter.increment();
+      throw new MessageBackpressureException(properties.flushInterval());
+    }
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    writer = workerThreads.start("message-writer", this::runWriter);
+  }
+
+  @Override
+  public void stop() {
+    closeIntake();
+    try {
+      writer.join(properties.shutdownTimeout());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (!queue.isEmpty()) {
+      log.error("Message writer stopped with {} unflushed messages", queue.size());
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public int getPhase() {
+    return PHASE;
+  }
+
+  private void runWriter() {
+    List<Messages> batch = new ArrayList<>(properties.batchSize());
+    boolean interrupted = false;
+    while (running || !queue.isEmpty()) {
+      try {
+        collectBatch(batch);
+      } catch (InterruptedException e) {
+        // 不再等待新消息，但剩余消息照常写入；带着中断标记获取数据库连接会直接失败，因此写完后再恢复
+        interrupted = true;
+        closeIntake();
+        queue.drainTo(batch);
+      }
+      if (!batch.isEmpty()) {
+        flush(batch);
+        batch.clear();
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** 等待进行中的入队完成后停止接收新消息，最多等待一个 offerTimeout */
+  private void closeIntake() {
+    intakeLock.writeLock().lock();
+    try {
+      running = false;
+    } finally {
+      intakeLock.writeLock().unlock();
+    }
+  }
+
+  /** 阻塞直到凑满一个批次，或距第一条消息到达超过 flushInterval */
+  private void collectBatch(List<Messages> batch) throws InterruptedException {
+    long interval = properties.flushInterval().toNanos();
+    Messages first = queue.poll(interval, TimeUnit.NANOSECONDS);
+    if (first == null) {
+      return;
+    }
+    batch.add(first);
+    long deadline = System.nanoTime() + interval;
+    while (batch.size() < properties.batchSize()) {
+      queue.drainTo(batch, properties.batchSize() - batch.size());
+      long remaining = deadline - System.nanoTime();
+      if (batch.size() >= properties.batchSize() || remaining <= 0 || !running) {
+        return;
+      }
+      Messages next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+      if (next == null) {
+        return;
+      }
+      batch.add(next);
+    }
+  }
+
+  private void flush(List<Messages> batch) {
+    for (int attempt = 1; attempt <= MAX_FLUSH_ATTEMPTS; attempt++) {
+      try {
+        flushTimer.record(() -> messagesMapper.insertMultiple(batch));
+        batchSizeSummary.record(batch.size());
+        publishPersisted(List.copyOf(batch));
+        return;
+      } catch (RuntimeException e) {
+        log.warn("Failed to flush {} messages (attempt {})", batch.size(), attempt, e);
+      }
+    }
+    // 批量写入持续失败时逐行写入，只丢弃真正无法写入的消息（例如发送者已被删除）
+    List<Messages> persisted = new ArrayList<>(batch.size());
+    for (Messages message : batch) {
+      try {
+        messagesMapper.insert(message);
+        persisted.add(message);
+      } catch (RuntimeException e) {
+        droppedCounter.increment();
+        log.error("Dropping message {} after repeated write failures", message.getId(), e);
+      }
+    }
+    if (!persisted.isEmpty()) {
+      publishPersisted(persisted);
+    }
+  }
+
+  /** 监听器的异常不能终止写入线程 */
+  private void publishPersisted(List<Messages> persisted) {
+    try {
+      eventPublisher.publishEvent(new MessagesPersistedEvent(persisted));
+    } catch (RuntimeException e) {
+      log.error("Listener failed for {} persisted messages", persisted.size(), e);
+    }
+  }
+}
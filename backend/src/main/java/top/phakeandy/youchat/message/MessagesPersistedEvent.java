@@ -0,0 +1,11 @@
+package top.phakeandy.youchat.message;
+
+import java.util.List;
+import top.phakeandy.youchat.model.Messages;
+
+/**
+ * 一批消息已写入数据库
+ *
+ * <p>由写入线程在批次落库后同步发布，只包含实际写入成功的消息。监听器的耗时会直接推迟后续批次的写入
+ */
+public record MessagesPersistedEvent(List<Messages> messages) {}
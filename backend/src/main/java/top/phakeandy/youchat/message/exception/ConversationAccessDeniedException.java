@@ -0,0 +1,18 @@
+package top.phakeandy.youchat.message.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.ErrorResponseException;
+
+public class ConversationAccessDeniedException extends ErrorResponseException {
+
+  private static final long serialVersionUID = 1L;
+
+  public ConversationAccessDeniedException() {
+    super(
+        HttpStatus.FORBIDDEN,
+        ProblemDetail.forStatusAndDetail(HttpStatus.FORBIDDEN, "你不是该会话的成员，无法查看消息。"),
+        null);
+    getBody().setTitle("无权访问会话");
+  }
+}
@@ -0,0 +1,18 @@
+package top.phakeandy.youchat.message.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.ErrorResponseException;
+
+public class DirectMessageNotAllowedException extends ErrorResponseException {
+
+  private static final long serialVersionUID = 1L;
+
+  public DirectMessageNotAllowedException() {
+    super(
+        HttpStatus.FORBIDDEN,
+        ProblemDetail.forStatusAndDetail(HttpStatus.FORBIDDEN, "只能给好友发送私信。"),
+        null);
+    getBody().setTitle("无法发送私信");
+  }
+}
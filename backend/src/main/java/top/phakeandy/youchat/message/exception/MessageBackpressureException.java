@@ -0,0 +1,21 @@
+package top.phakeandy.youchat.message.exception;
+
+import java.time.Duration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.ErrorResponseException;
+
+public final class MessageBackpressureException extends ErrorResponseException {
+
+  private static final long serialVersionUID = 1L;
+
+  public MessageBackpressureException(Duration retryAfter) {
+    super(
+        HttpStatus.SERVICE_UNAVAILABLE,
+        ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "消息发送过于频繁，请稍后重试"),
+        null);
+    getBody().setTitle("服务繁忙");
+    getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())));
+  }
+}
@@ -0,0 +1,23 @@
+package top.phakeandy.youchat.message.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.ErrorResponseException;
+
+/** 同时进行的会话导出已达上限，客户端应稍后重试 */
+public final class MessageExportBusyException extends ErrorResponseException {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final String RETRY_AFTER_SECONDS = "5";
+
+  public MessageExportBusyException() {
+    super(
+        HttpStatus.SERVICE_UNAVAILABLE,
+        ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "当前导出请求过多，请稍后重试"),
+        null);
+    getBody().setTitle("服务繁忙");
+    getHeaders().set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+  }
+}
@@ -0,0 +1,33 @@
+package top.phakeandy.youchat.read;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 已读状态配置
+ *
+ * @param flushInterval 已读确认在内存中合并的时长，到期后批量写入数据库并推送给会话中的其他成员
+ * @param batchSize 单条 upsert 语句写入的最大行数
+ * @param shutdownTimeout 应用关闭时等待最后一次写入的最长时间
+ * @param unread 未读计数缓存配置
+ */
+@ConfigurationProperties(prefix = "youchat.read")
+public record ReadProperties(
+    @DefaultValue("1s") Duration flushInterval,
+    @DefaultValue("500") int batchSize,
+    @DefaultValue("10s") Duration shutdownTimeout,
+    @DefaultValue Unread unread) {
+
+  /**
+   * 未读计数缓存
+   *
+   * @param keyPrefix Redis 键前缀，每个用户一个 Hash，字段为会话 ID
+   * @param ttl 计数缓存的过期时间，过期后在下次读取时从数据库重建
+   * @param reconcileInterval 重建计数可能已偏差的用户的间隔
+   */
+  public record Unread(
+      @DefaultValue("youchat:unread:") String keyPrefix,
+      @DefaultValue("30d") Duration ttl,
+      @DefaultValue("1m") Duration reconcileInterval) {}
+}
@@ -0,0 +1,200 @@
+package top.phakeandy.youchat.read;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import top.phakeandy.youchat.config.WorkerThreads;
+import top.phakeandy.youchat.message.ConversationAccessService;
+
+/**
+ * 已读确认合并缓冲区
+ *
+ * <p>客户端滚动浏览时每秒可能发送数十条已读确认，这里只保留每个 (用户, 会话) 最大的消息 ID，由单独的线程按 flushInterval
+ * 批量写入水位表，并以同样的频率向会话中的其他成员推送已读进度。写入失败的水位会合并回缓冲区等待下一轮重试。
+ */
+@Component
+@Slf4j
+public class ReadReceiptCoalescer implements SmartLifecycle {
+
+  /** 晚于 Web 服务器停止，保证关闭时不再有新的确认进入缓冲区 */
+  private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+  private final ReadStateMapper readStateMapper;
+  private final ConversationAccessService conversationAccessService;
+  private final ReadReceiptPublisher readReceiptPublisher;
+  private final UnreadCounterService unreadCounterService;
+  private final ReadProperties properties;
+  private final WorkerThreads workerThreads;
+
+  private final Map<ReadKey, Long> pending = new ConcurrentHashMap<>();
+  private final LongAdder acksSinceFlush = new LongAdder();
+
+  private final Counter ackCounter;
+  private final Counter writtenCounter;
+  private final Counter rejectedCounter;
+  private final DistributionSummary collapseRatio;
+  private final Timer flushTimer;
+
+  private volatile boolean running;
+  private Thread flusher;
+
+  public ReadReceiptCoalescer(
+      ReadStateMapper readStateMapper,
+      ConversationAccessService conversationAccessService,
+      ReadReceiptPublisher readReceiptPublisher,
+      UnreadCounterService unreadCounterService,
+      ReadProperties properties,
+      WorkerThreads workerThreads,
+      MeterRegistry meterRegistry) {
+    this.readStateMapper = readStateMapper;
+    this.conversationAccessService = conversationAccessService;
+    this.readReceiptPublisher = readReceiptPublisher;
+    this.unreadCounterService = unreadCounterService;
+    this.properties = properties;
+    this.workerThreads = workerThreads;
+
+    Gauge.builder("youchat.read.pending", pending, Map::size)
+        .description("等待写入的已读水位数")
+        .register(meterRegistry);
+    this.ackCounter =
+        Counter.builder("youchat.read.acks").description("收到的已读确认数").register(meterRegistry);
+    this.writtenCounter =
+        Counter.builder("youchat.read.flushed").description("合并后写入数据库的水位数").register(meterRegistry);
+    this.rejectedCounter =
+        Counter.builder("youchat.read.rejected")
+            .description("因不是会话成员而被丢弃的水位数")
+            .register(meterRegistry);
+    this.collapseRatio =
+        DistributionSummary.builder("youchat.read.collapse.ratio")
+            .description("每轮写入中已读确认数与写入水位数之比")
+            .register(meterRegistry);
+    this.flushTimer =
+        Timer.builder("youchat.read.flush").description("一轮合并写入的耗时").register(meterRegistry);
+  }
+
+  /** 记录一条已读确认，立即返回，不访问数据库 */
+  public void ack(long userId, String conversationId, long messageId) {
+    ackCounter.increment();
+    acksSinceFlush.increment();
+    pending.merge(new ReadKey(userId, conversationId), messageId, Math::max);
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    flusher = workerThreads.start("read-receipt-flusher", this::runFlusher);
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    LockSupport.unpark(flusher);
+    try {
+      flusher.join(properties.shutdownTimeout());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (!pending.isEmpty()) {
+      log.error("Read receipt flusher stopped with {} unflushed watermarks", pending.size());
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public int getPhase() {
+    return PHASE;
+  }
+
+  /** 关闭时由 {@link #stop} 以 unpark 唤醒而不是中断：带着中断标记获取数据库连接会直接失败，最后一轮写入会被丢弃。 被外部中断时同样先清除标记，写完后再恢复。 */
+  private void runFlusher() {
+    long interval = properties.flushInterval().toNanos();
+    boolean interrupted = false;
+    while (running && !interrupted) {
+      LockSupport.parkNanos(this, interval);
+      interrupted = Thread.interrupted();
+      flushTimer.record(this::flush);
+    }
+    // 最后一轮写入期间到达的确认
+    flushTimer.record(this::flush);
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** 取出当前缓冲区中的全部水位并写入，期间到达的新确认留到下一轮 */
+  void flush() {
+    List<ReadWatermark> drained = new ArrayList<>(pending.size());
+    for (ReadKey key : pending.keySet()) {
+      Long messageId = pending.remove(key);
+      if (messageId != null) {
+        drained.add(new ReadWatermark(key.userId(), key.conversationId(), messageId));
+      }
+    }
+    long acks = acksSinceFlush.sumThenReset();
+    if (drained.isEmpty()) {
+      return;
+    }
+    collapseRatio.record((double) acks / drained.size());
+
+    List<ReadWatermark> accepted = new ArrayList<>(drained.size());
+    for (ReadWatermark watermark : drained) {
+      if (isParticipant(watermark)) {
+        accepted.add(watermark);
+      } else {
+        rejectedCounter.increment();
+      }
+    }
+    for (int from = 0; from < accepted.size(); from += properties.batchSize()) {
+      write(accepted.subList(from, Math.min(from + properties.batchSize(), accepted.size())));
+    }
+  }
+
+  private void write(List<ReadWatermark> batch) {
+    List<ReadWatermark> advanced;
+    try {
+      advanced = readStateMapper.advanceAll(batch);
+    } catch (RuntimeException e) {
+      log.warn("Failed to flush {} read watermarks, retrying next round", batch.size(), e);
+      batch.forEach(
+          w ->
+              pending.merge(
+                  new ReadKey(w.userId(), w.conversationId()), w.lastReadMessageId(), Math::max));
+      return;
+    }
+    writtenCounter.increment(batch.size());
+    unreadCounterService.onWatermarksAdvanced(advanced);
+    for (ReadWatermark watermark : advanced) {
+      try {
+        readReceiptPublisher.publish(watermark);
+      } catch (RuntimeException e) {
+        log.warn("Failed to push read receipt for {}", watermark.conversationId(), e);
+      }
+    }
+  }
+
+  private boolean isParticipant(ReadWatermark watermark) {
+    try {
+      return conversationAccessService.isParticipant(
+          watermark.conversationId(), watermark.userId());
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  private record ReadKey(long userId, String conversationId) {}
+}
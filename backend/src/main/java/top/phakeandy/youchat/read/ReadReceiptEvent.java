@@ -0,0 +1,10 @@
+package top.phakeandy.youchat.read;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "会话成员的已读进度推送")
+public record ReadReceiptEvent(
+    @Schema(description = "会话ID", example = "d_12345_67890") String conversationId,
+    @Schema(description = "已读用户ID", example = "12345") String userId,
+    @Schema(description = "该用户已读到的最后一条消息ID", example = "1234567890123456789")
+        String lastReadMessageId) {}
@@ -0,0 +1,33 @@
+package top.phakeandy.youchat.read;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import top.phakeandy.youchat.message.ConversationIds;
+import top.phakeandy.youchat.message.MessageDeliveryService;
+import top.phakeandy.youchat.message.MessageDestinations;
+
+/** 将水位的前进推送给会话中的其他成员：私聊推送给对方，群聊推送到群的已读进度主题 */
+@Component
+@RequiredArgsConstructor
+public class ReadReceiptPublisher {
+
+  private final MessageDeliveryService messageDeliveryService;
+
+  public void publish(ReadWatermark watermark) {
+    String conversationId = watermark.conversationId();
+    ReadReceiptEvent event =
+        new ReadReceiptEvent(
+            conversationId,
+            String.valueOf(watermark.userId()),
+            String.valueOf(watermark.lastReadMessageId()));
+    if (ConversationIds.isGroup(conversationId)) {
+      long groupId = ConversationIds.groupId(conversationId);
+      messageDeliveryService.deliverToGroup(
+          groupId, MessageDestinations.groupReadReceipts(groupId), event);
+    } else {
+      long otherUserId = ConversationIds.receiverOf(conversationId, watermark.userId());
+      messageDeliveryService.deliverToUser(
+          otherUserId, MessageDestinations.USER_READ_RECEIPTS, event);
+    }
+  }
+}
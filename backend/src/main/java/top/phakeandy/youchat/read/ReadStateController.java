@@ -0,0 +1,114 @@
+package top.phakeandy.youchat.read;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import top.phakeandy.youchat.auth.AuthenticatedUser;
+import top.phakeandy.youchat.read.request.MarkReadRequest;
+
+@RestController
+@RequestMapping("/api/v1/conversations")
+@RequiredArgsConstructor
+@Tag(name = "Read State", description = "会话已读状态相关接口")
+public class ReadStateController {
+
+  private final ReadStateService readStateService;
+  private final UnreadCounterService unreadCounterService;
+
+  @GetMapping("/badges")
+  @Operation(summary = "获取未读角标", description = "一次返回当前用户所有会话的未读消息数，数据来自缓存")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "成功获取未读角标",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = UnreadBadgesResponse.class))),
+      })
+  public ResponseEntity<UnreadBadgesResponse> getBadges(
+      @Parameter(hidden = true) @AuthenticationPrincipal AuthenticatedUser user) {
+    return ResponseEntity.ok(unreadCounterService.getBadges(user.getId()));
+  }
+
+  @GetMapping("/{conversationId}/read-state")
+  @Operation(summary = "获取已读状态", description = "获取当前用户在会话中的已读水位和未读消息数")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "成功获取已读状态",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = ReadStateResponse.class))),
+        @ApiResponse(
+            responseCode = "403",
+            description = "不是该会话的成员",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+      })
+  public ResponseEntity<ReadStateResponse> getReadState(
+      @Parameter(description = "会话ID", required = true, example = "d_12345_67890") @PathVariable
+          String conversationId,
+      @Parameter(hidden = true) @AuthenticationPrincipal AuthenticatedUser user) {
+    return ResponseEntity.ok(readStateService.getReadState(conversationId, user.getId()));
+  }
+
+  @PutMapping("/{conversationId}/read-state")
+  @Operation(summary = "标记已读", description = "将已读水位推进到指定消息，水位只会前进，重复或过期的请求不会产生影响")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "已读状态已更新",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = ReadStateResponse.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "请求参数错误",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+        @ApiResponse(
+            responseCode = "403",
+            description = "不是该会话的成员",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class))),
+      })
+  public ResponseEntity<ReadStateResponse> markRead(
+      @Parameter(description = "会话ID", required = true, example = "d_12345_67890") @PathVariable
+          String conversationId,
+      @Parameter(description = "标记已读请求参数", required = true) @Valid @RequestBody
+          MarkReadRequest request,
+      @Parameter(hidden = true) @AuthenticationPrincipal AuthenticatedUser user) {
+    ReadStateResponse response =
+        readStateService.markRead(
+            conversationId, user.getId(), request.messageId(), request.receipt());
+    return ResponseEntity.ok(response);
+  }
+}
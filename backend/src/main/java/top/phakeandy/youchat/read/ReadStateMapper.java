@@ -0,0 +1,195 @@
+package top.phakeandy.youchat.read;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import org.apache.ibatis.annotations.Arg;
+import org.apache.ibatis.annotations.ConstructorArgs;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import top.phakeandy.youchat.message.MessageIdGenerator;
+
+/**
+ * 生成的 Mapper 无法表达 upsert 和带上限的计数，这里补充手写语句
+ *
+ * <p>已读水位按会话键记录，messages 表中的会话是 conversations 表分配的数字编号，查询消息时先换算
+ */
+@Mapper
+public interface ReadStateMapper {
+
+  /**
+   * 单调推进已读水位，已有水位不小于新值时不做任何修改
+   *
+   * <p>水位落在会话中不大于 {@code messageId} 的最新一条已落库消息上，客户端不能用不存在或其他会话的消息 ID 把水位推到未来。
+   * 仍在写入缓冲区中的消息尚未落库，对它的确认只推进到前一条消息，后续确认会补上
+   *
+   * @return 水位实际前进时返回新的水位，否则返回 null
+   */
+  @Select(
+      """
+      INSERT INTO conversation_read_states AS s
+          (user_id, conversation_id, last_read_message_id, updated_at)
+      SELECT #{userId}, #{conversationId}, latest.id, CURRENT_TIMESTAMP
+      FROM (
+          SELECT MAX(id) AS id FROM messages
+          WHERE conversation_id = (
+              SELECT id FROM conversations WHERE conversation_key = #{conversationId}
+          )
+            AND id <= #{messageId}
+      ) AS latest
+      WHERE latest.id IS NOT NULL
+      ON CONFLICT (user_id, conversation_id) DO UPDATE
+      SET last_read_message_id = EXCLUDED.last_read_message_id,
+          updated_at = EXCLUDED.updated_at
+      WHERE s.last_read_message_id < EXCLUDED.last_read_message_id
+      RETURNING s.last_read_message_id
+      """)
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  Long advance(
+      @Param("userId") long userId,
+      @Param("conversationId") String conversationId,
+      @Param("messageId") long messageId);
+
+  /**
+   * 批量单调推进已读水位，同一批次内每个 (用户, 会话) 最多出现一次，水位的取值规则与 {@link #advance} 相同
+   *
+   * @return 水位实际前进的行，水位为实际写入的消息 ID
+   */
+  @Select(
+      """
+      <script>
+      INSERT INTO conversation_read_states AS s
+          (user_id, conversation_id, last_read_message_id, updated_at)
+      SELECT v.user_id, v.conversation_id, latest.id, CURRENT_TIMESTAMP
+      FROM (VALUES
+      <foreach collection="watermarks" item="w" separator=",">
+          (#{w.userId}::BIGINT, #{w.conversationId}, #{w.lastReadMessageId}::BIGINT)
+      </foreach>
+      ) AS v (user_id, conversation_id, message_id)
+      CROSS JOIN LATERAL (
+          SELECT MAX(m.id) AS id FROM messages AS m
+          WHERE m.conversation_id = (
+              SELECT id FROM conversations WHERE conversation_key = v.conversation_id
+          )
+            AND m.id &lt;= v.message_id
+      ) AS latest
+      WHERE latest.id IS NOT NULL
+      ON CONFLICT (user_id, conversation_id) DO UPDATE
+      SET last_read_message_id = EXCLUDED.last_read_message_id,
+          updated_at = EXCLUDED.updated_at
+      WHERE s.last_read_message_id &lt; EXCLUDED.last_read_message_id
+      RETURNING s.user_id, s.conversation_id, s.last_read_message_id
+      </script>
+      """)
+  @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+  @ConstructorArgs({
+    @Arg(column = "user_id", javaType = long.class),
+    @Arg(column = "conversation_id", javaType = String.class),
+    @Arg(column = "last_read_message_id", javaType = long.class)
+  })
+  List<ReadWatermark> advanceAll(@Param("watermarks") List<ReadWatermark> watermarks);
+
+  /**
+   * 统计水位之后他人发送的消息数，最多统计到 {@code limit} 条，同时返回会话中已落库的最大消息 ID
+   *
+   * <p>两个值来自同一条语句的快照，{@link UnreadCounterService} 据此判断缓存中的计数是否包含尚未落库的消息
+   *
+   * @param afterMessageId 已读水位，没有水位时传 0
+   * @param createdSince 水位之后消息 created_at 的下界，由 {@link MessageIdGenerator#createdAtLowerBound}
+   *     从水位推算，用于裁剪更早的分区
+   */
+  @Select(
+      """
+      SELECT (
+          SELECT COUNT(*) FROM (
+              SELECT 1 FROM messages
+              WHERE conversation_id = c.id
+                AND id > #{afterMessageId}
+                AND created_at >= #{createdSince}
+                AND sender_id <> #{userId}
+              LIMIT #{limit}
+          ) AS unread
+      ) AS unread_count,
+      COALESCE((SELECT MAX(id) FROM messages WHERE conversation_id = c.id), 0) AS latest_message_id
+      FROM (
+          SELECT (SELECT id FROM conversations WHERE conversation_key = #{conversationId}) AS id
+      ) AS c
+      """)
+  @ConstructorArgs({
+    @Arg(column = "unread_count", javaType = long.class),
+    @Arg(column = "latest_message_id", javaType = long.class)
+  })
+  UnreadSnapshot countUnread(
+      @Param("userId") long userId,
+      @Param("conversationId") String conversationId,
+      @Param("afterMessageId") long afterMessageId,
+      @Param("createdSince") OffsetDateTime createdSince,
+      @Param("limit") int limit);
+
+  /**
+   * 从数据库重新计算用户在所有已知会话中的未读数
+   *
+   * <p>已知会话包括：读过的会话、加入或创建的群聊、自己发过消息的私聊。只收到过消息但从未读过也从未回复的私聊无法从现有索引中找到， 这类会话的计数由后续新消息的增量补上
+   *
+   * <p>同时返回每个会话中已落库的最大消息 ID，与 {@link #countUnread} 一样用于判断缓存中的计数是否包含尚未落库的消息
+   */
+  @Select(
+      """
+      SELECT c.conversation_id, (
+          SELECT COUNT(*) FROM (
+              SELECT 1 FROM messages AS m
+              WHERE m.conversation_id = r.id
+                AND m.id > COALESCE(s.last_read_message_id, 0)
+                AND m.sender_id <> #{userId}
+              LIMIT #{limit}
+          ) AS unread
+      ) AS unread_count,
+      COALESCE((SELECT MAX(id) FROM messages WHERE conversation_id = r.id), 0) AS latest_message_id
+      FROM (
+          SELECT conversation_id FROM conversation_read_states WHERE user_id = #{userId}
+          UNION
+          SELECT 'g_' || group_id FROM group_members WHERE user_id = #{userId}
+          UNION
+          SELECT 'g_' || id FROM chat_groups WHERE owner_id = #{userId}
+          UNION
+          SELECT DISTINCT k.conversation_key FROM messages AS m
+          INNER JOIN conversations AS k ON m.conversation_id = k.id
+          WHERE m.sender_id = #{userId} AND k.conversation_key LIKE 'd\\_%'
+      ) AS c
+      LEFT JOIN conversations AS r ON c.conversation_id = r.conversation_key
+      LEFT JOIN conversation_read_states AS s
+          ON s.user_id = #{userId} AND s.conversation_id = c.conversation_id
+      """)
+  @ConstructorArgs({
+    @Arg(column = "conversation_id", javaType = String.class),
+    @Arg(column = "unread_count", javaType = long.class),
+    @Arg(column = "latest_message_id", javaType = long.class)
+  })
+  List<UnreadCount> countAllUnread(@Param("userId") long userId, @Param("limit") int limit);
+
+  /**
+   * 记录单条消息的已读回执，消息尚未落库或已有回执时忽略
+   *
+   * @param createdSince 消息 created_at 的下界，由 {@link MessageIdGenerator#createdAtLowerBound} 从消息 ID
+   *     推算，用于裁剪更早的分区
+   * @return 新增的回执数
+   */
+  @Insert(
+      """
+      INSERT INTO message_read_records (message_id, user_id, read_at)
+      SELECT id, #{userId}, CURRENT_TIMESTAMP FROM messages
+      WHERE id = #{messageId}
+        AND created_at >= #{createdSince}
+        AND conversation_id = (
+            SELECT id FROM conversations WHERE conversation_key = #{conversationId}
+        )
+      ON CONFLICT (message_id, user_id) DO NOTHING
+      """)
+  int insertReceipt(
+      @Param("userId") long userId,
+      @Param("conversationId") String conversationId,
+      @Param("messageId") long messageId,
+      @Param("createdSince") OffsetDateTime createdSince);
+}
@@ -0,0 +1,10 @@
+package top.phakeandy.youchat.read;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "会话已读状态")
+public record ReadStateResponse(
+    @Schema(description = "会话ID", example = "d_12345_67890") String conversationId,
+    @Schema(description = "已读到的最后一条消息ID，从未读过时为空", example = "1234567890123456789")
+        String lastReadMessageId,
+    @Schema(description = "未读消息数，超过 999 时返回 999", example = "3") long unreadCount) {}
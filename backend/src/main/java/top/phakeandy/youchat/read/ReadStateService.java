@@ -0,0 +1,99 @@
+package top.phakeandy.youchat.read;
+
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import top.phakeandy.youchat.mapper.ConversationReadStatesDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.ConversationReadStatesMapper;
+import top.phakeandy.youchat.message.ConversationAccessService;
+import top.phakeandy.youchat.message.ConversationIds;
+import top.phakeandy.youchat.message.MessageIdGenerator;
+import top.phakeandy.youchat.model.ConversationReadStates;
+
+/**
+ * 会话已读水位
+ *
+ * <p>每个用户在每个会话中只保存最后一条已读消息的 ID，消息 ID 随时间递增，水位之后的消息即为未读。单条消息的已读回执只在私聊中按需记录。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReadStateService {
+
+  static final int UNREAD_COUNT_LIMIT = 999;
+
+  private final ConversationAccessService conversationAccessService;
+  private final ConversationReadStatesMapper conversationReadStatesMapper;
+  private final ReadStateMapper readStateMapper;
+  private final ReadReceiptPublisher readReceiptPublisher;
+  private final UnreadCounterService unreadCounterService;
+
+  /**
+   * 推进已读水位，水位只会前进，旧的确认不会让水位回退，水位不会超过会话中最新的一条消息
+   *
+   * <p>同步写入并返回最新的未读数，适合打开会话等低频场景，滚动浏览时的高频确认应通过 STOMP 交给 {@link ReadReceiptCoalescer} 合并
+   *
+   * @param receipt 是否同时记录单条已读回执，群聊中忽略
+   */
+  @Transactional
+  public ReadStateResponse markRead(
+      String conversationId, long userId, long messageId, boolean receipt) {
+    conversationAccessService.checkAccess(conversationId, userId);
+    Long advanced = readStateMapper.advance(userId, conversationId, messageId);
+    if (receipt && !ConversationIds.isGroup(conversationId)) {
+      readStateMapper.insertReceipt(
+          userId, conversationId, messageId, MessageIdGenerator.createdAtLowerBound(messageId));
+    }
+    log.debug(
+        "User {} acknowledged {} in conversation {}, advanced to {}",
+        userId,
+        messageId,
+        conversationId,
+        advanced);
+    Long lastRead = lastRead(conversationId, userId);
+    UnreadSnapshot unread = countUnread(conversationId, userId, lastRead);
+    if (advanced != null) {
+      ReadWatermark watermark = new ReadWatermark(userId, conversationId, advanced);
+      readReceiptPublisher.publish(watermark);
+      unreadCounterService.onWatermarkAdvanced(watermark, unread);
+    }
+    return response(conversationId, lastRead, unread);
+  }
+
+  public ReadStateResponse getReadState(String conversationId, long userId) {
+    conversationAccessService.checkAccess(conversationId, userId);
+    Long lastRead = lastRead(conversationId, userId);
+    return response(conversationId, lastRead, countUnread(conversationId, userId, lastRead));
+  }
+
+  private Long lastRead(String conversationId, long userId) {
+    return conversationReadStatesMapper
+        .selectOne(
+            c ->
+                c.where(ConversationReadStatesDynamicSqlSupport.userId, isEqualTo(userId))
+                    .and(
+                        ConversationReadStatesDynamicSqlSupport.conversationId,
+                        isEqualTo(conversationId)))
+        .map(ConversationReadStates::getLastReadMessageId)
+        .orElse(null);
+  }
+
+  private UnreadSnapshot countUnread(String conversationId, long userId, Long lastRead) {
+    long afterMessageId = lastRead == null ? 0 : lastRead;
+    return readStateMapper.countUnread(
+        userId,
+        conversationId,
+        afterMessageId,
+        MessageIdGenerator.createdAtLowerBound(afterMessageId),
+        UNREAD_COUNT_LIMIT);
+  }
+
+  private static ReadStateResponse response(
+      String conversationId, Long lastRead, UnreadSnapshot unread) {
+    return new ReadStateResponse(
+        conversationId, lastRead == null ? null : String.valueOf(lastRead), unread.unreadCount());
+  }
+}
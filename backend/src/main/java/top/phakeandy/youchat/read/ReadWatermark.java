@@ -0,0 +1,4 @@
+package top.phakeandy.youchat.read;
+
+/** 用户在会话中的已读水位 */
+public record ReadWatermark(long userId, String conversationId, long lastReadMessageId) {}
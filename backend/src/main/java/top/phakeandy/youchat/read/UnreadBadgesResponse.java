@@ -0,0 +1,10 @@
+package top.phakeandy.youchat.read;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.Map;
+
+@Schema(description = "未读角标")
+public record UnreadBadgesResponse(
+    @Schema(description = "各会话的未读消息数，没有未读消息的会话不返回", example = "{\"d_12345_67890\": 3}")
+        Map<String, Long> conversations,
+    @Schema(description = "未读消息总数", example = "3") long total) {}
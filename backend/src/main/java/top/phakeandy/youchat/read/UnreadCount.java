@@ -0,0 +1,8 @@
+package top.phakeandy.youchat.read;
+
+/**
+ * 用户在某个会话中的未读消息数
+ *
+ * @param latestMessageId 统计时会话中已落库的最大消息 ID，没有消息时为 0
+ */
+public record UnreadCount(String conversationId, long count, long latestMessageId) {}
@@ -0,0 +1,247 @@
+package top.phakeandy.youchat.read;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import top.phakeandy.youchat.message.ConversationAccessService;
+import top.phakeandy.youchat.message.ConversationType;
+import top.phakeandy.youchat.message.MessageAcceptedEvent;
+import top.phakeandy.youchat.message.MessageIdGenerator;
+
+/**
+ * 基于 Redis Hash 的未读计数
+ *
+ * <p>每个用户一个 Hash，字段为会话 ID，值为未读数。消息被接收时为所有接收者原子地加一，已读水位前进时按数据库重新计算该会话的未读数。 Hash 中的 {@link
+ * #REBUILT_FIELD} 标记计数是从数据库完整重建过的，缺少该标记（过期后被增量重新创建）的计数在读取时会先重建。 写入 Redis 失败的用户会被记录下来，由定时任务重建。
+ *
+ * <p>消息在落库之前就已计入未读数。每个会话另有一个标记字段记录计入的最大消息 ID，用数据库的统计覆盖计数时先与统计时已落库的最大 ID 比较，
+ * 计数中还有数据库看不到的消息时不覆盖，改由定时任务稍后重建，避免丢掉写入缓冲区中消息的增量。整体重建时同样逐个会话比较，这类会话保留原计数， 用户留待下次重建。
+ */
+@Slf4j
+@Service
+public class UnreadCounterService {
+
+  public static final String REBUILT_FIELD = "_rebuilt";
+
+  /** 以下划线开头的字段不是会话计数 */
+  private static final String INTERNAL_FIELD_PREFIX = "_";
+
+  private static final String COUNTED_FIELD_PREFIX = "_counted:";
+
+  /** 单次脚本调用携带的最大键数，超大群聊按此分批 */
+  private static final int MAX_KEYS_PER_SCRIPT = 1000;
+
+  private static final RedisScript<Long> INCREMENT_SCRIPT =
+      RedisScript.of(new ClassPathResource("redis/unread-increment.lua"), Long.class);
+
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> RESET_SCRIPT =
+      RedisScript.of(new ClassPathResource("redis/unread-reset.lua"), List.class);
+
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> REBUILD_SCRIPT =
+      RedisScript.of(new ClassPathResource("redis/unread-rebuild.lua"), List.class);
+
+  private final StringRedisTemplate redisTemplate;
+  private final ReadStateMapper readStateMapper;
+  private final ConversationAccessService conversationAccessService;
+  private final ReadProperties.Unread properties;
+
+  /** 本节点上计数可能已偏差、等待重建的用户 */
+  private final Set<Long> driftedUsers = ConcurrentHashMap.newKeySet();
+
+  public UnreadCounterService(
+      StringRedisTemplate redisTemplate,
+      ReadStateMapper readStateMapper,
+      ConversationAccessService conversationAccessService,
+      ReadProperties properties) {
+    this.redisTemplate = redisTemplate;
+    this.readStateMapper = readStateMapper;
+    this.conversationAccessService = conversationAccessService;
+    this.properties = properties.unread();
+  }
+
+  /** 为除发送者以外的所有接收者加一并记录计入的消息，每 {@value #MAX_KEYS_PER_SCRIPT} 个接收者一次往返 */
+  @EventListener
+  public void onMessageAccepted(MessageAcceptedEvent event) {
+    LongStream recipients =
+        event.conversationType() == ConversationType.GROUP
+            ? conversationAccessService.groupMemberIds(event.receiverId()).stream()
+            : LongStream.of(event.receiverId());
+    long[] targets = recipients.filter(userId -> userId != event.senderId()).toArray();
+    if (targets.length == 0) {
+      return;
+    }
+    List<String> keys = LongStream.of(targets).mapToObj(this::keyString).toList();
+    try {
+      for (int from = 0; from < keys.size(); from += MAX_KEYS_PER_SCRIPT) {
+        redisTemplate.execute(
+            INCREMENT_SCRIPT,
+            keys.subList(from, Math.min(from + MAX_KEYS_PER_SCRIPT, keys.size())),
+            event.conversationId(),
+            countedField(event.conversationId()),
+            Long.toString(event.messageId()),
+            Long.toString(properties.ttl().toSeconds()));
+      }
+    } catch (DataAccessException e) {
+      log.warn("Failed to increment unread counters for {}", event.conversationId(), e);
+      for (long userId : targets) {
+        driftedUsers.add(userId);
+      }
+    }
+  }
+
+  /** 已读水位前进后，用数据库中的未读数覆盖缓存 */
+  public void onWatermarksAdvanced(List<ReadWatermark> watermarks) {
+    if (watermarks.isEmpty()) {
+      return;
+    }
+    Map<ReadWatermark, UnreadSnapshot> counts = new LinkedHashMap<>();
+    for (ReadWatermark watermark : watermarks) {
+      counts.put(
+          watermark,
+          readStateMapper.countUnread(
+              watermark.userId(),
+              watermark.conversationId(),
+              watermark.lastReadMessageId(),
+              MessageIdGenerator.createdAtLowerBound(watermark.lastReadMessageId()),
+              ReadStateService.UNREAD_COUNT_LIMIT));
+    }
+    writeCounts(counts);
+  }
+
+  /** 已读水位前进且调用方已经统计出最新未读数时直接写入缓存 */
+  public void onWatermarkAdvanced(ReadWatermark watermark, UnreadSnapshot unread) {
+    writeCounts(Map.of(watermark, unread));
+  }
+
+  /** 返回用户全部会话的未读数，缓存缺失或不完整时先从数据库重建 */
+  public UnreadBadgesResponse getBadges(long userId) {
+    Map<Object, Object> entries = redisTemplate.opsForHash().entries(keyString(userId));
+    Map<String, Long> counts;
+    if (entries.containsKey(REBUILT_FIELD)) {
+      counts = new HashMap<>();
+      entries.forEach(
+          (field, value) -> {
+            if (((String) field).startsWith(INTERNAL_FIELD_PREFIX)) {
+              return;
+            }
+            long count = Long.parseLong((String) value);
+            if (count > 0) {
+              counts.put((String) field, count);
+            }
+          });
+    } else {
+      counts = rebuild(userId);
+    }
+    long total = counts.values().stream().mapToLong(Long::longValue).sum();
+    return new UnreadBadgesResponse(counts, total);
+  }
+
+  /** 重建写入 Redis 失败过的用户 */
+  @Scheduled(fixedDelayString = "${youchat.read.unread.reconcile-interval:1m}")
+  public void reconcile() {
+    for (Long userId : List.copyOf(driftedUsers)) {
+      driftedUsers.remove(userId);
+      try {
+        rebuild(userId);
+      } catch (DataAccessException e) {
+        log.warn("Failed to rebuild unread counters for user {}", userId, e);
+        driftedUsers.add(userId);
+      }
+    }
+  }
+
+  /**
+   * 从数据库重新计算用户的全部未读数并整体替换缓存
+   *
+   * <p>计数中包含尚未落库消息的会话保留原计数，用户留待定时任务在消息落库后再次重建
+   */
+  Map<String, Long> rebuild(long userId) {
+    List<UnreadCount> unreadCounts =
+        readStateMapper.countAllUnread(userId, ReadStateService.UNREAD_COUNT_LIMIT);
+    List<String> args = new ArrayList<>(3 + unreadCounts.size() * 3);
+    args.add(REBUILT_FIELD);
+    args.add(COUNTED_FIELD_PREFIX);
+    args.add(Long.toString(properties.ttl().toSeconds()));
+    for (UnreadCount unread : unreadCounts) {
+      args.add(unread.conversationId());
+      args.add(Long.toString(unread.latestMessageId()));
+      args.add(Long.toString(unread.count()));
+    }
+    List<?> result =
+        redisTemplate.execute(REBUILD_SCRIPT, List.of(keyString(userId)), args.toArray());
+    Map<String, Long> counts = new HashMap<>();
+    if (result == null || result.isEmpty()) {
+      return counts;
+    }
+    for (int i = 1; i + 1 < result.size(); i += 2) {
+      counts.put((String) result.get(i), Long.parseLong((String) result.get(i + 1)));
+    }
+    long kept = ((Number) result.getFirst()).longValue();
+    if (kept > 0) {
+      log.debug(
+          "Kept unread counters for {} conversations of user {}: messages not yet persisted",
+          kept,
+          userId);
+      driftedUsers.add(userId);
+    }
+    log.debug("Rebuilt unread counters for user {}: {} conversations", userId, counts.size());
+    return counts;
+  }
+
+  /** 比较并设置，计数中包含尚未落库的消息时跳过，交给定时任务重建 */
+  private void writeCounts(Map<ReadWatermark, UnreadSnapshot> counts) {
+    List<ReadWatermark> watermarks = List.copyOf(counts.keySet());
+    List<String> keys = new ArrayList<>(watermarks.size());
+    List<String> args = new ArrayList<>(watermarks.size() * 4);
+    for (ReadWatermark watermark : watermarks) {
+      UnreadSnapshot unread = counts.get(watermark);
+      keys.add(keyString(watermark.userId()));
+      args.add(watermark.conversationId());
+      args.add(countedField(watermark.conversationId()));
+      args.add(Long.toString(unread.latestMessageId()));
+      args.add(Long.toString(unread.unreadCount()));
+    }
+    List<?> skipped;
+    try {
+      skipped = redisTemplate.execute(RESET_SCRIPT, keys, args.toArray());
+    } catch (DataAccessException e) {
+      log.warn("Failed to reset unread counters for {} watermarks", counts.size(), e);
+      watermarks.forEach(watermark -> driftedUsers.add(watermark.userId()));
+      return;
+    }
+    if (skipped == null) {
+      return;
+    }
+    for (Object index : skipped) {
+      ReadWatermark watermark = watermarks.get(((Number) index).intValue() - 1);
+      log.debug(
+          "Kept unread counter for {} of user {}: messages not yet persisted",
+          watermark.conversationId(),
+          watermark.userId());
+      driftedUsers.add(watermark.userId());
+    }
+  }
+
+  private String keyString(long userId) {
+    return properties.keyPrefix() + userId;
+  }
+
+  private static String countedField(String conversationId) {
+    return COUNTED_FIELD_PREFIX + conversationId;
+  }
+}
@@ -0,0 +1,9 @@
+package top.phakeandy.youchat.read;
+
+/**
+ * 一次查询中从数据库统计出的未读数
+ *
+ * @param unreadCount 水位之后他人发送的消息数
+ * @param latestMessageId 统计时会话中已落库的最大消息 ID，没有消息时为 0
+ */
+public record UnreadSnapshot(long unreadCount, long latestMessageId) {}
@@ -0,0 +1,16 @@
+package top.phakeandy.youchat.read.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+@Schema(description = "标记已读请求")
+public record MarkReadRequest(
+    @Schema(
+            description = "已读到的最后一条消息ID，之前的消息都视为已读",
+            example = "1234567890123456789",
+            type = "string")
+        @NotNull
+        @Positive
+        Long messageId,
+    @Schema(description = "是否同时记录这条消息的单条已读回执，仅对私聊生效", example = "false") boolean receipt) {}
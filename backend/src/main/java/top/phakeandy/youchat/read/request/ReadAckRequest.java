@@ -0,0 +1,14 @@
+package top.phakeandy.youchat.read.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+@Schema(description = "已读确认")
+public record ReadAckRequest(
+    @Schema(description = "会话ID", example = "d_12345_67890") @NotBlank String conversationId,
+    @Schema(description = "已读到的最后一条消息ID", example = "1234567890123456789", type = "string")
+        @NotNull
+        @Positive
+        Long messageId) {}
@@ -6,11 +6,15 @@ import static top.phakeandy.youchat.mapper.UsersDynamicSqlSupport.username;
 import io.micrometer.common.lang.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import top.phakeandy.youchat.auth.AuthenticatedUser;
 import top.phakeandy.youchat.auth.CustomUserDetails;
 import top.phakeandy.youchat.auth.CustomUserDetailsService;
+import top.phakeandy.youchat.auth.UserCache;
+import top.phakeandy.youchat.auth.exception.PasswordPolicyException;
 import top.phakeandy.youchat.auth.request.RegisterRequest;
 import top.phakeandy.youchat.auth.response.RegisterResponse;
 import top.phakeandy.youchat.mapper.UsersMapper;
@@ -26,6 +30,7 @@ public class UserServiceImpl implements UserService {
 
   private final CustomUserDetailsService customUserDetailsService;
   private final UsersMapper usersMapper;
+  private final UserCache userCache;
 
   @Override
   @Transactional
@@ -37,11 +42,6 @@ public class UserServiceImpl implements UserService {
       throw new PasswordMismatchException();
     }
 
-    // 检查用户名是否已存在
-    if (customUserDetailsService.existsByUsername(request.username())) {
-      throw new UsernameAlreadyExistsException(request.username());
-    }
-
     try {
       // 创建用户
       CustomUserDetails createdUser =
@@ -57,6 +57,11 @@ public class UserServiceImpl implements UserService {
       return new RegisterResponse(
           "用户注册成功", createdUser.getId(), createdUser.getUsername(), createdUser.getNickname());
 
+    } catch (DuplicateKeyException e) {
+      // 用户名唯一性由 users.username 的唯一约束保证，不再预先查询
+      throw new UsernameAlreadyExistsException(request.username(), e);
+    } catch (PasswordPolicyException e) {
+      throw new InvalidPasswordException(e.getMessage(), e.getViolations(), e);
     } catch (IllegalArgumentException e) {
       throw new InvalidPasswordException("创建用户密码格式错误：" + e.getMessage(), e);
     }
@@ -73,6 +78,8 @@ public class UserServiceImpl implements UserService {
     final var usernameValue = userDetails.getUsername();
     log.debug("Deleting current user: {}", usernameValue);
     usersMapper.delete(c -> c.where(username, isEqualTo(usernameValue)));
+    userCache.evict(
+        userDetails instanceof AuthenticatedUser user ? user.getId() : null, usernameValue);
     log.info("User deleted successfully: {}", usernameValue);
   }
 }
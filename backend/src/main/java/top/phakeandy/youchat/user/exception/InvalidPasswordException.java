@@ -1,8 +1,10 @@
 package top.phakeandy.youchat.user.exception;
 
+import java.util.List;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.web.ErrorResponseException;
+import top.phakeandy.youchat.auth.PasswordViolation;
 
 public class InvalidPasswordException extends ErrorResponseException {
 
@@ -15,4 +17,11 @@ public class InvalidPasswordException extends ErrorResponseException {
         cause);
     getBody().setTitle("密码格式错误");
   }
+
+  /** 密码不满足密码规则，响应体的 {@code violations} 列出所有违反的规则 */
+  public InvalidPasswordException(
+      String message, List<PasswordViolation> violations, Throwable cause) {
+    this(message, cause);
+    getBody().setProperty("violations", violations);
+  }
 }
@@ -8,11 +8,11 @@ public class UsernameAlreadyExistsException extends ErrorResponseException {
 
   private static final long serialVersionUID = 1L;
 
-  public UsernameAlreadyExistsException(String username) {
+  public UsernameAlreadyExistsException(String username, Throwable cause) {
     super(
         HttpStatus.CONFLICT,
         ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "用户名 " + username + " 已存在。"),
-        null);
+        cause);
     getBody().setTitle("用户名已存在");
   }
 }
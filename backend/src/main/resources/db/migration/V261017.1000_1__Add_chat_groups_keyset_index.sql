@@ -0,0 +1,27 @@
+-- Keyset pagination on chat_groups orders by (created_at, id), so created_at must never be NULL
+
+CREATE OR REPLACE FUNCTION SET_CREATED_AT_COLUMN()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' THEN
+        NEW.created_at = COALESCE(NEW.created_at, OLD.created_at);
+    ELSE
+        NEW.created_at = COALESCE(NEW.created_at, CURRENT_TIMESTAMP);
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+UPDATE chat_groups SET created_at = CURRENT_TIMESTAMP WHERE created_at IS NULL;
+
+CREATE TRIGGER set_chat_groups_created_at
+BEFORE INSERT OR UPDATE ON chat_groups
+FOR EACH ROW
+EXECUTE FUNCTION SET_CREATED_AT_COLUMN();
+
+ALTER TABLE chat_groups ALTER COLUMN created_at SET NOT NULL;
+
+-- Replace the single-column index with one matching the keyset order
+DROP INDEX idx_chat_groups_created_at;
+
+CREATE INDEX idx_chat_groups_created_at_id ON chat_groups (created_at DESC, id DESC);
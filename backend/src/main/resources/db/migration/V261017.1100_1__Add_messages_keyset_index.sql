@@ -0,0 +1,11 @@
+-- History paging seeks on (conversation_id, created_at, id), so created_at must never be NULL
+UPDATE messages SET created_at = CURRENT_TIMESTAMP WHERE created_at IS NULL;
+
+ALTER TABLE messages ALTER COLUMN created_at SET NOT NULL;
+
+-- Add id as a tie-breaker so pages stay stable when messages share a timestamp
+DROP INDEX idx_messages_conversation_created_at;
+
+CREATE INDEX idx_messages_conversation_created_at_id ON messages (
+    conversation_id, created_at, id
+);
@@ -0,0 +1,30 @@
+-- Create conversation_read_states table: one read watermark per (user, conversation)
+-- Frequently updated in place, leave room on each page for HOT updates
+CREATE TABLE conversation_read_states (
+    user_id BIGINT NOT NULL,
+    conversation_id VARCHAR(100) NOT NULL,
+    last_read_message_id BIGINT NOT NULL,
+    updated_at TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_conversation_read_states PRIMARY KEY (user_id, conversation_id),
+    CONSTRAINT fk_conversation_read_states_user_id FOREIGN KEY (
+        user_id
+    ) REFERENCES users (id) ON DELETE CASCADE
+) WITH (fillfactor = 80);
+
+-- Migrate existing per-message read records to watermarks
+INSERT INTO conversation_read_states (
+    user_id, conversation_id, last_read_message_id, updated_at
+)
+SELECT
+    r.user_id,
+    m.conversation_id,
+    MAX(r.message_id),
+    MAX(r.read_at)
+FROM message_read_records AS r
+INNER JOIN messages AS m ON r.message_id = m.id
+GROUP BY r.user_id, m.conversation_id;
+
+-- Create index for counting unread messages after a watermark without touching the heap
+CREATE INDEX idx_messages_conversation_id_id ON messages (
+    conversation_id, id
+) INCLUDE (sender_id);
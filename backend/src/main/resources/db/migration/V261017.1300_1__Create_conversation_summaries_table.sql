@@ -0,0 +1,58 @@
+-- Create conversation_summaries table: the latest message of each conversation for the inbox
+-- One row per conversation rather than per member, so a group message updates a single row
+-- Rewritten after every message batch, leave room on each page for HOT updates
+CREATE TABLE conversation_summaries (
+    conversation_id VARCHAR(100) NOT NULL,
+    user1_id BIGINT,
+    user2_id BIGINT,
+    last_message_id BIGINT NOT NULL,
+    last_sender_id BIGINT NOT NULL,
+    message_type VARCHAR(20) NOT NULL,
+    preview VARCHAR(200) NOT NULL,
+    last_message_at TIMESTAMPTZ NOT NULL,
+    CONSTRAINT pk_conversation_summaries PRIMARY KEY (conversation_id),
+    CONSTRAINT chk_conversation_summaries_participants CHECK (
+        (user1_id IS NULL) = (user2_id IS NULL)
+    )
+) WITH (fillfactor = 80);
+
+-- Create indexes for listing a user's direct conversations, newest first
+CREATE INDEX idx_conversation_summaries_user1_id ON conversation_summaries (
+    user1_id, last_message_id DESC
+) WHERE user1_id IS NOT NULL;
+
+CREATE INDEX idx_conversation_summaries_user2_id ON conversation_summaries (
+    user2_id, last_message_id DESC
+) WHERE user2_id IS NOT NULL;
+
+-- Backfill summaries from the latest message of each existing conversation
+INSERT INTO conversation_summaries (
+    conversation_id,
+    user1_id,
+    user2_id,
+    last_message_id,
+    last_sender_id,
+    message_type,
+    preview,
+    last_message_at
+)
+SELECT DISTINCT ON (m.conversation_id)
+    m.conversation_id,
+    CASE
+        WHEN m.conversation_id LIKE 'd\_%'
+            THEN split_part(m.conversation_id, '_', 2)::BIGINT
+    END,
+    CASE
+        WHEN m.conversation_id LIKE 'd\_%'
+            THEN split_part(m.conversation_id, '_', 3)::BIGINT
+    END,
+    m.id,
+    m.sender_id,
+    m.type,
+    CASE
+        WHEN m.type = 'image' THEN '[图片]'
+        ELSE left(coalesce(m.content ->> 'text', ''), 100)
+    END,
+    m.created_at
+FROM messages AS m
+ORDER BY m.conversation_id ASC, m.id DESC;
@@ -0,0 +1,99 @@
+-- Convert messages into a table range-partitioned by created_at, one partition
+-- per UTC month, so old months can be detached for archival instead of being
+-- deleted row by row
+-- The primary key of a partitioned table must include the partition key
+CREATE TABLE messages_partitioned (
+    id BIGINT NOT NULL,
+    conversation_id VARCHAR(100) NOT NULL,
+    sender_id BIGINT NOT NULL,
+    type VARCHAR(20) NOT NULL DEFAULT 'text',
+    content JSONB NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT pk_messages PRIMARY KEY (id, created_at),
+    CONSTRAINT fk_messages_sender_id FOREIGN KEY (sender_id) REFERENCES users (
+        id
+    ) ON DELETE CASCADE
+) PARTITION BY RANGE (created_at);
+
+-- Create the partition holding the given month, named messages_YYYY_MM
+-- Idempotent, called by this migration and by the partition maintainer;
+-- returns false when the partition already exists
+-- There is deliberately no DEFAULT partition: it would be scanned whenever
+-- a partition is added, and it rules out DETACH PARTITION ... CONCURRENTLY
+CREATE FUNCTION create_messages_partition(target_month DATE)
+RETURNS BOOLEAN AS $$
+DECLARE
+    lower_bound TIMESTAMPTZ := date_trunc('month', target_month::TIMESTAMP)
+    AT TIME ZONE 'UTC';
+    upper_bound TIMESTAMPTZ := (
+        date_trunc('month', target_month::TIMESTAMP) + INTERVAL '1 month'
+    ) AT TIME ZONE 'UTC';
+    partition_name TEXT := 'messages_' || to_char(target_month, 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format(
+        'CREATE TABLE %I PARTITION OF messages FOR VALUES FROM (%L) TO (%L)',
+        partition_name, lower_bound, upper_bound
+    );
+    RETURN TRUE;
+EXCEPTION
+    -- Another node created the same partition concurrently
+    WHEN duplicate_table THEN RETURN FALSE;
+END;
+$$ LANGUAGE plpgsql;
+
+-- read records cannot reference messages(id) once id alone is no longer unique;
+-- insertReceipt already checks that the message exists
+ALTER TABLE message_read_records
+DROP CONSTRAINT fk_message_read_records_message_id;
+
+ALTER TABLE messages RENAME TO messages_unpartitioned;
+
+ALTER TABLE messages_partitioned RENAME TO messages;
+
+-- Create partitions from the oldest existing message up to three months ahead
+SELECT create_messages_partition(month::DATE)
+FROM generate_series(
+    date_trunc(
+        'month',
+        coalesce(
+            (SELECT min(created_at) FROM messages_unpartitioned),
+            CURRENT_TIMESTAMP
+        ) AT TIME ZONE 'UTC'
+    ),
+    date_trunc('month', CURRENT_TIMESTAMP AT TIME ZONE 'UTC')
+    + INTERVAL '3 months',
+    INTERVAL '1 month'
+) AS month;
+
+INSERT INTO messages (
+    id, conversation_id, sender_id, type, content, created_at, updated_at
+)
+SELECT id, conversation_id, sender_id, type, content, created_at, updated_at
+FROM messages_unpartitioned;
+
+DROP TABLE messages_unpartitioned;
+
+-- Only indexes the query layer uses are recreated, they cascade to partitions
+-- History paging seeks on (conversation_id, created_at, id)
+CREATE INDEX idx_messages_conversation_created_at_id ON messages (
+    conversation_id, created_at, id
+);
+
+-- Unread counting and read receipts look messages up by (conversation_id, id)
+CREATE INDEX idx_messages_conversation_id_id ON messages (
+    conversation_id, id
+) INCLUDE (sender_id);
+
+-- Rebuilding unread counters finds direct conversations a user has sent to,
+-- and deleting a user cascades to their messages
+CREATE INDEX idx_messages_sender_id ON messages (sender_id);
+
+-- Recreate trigger for updated_at
+CREATE TRIGGER update_messages_updated_at
+BEFORE UPDATE ON messages
+FOR EACH ROW
+EXECUTE FUNCTION UPDATE_UPDATED_AT_COLUMN();
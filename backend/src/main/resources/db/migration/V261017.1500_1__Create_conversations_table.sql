@@ -0,0 +1,42 @@
+-- Create conversations table: a compact numeric id for every conversation key
+-- (d_<smaller user id>_<larger user id> or g_<group id>), so message rows and
+-- their indexes carry a BIGINT instead of a variable-length string
+CREATE TABLE conversations (
+    id BIGSERIAL PRIMARY KEY,
+    conversation_key VARCHAR(100) NOT NULL,
+    created_at TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uc_conversations_conversation_key UNIQUE (conversation_key)
+);
+
+-- Register every conversation that already has messages
+INSERT INTO conversations (conversation_key)
+SELECT DISTINCT conversation_id FROM messages
+ORDER BY conversation_id;
+
+-- Replace the string key on messages with the numeric id
+ALTER TABLE messages ADD COLUMN conversation_ref BIGINT;
+
+UPDATE messages AS m SET conversation_ref = c.id
+FROM conversations AS c
+WHERE m.conversation_id = c.conversation_key;
+
+-- Dropping the string column also drops the two indexes that lead with it
+ALTER TABLE messages DROP COLUMN conversation_id;
+
+ALTER TABLE messages RENAME COLUMN conversation_ref TO conversation_id;
+
+ALTER TABLE messages ALTER COLUMN conversation_id SET NOT NULL;
+
+ALTER TABLE messages ADD CONSTRAINT fk_messages_conversation_id FOREIGN KEY (
+    conversation_id
+) REFERENCES conversations (id);
+
+-- History paging seeks on (conversation_id, created_at, id)
+CREATE INDEX idx_messages_conversation_created_at_id ON messages (
+    conversation_id, created_at, id
+);
+
+-- Unread counting and read receipts look messages up by (conversation_id, id)
+CREATE INDEX idx_messages_conversation_id_id ON messages (
+    conversation_id, id
+) INCLUDE (sender_id);
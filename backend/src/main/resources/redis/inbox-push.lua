@@ -0,0 +1,33 @@
+-- 写入会话的最新消息摘要，并把会话移到每个接收者收件箱的最前面
+-- KEYS: 每个会话依次为摘要 Hash 和其接收者的收件箱有序集合
+-- ARGV[1]: 收件箱保留的会话数；ARGV[2]: 过期时间（毫秒）
+-- 之后每个会话 5 个参数：会话 ID、最新消息 ID、摘要 JSON、排序分数、接收者数量
+-- 摘要和排序都只前进不后退；只更新已存在的收件箱，缺失的收件箱在下次读取时从数据库完整重建
+local function newer(id, current)
+  return not current or #id > #current or (#id == #current and id > current)
+end
+
+local maximum = tonumber(ARGV[1])
+local ttl = ARGV[2]
+local k = 1
+for a = 3, #ARGV, 5 do
+  local conversation, id, summary = ARGV[a], ARGV[a + 1], ARGV[a + 2]
+  local score = tonumber(ARGV[a + 3])
+  local recipients = tonumber(ARGV[a + 4])
+  if newer(id, redis.call('HGET', KEYS[k], 'id')) then
+    redis.call('HSET', KEYS[k], 'id', id, 'summary', summary)
+  end
+  redis.call('PEXPIRE', KEYS[k], ttl)
+  for i = k + 1, k + recipients do
+    if redis.call('EXISTS', KEYS[i]) == 1 then
+      local current = redis.call('ZSCORE', KEYS[i], conversation)
+      if not current or tonumber(current) < score then
+        redis.call('ZADD', KEYS[i], score, conversation)
+        redis.call('ZREMRANGEBYRANK', KEYS[i], 0, -(maximum + 1))
+      end
+      redis.call('PEXPIRE', KEYS[i], ttl)
+    end
+  end
+  k = k + recipients + 1
+end
+return k - 1
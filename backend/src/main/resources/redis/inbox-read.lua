@@ -0,0 +1,13 @@
+-- 读取收件箱首页：按最新消息倒序的会话及其未读数，摘要由调用方按返回的会话 ID 声明键后再批量读取
+-- KEYS[1]: 收件箱有序集合；KEYS[2]: 未读计数 Hash
+-- ARGV[1]: 读取的会话数；ARGV[2]: 未读计数已完整重建的标记字段
+-- 收件箱不存在时返回空列表；否则第一个元素表示未读计数是否完整，之后每个会话依次为会话 ID、未读数
+if redis.call('EXISTS', KEYS[1]) == 0 then
+  return {}
+end
+local result = { redis.call('HEXISTS', KEYS[2], ARGV[2]) }
+for _, conversation in ipairs(redis.call('ZREVRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1)) do
+  result[#result + 1] = conversation
+  result[#result + 1] = redis.call('HGET', KEYS[2], conversation)
+end
+return result
@@ -0,0 +1,30 @@
+-- 登录尝试滑动窗口，每个窗口是一个以尝试时间（毫秒）为分数的有序集合
+-- KEYS: 需要同时检查的窗口（用户名、IP）
+-- ARGV[1]: 窗口长度（毫秒）；ARGV[2..]: 与 KEYS 一一对应的尝试次数上限；ARGV[#KEYS + 2]: 本次尝试的唯一标识
+-- 所有窗口都未满时在每个窗口中记录本次尝试；任一窗口已满时不记录
+-- 返回与 KEYS 一一对应的等待毫秒数，0 表示该窗口未满
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local window = tonumber(ARGV[1])
+local member = ARGV[#KEYS + 2]
+local waits = {}
+local allowed = true
+for i, key in ipairs(KEYS) do
+  local limit = tonumber(ARGV[i + 1])
+  redis.call('ZREMRANGEBYSCORE', key, '-inf', now - window)
+  local count = redis.call('ZCARD', key)
+  waits[i] = 0
+  if count >= limit then
+    -- 窗口内最早的 count - limit + 1 次尝试过期后才有空位
+    local entry = redis.call('ZRANGE', key, count - limit, count - limit, 'WITHSCORES')
+    waits[i] = math.max(1, tonumber(entry[2]) + window - now)
+    allowed = false
+  end
+end
+if allowed then
+  for _, key in ipairs(KEYS) do
+    redis.call('ZADD', key, now, member)
+    redis.call('PEXPIRE', key, window)
+  end
+end
+return waits
@@ -0,0 +1,14 @@
+-- 登记用户的新会话并淘汰超出数量的旧会话
+-- KEYS[1]: 用户的会话有序集合，分数为登录时间（毫秒）
+-- ARGV[1]: 新会话 ID；ARGV[2]: 每个用户的最大会话数；ARGV[3]: 集合的过期时间（毫秒）
+-- 返回被淘汰的会话 ID，由调用方删除会话本身
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local maximum = tonumber(ARGV[2])
+redis.call('ZADD', KEYS[1], now, ARGV[1])
+local evicted = redis.call('ZRANGE', KEYS[1], 0, -(maximum + 1))
+if #evicted > 0 then
+  redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(maximum + 1))
+end
+redis.call('PEXPIRE', KEYS[1], ARGV[3])
+return evicted
@@ -0,0 +1,16 @@
+-- 消息被接收时为每个接收者的会话未读数加一，并在标记字段中记录计入的最大消息 ID
+-- KEYS: 每个接收者的未读计数 Hash
+-- ARGV[1]: 会话 ID；ARGV[2]: 标记字段；ARGV[3]: 消息 ID；ARGV[4]: 过期时间（秒）
+-- 消息 ID 超出 Lua 数字的精度，按字符串长度和字典序比较
+local function newer(id, current)
+  return not current or #id > #current or (#id == #current and id > current)
+end
+
+for _, key in ipairs(KEYS) do
+  redis.call('HINCRBY', key, ARGV[1], 1)
+  if newer(ARGV[3], redis.call('HGET', key, ARGV[2])) then
+    redis.call('HSET', key, ARGV[2], ARGV[3])
+  end
+  redis.call('EXPIRE', key, ARGV[4])
+end
+return #KEYS
@@ -0,0 +1,64 @@
+-- 用数据库重新计算的全部未读数整体替换用户的未读计数 Hash，保留数据库还看不到的增量
+-- KEYS[1]: 用户的未读计数 Hash
+-- ARGV[1]: 完整重建标记字段；ARGV[2]: 会话标记字段前缀；ARGV[3]: 过期时间（秒）
+-- ARGV[4..]: 每个会话依次为会话 ID、计算时会话中已落库的最大消息 ID、未读数
+-- 标记中的消息 ID 大于已落库的最大 ID 时，计数里包含写入缓冲区中的消息，保留原计数和标记
+-- 数据库统计不到的会话（只收到过消息的私聊）只有增量计数，有标记时原样保留
+-- 返回数组：第一个元素为因消息尚未落库而保留原计数的会话数，之后依次为会话 ID 和重建后的未读数（只含大于 0 的计数）
+local function newer(id, current)
+  return not current or #id > #current or (#id == #current and id > current)
+end
+
+local key, rebuilt, prefix = KEYS[1], ARGV[1], ARGV[2]
+
+local existing, counted = {}, {}
+local entries = redis.call('HGETALL', key)
+for i = 1, #entries, 2 do
+  local field, value = entries[i], entries[i + 1]
+  if string.sub(field, 1, #prefix) == prefix then
+    counted[string.sub(field, #prefix + 1)] = value
+  else
+    existing[field] = value
+  end
+end
+
+local fields, result, kept, seen = {}, {0}, 0, {}
+local function put(conversation, count, marker)
+  if marker then
+    fields[#fields + 1] = prefix .. conversation
+    fields[#fields + 1] = marker
+  end
+  if count and count ~= '0' then
+    fields[#fields + 1] = conversation
+    fields[#fields + 1] = count
+    result[#result + 1] = conversation
+    result[#result + 1] = count
+  end
+end
+
+for i = 4, #ARGV, 3 do
+  local conversation, persisted, count = ARGV[i], ARGV[i + 1], ARGV[i + 2]
+  seen[conversation] = true
+  local marker = counted[conversation]
+  if marker and newer(marker, persisted) then
+    kept = kept + 1
+    put(conversation, existing[conversation], marker)
+  else
+    put(conversation, count, marker)
+  end
+end
+for conversation, marker in pairs(counted) do
+  if not seen[conversation] then
+    put(conversation, existing[conversation], marker)
+  end
+end
+
+redis.call('DEL', key)
+redis.call('HSET', key, rebuilt, '1')
+-- unpack 的参数个数受 Lua 栈大小限制，分批写入
+for i = 1, #fields, 1000 do
+  redis.call('HSET', key, unpack(fields, i, math.min(i + 999, #fields)))
+end
+redis.call('EXPIRE', key, ARGV[3])
+result[1] = kept
+return result
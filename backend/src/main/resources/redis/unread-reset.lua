@@ -0,0 +1,23 @@
+-- 用数据库重新计算的未读数覆盖缓存中的计数（比较并设置）
+-- KEYS: 每个水位对应用户的未读计数 Hash
+-- ARGV: 每个水位依次为会话 ID、标记字段、计算时会话中已落库的最大消息 ID、未读数
+-- 标记中的消息 ID 大于已落库的最大 ID 时，计数里包含数据库还看不到的消息，覆盖会丢掉这些增量，此时保留原计数
+-- 返回未覆盖的水位序号（从 1 开始）
+local function newer(id, current)
+  return not current or #id > #current or (#id == #current and id > current)
+end
+
+local skipped = {}
+for i, key in ipairs(KEYS) do
+  local a = (i - 1) * 4
+  local conversation, marker, persisted, count = ARGV[a + 1], ARGV[a + 2], ARGV[a + 3], ARGV[a + 4]
+  local counted = redis.call('HGET', key, marker)
+  if counted and newer(counted, persisted) then
+    skipped[#skipped + 1] = i
+  elseif count == '0' then
+    redis.call('HDEL', key, conversation, marker)
+  else
+    redis.call('HSET', key, conversation, count)
+  end
+end
+return skipped
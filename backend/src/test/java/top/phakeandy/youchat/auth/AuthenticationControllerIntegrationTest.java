@@ -1,9 +1,13 @@
 package top.phakeandy.youchat.auth;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -13,25 +17,26 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebM
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
 import top.phakeandy.youchat.mapper.UsersMapper;
 import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.test.AsyncMockMvc;
 import top.phakeandy.youchat.test.TestDataFaker;
 
 @SpringBootTest
 @AutoConfigureWebMvc
 @ActiveProfiles("integration-test")
 @Testcontainers
-@Transactional
 class AuthenticationControllerIntegrationTest {
 
   @Container @ServiceConnection
@@ -63,8 +68,8 @@ class AuthenticationControllerIntegrationTest {
   @Test
   void shouldLoginSuccessfully_whenValidCredentialsProvided() throws Exception {
 
-    mockMvc
-        .perform(
+    AsyncMockMvc.perform(
+            mockMvc,
             post("/api/v1/auth/login")
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
@@ -82,9 +87,59 @@ class AuthenticationControllerIntegrationTest {
   }
 
   @Test
-  void shouldReturn400_whenLoginRequestIsInvalid() throws Exception {
+  void shouldReleaseRequestThread_whenLoginStarts() throws Exception {
+    // 密码校验在哈希线程池上进行，请求线程只启动异步处理
     mockMvc
         .perform(
+            post("/api/v1/auth/login")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    """
+                    {
+                      "username": "%s",
+                      "password": "password123"
+                    }
+                    """
+                        .formatted(testUser.getUsername())))
+        .andExpect(request().asyncStarted());
+  }
+
+  @Test
+  void shouldUpgradeLegacyPasswordHash_whenLoginSucceeds() throws Exception {
+    // 早期注册的用户以不带前缀的 BCrypt 哈希存储
+    Users legacyUser = TestDataFaker.createRandomUser(new BCryptPasswordEncoder(4));
+    usersMapper.insertSelective(legacyUser);
+
+    AsyncMockMvc.perform(
+            mockMvc,
+            post("/api/v1/auth/login")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    """
+                    {
+                      "username": "%s",
+                      "password": "password123"
+                    }
+                    """
+                        .formatted(legacyUser.getUsername())))
+        .andExpect(status().isOk());
+
+    String upgraded =
+        usersMapper
+            .selectOne(
+                c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(legacyUser.getUsername())))
+            .orElseThrow()
+            .getPassword();
+    assertThat(upgraded).startsWith("{bcrypt}$2a$10$");
+    assertThat(passwordEncoder.matches("password123", upgraded)).isTrue();
+  }
+
+  @Test
+  void shouldReturn400_whenLoginRequestIsInvalid() throws Exception {
+    AsyncMockMvc.perform(
+            mockMvc,
             post("/api/v1/auth/login")
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
@@ -105,8 +160,8 @@ class AuthenticationControllerIntegrationTest {
     TestDataFaker.UserWithRawPassword newUserWithPassword =
         TestDataFaker.createRandomUserWithRawPassword(passwordEncoder);
 
-    mockMvc
-        .perform(
+    AsyncMockMvc.perform(
+            mockMvc,
             post("/api/v1/auth/register")
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
@@ -133,8 +188,8 @@ class AuthenticationControllerIntegrationTest {
 
   @Test
   void shouldReturn400_whenRegisterRequestIsInvalid() throws Exception {
-    mockMvc
-        .perform(
+    AsyncMockMvc.perform(
+            mockMvc,
             post("/api/v1/auth/register")
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
@@ -152,14 +207,38 @@ class AuthenticationControllerIntegrationTest {
         .andExpect(jsonPath("$.detail").exists());
   }
 
+  @Test
+  void shouldReturnAllPasswordViolations_whenRegisterPasswordIsWeak() throws Exception {
+    AsyncMockMvc.perform(
+            mockMvc,
+            post("/api/v1/auth/register")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    """
+                    {
+                      "username": "weakpassworduser",
+                      "password": "weakpass",
+                      "nickname": "弱密码用户",
+                      "confirmPassword": "weakpass"
+                    }
+                    """))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.title").value("密码格式错误"))
+        .andExpect(
+            jsonPath("$.violations[*].code")
+                .value(
+                    containsInAnyOrder("missing_uppercase", "missing_digit", "missing_special")));
+  }
+
   @Test
   void shouldReturn409_whenUsernameAlreadyExists() throws Exception {
     // First create a user
     TestDataFaker.UserWithRawPassword firstUserWithPassword =
         TestDataFaker.createRandomUserWithRawPassword(passwordEncoder);
 
-    mockMvc
-        .perform(
+    AsyncMockMvc.perform(
+            mockMvc,
             post("/api/v1/auth/register")
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
@@ -183,8 +262,8 @@ class AuthenticationControllerIntegrationTest {
     TestDataFaker.UserWithRawPassword secondUserWithPassword =
         TestDataFaker.createRandomUserWithRawPassword(passwordEncoder);
 
-    mockMvc
-        .perform(
+    AsyncMockMvc.perform(
+            mockMvc,
             post("/api/v1/auth/register")
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
@@ -0,0 +1,176 @@
+package top.phakeandy.youchat.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.test.AsyncMockMvc;
+import top.phakeandy.youchat.test.TestDataFaker;
+
+/** 每个测试使用随机 IP，互不影响彼此的 IP 计数 */
+@SpringBootTest(
+    properties = {
+      "youchat.auth.login-limit.window.max-attempts-per-username=3",
+      "youchat.auth.login-limit.window.max-attempts-per-ip=100",
+      "youchat.auth.login-limit.bucket.capacity=6",
+      "youchat.auth.login-limit.bucket.refill-interval=1h"
+    })
+@ActiveProfiles("integration-test")
+@Testcontainers
+class LoginRateLimitIntegrationTest {
+
+  @Container @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:latest");
+
+  @Container
+  @ServiceConnection
+  @SuppressWarnings("resource")
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:latest").withExposedPorts(6379);
+
+  @Autowired private WebApplicationContext context;
+  @Autowired private UsersMapper usersMapper;
+  @Autowired private PasswordEncoder passwordEncoder;
+  @Autowired private MeterRegistry meterRegistry;
+  @Autowired private StringRedisTemplate redisTemplate;
+
+  private MockMvc mockMvc;
+  private Users user;
+  private String clientIp;
+
+  @BeforeEach
+  void setup() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+    user = TestDataFaker.createRandomUser(passwordEncoder);
+    usersMapper.insertSelective(user);
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    clientIp = "10." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256);
+  }
+
+  @Test
+  void shouldReturn429_whenUsernameExceedsWindow() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      login(user.getUsername(), "wrong-password").andExpect(status().isUnauthorized());
+    }
+
+    login(user.getUsername(), "password123")
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+        .andExpect(jsonPath("$.status").value(429))
+        .andExpect(jsonPath("$.title").value("请求过于频繁"));
+  }
+
+  @Test
+  void shouldCountUsernameIgnoringCase() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      login(user.getUsername(), "wrong-password").andExpect(status().isUnauthorized());
+    }
+
+    login(user.getUsername().toUpperCase(), "wrong-password")
+        .andExpect(status().isTooManyRequests());
+  }
+
+  @Test
+  void shouldRejectLocally_afterRedisRejectedUsername() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      login(user.getUsername(), "wrong-password").andExpect(status().isUnauthorized());
+    }
+    login(user.getUsername(), "wrong-password").andExpect(status().isTooManyRequests());
+    double blocked = attempts("rejected", "block");
+
+    login(user.getUsername(), "wrong-password").andExpect(status().isTooManyRequests());
+
+    assertThat(attempts("rejected", "block") - blocked).isEqualTo(1);
+  }
+
+  @Test
+  void shouldResetUsernameWindow_whenLoginSucceeds() throws Exception {
+    for (int i = 0; i < 2; i++) {
+      login(user.getUsername(), "wrong-password").andExpect(status().isUnauthorized());
+    }
+    login(user.getUsername(), "password123").andExpect(status().isOk());
+
+    for (int i = 0; i < 3; i++) {
+      login(user.getUsername(), "wrong-password").andExpect(status().isUnauthorized());
+    }
+  }
+
+  @Test
+  void shouldNotCountSuccessfulLoginsAgainstIp() throws Exception {
+    // 同一出口 IP 后的正常用户登录次数超过令牌桶容量也不会被限流
+    for (int i = 0; i < 8; i++) {
+      login(user.getUsername(), "password123").andExpect(status().isOk());
+    }
+
+    assertThat(redisTemplate.opsForZSet().zCard("youchat:login-limit:ip:" + clientIp)).isZero();
+  }
+
+  @Test
+  void shouldReturn429FromTokenBucket_whenIpBurstsAcrossUsernames() throws Exception {
+    double bucketRejections = attempts("rejected", "bucket");
+    for (int i = 0; i < 6; i++) {
+      login("missing_user_" + i + "_" + clientIp.replace('.', '_'), "wrong-password")
+          .andExpect(status().is4xxClientError());
+    }
+
+    login(user.getUsername(), "password123").andExpect(status().isTooManyRequests());
+
+    assertThat(attempts("rejected", "bucket") - bucketRejections).isEqualTo(1);
+  }
+
+  private ResultActions login(String username, String password) throws Exception {
+    return AsyncMockMvc.perform(
+        mockMvc,
+        post("/api/v1/auth/login")
+            .with(csrf())
+            .with(
+                request -> {
+                  request.setRemoteAddr(clientIp);
+                  return request;
+                })
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(
+                """
+                {
+                  "username": "%s",
+                  "password": "%s"
+                }
+                """
+                    .formatted(username, password)));
+  }
+
+  private double attempts(String decision, String stage) {
+    return meterRegistry
+        .get("youchat.login.attempts")
+        .tags("decision", decision, "stage", stage)
+        .counter()
+        .count();
+  }
+}
@@ -0,0 +1,193 @@
+package top.phakeandy.youchat.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.test.TestDataFaker;
+
+/** 经过完整的过滤器链，会话由 Spring Session 存储在 Redis 中 */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("integration-test")
+@Testcontainers
+class SessionManagementIntegrationTest {
+
+  private static final String RAW_PASSWORD = "password123";
+  private static final String SESSION_KEY_PREFIX = "spring:session:sessions:";
+
+  @Container @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:latest");
+
+  @Container
+  @ServiceConnection
+  @SuppressWarnings("resource")
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:latest").withExposedPorts(6379);
+
+  @Autowired private TestRestTemplate restTemplate;
+  @Autowired private UsersMapper usersMapper;
+  @Autowired private PasswordEncoder passwordEncoder;
+  @Autowired private StringRedisTemplate redisTemplate;
+  @Autowired private SessionManagementProperties properties;
+  @Autowired private MeterRegistry meterRegistry;
+
+  private Users user;
+
+  @BeforeEach
+  void setup() {
+    user = TestDataFaker.createRandomUser(passwordEncoder);
+    usersMapper.insertSelective(user);
+  }
+
+  @Test
+  void shouldNotWriteSession_whenRequestDoesNotChangeIt() throws Exception {
+    long requests = requests();
+    String cookie = login();
+    String sessionKey = SESSION_KEY_PREFIX + sessionId(cookie);
+    assertThat(currentUser(cookie).getStatusCode()).isEqualTo(HttpStatus.OK);
+    awaitRequests(requests + 2);
+    Object lastAccessed = redisTemplate.opsForHash().get(sessionKey, "lastAccessedTime");
+    double reads = operations("read");
+    double writes = operations("write");
+
+    assertThat(currentUser(cookie).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+    awaitRequests(requests + 3);
+    assertThat(redisTemplate.opsForHash().get(sessionKey, "lastAccessedTime"))
+        .isEqualTo(lastAccessed);
+    assertThat(operations("read") - reads).isEqualTo(1);
+    assertThat(operations("write") - writes).isZero();
+  }
+
+  @Test
+  void shouldExpireOldestSession_whenMaximumSessionsExceeded() {
+    String first = login();
+    String second = login();
+
+    assertThat(currentUser(first).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    assertThat(currentUser(second).getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(redisTemplate.opsForZSet().range(registryKey(), 0, -1))
+        .containsExactly(sessionId(second));
+  }
+
+  @Test
+  void shouldReuseRequestedSession_whenLoginExpiresAnotherSession() throws Exception {
+    Users other = TestDataFaker.createRandomUser(passwordEncoder);
+    usersMapper.insertSelective(other);
+    String expired = login();
+    String current = login(other);
+    long requests = requests();
+    double reads = operations("read");
+
+    // 带着另一个用户的会话登录：淘汰的是 user 的旧会话，本请求的会话仍只从 Redis 读一次
+    ResponseEntity<String> relogin =
+        restTemplate.postForEntity(
+            "/api/v1/auth/login",
+            new HttpEntity<>(
+                Map.of("username", user.getUsername(), "password", RAW_PASSWORD), headers(current)),
+            String.class);
+
+    assertThat(relogin.getStatusCode().is2xxSuccessful()).isTrue();
+    awaitRequests(requests + 1);
+    assertThat(operations("read") - reads).isEqualTo(1);
+    assertThat(currentUser(expired).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+  }
+
+  @Test
+  void shouldUnregisterSession_whenUserLogsOut() {
+    String cookie = login();
+    assertThat(redisTemplate.opsForZSet().size(registryKey())).isEqualTo(1);
+
+    restTemplate.exchange(
+        "/api/v1/auth/logout", HttpMethod.POST, new HttpEntity<>(headers(cookie)), String.class);
+
+    assertThat(redisTemplate.opsForZSet().size(registryKey())).isZero();
+    assertThat(currentUser(cookie).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+  }
+
+  private String login() {
+    return login(user);
+  }
+
+  private String login(Users account) {
+    ResponseEntity<String> login =
+        restTemplate.postForEntity(
+            "/api/v1/auth/login",
+            Map.of("username", account.getUsername(), "password", RAW_PASSWORD),
+            String.class);
+    assertThat(login.getStatusCode().is2xxSuccessful()).isTrue();
+    List<String> cookies = login.getHeaders().get(HttpHeaders.SET_COOKIE);
+    assertThat(cookies).isNotEmpty();
+    return cookies.getFirst().split(";", 2)[0];
+  }
+
+  private ResponseEntity<String> currentUser(String cookie) {
+    return restTemplate.exchange(
+        "/api/v1/users/current", HttpMethod.GET, new HttpEntity<>(headers(cookie)), String.class);
+  }
+
+  private static HttpHeaders headers(String cookie) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.add(HttpHeaders.COOKIE, cookie);
+    return headers;
+  }
+
+  /** Spring Session 的 Cookie 值是 Base64 编码的会话 ID */
+  private static String sessionId(String cookie) {
+    return new String(Base64.getDecoder().decode(cookie.split("=", 2)[1]), StandardCharsets.UTF_8);
+  }
+
+  private String registryKey() {
+    return properties.registryKeyPrefix() + user.getId();
+  }
+
+  private double operations(String operation) {
+    return meterRegistry
+        .get("youchat.session.redis.operations")
+        .tag("operation", operation)
+        .summary()
+        .totalAmount();
+  }
+
+  private long requests() {
+    return meterRegistry
+        .get("youchat.session.redis.operations")
+        .tag("operation", "read")
+        .summary()
+        .count();
+  }
+
+  /** 指标在响应写出之后才记录 */
+  private void awaitRequests(long expected) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (requests() < expected && System.nanoTime() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(20);
+    }
+    assertThat(requests()).isEqualTo(expected);
+  }
+}
@@ -0,0 +1,162 @@
+package top.phakeandy.youchat.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.test.AsyncMockMvc;
+import top.phakeandy.youchat.test.TestDataFaker;
+
+@SpringBootTest
+@ActiveProfiles("integration-test")
+@Testcontainers
+class SessionSerializationIntegrationTest {
+
+  private static final String CONTEXT_ATTRIBUTE =
+      HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY;
+
+  @Container @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:latest");
+
+  @Container
+  @ServiceConnection
+  @SuppressWarnings("resource")
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:latest").withExposedPorts(6379);
+
+  @Autowired private WebApplicationContext context;
+  @Autowired private UsersMapper usersMapper;
+  @Autowired private PasswordEncoder passwordEncoder;
+  @Autowired private SessionRepository<? extends Session> sessionRepository;
+  @Autowired private StringRedisTemplate redisTemplate;
+  @Autowired private RedisConnectionFactory connectionFactory;
+
+  private Users user;
+
+  @BeforeEach
+  void setup() {
+    user = TestDataFaker.createRandomUser(passwordEncoder);
+    usersMapper.insertSelective(user);
+  }
+
+  @Test
+  void shouldStoreSlimPrincipal_whenLoginSucceeds() throws Exception {
+    MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+
+    MvcResult result =
+        AsyncMockMvc.perform(
+                mockMvc,
+                post("/api/v1/auth/login")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(
+                        """
+                        {
+                          "username": "%s",
+                          "password": "password123"
+                        }
+                        """
+                            .formatted(user.getUsername())))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    SecurityContext securityContext =
+        (SecurityContext) result.getRequest().getSession().getAttribute(CONTEXT_ATTRIBUTE);
+    assertThat(securityContext.getAuthentication().getPrincipal())
+        .isEqualTo(new UserPrincipal(user.getId(), user.getUsername()));
+    assertThat(securityContext.getAuthentication().getCredentials()).isNull();
+  }
+
+  @Test
+  void shouldWriteSecurityContextAsJson() {
+    String sessionId =
+        saveSession(sessionRepository, securityContext(new UserPrincipal(1L, "alice")));
+
+    String stored =
+        (String)
+            redisTemplate
+                .opsForHash()
+                .get("spring:session:sessions:" + sessionId, "sessionAttr:" + CONTEXT_ATTRIBUTE);
+    assertThat(stored).startsWith("{").contains(UserPrincipal.class.getName()).contains("alice");
+
+    SecurityContext restored =
+        sessionRepository.findById(sessionId).getAttribute(CONTEXT_ATTRIBUTE);
+    assertThat(restored.getAuthentication().getPrincipal())
+        .isEqualTo(new UserPrincipal(1L, "alice"));
+    assertThat(restored.getAuthentication().getAuthorities())
+        .extracting("authority")
+        .containsExactly("ROLE_USER");
+  }
+
+  @Test
+  void shouldSlimLegacyJdkSession_whenRead() {
+    String sessionId = saveSession(sessionRepository, null);
+
+    // 升级前写入的会话：JDK 序列化的完整用户信息，包含密码哈希
+    CustomUserDetails legacy = CustomUserDetails.fromUsers(user);
+    byte[] value = new JdkSerializationRedisSerializer().serialize(securityContext(legacy));
+    try (RedisConnection connection = connectionFactory.getConnection()) {
+      connection
+          .hashCommands()
+          .hSet(
+              bytes("spring:session:sessions:" + sessionId),
+              bytes("sessionAttr:" + CONTEXT_ATTRIBUTE),
+              value);
+    }
+
+    SecurityContext restored =
+        sessionRepository.findById(sessionId).getAttribute(CONTEXT_ATTRIBUTE);
+    assertThat(restored.getAuthentication().getPrincipal())
+        .isEqualTo(new UserPrincipal(user.getId(), user.getUsername()));
+  }
+
+  private static <S extends Session> String saveSession(
+      SessionRepository<S> repository, SecurityContext securityContext) {
+    S session = repository.createSession();
+    session.setAttribute(CONTEXT_ATTRIBUTE, securityContext);
+    repository.save(session);
+    return session.getId();
+  }
+
+  private static SecurityContext securityContext(Object principal) {
+    return new SecurityContextImpl(
+        UsernamePasswordAuthenticationToken.authenticated(
+            principal, null, new UserPrincipal(0L, "authorities").getAuthorities()));
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,193 @@
+package top.phakeandy.youchat.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.cache.CacheProperties;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.test.TestDataFaker;
+
+/** 绕过服务直接修改数据库，通过读到的是否为旧值判断请求是否命中缓存 */
+@SpringBootTest
+@ActiveProfiles("integration-test")
+@Testcontainers
+class UserCacheIntegrationTest {
+
+  private static final String NEW_PASSWORD = "NewPassword1!";
+
+  @Container @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:latest");
+
+  @Container
+  @ServiceConnection
+  @SuppressWarnings("resource")
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:latest").withExposedPorts(6379);
+
+  @Autowired private CustomUserDetailsService userDetailsService;
+  @Autowired private UserCache userCache;
+  @Autowired private UsersMapper usersMapper;
+  @Autowired private PasswordEncoder passwordEncoder;
+  @Autowired private StringRedisTemplate redisTemplate;
+  @Autowired private ObjectMapper objectMapper;
+  @Autowired private CacheProperties cacheProperties;
+  @Autowired private MeterRegistry meterRegistry;
+
+  private Users user;
+
+  @BeforeEach
+  void setup() {
+    user = insertRandomUser();
+  }
+
+  @Test
+  void shouldServeRepeatedLookupsFromCache() {
+    double localHits = gets("local", "hit");
+    assertThat(userDetailsService.findById(user.getId())).isPresent();
+
+    renameInDatabase(user.getId(), "直接修改");
+
+    assertThat(userDetailsService.findById(user.getId()).orElseThrow().getNickname())
+        .isEqualTo(user.getNickname());
+    assertThat(userDetailsService.findByUsername(user.getUsername()).orElseThrow().getNickname())
+        .isEqualTo(user.getNickname());
+    assertThat(userDetailsService.existsByUsername(user.getUsername())).isTrue();
+    assertThat(gets("local", "hit") - localHits).isEqualTo(3);
+  }
+
+  @Test
+  void shouldFallBackToRedisWhenLocalEntryIsMissing() {
+    userDetailsService.findById(user.getId());
+    assertThat(redisTemplate.hasKey(userKey(user.getId()))).isTrue();
+
+    // 其他节点清理本地缓存后，本节点只剩 Redis 中的副本
+    renameInDatabase(user.getId(), "直接修改");
+    evictLocally(user.getId(), user.getUsername());
+    double redisHits = gets("redis", "hit");
+
+    assertThat(userDetailsService.findByUsername(user.getUsername()).orElseThrow().getNickname())
+        .isEqualTo(user.getNickname());
+    assertThat(gets("redis", "hit") - redisHits).isEqualTo(1);
+  }
+
+  @Test
+  void shouldKeepPasswordHashOutOfCache() {
+    userDetailsService.findById(user.getId());
+
+    assertThat(redisTemplate.opsForValue().get(userKey(user.getId())))
+        .doesNotContain(user.getPassword());
+    assertThat(userDetailsService.findById(user.getId()).orElseThrow().getPassword()).isNull();
+    // 认证仍能拿到数据库中的哈希
+    assertThat(userDetailsService.loadUserByUsername(user.getUsername()).getPassword())
+        .isEqualTo(user.getPassword());
+  }
+
+  @Test
+  void shouldEvictOnUpdateUser() {
+    CustomUserDetails details = userDetailsService.findById(user.getId()).orElseThrow();
+    String newUsername = user.getUsername() + "x";
+    details.setUsername(newUsername);
+    details.setNickname("新昵称");
+
+    userDetailsService.updateUser(details);
+
+    assertThat(userDetailsService.findById(user.getId()).orElseThrow().getNickname())
+        .isEqualTo("新昵称");
+    assertThat(userDetailsService.findByUsername(newUsername)).isPresent();
+    assertThat(userDetailsService.findByUsername(user.getUsername())).isEmpty();
+  }
+
+  @Test
+  void shouldEvictOnChangePassword() {
+    userDetailsService.loadUserByUsername(user.getUsername());
+
+    userDetailsService.changePassword(user.getId(), "password123", NEW_PASSWORD);
+
+    String password = userDetailsService.loadUserByUsername(user.getUsername()).getPassword();
+    assertThat(passwordEncoder.matches(NEW_PASSWORD, password)).isTrue();
+  }
+
+  @Test
+  void shouldEvictWhenAnotherNodeBroadcastsInvalidation() throws Exception {
+    userDetailsService.findById(user.getId());
+    renameInDatabase(user.getId(), "其他节点修改");
+    redisTemplate.delete(userKey(user.getId()));
+
+    Map<String, Object> invalidation =
+        Map.of(
+            "cache",
+            UserCache.CACHE_NAME,
+            "keys",
+            List.of("id:" + user.getId()),
+            "origin",
+            "another-node");
+    redisTemplate.convertAndSend(
+        cacheProperties.invalidationChannel(), objectMapper.writeValueAsString(invalidation));
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    String nickname = userDetailsService.findById(user.getId()).orElseThrow().getNickname();
+    while (!"其他节点修改".equals(nickname) && System.nanoTime() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(50);
+      nickname = userDetailsService.findById(user.getId()).orElseThrow().getNickname();
+    }
+    assertThat(nickname).isEqualTo("其他节点修改");
+  }
+
+  /** 模拟收到其他节点的失效广播：只清理本地缓存，保留 Redis */
+  private void evictLocally(long id, String username) {
+    String key = userKey(id);
+    String cached = redisTemplate.opsForValue().get(key);
+    userCache.evict(id, username);
+    redisTemplate.opsForValue().set(key, cached);
+    redisTemplate
+        .opsForValue()
+        .set(cacheProperties.users().keyPrefix() + "name:" + username, Long.toString(id));
+  }
+
+  private void renameInDatabase(long id, String nickname) {
+    Users update = new Users();
+    update.setId(id);
+    update.setNickname(nickname);
+    usersMapper.updateByPrimaryKeySelective(update);
+  }
+
+  private String userKey(long id) {
+    return cacheProperties.users().keyPrefix() + "id:" + id;
+  }
+
+  private double gets(String tier, String result) {
+    return meterRegistry
+        .get("youchat.cache.gets")
+        .tags("cache", UserCache.CACHE_NAME, "tier", tier, "result", result)
+        .counter()
+        .count();
+  }
+
+  private Users insertRandomUser() {
+    Users created = TestDataFaker.createRandomUser(passwordEncoder);
+    usersMapper.insertSelective(created);
+    return usersMapper
+        .selectOne(c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(created.getUsername())))
+        .orElseThrow();
+  }
+}
@@ -1,6 +1,7 @@
 package top.phakeandy.youchat.chat;
 
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
@@ -10,7 +11,10 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.Locale;
 import net.datafaker.Faker;
 import org.junit.jupiter.api.BeforeEach;
@@ -33,7 +37,9 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import top.phakeandy.youchat.chat.request.CreateChatRequest;
 import top.phakeandy.youchat.chat.request.UpdateChatRequest;
+import top.phakeandy.youchat.common.RawJson;
 import top.phakeandy.youchat.mapper.ChatGroupsMapper;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
 import top.phakeandy.youchat.mapper.UsersMapper;
 import top.phakeandy.youchat.model.ChatGroups;
 import top.phakeandy.youchat.model.Users;
@@ -113,7 +119,10 @@ class ChatControllerIntegrationTest {
         .andExpect(jsonPath("$.name").value("测试群聊"))
         .andExpect(jsonPath("$.description").value("这是一个测试群聊"))
         .andExpect(jsonPath("$.ownerId").value(testUser.getId()))
-        .andExpect(jsonPath("$.id").exists());
+        .andExpect(jsonPath("$.id").exists())
+        .andExpect(jsonPath("$.createdAt").exists())
+        .andExpect(jsonPath("$.settings").isMap())
+        .andExpect(jsonPath("$.announcement").isMap());
   }
 
   @Test
@@ -172,6 +181,27 @@ class ChatControllerIntegrationTest {
         .andExpect(jsonPath("$.id").value(chatGroup.getId()));
   }
 
+  @Test
+  @WithMockUser(
+      username = "testuser",
+      roles = {"USER"})
+  void getChat_ShouldReturnJsonbColumnsAsJsonObjects_WhenUserIsAuthenticated() throws Exception {
+    ChatGroups chatGroup = new ChatGroups();
+    chatGroup.setName("JSONB测试群聊");
+    chatGroup.setOwnerId(testUser.getId());
+    chatGroup.setSettings(RawJson.of("{\"muted\": true, \"tags\": [\"a\", \"b\"]}"));
+    chatGroup.setAnnouncement(RawJson.of("{\"text\": \"群公告\"}"));
+    chatGroupsMapper.insert(chatGroup);
+
+    // JSONB 列应作为 JSON 对象嵌入响应，而不是转义后的字符串
+    mockMvc
+        .perform(get("/api/v1/chats/{chatId}", chatGroup.getId()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.settings.muted").value(true))
+        .andExpect(jsonPath("$.settings.tags[1]").value("b"))
+        .andExpect(jsonPath("$.announcement.text").value("群公告"));
+  }
+
   @Test
   @WithMockUser(
       username = "testuser",
@@ -226,7 +256,9 @@ class ChatControllerIntegrationTest {
         .andExpect(status().isOk())
         .andExpect(jsonPath("$.name").value("更新后的群聊名称"))
         .andExpect(jsonPath("$.description").value("更新后的描述"))
-        .andExpect(jsonPath("$.avatarUrl").value("https://example.com/new-avatar.jpg"));
+        .andExpect(jsonPath("$.avatarUrl").value("https://example.com/new-avatar.jpg"))
+        .andExpect(jsonPath("$.ownerId").value(testUser.getId()))
+        .andExpect(jsonPath("$.updatedAt").exists());
   }
 
   @Test
@@ -355,4 +387,64 @@ class ChatControllerIntegrationTest {
         .andExpect(jsonPath("$.size").exists())
         .andExpect(jsonPath("$.number").exists());
   }
+
+  @Test
+  @WithAnonymousUser
+  void scrollChats_ShouldReturn401_WhenUserIsNotAuthenticated() throws Exception {
+    mockMvc.perform(get("/api/v1/chats/scroll")).andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  @WithMockUser(
+      username = "testuser",
+      roles = {"USER"})
+  void scrollChats_ShouldWalkAllPagesWithCursor_WhenUserIsAuthenticated() throws Exception {
+    Long ownerId =
+        usersMapper
+            .selectOne(c -> c.where(UsersDynamicSqlSupport.username, isEqualTo("testuser")))
+            .orElseThrow()
+            .getId();
+    // 创建时间相同的群聊也必须按 id 稳定排序，不能在翻页时重复或遗漏
+    OffsetDateTime createdAt = OffsetDateTime.of(2999, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    for (String name : new String[] {"游标群聊1", "游标群聊2", "游标群聊3"}) {
+      ChatGroups chatGroup = new ChatGroups();
+      chatGroup.setName(name);
+      chatGroup.setOwnerId(ownerId);
+      chatGroup.setCreatedAt(createdAt);
+      chatGroupsMapper.insertSelective(chatGroup);
+    }
+
+    String firstPage =
+        mockMvc
+            .perform(get("/api/v1/chats/scroll").param("size", "2").param("withTotal", "true"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(2))
+            .andExpect(jsonPath("$.content[0].name").value("游标群聊3"))
+            .andExpect(jsonPath("$.content[1].name").value("游标群聊2"))
+            .andExpect(jsonPath("$.hasNext").value(true))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    JsonNode first = objectMapper.readTree(firstPage);
+
+    mockMvc
+        .perform(
+            get("/api/v1/chats/scroll")
+                .param("size", "2")
+                .param("cursor", first.get("nextCursor").asText()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].name").value("游标群聊1"))
+        .andExpect(jsonPath("$.estimatedTotal").doesNotExist());
+  }
+
+  @Test
+  @WithMockUser(
+      username = "testuser",
+      roles = {"USER"})
+  void scrollChats_WithInvalidCursor_ShouldReturn400_WhenUserIsAuthenticated() throws Exception {
+    mockMvc
+        .perform(get("/api/v1/chats/scroll").param("cursor", "not-a-cursor"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.title").value("分页游标无效"));
+  }
 }
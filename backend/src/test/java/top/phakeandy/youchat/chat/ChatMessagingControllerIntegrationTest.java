@@ -0,0 +1,308 @@
+package top.phakeandy.youchat.chat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.lang.reflect.Type;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.common.RawJson;
+import top.phakeandy.youchat.mapper.ChatGroupsMapper;
+import top.phakeandy.youchat.mapper.ConversationReadStatesDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.ConversationReadStatesMapper;
+import top.phakeandy.youchat.mapper.MessagesMapper;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.message.ConversationIds;
+import top.phakeandy.youchat.message.ConversationRegistry;
+import top.phakeandy.youchat.message.ConversationType;
+import top.phakeandy.youchat.message.MessageDestinations;
+import top.phakeandy.youchat.message.MessageIdGenerator;
+import top.phakeandy.youchat.message.MessageRequest;
+import top.phakeandy.youchat.message.MessageResponse;
+import top.phakeandy.youchat.message.MessageType;
+import top.phakeandy.youchat.model.ChatGroups;
+import top.phakeandy.youchat.model.ConversationReadStates;
+import top.phakeandy.youchat.model.Messages;
+import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.read.ReadReceiptEvent;
+import top.phakeandy.youchat.read.request.ReadAckRequest;
+import top.phakeandy.youchat.test.TestDataFaker;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("integration-test")
+@Testcontainers
+class ChatMessagingControllerIntegrationTest {
+
+  private static final String RAW_PASSWORD = "password123";
+
+  @Container @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:latest");
+
+  @Container
+  @ServiceConnection
+  @SuppressWarnings("resource")
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:latest").withExposedPorts(6379);
+
+  @LocalServerPort private int port;
+
+  @Autowired private TestRestTemplate restTemplate;
+  @Autowired private ObjectMapper objectMapper;
+  @Autowired private UsersMapper usersMapper;
+  @Autowired private ChatGroupsMapper chatGroupsMapper;
+  @Autowired private MessagesMapper messagesMapper;
+  @Autowired private MessageIdGenerator messageIdGenerator;
+  @Autowired private ConversationRegistry conversationRegistry;
+  @Autowired private ConversationReadStatesMapper conversationReadStatesMapper;
+  @Autowired private PasswordEncoder passwordEncoder;
+
+  private WebSocketStompClient stompClient;
+  private Users sender;
+  private Users receiver;
+
+  @BeforeEach
+  void setup() {
+    stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+    MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+    converter.setObjectMapper(objectMapper);
+    stompClient.setMessageConverter(converter);
+    sender = insertRandomUser();
+    receiver = insertRandomUser();
+  }
+
+  @AfterEach
+  void tearDown() {
+    stompClient.stop();
+  }
+
+  @Test
+  void shouldDeliverPrivateMessageToReceiverQueueAndAcknowledgeSender() throws Exception {
+    StompSession receiverSession = connect(receiver);
+    BlockingQueue<MessageResponse> inbox =
+        subscribe(
+            receiverSession,
+            MessageDestinations.USER_PREFIX + MessageDestinations.USER_MESSAGES,
+            MessageResponse.class);
+
+    StompSession senderSession = connect(sender);
+    BlockingQueue<MessageResponse> receipts =
+        subscribe(
+            senderSession,
+            MessageDestinations.USER_PREFIX + MessageDestinations.USER_RECEIPTS,
+            MessageResponse.class);
+
+    senderSession.send(
+        MessageDestinations.APP_PREFIX + "/chat.send",
+        new MessageRequest(receiver.getId(), null, "你好", MessageType.TEXT, null));
+
+    MessageResponse receipt = receipts.poll(5, TimeUnit.SECONDS);
+    MessageResponse delivered = inbox.poll(5, TimeUnit.SECONDS);
+
+    assertThat(receipt).isNotNull();
+    assertThat(delivered).isNotNull();
+    assertThat(delivered.messageId()).isEqualTo(receipt.messageId());
+    assertThat(delivered.conversationId())
+        .isEqualTo(ConversationIds.direct(sender.getId(), receiver.getId()));
+    assertThat(objectMapper.readTree(delivered.content().json()).get("text").asText())
+        .isEqualTo("你好");
+  }
+
+  @Test
+  void shouldRejectGroupSubscription_whenUserIsNotGroupMember() throws Exception {
+    ChatGroups group = new ChatGroups();
+    group.setName("订阅测试群聊");
+    group.setOwnerId(receiver.getId());
+    chatGroupsMapper.insertSelective(group);
+
+    StompSession outsiderSession = connect(sender);
+    subscribe(
+        outsiderSession,
+        MessageDestinations.groupReadReceipts(group.getId()),
+        ReadReceiptEvent.class);
+    assertRejected(outsiderSession);
+
+    // 群主的订阅照常生效
+    StompSession ownerSession = connect(receiver);
+    BlockingQueue<MessageResponse> groupMessages =
+        subscribe(ownerSession, MessageDestinations.group(group.getId()), MessageResponse.class);
+    ownerSession.send(
+        MessageDestinations.APP_PREFIX + "/chat.send",
+        new MessageRequest(group.getId(), ConversationType.GROUP, "大家好", MessageType.TEXT, null));
+    MessageResponse delivered = groupMessages.poll(5, TimeUnit.SECONDS);
+    assertThat(delivered).isNotNull();
+    assertThat(delivered.conversationId()).isEqualTo(ConversationIds.group(group.getId()));
+  }
+
+  @Test
+  void shouldRejectWildcardSubscriptions() throws Exception {
+    // 简单代理按通配符匹配，这些订阅会收到所有群聊或其他用户队列的消息
+    for (String destination : List.of("/topic/groups/*", "/topic/**", "/queue/**")) {
+      StompSession session = connect(sender);
+      subscribe(session, destination, MessageResponse.class);
+      assertRejected(session);
+    }
+  }
+
+  @Test
+  void shouldRejectSendToBrokerDestination() throws Exception {
+    ChatGroups group = new ChatGroups();
+    group.setName("直发测试群聊");
+    group.setOwnerId(receiver.getId());
+    chatGroupsMapper.insertSelective(group);
+    StompSession ownerSession = connect(receiver);
+    BlockingQueue<MessageResponse> groupMessages =
+        subscribe(ownerSession, MessageDestinations.group(group.getId()), MessageResponse.class);
+
+    // 绕过 /app 直接发往群聊主题会跳过成员校验，必须被拒绝
+    StompSession outsiderSession = connect(sender);
+    outsiderSession.send(
+        MessageDestinations.group(group.getId()),
+        Map.of("messageId", "1", "content", Map.of("text", "伪造的消息")));
+
+    assertRejected(outsiderSession);
+    assertThat(groupMessages.poll(1, TimeUnit.SECONDS)).isNull();
+  }
+
+  @Test
+  void shouldCoalesceReadAcksAndPushReadReceiptToOtherParticipant() throws Exception {
+    String conversationId = ConversationIds.direct(sender.getId(), receiver.getId());
+    StompSession senderSession = connect(sender);
+    BlockingQueue<ReadReceiptEvent> readReceipts =
+        subscribe(
+            senderSession,
+            MessageDestinations.USER_PREFIX + MessageDestinations.USER_READ_RECEIPTS,
+            ReadReceiptEvent.class);
+
+    List<Long> messageIds = insertMessages(conversationId, 3);
+
+    // 滚动浏览时乱序到达的多条确认只会写入并推送最大的一条
+    StompSession receiverSession = connect(receiver);
+    for (int index : new int[] {0, 2, 1}) {
+      receiverSession.send(
+          MessageDestinations.APP_PREFIX + "/chat.read",
+          new ReadAckRequest(conversationId, messageIds.get(index)));
+    }
+
+    ReadReceiptEvent event = readReceipts.poll(5, TimeUnit.SECONDS);
+    assertThat(event).isNotNull();
+    assertThat(event.userId()).isEqualTo(String.valueOf(receiver.getId()));
+    assertThat(event.lastReadMessageId()).isEqualTo(String.valueOf(messageIds.get(2)));
+    assertThat(readReceipts.poll(1500, TimeUnit.MILLISECONDS)).isNull();
+
+    ConversationReadStates state =
+        conversationReadStatesMapper
+            .selectOne(
+                c ->
+                    c.where(
+                            ConversationReadStatesDynamicSqlSupport.userId,
+                            isEqualTo(receiver.getId()))
+                        .and(
+                            ConversationReadStatesDynamicSqlSupport.conversationId,
+                            isEqualTo(conversationId)))
+            .orElseThrow();
+    assertThat(state.getLastReadMessageId()).isEqualTo(messageIds.get(2));
+  }
+
+  private List<Long> insertMessages(String conversationId, int count) {
+    List<Messages> rows = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Messages row = new Messages();
+      row.setId(messageIdGenerator.nextId());
+      row.setConversationId(conversationRegistry.register(conversationId));
+      row.setSenderId(sender.getId());
+      row.setType("text");
+      row.setContent(RawJson.of("{\"text\": \"消息" + i + "\"}"));
+      row.setCreatedAt(OffsetDateTime.now());
+      row.setUpdatedAt(row.getCreatedAt());
+      rows.add(row);
+    }
+    messagesMapper.insertMultiple(rows);
+    return rows.stream().map(Messages::getId).toList();
+  }
+
+  private StompSession connect(Users user) throws Exception {
+    ResponseEntity<String> login =
+        restTemplate.postForEntity(
+            "/api/v1/auth/login",
+            Map.of("username", user.getUsername(), "password", RAW_PASSWORD),
+            String.class);
+    assertThat(login.getStatusCode().is2xxSuccessful()).isTrue();
+
+    WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+    headers.put(HttpHeaders.COOKIE, login.getHeaders().get(HttpHeaders.SET_COOKIE));
+    return stompClient
+        .connectAsync(
+            "ws://localhost:" + port + "/ws", headers, new StompSessionHandlerAdapter() {})
+        .get(5, TimeUnit.SECONDS);
+  }
+
+  /** 被拒绝的帧会让服务端回复 ERROR 帧并关闭连接，ERROR 帧可能赶不上连接关闭，因此以连接断开为准 */
+  private static void assertRejected(StompSession session) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (session.isConnected() && System.nanoTime() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(50);
+    }
+    assertThat(session.isConnected()).isFalse();
+  }
+
+  private <T> BlockingQueue<T> subscribe(StompSession session, String destination, Class<T> type)
+      throws InterruptedException {
+    BlockingQueue<T> queue = new LinkedBlockingQueue<>();
+    session.subscribe(
+        destination,
+        new StompFrameHandler() {
+          @Override
+          public Type getPayloadType(StompHeaders headers) {
+            return type;
+          }
+
+          @Override
+          public void handleFrame(StompHeaders headers, Object payload) {
+            queue.add(type.cast(payload));
+          }
+        });
+    // 等待订阅在服务端生效
+    TimeUnit.MILLISECONDS.sleep(200);
+    return queue;
+  }
+
+  private Users insertRandomUser() {
+    Users user = TestDataFaker.createRandomUser(passwordEncoder);
+    usersMapper.insertSelective(user);
+    return usersMapper
+        .selectOne(c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(user.getUsername())))
+        .orElseThrow();
+  }
+}
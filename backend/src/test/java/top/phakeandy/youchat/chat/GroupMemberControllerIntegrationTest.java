@@ -0,0 +1,187 @@
+package top.phakeandy.youchat.chat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.auth.CustomUserDetails;
+import top.phakeandy.youchat.chat.request.AddGroupMemberRequest;
+import top.phakeandy.youchat.chat.request.CreateChatRequest;
+import top.phakeandy.youchat.common.SortedIds;
+import top.phakeandy.youchat.mapper.ChatGroupsMapper;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.message.ConversationIds;
+import top.phakeandy.youchat.model.ChatGroups;
+import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.test.TestDataFaker;
+
+// 成员索引在事务提交后失效，测试数据必须真正提交，因此不使用 @Transactional
+@SpringBootTest
+@AutoConfigureWebMvc
+@ActiveProfiles("integration-test")
+@Testcontainers
+class GroupMemberControllerIntegrationTest {
+
+  @Container @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:latest");
+
+  @Container
+  @ServiceConnection
+  @SuppressWarnings("resource")
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:latest").withExposedPorts(6379);
+
+  @Autowired private WebApplicationContext context;
+  @Autowired private UsersMapper usersMapper;
+  @Autowired private ChatGroupsMapper chatGroupsMapper;
+  @Autowired private GroupMembershipIndex membershipIndex;
+  @Autowired private PasswordEncoder passwordEncoder;
+  @Autowired private ObjectMapper objectMapper;
+
+  private MockMvc mockMvc;
+  private CustomUserDetails owner;
+  private CustomUserDetails member;
+  private long chatId;
+
+  @BeforeEach
+  void setup() throws Exception {
+    mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+    owner = CustomUserDetails.fromUsers(insertRandomUser());
+    member = CustomUserDetails.fromUsers(insertRandomUser());
+
+    String body =
+        mockMvc
+            .perform(
+                post("/api/v1/chats")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(
+                        objectMapper.writeValueAsString(
+                            new CreateChatRequest("成员测试群", null, null, owner.getId())))
+                    .with(user(owner))
+                    .with(csrf()))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    chatId = objectMapper.readTree(body).get("id").asLong();
+  }
+
+  @Test
+  void shouldAddMemberAndListMembers_whenOwnerAddsUser() throws Exception {
+    addMember(owner, member.getId())
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.userId").value(member.getId()))
+        .andExpect(jsonPath("$.role").value("member"));
+
+    mockMvc
+        .perform(
+            get("/api/v1/chats/{chatId}/members", chatId).param("size", "1").with(user(member)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(1))
+        .andExpect(jsonPath("$.content[0].userId").value(owner.getId()))
+        .andExpect(jsonPath("$.content[0].role").value("owner"))
+        .andExpect(jsonPath("$.hasNext").value(true))
+        .andExpect(jsonPath("$.nextCursor").value(owner.getId().toString()));
+    assertThat(membershipIndex.members(chatId))
+        .isEqualTo(SortedIds.of(owner.getId(), member.getId()));
+  }
+
+  @Test
+  void shouldReturn403_whenNonManagerAddsMember() throws Exception {
+    CustomUserDetails outsider = CustomUserDetails.fromUsers(insertRandomUser());
+
+    addMember(outsider, member.getId()).andExpect(status().isForbidden());
+    mockMvc
+        .perform(get("/api/v1/chats/{chatId}/members", chatId).with(user(outsider)))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  void shouldReturn409_whenUserIsAlreadyMember() throws Exception {
+    addMember(owner, member.getId()).andExpect(status().isCreated());
+
+    addMember(owner, member.getId()).andExpect(status().isConflict());
+    addMember(owner, owner.getId()).andExpect(status().isConflict());
+  }
+
+  @Test
+  void shouldRevokeConversationAccess_whenMemberIsRemoved() throws Exception {
+    String conversationId = ConversationIds.group(chatId);
+    addMember(owner, member.getId()).andExpect(status().isCreated());
+    mockMvc
+        .perform(get("/api/v1/conversations/{id}/messages", conversationId).with(user(member)))
+        .andExpect(status().isOk());
+
+    mockMvc
+        .perform(
+            delete("/api/v1/chats/{chatId}/members/{userId}", chatId, member.getId())
+                .with(user(owner))
+                .with(csrf()))
+        .andExpect(status().isNoContent());
+
+    mockMvc
+        .perform(get("/api/v1/conversations/{id}/messages", conversationId).with(user(member)))
+        .andExpect(status().isForbidden());
+    mockMvc
+        .perform(
+            delete("/api/v1/chats/{chatId}/members/{userId}", chatId, owner.getId())
+                .with(user(owner))
+                .with(csrf()))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  void shouldTreatOwnerAsMember_whenGroupHasNoOwnerRow() {
+    ChatGroups legacy = new ChatGroups();
+    legacy.setName("早期群聊");
+    legacy.setOwnerId(owner.getId());
+    chatGroupsMapper.insertSelective(legacy);
+
+    assertThat(membershipIndex.isMember(legacy.getId(), owner.getId())).isTrue();
+    assertThat(membershipIndex.isMember(legacy.getId(), member.getId())).isFalse();
+  }
+
+  private ResultActions addMember(CustomUserDetails operator, long userId) throws Exception {
+    return mockMvc.perform(
+        post("/api/v1/chats/{chatId}/members", chatId)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(new AddGroupMemberRequest(userId)))
+            .with(user(operator))
+            .with(csrf()));
+  }
+
+  private Users insertRandomUser() {
+    Users user = TestDataFaker.createRandomUser(passwordEncoder);
+    usersMapper.insertSelective(user);
+    return usersMapper
+        .selectOne(c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(user.getUsername())))
+        .orElseThrow();
+  }
+}
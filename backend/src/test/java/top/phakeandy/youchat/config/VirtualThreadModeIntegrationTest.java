@@ -0,0 +1,175 @@
+package top.phakeandy.youchat.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.auth.CustomUserDetails;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.test.TestDataFaker;
+
+// 测试直接占用数据库许可，不能在测试事务中持有连接，因此不使用 @Transactional
+@SpringBootTest(
+    properties = {
+      "spring.threads.virtual.enabled=true",
+      "youchat.threads.database.max-concurrent=2",
+      "youchat.threads.database.acquire-timeout=200ms"
+    })
+@AutoConfigureWebMvc
+@ActiveProfiles("integration-test")
+@Testcontainers
+class VirtualThreadModeIntegrationTest {
+
+  @Container @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:latest");
+
+  @Container
+  @ServiceConnection
+  @SuppressWarnings("resource")
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:latest").withExposedPorts(6379);
+
+  @Autowired private WebApplicationContext context;
+  @Autowired private DataSource dataSource;
+  @Autowired private UsersMapper usersMapper;
+  @Autowired private PasswordEncoder passwordEncoder;
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Autowired
+  @Qualifier("clientInboundChannel")
+  private ExecutorSubscribableChannel clientInboundChannel;
+
+  @Autowired
+  @Qualifier("clientOutboundChannel")
+  private ExecutorSubscribableChannel clientOutboundChannel;
+
+  @Test
+  void shouldRunMessageChannelsOnVirtualThreads() throws Exception {
+    for (ExecutorSubscribableChannel channel :
+        new ExecutorSubscribableChannel[] {clientInboundChannel, clientOutboundChannel}) {
+      CompletableFuture<Boolean> virtual = new CompletableFuture<>();
+      channel.getExecutor().execute(() -> virtual.complete(Thread.currentThread().isVirtual()));
+      assertThat(virtual.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+  }
+
+  @Test
+  void shouldRejectConnectionRequests_whenAllPermitsAreHeld() throws Exception {
+    assertThat(dataSource).isInstanceOf(BoundedDataSource.class);
+    double timedOut = rejected("timeout");
+
+    try (Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection()) {
+      assertThatThrownBy(dataSource::getConnection)
+          .isInstanceOf(SQLTransientConnectionException.class);
+      assertThat(first.isValid(1)).isTrue();
+      assertThat(second.isValid(1)).isTrue();
+    }
+
+    assertThat(rejected("timeout") - timedOut).isEqualTo(1);
+    try (Connection connection = dataSource.getConnection()) {
+      assertThat(connection.isValid(1)).isTrue();
+    }
+  }
+
+  @Test
+  void shouldReleasePermitOnlyOnce_whenConnectionIsClosedTwice() throws Exception {
+    Connection connection = dataSource.getConnection();
+    connection.close();
+    connection.close();
+
+    try (Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection()) {
+      assertThatThrownBy(dataSource::getConnection)
+          .isInstanceOf(SQLTransientConnectionException.class);
+    }
+  }
+
+  @Test
+  void shouldReturnServiceUnavailable_whenDatabasePermitsAreExhausted() throws Exception {
+    MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+    CustomUserDetails alice = CustomUserDetails.fromUsers(insertRandomUser());
+
+    try (Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection()) {
+      mockMvc
+          .perform(get("/api/v1/friends").with(user(alice)))
+          .andExpect(status().isServiceUnavailable())
+          .andExpect(header().string("Retry-After", "1"));
+    }
+
+    mockMvc.perform(get("/api/v1/friends").with(user(alice))).andExpect(status().isOk());
+  }
+
+  @Test
+  void shouldCountPinnedVirtualThreads() throws Exception {
+    double pinned = pinnedCount("monitor");
+    Object lock = new Object();
+
+    Thread.ofVirtual()
+        .start(
+            () -> {
+              synchronized (lock) {
+                try {
+                  TimeUnit.MILLISECONDS.sleep(100);
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+              }
+            })
+        .join();
+
+    // JFR 事件流按块刷新，事件最多延迟约一秒送达
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (pinnedCount("monitor") == pinned && System.nanoTime() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(100);
+    }
+    assertThat(pinnedCount("monitor")).isGreaterThan(pinned);
+  }
+
+  private double rejected(String reason) {
+    return meterRegistry.get("youchat.datasource.rejected").tag("reason", reason).counter().count();
+  }
+
+  private double pinnedCount(String source) {
+    return meterRegistry.get("youchat.threads.pinned").tag("source", source).timer().count();
+  }
+
+  private Users insertRandomUser() {
+    Users user = TestDataFaker.createRandomUser(passwordEncoder);
+    usersMapper.insertSelective(user);
+    return usersMapper
+        .selectOne(c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(user.getUsername())))
+        .orElseThrow();
+  }
+}
@@ -0,0 +1,174 @@
+package top.phakeandy.youchat.friend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.auth.CustomUserDetails;
+import top.phakeandy.youchat.friend.request.AddFriendRequest;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.test.TestDataFaker;
+
+// 邻接表在事务提交后失效，测试数据必须真正提交，因此不使用 @Transactional
+@SpringBootTest(properties = "youchat.message.direct-requires-friendship=true")
+@AutoConfigureWebMvc
+@ActiveProfiles("integration-test")
+@Testcontainers
+class FriendControllerIntegrationTest {
+
+  @Container @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:latest");
+
+  @Container
+  @ServiceConnection
+  @SuppressWarnings("resource")
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:latest").withExposedPorts(6379);
+
+  @Autowired private WebApplicationContext context;
+  @Autowired private UsersMapper usersMapper;
+  @Autowired private FriendGraph friendGraph;
+  @Autowired private PasswordEncoder passwordEncoder;
+  @Autowired private ObjectMapper objectMapper;
+
+  private MockMvc mockMvc;
+  private CustomUserDetails alice;
+  private CustomUserDetails bob;
+  private CustomUserDetails carol;
+
+  @BeforeEach
+  void setup() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+    alice = CustomUserDetails.fromUsers(insertRandomUser());
+    bob = CustomUserDetails.fromUsers(insertRandomUser());
+    carol = CustomUserDetails.fromUsers(insertRandomUser());
+  }
+
+  @Test
+  void shouldListFriendsFromBothSides_whenFriendshipIsAdded() throws Exception {
+    addFriend(bob, alice.getId()).andExpect(status().isCreated());
+    addFriend(bob, carol.getId()).andExpect(status().isCreated());
+
+    mockMvc
+        .perform(get("/api/v1/friends").with(user(alice)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(1))
+        .andExpect(jsonPath("$.content[0].userId").value(bob.getId()))
+        .andExpect(jsonPath("$.hasNext").value(false));
+    mockMvc
+        .perform(get("/api/v1/friends").param("size", "1").with(user(bob)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].userId").value(alice.getId()))
+        .andExpect(jsonPath("$.hasNext").value(true))
+        .andExpect(jsonPath("$.nextCursor").value(alice.getId().toString()));
+  }
+
+  @Test
+  void shouldReturnMutualFriends() throws Exception {
+    addFriend(bob, alice.getId()).andExpect(status().isCreated());
+    addFriend(bob, carol.getId()).andExpect(status().isCreated());
+
+    mockMvc
+        .perform(get("/api/v1/friends/{userId}/mutual", carol.getId()).with(user(alice)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.count").value(1))
+        .andExpect(jsonPath("$.userIds[0]").value(bob.getId()));
+  }
+
+  @Test
+  void shouldRejectInvalidOrDuplicateFriendship() throws Exception {
+    addFriend(alice, alice.getId()).andExpect(status().isBadRequest());
+    addFriend(alice, Long.MAX_VALUE).andExpect(status().isNotFound());
+    addFriend(alice, bob.getId()).andExpect(status().isCreated());
+
+    addFriend(bob, alice.getId()).andExpect(status().isConflict());
+  }
+
+  @Test
+  void shouldInvalidateAdjacency_whenFriendIsRemoved() throws Exception {
+    addFriend(alice, bob.getId()).andExpect(status().isCreated());
+    assertThat(friendGraph.areFriends(bob.getId(), alice.getId())).isTrue();
+
+    mockMvc
+        .perform(delete("/api/v1/friends/{userId}", bob.getId()).with(user(alice)).with(csrf()))
+        .andExpect(status().isNoContent());
+
+    assertThat(friendGraph.areFriends(bob.getId(), alice.getId())).isFalse();
+    assertThat(friendGraph.areFriends(alice.getId(), bob.getId())).isFalse();
+    mockMvc
+        .perform(delete("/api/v1/friends/{userId}", bob.getId()).with(user(alice)).with(csrf()))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void shouldOnlyAllowDirectMessagesBetweenFriends() throws Exception {
+    sendDirectMessage(alice, bob.getId()).andExpect(status().isForbidden());
+
+    addFriend(alice, bob.getId()).andExpect(status().isCreated());
+
+    sendDirectMessage(alice, bob.getId()).andExpect(status().isAccepted());
+  }
+
+  private ResultActions addFriend(CustomUserDetails operator, long userId) throws Exception {
+    return mockMvc.perform(
+        post("/api/v1/friends")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(new AddFriendRequest(userId)))
+            .with(user(operator))
+            .with(csrf()));
+  }
+
+  private ResultActions sendDirectMessage(CustomUserDetails sender, long receiverId)
+      throws Exception {
+    return mockMvc.perform(
+        post("/api/v1/messages")
+            .with(user(sender))
+            .with(csrf())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(
+                """
+                {
+                  "receiverId": %d,
+                  "content": "你好",
+                  "messageType": "TEXT"
+                }
+                """
+                    .formatted(receiverId)));
+  }
+
+  private Users insertRandomUser() {
+    Users user = TestDataFaker.createRandomUser(passwordEncoder);
+    usersMapper.insertSelective(user);
+    return usersMapper
+        .selectOne(c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(user.getUsername())))
+        .orElseThrow();
+  }
+}
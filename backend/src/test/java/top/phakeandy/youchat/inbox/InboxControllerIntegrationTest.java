@@ -0,0 +1,251 @@
+package top.phakeandy.youchat.inbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.auth.CustomUserDetails;
+import top.phakeandy.youchat.chat.GroupMemberMapper;
+import top.phakeandy.youchat.chat.GroupMembershipIndex;
+import top.phakeandy.youchat.common.RawJson;
+import top.phakeandy.youchat.mapper.ChatGroupsMapper;
+import top.phakeandy.youchat.mapper.GroupMembersDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.GroupMembersMapper;
+import top.phakeandy.youchat.mapper.MessagesMapper;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.message.ConversationIds;
+import top.phakeandy.youchat.message.ConversationRegistry;
+import top.phakeandy.youchat.message.ConversationType;
+import top.phakeandy.youchat.message.MessageAcceptedEvent;
+import top.phakeandy.youchat.message.MessageIdGenerator;
+import top.phakeandy.youchat.message.MessagesPersistedEvent;
+import top.phakeandy.youchat.model.ChatGroups;
+import top.phakeandy.youchat.model.Messages;
+import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.test.TestDataFaker;
+
+// 消息由测试直接写入并发布落库事件，不经过异步写入队列；摘要必须真正提交，因此不使用 @Transactional
+@SpringBootTest
+@AutoConfigureWebMvc
+@ActiveProfiles("integration-test")
+@Testcontainers
+class InboxControllerIntegrationTest {
+
+  @Container @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:latest");
+
+  @Container
+  @ServiceConnection
+  @SuppressWarnings("resource")
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:latest").withExposedPorts(6379);
+
+  @Autowired private WebApplicationContext context;
+  @Autowired private UsersMapper usersMapper;
+  @Autowired private MessagesMapper messagesMapper;
+  @Autowired private ChatGroupsMapper chatGroupsMapper;
+  @Autowired private GroupMemberMapper groupMemberMapper;
+  @Autowired private GroupMembersMapper groupMembersMapper;
+  @Autowired private GroupMembershipIndex membershipIndex;
+  @Autowired private MessageIdGenerator messageIdGenerator;
+  @Autowired private ConversationRegistry conversationRegistry;
+  @Autowired private PasswordEncoder passwordEncoder;
+  @Autowired private ApplicationEventPublisher eventPublisher;
+  @Autowired private StringRedisTemplate redisTemplate;
+  @Autowired private InboxProperties properties;
+
+  private MockMvc mockMvc;
+  private CustomUserDetails alice;
+  private Users bob;
+  private Users carol;
+
+  @BeforeEach
+  void setup() throws Exception {
+    mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+    alice = CustomUserDetails.fromUsers(insertRandomUser());
+    bob = insertRandomUser();
+    carol = insertRandomUser();
+    // 先完整重建一次未读计数，之后的新消息只通过增量计数
+    mockMvc.perform(get("/api/v1/conversations/badges").with(user(alice)));
+  }
+
+  @Test
+  void shouldListConversationsNewestFirst_withPreviewAndUnreadCount() throws Exception {
+    long groupId = insertGroup(bob.getId(), alice.getId());
+    String fromBob = ConversationIds.direct(alice.getId(), bob.getId());
+    String fromCarol = ConversationIds.direct(alice.getId(), carol.getId());
+    String group = ConversationIds.group(groupId);
+    send(bob, fromBob, "text", "第一条");
+    send(bob, fromBob, "text", "第二条");
+    send(bob, group, "text", "群里好");
+    send(carol, fromCarol, "image", null);
+
+    mockMvc
+        .perform(get("/api/v1/conversations").with(user(alice)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(3))
+        .andExpect(jsonPath("$.content[0].conversationId").value(fromCarol))
+        .andExpect(jsonPath("$.content[0].messageType").value("IMAGE"))
+        .andExpect(jsonPath("$.content[0].preview").value(InboxService.IMAGE_PREVIEW))
+        .andExpect(jsonPath("$.content[0].unreadCount").value(1))
+        .andExpect(jsonPath("$.content[1].conversationId").value(group))
+        .andExpect(jsonPath("$.content[1].unreadCount").value(1))
+        .andExpect(jsonPath("$.content[2].conversationId").value(fromBob))
+        .andExpect(jsonPath("$.content[2].preview").value("第二条"))
+        .andExpect(jsonPath("$.content[2].lastSenderId").value(bob.getId().toString()))
+        .andExpect(jsonPath("$.content[2].unreadCount").value(2))
+        .andExpect(jsonPath("$.hasNext").value(false));
+  }
+
+  @Test
+  void shouldMoveConversationToTop_whenCachedInboxReceivesNewMessage() throws Exception {
+    String fromBob = ConversationIds.direct(alice.getId(), bob.getId());
+    String fromCarol = ConversationIds.direct(alice.getId(), carol.getId());
+    send(bob, fromBob, "text", "早");
+    send(carol, fromCarol, "text", "在吗");
+    mockMvc
+        .perform(get("/api/v1/conversations").with(user(alice)))
+        .andExpect(jsonPath("$.content[0].conversationId").value(fromCarol));
+    assertThat(redisTemplate.opsForZSet().size(properties.keyPrefix() + alice.getId()))
+        .isEqualTo(2);
+
+    send(bob, fromBob, "text", "晚上一起吃饭");
+
+    mockMvc
+        .perform(get("/api/v1/conversations").with(user(alice)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].conversationId").value(fromBob))
+        .andExpect(jsonPath("$.content[0].preview").value("晚上一起吃饭"))
+        .andExpect(jsonPath("$.content[0].unreadCount").value(2))
+        .andExpect(jsonPath("$.content[1].conversationId").value(fromCarol));
+  }
+
+  @Test
+  void shouldReloadExpiredSummary_whenCachedInboxStillListsConversation() throws Exception {
+    String fromBob = ConversationIds.direct(alice.getId(), bob.getId());
+    send(bob, fromBob, "text", "摘要过期");
+    mockMvc
+        .perform(get("/api/v1/conversations").with(user(alice)))
+        .andExpect(jsonPath("$.content[0].preview").value("摘要过期"));
+
+    redisTemplate.delete(properties.summaryKeyPrefix() + fromBob);
+
+    mockMvc
+        .perform(get("/api/v1/conversations").with(user(alice)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].conversationId").value(fromBob))
+        .andExpect(jsonPath("$.content[0].preview").value("摘要过期"))
+        .andExpect(jsonPath("$.content[0].unreadCount").value(1));
+    assertThat(redisTemplate.hasKey(properties.summaryKeyPrefix() + fromBob)).isTrue();
+  }
+
+  @Test
+  void shouldPageBeyondFirstPageFromDatabase() throws Exception {
+    String fromBob = ConversationIds.direct(alice.getId(), bob.getId());
+    String fromCarol = ConversationIds.direct(alice.getId(), carol.getId());
+    send(bob, fromBob, "text", "一");
+    Messages latest = send(carol, fromCarol, "text", "二");
+
+    mockMvc
+        .perform(get("/api/v1/conversations").param("size", "1").with(user(alice)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].conversationId").value(fromCarol))
+        .andExpect(jsonPath("$.hasNext").value(true))
+        .andExpect(jsonPath("$.nextCursor").value(latest.getId().toString()));
+    mockMvc
+        .perform(
+            get("/api/v1/conversations")
+                .param("size", "1")
+                .param("cursor", latest.getId().toString())
+                .with(user(alice)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].conversationId").value(fromBob))
+        .andExpect(jsonPath("$.hasNext").value(false));
+    mockMvc
+        .perform(get("/api/v1/conversations").param("cursor", "abc").with(user(alice)))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void shouldDropGroupFromCachedInbox_whenUserIsNoLongerMember() throws Exception {
+    long groupId = insertGroup(bob.getId(), alice.getId());
+    send(bob, ConversationIds.group(groupId), "text", "欢迎");
+    mockMvc
+        .perform(get("/api/v1/conversations").with(user(alice)))
+        .andExpect(jsonPath("$.content.length()").value(1));
+
+    groupMembersMapper.delete(
+        c -> c.where(GroupMembersDynamicSqlSupport.groupId, isEqualTo(groupId)));
+    membershipIndex.invalidate(groupId);
+
+    mockMvc
+        .perform(get("/api/v1/conversations").with(user(alice)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(0));
+  }
+
+  private Messages send(Users sender, String conversationId, String type, String text) {
+    Messages row = new Messages();
+    row.setId(messageIdGenerator.nextId());
+    row.setConversationId(conversationRegistry.register(conversationId));
+    row.setSenderId(sender.getId());
+    row.setType(type);
+    row.setContent(RawJson.of(text == null ? "{}" : "{\"text\": \"" + text + "\"}"));
+    row.setCreatedAt(OffsetDateTime.now());
+    row.setUpdatedAt(row.getCreatedAt());
+    messagesMapper.insert(row);
+
+    boolean group = ConversationIds.isGroup(conversationId);
+    eventPublisher.publishEvent(
+        new MessageAcceptedEvent(
+            row.getId(),
+            conversationId,
+            group ? ConversationType.GROUP : ConversationType.PRIVATE,
+            sender.getId(),
+            ConversationIds.receiverOf(conversationId, sender.getId())));
+    eventPublisher.publishEvent(new MessagesPersistedEvent(List.of(row)));
+    return row;
+  }
+
+  private long insertGroup(long ownerId, long memberId) {
+    ChatGroups chatGroup = new ChatGroups();
+    chatGroup.setName("收件箱测试群");
+    chatGroup.setOwnerId(ownerId);
+    chatGroupsMapper.insertSelective(chatGroup);
+    groupMemberMapper.insertIfAbsent(chatGroup.getId(), memberId, "member");
+    return chatGroup.getId();
+  }
+
+  private Users insertRandomUser() {
+    Users user = TestDataFaker.createRandomUser(passwordEncoder);
+    usersMapper.insertSelective(user);
+    return usersMapper
+        .selectOne(c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(user.getUsername())))
+        .orElseThrow();
+  }
+}
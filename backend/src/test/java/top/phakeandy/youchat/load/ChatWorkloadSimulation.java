@@ -0,0 +1,211 @@
+package top.phakeandy.youchat.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.chat.ChatController;
+import top.phakeandy.youchat.load.SimulatedUser.Conversation;
+import top.phakeandy.youchat.load.WorkloadStats.WorkloadReport;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.test.TestDataFaker;
+
+/**
+ * 端到端聊天负载模拟
+ *
+ * <p>用 {@link TestDataFaker} 生成用户并通过 {@code /api/v1/auth/login} 登录，群主通过 {@link ChatController}
+ * 建群并拉人，之后每个用户在自己的虚拟线程中按 {@link WorkloadSettings.Mix} 的权重循环执行 WebSocket 发送、REST 发送、历史消息读取和群聊列表请求。
+ * 测量阶段每种操作的 p50、p99、p999 延迟、吞吐量和错误率写入 JSON 报告（默认 {@code target/workload-report.json}），未达到 {@link
+ * WorkloadSettings.Slo} 时测试失败。
+ *
+ * <p>类名不以 Test 结尾，不会随其他测试一起运行，需要单独指定，参数见 {@link WorkloadSettings}：
+ *
+ * <pre>
+ * ./mvnw test -Dtest=ChatWorkloadSimulation
+ * ./mvnw test -Dtest=ChatWorkloadSimulation -Dworkload.users=200 -Dworkload.duration=2m
+ * </pre>
+ *
+ * <p>每个用户上一个请求完成后才发出下一个（闭环），服务端变慢时发出的请求随之减少，延迟只反映已发出的请求。评估容量时应逐步增加用户数，观察吞吐量不再上升而延迟开始增长的拐点。
+ */
+@Slf4j
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      // 所有用户来自同一 IP，限流会让登录阶段只得到 429
+      "youchat.auth.login-limit.enabled=false",
+      "logging.level.top.phakeandy.youchat=INFO"
+    })
+@ActiveProfiles("integration-test")
+@Testcontainers
+class ChatWorkloadSimulation {
+
+  private static final String RAW_PASSWORD = "password123";
+
+  @Container @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:latest");
+
+  @Container
+  @ServiceConnection
+  @SuppressWarnings("resource")
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:latest").withExposedPorts(6379);
+
+  @LocalServerPort private int port;
+
+  @Autowired private Environment environment;
+  @Autowired private ObjectMapper objectMapper;
+  @Autowired private UsersMapper usersMapper;
+  @Autowired private PasswordEncoder passwordEncoder;
+
+  private final List<SimulatedUser> users = new ArrayList<>();
+  private WebSocketStompClient stompClient;
+
+  @AfterEach
+  void tearDown() {
+    users.forEach(SimulatedUser::disconnect);
+    if (stompClient != null) {
+      stompClient.stop();
+    }
+  }
+
+  @Test
+  void shouldMeetLatencyObjectives() throws Exception {
+    WorkloadSettings settings =
+        Binder.get(environment).bindOrCreate("workload", WorkloadSettings.class);
+    HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    URI baseUri = URI.create("http://localhost:" + port);
+
+    for (int i = 0; i < settings.users(); i++) {
+      users.add(SimulatedUser.login(http, baseUri, objectMapper, insertRandomUser(), RAW_PASSWORD));
+    }
+    createConversations(settings);
+
+    stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+    MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+    converter.setObjectMapper(objectMapper);
+    stompClient.setMessageConverter(converter);
+    for (SimulatedUser user : users) {
+      user.connect(stompClient, "ws://localhost:" + port + "/ws");
+    }
+    // 等待订阅在服务端生效
+    TimeUnit.MILLISECONDS.sleep(200);
+
+    WorkloadStats stats = new WorkloadStats();
+    long deadline = System.nanoTime() + settings.warmup().plus(settings.duration()).toNanos();
+    List<Thread> threads = new ArrayList<>();
+    for (SimulatedUser user : users) {
+      threads.add(
+          Thread.ofVirtual()
+              .name("workload-" + user.id())
+              .start(() -> drive(user, settings, stats, deadline)));
+    }
+    Thread.sleep(settings.warmup());
+    stats.startMeasuring();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    WorkloadReport report = stats.report(settings);
+    Files.createDirectories(settings.report().toAbsolutePath().getParent());
+    objectMapper.writerWithDefaultPrettyPrinter().writeValue(settings.report().toFile(), report);
+    log.info(
+        "Workload finished: {} requests/s, {} errors, report written to {}",
+        String.format("%.1f", report.total().throughput()),
+        report.total().errors(),
+        settings.report().toAbsolutePath());
+
+    assertThat(report.total().requests()).isPositive();
+    assertThat(report.slo().violations()).isEmpty();
+  }
+
+  /**
+   * 用户按插入顺序排成环，每个用户与其后的 {@code contacts} 个用户私聊；第 i 个群的群主是第 i 个用户，成员是群主之后的用户
+   *
+   * <p>固定的关系让私聊双方读到彼此发送的消息，历史消息请求不会总是空页。
+   */
+  private void createConversations(WorkloadSettings settings) throws Exception {
+    int count = users.size();
+    for (int i = 0; i < count; i++) {
+      SimulatedUser user = users.get(i);
+      for (int offset = 1; offset <= Math.min(settings.contacts(), count - 1); offset++) {
+        user.addConversation(Conversation.direct(user.id(), users.get((i + offset) % count).id()));
+      }
+    }
+    for (int g = 0; g < settings.groups(); g++) {
+      SimulatedUser owner = users.get(g % count);
+      long chatId = owner.createChat("workload-" + g);
+      owner.addConversation(Conversation.group(chatId));
+      for (int offset = 1; offset < Math.min(settings.groupSize(), count); offset++) {
+        SimulatedUser member = users.get((g + offset) % count);
+        owner.addMember(chatId, member.id());
+        member.addConversation(Conversation.group(chatId));
+      }
+    }
+  }
+
+  private static void drive(
+      SimulatedUser user, WorkloadSettings settings, WorkloadStats stats, long deadline) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    while (System.nanoTime() < deadline) {
+      Operation operation = settings.mix().next(random);
+      Conversation conversation = user.randomConversation(random);
+      long start = System.nanoTime();
+      try {
+        switch (operation) {
+          case SEND_WEBSOCKET -> user.sendWebsocket(conversation, settings.receiptTimeout());
+          case SEND_REST -> user.sendRest(conversation);
+          case HISTORY -> user.history(conversation);
+          case CHATS -> user.chats();
+        }
+        stats.success(operation, start);
+        Thread.sleep(settings.thinkTime());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Exception e) {
+        stats.failure(operation, start);
+        log.debug("{} failed for user {}", operation, user.id(), e);
+      }
+    }
+  }
+
+  /** 随机用户名可能重复，重复时重新生成 */
+  private Users insertRandomUser() {
+    while (true) {
+      Users user = TestDataFaker.createRandomUser(passwordEncoder);
+      try {
+        usersMapper.insertSelective(user);
+        return user;
+      } catch (DuplicateKeyException e) {
+        log.debug("Username {} already exists, retrying", user.getUsername());
+      }
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package top.phakeandy.youchat.load;
+
+/** 模拟用户执行的操作，{@link #reportName} 用作报告中的键 */
+enum Operation {
+  /** 通过 STOMP 发送消息，计时到收到发送回执为止 */
+  SEND_WEBSOCKET("send-websocket"),
+  /** {@code POST /api/v1/messages} */
+  SEND_REST("send-rest"),
+  /** {@code GET /api/v1/conversations/{id}/messages} */
+  HISTORY("history"),
+  /** {@code GET /api/v1/chats/scroll} */
+  CHATS("chats");
+
+  final String reportName;
+
+  Operation(String reportName) {
+    this.reportName = reportName;
+  }
+}
@@ -0,0 +1,285 @@
+package top.phakeandy.youchat.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.random.RandomGenerator;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.security.web.csrf.XorCsrfTokenRequestAttributeHandler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import top.phakeandy.youchat.message.ConversationIds;
+import top.phakeandy.youchat.message.ConversationType;
+import top.phakeandy.youchat.message.MessageDestinations;
+import top.phakeandy.youchat.message.MessageRequest;
+import top.phakeandy.youchat.message.MessageResponse;
+import top.phakeandy.youchat.message.MessageType;
+import top.phakeandy.youchat.model.Users;
+
+/**
+ * 一个已登录的模拟用户，持有会话 Cookie 和 STOMP 连接，每个方法对应一次请求，失败时抛出异常
+ *
+ * <p>CSRF 使用双重提交：客户端自选一个令牌放进 {@code XSRF-TOKEN} Cookie，请求头带上按 {@link
+ * XorCsrfTokenRequestAttributeHandler} 格式加掩码的同一令牌，与服务端下发的令牌效果相同。
+ */
+final class SimulatedUser {
+
+  private static final String CSRF_COOKIE = "XSRF-TOKEN";
+  private static final String CSRF_HEADER = "X-XSRF-TOKEN";
+
+  private final long id;
+  private final HttpClient http;
+  private final URI baseUri;
+  private final ObjectMapper objectMapper;
+  private final String cookies;
+  private final String csrfToken;
+
+  /** 发送回执和 STOMP 错误都放进这个队列，按内容匹配本次发送 */
+  private final BlockingQueue<Object> receipts = new LinkedBlockingQueue<>();
+
+  private final List<Conversation> conversations = new ArrayList<>();
+  private StompSession stompSession;
+
+  private SimulatedUser(
+      long id, HttpClient http, URI baseUri, ObjectMapper objectMapper, String sessionCookies) {
+    this.id = id;
+    this.http = http;
+    this.baseUri = baseUri;
+    this.objectMapper = objectMapper;
+    String token = UUID.randomUUID().toString();
+    this.cookies = sessionCookies + "; " + CSRF_COOKIE + "=" + token;
+    this.csrfToken = maskCsrfToken(token);
+  }
+
+  /** 通过 {@code /api/v1/auth/login} 登录，保存返回的会话 Cookie */
+  static SimulatedUser login(
+      HttpClient http, URI baseUri, ObjectMapper objectMapper, Users user, String rawPassword)
+      throws IOException, InterruptedException {
+    HttpResponse<String> response =
+        http.send(
+            HttpRequest.newBuilder(baseUri.resolve("/api/v1/auth/login"))
+                .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .POST(
+                    HttpRequest.BodyPublishers.ofByteArray(
+                        objectMapper.writeValueAsBytes(
+                            Map.of("username", user.getUsername(), "password", rawPassword))))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+    expectSuccess(response);
+    String sessionCookies =
+        String.join(
+            "; ",
+            response.headers().allValues(HttpHeaders.SET_COOKIE).stream()
+                .map(cookie -> cookie.split(";", 2)[0])
+                .toList());
+    return new SimulatedUser(user.getId(), http, baseUri, objectMapper, sessionCookies);
+  }
+
+  long id() {
+    return id;
+  }
+
+  void addConversation(Conversation conversation) {
+    conversations.add(conversation);
+  }
+
+  Conversation randomConversation(RandomGenerator random) {
+    return conversations.get(random.nextInt(conversations.size()));
+  }
+
+  /** 建立 STOMP 连接，订阅发送回执、错误、私信和所在群的消息 */
+  void connect(WebSocketStompClient stompClient, String url) throws Exception {
+    WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+    headers.add(HttpHeaders.COOKIE, cookies);
+    stompSession =
+        stompClient
+            .connectAsync(url, headers, new StompSessionHandlerAdapter() {})
+            .get(10, TimeUnit.SECONDS);
+    String user = MessageDestinations.USER_PREFIX;
+    stompSession.subscribe(
+        user + MessageDestinations.USER_RECEIPTS, collect(MessageResponse.class));
+    stompSession.subscribe(user + MessageDestinations.USER_ERRORS, collect(Map.class));
+    // 接收推送的消息只为产生真实的出站流量，内容不需要检查
+    stompSession.subscribe(user + MessageDestinations.USER_MESSAGES, discard());
+    for (Conversation conversation : conversations) {
+      if (conversation.type() == ConversationType.GROUP) {
+        stompSession.subscribe(MessageDestinations.group(conversation.targetId()), discard());
+      }
+    }
+  }
+
+  void disconnect() {
+    if (stompSession != null && stompSession.isConnected()) {
+      stompSession.disconnect();
+    }
+  }
+
+  /** 通过 {@code ChatController} 创建群聊，返回群聊ID */
+  long createChat(String name) throws IOException, InterruptedException {
+    HttpResponse<String> response =
+        post(
+            "/api/v1/chats",
+            Map.of("name", name, "ownerId", id),
+            HttpResponse.BodyHandlers.ofString());
+    expectSuccess(response);
+    JsonNode chat = objectMapper.readTree(response.body());
+    return chat.get("id").asLong();
+  }
+
+  void addMember(long chatId, long userId) throws IOException, InterruptedException {
+    expectSuccess(
+        post(
+            "/api/v1/chats/" + chatId + "/members",
+            Map.of("userId", userId),
+            HttpResponse.BodyHandlers.discarding()));
+  }
+
+  /** 发送后等待回执，回执内容与本次发送一致才算完成，之前超时的发送迟到的回执会被跳过 */
+  void sendWebsocket(Conversation conversation, Duration timeout)
+      throws IOException, InterruptedException, TimeoutException {
+    String content = uniqueContent();
+    stompSession.send(MessageDestinations.APP_PREFIX + "/chat.send", conversation.request(content));
+    long deadline = System.nanoTime() + timeout.toNanos();
+    while (true) {
+      Object receipt = receipts.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+      if (receipt == null) {
+        throw new TimeoutException("No receipt within " + timeout);
+      }
+      if (receipt instanceof MessageResponse message
+          && content.equals(
+              objectMapper.readTree(message.content().json()).path("text").asText())) {
+        return;
+      }
+      if (receipt instanceof Map<?, ?> problem) {
+        throw new IllegalStateException("STOMP error " + problem);
+      }
+    }
+  }
+
+  void sendRest(Conversation conversation) throws IOException, InterruptedException {
+    expectSuccess(
+        post(
+            "/api/v1/messages",
+            conversation.request(uniqueContent()),
+            HttpResponse.BodyHandlers.discarding()));
+  }
+
+  void history(Conversation conversation) throws IOException, InterruptedException {
+    expectSuccess(get("/api/v1/conversations/" + conversation.id() + "/messages?size=50"));
+  }
+
+  void chats() throws IOException, InterruptedException {
+    expectSuccess(get("/api/v1/chats/scroll?size=20"));
+  }
+
+  private HttpResponse<Void> get(String path) throws IOException, InterruptedException {
+    return http.send(
+        HttpRequest.newBuilder(baseUri.resolve(path)).header(HttpHeaders.COOKIE, cookies).build(),
+        HttpResponse.BodyHandlers.discarding());
+  }
+
+  private <T> HttpResponse<T> post(String path, Object body, HttpResponse.BodyHandler<T> handler)
+      throws IOException, InterruptedException {
+    return http.send(
+        HttpRequest.newBuilder(baseUri.resolve(path))
+            .header(HttpHeaders.COOKIE, cookies)
+            .header(CSRF_HEADER, csrfToken)
+            .header(HttpHeaders.CONTENT_TYPE, "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+            .build(),
+        handler);
+  }
+
+  private String uniqueContent() {
+    return "workload " + UUID.randomUUID();
+  }
+
+  private StompFrameHandler collect(Class<?> type) {
+    return new StompFrameHandler() {
+      @Override
+      public Type getPayloadType(StompHeaders headers) {
+        return type;
+      }
+
+      @Override
+      public void handleFrame(StompHeaders headers, Object payload) {
+        receipts.add(payload);
+      }
+    };
+  }
+
+  private static StompFrameHandler discard() {
+    return new StompFrameHandler() {
+      @Override
+      public Type getPayloadType(StompHeaders headers) {
+        return byte[].class;
+      }
+
+      @Override
+      public void handleFrame(StompHeaders headers, Object payload) {
+        // 只接收，不处理
+      }
+    };
+  }
+
+  private static void expectSuccess(HttpResponse<?> response) {
+    if (response.statusCode() / 100 != 2) {
+      throw new IllegalStateException(
+          "Unexpected status " + response.statusCode() + " for " + response.uri());
+    }
+  }
+
+  /** 用服务端的处理器生成加掩码的令牌，与页面中读取到的令牌格式相同 */
+  private static String maskCsrfToken(String token) {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    new XorCsrfTokenRequestAttributeHandler()
+        .handle(
+            request,
+            new MockHttpServletResponse(),
+            () -> new DefaultCsrfToken(CSRF_HEADER, "_csrf", token));
+    return ((CsrfToken) request.getAttribute(CsrfToken.class.getName())).getToken();
+  }
+
+  /**
+   * 用户参与的会话
+   *
+   * @param targetId 私聊对方的用户ID或群聊ID，即发送消息时的 {@code receiverId}
+   */
+  record Conversation(ConversationType type, long targetId, String id) {
+
+    static Conversation direct(long userId, long otherUserId) {
+      return new Conversation(
+          ConversationType.PRIVATE, otherUserId, ConversationIds.direct(userId, otherUserId));
+    }
+
+    static Conversation group(long chatId) {
+      return new Conversation(ConversationType.GROUP, chatId, ConversationIds.group(chatId));
+    }
+
+    MessageRequest request(String content) {
+      return new MessageRequest(targetId, type, content, MessageType.TEXT, null);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package top.phakeandy.youchat.load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 负载模拟参数，通过系统属性 {@code workload.*} 覆盖，例如 {@code -Dworkload.users=100 -Dworkload.duration=2m}
+ *
+ * @param users 同时在线的模拟用户数
+ * @param contacts 每个用户的私聊对象数，私信和历史消息只在这些会话中进行
+ * @param groups 群聊数量
+ * @param groupSize 每个群的成员数（含群主）
+ * @param warmup 预热时长，期间的请求不计入报告
+ * @param duration 计入报告的测量时长
+ * @param thinkTime 同一用户两次操作之间的间隔
+ * @param receiptTimeout WebSocket 发送等待回执的超时，超时计为错误
+ * @param mix 各操作的权重
+ * @param slo 延迟与错误率目标，任一操作不满足时测试失败
+ * @param report JSON 报告的输出路径
+ */
+record WorkloadSettings(
+    @DefaultValue("20") int users,
+    @DefaultValue("5") int contacts,
+    @DefaultValue("4") int groups,
+    @DefaultValue("8") int groupSize,
+    @DefaultValue("5s") Duration warmup,
+    @DefaultValue("30s") Duration duration,
+    @DefaultValue("50ms") Duration thinkTime,
+    @DefaultValue("5s") Duration receiptTimeout,
+    @DefaultValue Mix mix,
+    @DefaultValue Slo slo,
+    @DefaultValue("target/workload-report.json") Path report) {
+
+  /** 各操作被选中的相对权重，为 0 时不执行该操作 */
+  record Mix(
+      @DefaultValue("40") int sendWebsocket,
+      @DefaultValue("20") int sendRest,
+      @DefaultValue("25") int history,
+      @DefaultValue("15") int chats) {
+
+    int weight(Operation operation) {
+      return switch (operation) {
+        case SEND_WEBSOCKET -> sendWebsocket;
+        case SEND_REST -> sendRest;
+        case HISTORY -> history;
+        case CHATS -> chats;
+      };
+    }
+
+    /** 按权重随机选择下一个操作 */
+    Operation next(RandomGenerator random) {
+      int remaining = random.nextInt(sendWebsocket + sendRest + history + chats);
+      for (Operation operation : Operation.values()) {
+        remaining -= weight(operation);
+        if (remaining < 0) {
+          return operation;
+        }
+      }
+      throw new IllegalStateException("Operation weights must not be negative");
+    }
+  }
+
+  /**
+   * @param p99 每种操作的 p99 延迟上限
+   * @param p999 每种操作的 p999 延迟上限
+   * @param errorRate 每种操作的错误率上限
+   */
+  record Slo(
+      @DefaultValue("500ms") Duration p99,
+      @DefaultValue("2s") Duration p999,
+      @DefaultValue("0.01") double errorRate) {}
+}
@@ -0,0 +1,156 @@
+package top.phakeandy.youchat.load;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * 按操作汇总延迟和错误数
+ *
+ * <p>延迟用 HdrHistogram 以微秒记录，保留 3 位有效数字，分位数的相对误差不超过 0.1%。{@link #startMeasuring} 之前发出的请求属于预热，
+ * 完成时间再晚也不计入。
+ */
+final class WorkloadStats {
+
+  private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+  private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+  private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+  private volatile long measureStartNanos = Long.MAX_VALUE;
+  private Instant startedAt;
+
+  WorkloadStats() {
+    for (Operation operation : Operation.values()) {
+      latencies.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+      errors.put(operation, new LongAdder());
+    }
+  }
+
+  void startMeasuring() {
+    startedAt = Instant.now();
+    measureStartNanos = System.nanoTime();
+  }
+
+  /** 超出可记录范围的延迟按上限记录，同样会让分位数超出目标 */
+  void success(Operation operation, long startNanos) {
+    if (startNanos >= measureStartNanos) {
+      long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+      latencies.get(operation).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+    }
+  }
+
+  void failure(Operation operation, long startNanos) {
+    if (startNanos >= measureStartNanos) {
+      errors.get(operation).increment();
+    }
+  }
+
+  /** 在所有用户线程结束后调用，测量时长截止到调用时刻 */
+  WorkloadReport report(WorkloadSettings settings) {
+    double seconds = (System.nanoTime() - measureStartNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+    Map<String, Integer> mix = new LinkedHashMap<>();
+    Map<String, OperationStats> operations = new LinkedHashMap<>();
+    List<String> violations = new ArrayList<>();
+    Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+    long totalErrors = 0;
+
+    for (Operation operation : Operation.values()) {
+      int weight = settings.mix().weight(operation);
+      mix.put(operation.reportName, weight);
+      if (weight == 0) {
+        continue;
+      }
+      Histogram histogram = latencies.get(operation);
+      long failed = errors.get(operation).sum();
+      OperationStats stats = OperationStats.of(histogram, failed, seconds);
+      operations.put(operation.reportName, stats);
+      violations.addAll(stats.violations(operation.reportName, settings.slo()));
+      total.add(histogram);
+      totalErrors += failed;
+    }
+
+    WorkloadSettings.Slo slo = settings.slo();
+    return new WorkloadReport(
+        startedAt,
+        seconds,
+        settings.users(),
+        mix,
+        operations,
+        OperationStats.of(total, totalErrors, seconds),
+        new SloResult(slo.p99().toMillis(), slo.p999().toMillis(), slo.errorRate(), violations));
+  }
+
+  /** 写入 JSON 的报告 */
+  record WorkloadReport(
+      Instant startedAt,
+      double durationSeconds,
+      int users,
+      Map<String, Integer> mix,
+      Map<String, OperationStats> operations,
+      OperationStats total,
+      SloResult slo) {}
+
+  /**
+   * @param requests 成功的请求数
+   * @param errors 失败的请求数，包括非 2xx 响应、超时和连接错误
+   * @param throughput 每秒成功的请求数
+   */
+  record OperationStats(
+      long requests, long errors, double errorRate, double throughput, Latency latencyMillis) {
+
+    static OperationStats of(Histogram histogram, long errors, double seconds) {
+      long requests = histogram.getTotalCount();
+      long attempts = requests + errors;
+      return new OperationStats(
+          requests,
+          errors,
+          attempts == 0 ? 0 : (double) errors / attempts,
+          requests / seconds,
+          new Latency(
+              millis(histogram.getValueAtPercentile(50)),
+              millis(histogram.getValueAtPercentile(99)),
+              millis(histogram.getValueAtPercentile(99.9)),
+              millis(histogram.getMaxValue())));
+    }
+
+    List<String> violations(String name, WorkloadSettings.Slo slo) {
+      List<String> violations = new ArrayList<>();
+      exceeds(violations, name + " p99", latencyMillis.p99(), slo.p99());
+      exceeds(violations, name + " p999", latencyMillis.p999(), slo.p999());
+      if (errorRate > slo.errorRate()) {
+        violations.add("%s error rate %.4f > %.4f".formatted(name, errorRate, slo.errorRate()));
+      }
+      return violations;
+    }
+
+    private static void exceeds(
+        List<String> violations, String metric, double actualMillis, Duration limit) {
+      if (actualMillis > limit.toMillis()) {
+        violations.add("%s %.1fms > %dms".formatted(metric, actualMillis, limit.toMillis()));
+      }
+    }
+
+    private static double millis(long micros) {
+      return micros / 1000.0;
+    }
+  }
+
+  record Latency(double p50, double p99, double p999, double max) {}
+
+  /** 目标值和未满足的项，{@code violations} 为空表示全部达标 */
+  record SloResult(long p99Millis, long p999Millis, double errorRate, List<String> violations) {
+
+    public boolean isPassed() {
+      return violations.isEmpty();
+    }
+  }
+}
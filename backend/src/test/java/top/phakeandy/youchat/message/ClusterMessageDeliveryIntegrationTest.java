@@ -0,0 +1,203 @@
+package top.phakeandy.youchat.message;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.common.RawJson;
+import top.phakeandy.youchat.mapper.ChatGroupsMapper;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.model.ChatGroups;
+import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.test.TestDataFaker;
+
+/** 模拟其他节点直接向 Redis 发布消息，验证本节点按订阅情况监听频道并转发给本地客户端 */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("integration-test")
+@Testcontainers
+class ClusterMessageDeliveryIntegrationTest {
+
+  private static final String RAW_PASSWORD = "password123";
+
+  @Container @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:latest");
+
+  @Container
+  @ServiceConnection
+  @SuppressWarnings("resource")
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:latest").withExposedPorts(6379);
+
+  @LocalServerPort private int port;
+
+  @Autowired private TestRestTemplate restTemplate;
+  @Autowired private ObjectMapper objectMapper;
+  @Autowired private StringRedisTemplate redisTemplate;
+  @Autowired private ClusterChannels channels;
+  @Autowired private UsersMapper usersMapper;
+  @Autowired private ChatGroupsMapper chatGroupsMapper;
+  @Autowired private PasswordEncoder passwordEncoder;
+
+  private WebSocketStompClient stompClient;
+  private Users receiver;
+
+  @BeforeEach
+  void setup() {
+    stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+    MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+    converter.setObjectMapper(objectMapper);
+    stompClient.setMessageConverter(converter);
+    receiver = insertRandomUser();
+  }
+
+  @AfterEach
+  void tearDown() {
+    stompClient.stop();
+  }
+
+  @Test
+  void shouldForwardMessagePublishedByAnotherNodeToLocalSubscriber() throws Exception {
+    StompSession session = connect(receiver);
+    BlockingQueue<MessageResponse> inbox =
+        subscribe(session, MessageDestinations.USER_PREFIX + MessageDestinations.USER_MESSAGES);
+    MessageResponse message = remoteMessage(receiver.getId());
+
+    String channel = channels.user(receiver.getId());
+    // 订阅生效之前发布的消息不会被本节点收到
+    assertThat(publishUntil(channel, MessageDestinations.USER_MESSAGES, message, 1)).isEqualTo(1);
+
+    MessageResponse delivered = inbox.poll(5, TimeUnit.SECONDS);
+    assertThat(delivered).isNotNull();
+    assertThat(delivered.messageId()).isEqualTo(message.messageId());
+  }
+
+  @Test
+  void shouldOnlyListenOnChannelsWithLocalSubscribers() throws Exception {
+    // 群聊订阅需要成员身份，群主可以订阅
+    ChatGroups group = new ChatGroups();
+    group.setName("跨节点测试群聊");
+    group.setOwnerId(receiver.getId());
+    chatGroupsMapper.insertSelective(group);
+    long groupId = group.getId();
+    String channel = channels.group(groupId);
+    String destination = MessageDestinations.group(groupId);
+    MessageResponse message = remoteMessage(groupId);
+    assertThat(publish(channel, destination, message)).isZero();
+
+    StompSession session = connect(receiver);
+    subscribe(session, destination);
+    assertThat(publishUntil(channel, destination, message, 1)).isEqualTo(1);
+
+    session.disconnect();
+    assertThat(publishUntil(channel, destination, message, 0)).isZero();
+  }
+
+  /** 重复发布直到频道的监听节点数达到预期，超时后返回最后一次的结果 */
+  private long publishUntil(
+      String channel, String destination, MessageResponse message, long expected) throws Exception {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    long receivers = publish(channel, destination, message);
+    while (receivers != expected && System.nanoTime() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(50);
+      receivers = publish(channel, destination, message);
+    }
+    return receivers;
+  }
+
+  private long publish(String channel, String destination, MessageResponse message)
+      throws Exception {
+    ClusterEnvelope envelope = new ClusterEnvelope(destination, objectMapper.valueToTree(message));
+    Long receivers =
+        redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(envelope));
+    return receivers == null ? 0 : receivers;
+  }
+
+  private static MessageResponse remoteMessage(long receiverId) {
+    return new MessageResponse(
+        "1",
+        ConversationIds.direct(0, receiverId),
+        "0",
+        "remote",
+        String.valueOf(receiverId),
+        RawJson.of("{\"text\": \"来自其他节点\"}"),
+        MessageType.TEXT,
+        LocalDateTime.now(),
+        "SENT");
+  }
+
+  private StompSession connect(Users user) throws Exception {
+    ResponseEntity<String> login =
+        restTemplate.postForEntity(
+            "/api/v1/auth/login",
+            Map.of("username", user.getUsername(), "password", RAW_PASSWORD),
+            String.class);
+    assertThat(login.getStatusCode().is2xxSuccessful()).isTrue();
+
+    WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+    headers.put(HttpHeaders.COOKIE, login.getHeaders().get(HttpHeaders.SET_COOKIE));
+    return stompClient
+        .connectAsync(
+            "ws://localhost:" + port + "/ws", headers, new StompSessionHandlerAdapter() {})
+        .get(5, TimeUnit.SECONDS);
+  }
+
+  private static BlockingQueue<MessageResponse> subscribe(
+      StompSession session, String destination) {
+    BlockingQueue<MessageResponse> queue = new LinkedBlockingQueue<>();
+    session.subscribe(
+        destination,
+        new StompFrameHandler() {
+          @Override
+          public Type getPayloadType(StompHeaders headers) {
+            return MessageResponse.class;
+          }
+
+          @Override
+          public void handleFrame(StompHeaders headers, Object payload) {
+            queue.add((MessageResponse) payload);
+          }
+        });
+    return queue;
+  }
+
+  private Users insertRandomUser() {
+    Users user = TestDataFaker.createRandomUser(passwordEncoder);
+    usersMapper.insertSelective(user);
+    return usersMapper
+        .selectOne(c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(user.getUsername())))
+        .orElseThrow();
+  }
+}
@@ -0,0 +1,251 @@
+package top.phakeandy.youchat.message;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.auth.CustomUserDetails;
+import top.phakeandy.youchat.common.RawJson;
+import top.phakeandy.youchat.mapper.MessagesMapper;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.model.Messages;
+import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.test.TestDataFaker;
+
+// 导出接口在异步线程中读取数据，测试数据必须提交后才能被看到，因此不使用 @Transactional
+// 导出每页 2 条，让最后两条同一时间的消息分在不同页；同时只允许一个导出
+@SpringBootTest(
+    properties = {"youchat.message.export.page-size=2", "youchat.message.export.max-concurrent=1"})
+@AutoConfigureWebMvc
+@ActiveProfiles("integration-test")
+@Testcontainers
+class ConversationControllerIntegrationTest {
+
+  private static final int MESSAGE_COUNT = 5;
+
+  @Container @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:latest");
+
+  @Container
+  @ServiceConnection
+  @SuppressWarnings("resource")
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:latest").withExposedPorts(6379);
+
+  @Autowired private WebApplicationContext context;
+  @Autowired private UsersMapper usersMapper;
+  @Autowired private MessagesMapper messagesMapper;
+  @Autowired private MessageIdGenerator messageIdGenerator;
+  @Autowired private ConversationRegistry conversationRegistry;
+  @Autowired private PasswordEncoder passwordEncoder;
+  @Autowired private ObjectMapper objectMapper;
+
+  private MockMvc mockMvc;
+  private CustomUserDetails sender;
+  private Users receiver;
+  private String conversationId;
+
+  @BeforeEach
+  void setup() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+    sender = CustomUserDetails.fromUsers(insertRandomUser());
+    receiver = insertRandomUser();
+    conversationId = ConversationIds.direct(sender.getId(), receiver.getId());
+
+    // 最后两条消息时间相同，验证翻页依靠 id 区分先后
+    OffsetDateTime base = OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    List<Messages> rows = new ArrayList<>();
+    for (int i = 0; i < MESSAGE_COUNT; i++) {
+      Messages row = new Messages();
+      row.setId(messageIdGenerator.nextId());
+      row.setConversationId(conversationRegistry.register(conversationId));
+      row.setSenderId(sender.getId());
+      row.setType("text");
+      row.setContent(RawJson.of("{\"text\": \"消息" + i + "\"}"));
+      row.setCreatedAt(base.plusSeconds(Math.min(i, MESSAGE_COUNT - 2)));
+      row.setUpdatedAt(row.getCreatedAt());
+      rows.add(row);
+    }
+    messagesMapper.insertMultiple(rows);
+  }
+
+  @Test
+  void shouldPageBackwardsFromLatestInChronologicalOrder() throws Exception {
+    String firstPage =
+        mockMvc
+            .perform(
+                get("/api/v1/conversations/{id}/messages", conversationId)
+                    .param("size", "2")
+                    .with(user(sender)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content[0].content.text").value("消息3"))
+            .andExpect(jsonPath("$.content[1].content.text").value("消息4"))
+            .andExpect(jsonPath("$.content[1].senderUsername").value(sender.getUsername()))
+            .andExpect(jsonPath("$.content[1].receiverId").value(String.valueOf(receiver.getId())))
+            .andExpect(jsonPath("$.hasNext").value(true))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    mockMvc
+        .perform(
+            get("/api/v1/conversations/{id}/messages", conversationId)
+                .param("size", "2")
+                .param("cursor", objectMapper.readTree(firstPage).get("nextCursor").asText())
+                .with(user(sender)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[0].content.text").value("消息1"))
+        .andExpect(jsonPath("$.content[1].content.text").value("消息2"));
+  }
+
+  @Test
+  void shouldPageForwardsFromOldest() throws Exception {
+    String firstPage =
+        mockMvc
+            .perform(
+                get("/api/v1/conversations/{id}/messages", conversationId)
+                    .param("direction", "AFTER")
+                    .param("size", "4")
+                    .with(user(sender)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content[0].content.text").value("消息0"))
+            .andExpect(jsonPath("$.content[3].content.text").value("消息3"))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    mockMvc
+        .perform(
+            get("/api/v1/conversations/{id}/messages", conversationId)
+                .param("direction", "AFTER")
+                .param("size", "4")
+                .param("cursor", objectMapper.readTree(firstPage).get("nextCursor").asText())
+                .with(user(sender)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content.length()").value(1))
+        .andExpect(jsonPath("$.content[0].content.text").value("消息4"))
+        .andExpect(jsonPath("$.hasNext").value(false))
+        .andExpect(jsonPath("$.nextCursor").doesNotExist());
+  }
+
+  @Test
+  void shouldStreamWholeConversationAsNdjson() throws Exception {
+    MvcResult result =
+        mockMvc
+            .perform(
+                get("/api/v1/conversations/{id}/messages/export", conversationId)
+                    .with(user(sender)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    String body =
+        mockMvc
+            .perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+            .andReturn()
+            .getResponse()
+            .getContentAsString(StandardCharsets.UTF_8);
+
+    List<String> lines = body.lines().toList();
+    assertThat(lines).hasSize(MESSAGE_COUNT);
+    for (int i = 0; i < MESSAGE_COUNT; i++) {
+      JsonNode line = objectMapper.readTree(lines.get(i));
+      assertThat(line.get("content").get("text").asText()).isEqualTo("消息" + i);
+    }
+  }
+
+  @Test
+  void shouldReturn503_whenTooManyExportsAreRunning() throws Exception {
+    // 异步处理结束前名额一直被占用
+    MvcResult running =
+        mockMvc
+            .perform(
+                get("/api/v1/conversations/{id}/messages/export", conversationId)
+                    .with(user(sender)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    mockMvc
+        .perform(
+            get("/api/v1/conversations/{id}/messages/export", conversationId).with(user(sender)))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+        .andExpect(jsonPath("$.title").value("服务繁忙"));
+
+    mockMvc.perform(asyncDispatch(running)).andExpect(status().isOk());
+    MvcResult next =
+        mockMvc
+            .perform(
+                get("/api/v1/conversations/{id}/messages/export", conversationId)
+                    .with(user(sender)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    mockMvc.perform(asyncDispatch(next)).andExpect(status().isOk());
+  }
+
+  @Test
+  void shouldReturn403_whenUserIsNotParticipant() throws Exception {
+    CustomUserDetails outsider = CustomUserDetails.fromUsers(insertRandomUser());
+
+    mockMvc
+        .perform(get("/api/v1/conversations/{id}/messages", conversationId).with(user(outsider)))
+        .andExpect(status().isForbidden());
+    mockMvc
+        .perform(
+            get("/api/v1/conversations/{id}/messages/export", conversationId).with(user(outsider)))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  @WithAnonymousUser
+  void shouldReturn401_whenUserIsNotAuthenticated() throws Exception {
+    mockMvc
+        .perform(get("/api/v1/conversations/{id}/messages", conversationId))
+        .andExpect(status().isUnauthorized());
+  }
+
+  private Users insertRandomUser() {
+    Users user = TestDataFaker.createRandomUser(passwordEncoder);
+    usersMapper.insertSelective(user);
+    return usersMapper
+        .selectOne(c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(user.getUsername())))
+        .orElseThrow();
+  }
+}
@@ -0,0 +1,264 @@
+package top.phakeandy.youchat.message;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+import static org.mybatis.dynamic.sql.SqlBuilder.isIn;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.auth.CustomUserDetails;
+import top.phakeandy.youchat.mapper.ChatGroupsMapper;
+import top.phakeandy.youchat.mapper.MessagesDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.MessagesMapper;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.model.ChatGroups;
+import top.phakeandy.youchat.model.Messages;
+import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.test.TestDataFaker;
+
+// 消息由后台线程异步写入，测试数据必须提交后才能被写入线程看到，因此不使用 @Transactional
+@SpringBootTest
+@AutoConfigureWebMvc
+@ActiveProfiles("integration-test")
+@Testcontainers
+class MessageControllerIntegrationTest {
+
+  @Container @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:latest");
+
+  @Container
+  @ServiceConnection
+  @SuppressWarnings("resource")
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:latest").withExposedPorts(6379);
+
+  @Autowired private WebApplicationContext context;
+  @Autowired private UsersMapper usersMapper;
+  @Autowired private PasswordEncoder passwordEncoder;
+  @Autowired private ChatGroupsMapper chatGroupsMapper;
+  @Autowired private ConversationMapper conversationMapper;
+  @Autowired private MessagesMapper messagesMapper;
+  @Autowired private ObjectMapper objectMapper;
+
+  private MockMvc mockMvc;
+  private CustomUserDetails sender;
+  private Users receiver;
+
+  @BeforeEach
+  void setup() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+    sender = CustomUserDetails.fromUsers(insertRandomUser());
+    receiver = insertRandomUser();
+  }
+
+  @Test
+  void shouldAcceptMessageWithServerAssignedId_whenUserIsAuthenticated() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/v1/messages")
+                .with(user(sender))
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    """
+                    {
+                      "receiverId": %d,
+                      "content": "你好",
+                      "messageType": "TEXT"
+                    }
+                    """
+                        .formatted(receiver.getId())))
+        .andExpect(status().isAccepted())
+        .andExpect(jsonPath("$.messageId").exists())
+        .andExpect(
+            jsonPath("$.conversationId")
+                .value(ConversationIds.direct(sender.getId(), receiver.getId())))
+        .andExpect(jsonPath("$.senderId").value(String.valueOf(sender.getId())))
+        .andExpect(jsonPath("$.messageStatus").value("SENT"));
+  }
+
+  @Test
+  void shouldWriteAcceptedMessagesToDatabase() throws Exception {
+    List<Long> ids = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      String body =
+          mockMvc
+              .perform(
+                  post("/api/v1/messages")
+                      .with(user(sender))
+                      .with(csrf())
+                      .contentType(MediaType.APPLICATION_JSON)
+                      .content(
+                          """
+                          {
+                            "receiverId": %d,
+                            "content": "消息%d",
+                            "messageType": "TEXT"
+                          }
+                          """
+                              .formatted(receiver.getId(), i)))
+              .andExpect(status().isAccepted())
+              .andReturn()
+              .getResponse()
+              .getContentAsString();
+      ids.add(Long.parseLong(objectMapper.readTree(body).get("messageId").asText()));
+    }
+
+    // 确认先于落库返回，行由写入线程稍后批量插入
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (countMessages(ids) < ids.size() && System.nanoTime() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(50);
+    }
+    assertThat(countMessages(ids)).isEqualTo(ids.size());
+    Messages first =
+        messagesMapper
+            .selectOne(c -> c.where(MessagesDynamicSqlSupport.id, isEqualTo(ids.getFirst())))
+            .orElseThrow();
+    assertThat(first.getSenderId()).isEqualTo(sender.getId());
+    assertThat(first.getContent().json()).contains("消息0");
+  }
+
+  @Test
+  void shouldReturn403AndNotRegisterConversation_whenSenderIsNotGroupMember() throws Exception {
+    ChatGroups group = insertGroupOwnedBy(receiver);
+
+    mockMvc
+        .perform(
+            post("/api/v1/messages")
+                .with(user(sender))
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(groupMessage(group.getId())))
+        .andExpect(status().isForbidden())
+        .andExpect(jsonPath("$.title").value("无权访问会话"));
+
+    assertThat(conversationMapper.selectId(ConversationIds.group(group.getId()))).isEmpty();
+  }
+
+  @Test
+  void shouldReturn403_whenGroupDoesNotExist() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/v1/messages")
+                .with(user(sender))
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(groupMessage(Long.MAX_VALUE)))
+        .andExpect(status().isForbidden());
+
+    assertThat(conversationMapper.selectId(ConversationIds.group(Long.MAX_VALUE))).isEmpty();
+  }
+
+  @Test
+  void shouldAcceptGroupMessage_whenSenderIsGroupOwner() throws Exception {
+    ChatGroups group = insertGroupOwnedBy(receiver);
+
+    mockMvc
+        .perform(
+            post("/api/v1/messages")
+                .with(user(CustomUserDetails.fromUsers(receiver)))
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(groupMessage(group.getId())))
+        .andExpect(status().isAccepted())
+        .andExpect(jsonPath("$.conversationId").value(ConversationIds.group(group.getId())));
+  }
+
+  @Test
+  void shouldReturn400_whenMessageRequestIsInvalid() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/v1/messages")
+                .with(user(sender))
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    """
+                    {
+                      "content": "",
+                      "messageType": "TEXT"
+                    }
+                    """))
+        .andExpect(status().isBadRequest())
+        .andExpect(header().doesNotExist("Retry-After"));
+  }
+
+  @Test
+  @WithAnonymousUser
+  void shouldReturn401_whenUserIsNotAuthenticated() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/v1/messages")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    """
+                    {
+                      "receiverId": 1,
+                      "content": "你好",
+                      "messageType": "TEXT"
+                    }
+                    """))
+        .andExpect(status().isUnauthorized());
+  }
+
+  private long countMessages(List<Long> ids) {
+    return messagesMapper.count(c -> c.where(MessagesDynamicSqlSupport.id, isIn(ids)));
+  }
+
+  private ChatGroups insertGroupOwnedBy(Users owner) {
+    ChatGroups group = new ChatGroups();
+    group.setName("测试群聊");
+    group.setOwnerId(owner.getId());
+    chatGroupsMapper.insertSelective(group);
+    return group;
+  }
+
+  private static String groupMessage(long groupId) {
+    return """
+        {
+          "receiverId": %d,
+          "conversationType": "GROUP",
+          "content": "大家好",
+          "messageType": "TEXT"
+        }
+        """
+        .formatted(groupId);
+  }
+
+  private Users insertRandomUser() {
+    Users user = TestDataFaker.createRandomUser(passwordEncoder);
+    usersMapper.insertSelective(user);
+    return usersMapper
+        .selectOne(c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(user.getUsername())))
+        .orElseThrow();
+  }
+}
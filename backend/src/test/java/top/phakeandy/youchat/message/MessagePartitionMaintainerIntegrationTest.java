@@ -0,0 +1,160 @@
+package top.phakeandy.youchat.message;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.common.RawJson;
+import top.phakeandy.youchat.mapper.MessagesDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.MessagesMapper;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.model.Messages;
+import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.test.TestDataFaker;
+
+// DETACH PARTITION CONCURRENTLY 不能在事务中执行，因此不使用 @Transactional
+@SpringBootTest(properties = "youchat.message.partitions.retained-months=12")
+@ActiveProfiles("integration-test")
+@Testcontainers
+class MessagePartitionMaintainerIntegrationTest {
+
+  @Container @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:latest");
+
+  @Container
+  @ServiceConnection
+  @SuppressWarnings("resource")
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:latest").withExposedPorts(6379);
+
+  @Autowired private MessagePartitionMaintainer maintainer;
+  @Autowired private MessagePartitionMapper partitionMapper;
+  @Autowired private MessagesMapper messagesMapper;
+  @Autowired private UsersMapper usersMapper;
+  @Autowired private MessageIdGenerator messageIdGenerator;
+  @Autowired private ConversationRegistry conversationRegistry;
+  @Autowired private PasswordEncoder passwordEncoder;
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private DataSource dataSource;
+
+  @Test
+  void shouldPremakeUpcomingPartitions() {
+    maintainer.maintain();
+
+    YearMonth current = YearMonth.now(ZoneOffset.UTC);
+    assertThat(partitionMapper.selectPartitionNames())
+        .contains(partitionName(current), partitionName(current.plusMonths(3)));
+    assertThat(partitionMapper.createPartition(current.atDay(1))).isFalse();
+  }
+
+  @Test
+  void shouldDetachPartitionsOlderThanRetention_andKeepTheirRows() {
+    YearMonth expired = YearMonth.now(ZoneOffset.UTC).minusMonths(24);
+    assertThat(partitionMapper.createPartition(expired.atDay(1))).isTrue();
+    long messageId = insertMessageAt(expired.atDay(15).atStartOfDay().atOffset(ZoneOffset.UTC));
+
+    maintainer.maintain();
+
+    assertThat(partitionMapper.selectPartitionNames()).doesNotContain(partitionName(expired));
+    assertThat(
+            messagesMapper.count(c -> c.where(MessagesDynamicSqlSupport.id, isEqualTo(messageId))))
+        .isZero();
+    Long archived =
+        jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM " + partitionName(expired) + " WHERE id = ?",
+            Long.class,
+            messageId);
+    assertThat(archived).isEqualTo(1);
+  }
+
+  @Test
+  void shouldFinalizeInterruptedDetach() throws Exception {
+    YearMonth expired = YearMonth.now(ZoneOffset.UTC).minusMonths(30);
+    String partition = partitionName(expired);
+    assertThat(partitionMapper.createPartition(expired.atDay(1))).isTrue();
+    long messageId = insertMessageAt(expired.atDay(15).atStartOfDay().atOffset(ZoneOffset.UTC));
+
+    // 未结束的事务持有分区上的锁，CONCURRENTLY 分离标记等待分离后停在第二阶段，此时取消语句模拟分离被中断
+    try (Connection reader = dataSource.getConnection();
+        Statement statement = reader.createStatement()) {
+      reader.setAutoCommit(false);
+      statement.execute("SELECT COUNT(*) FROM messages");
+
+      CompletableFuture<Void> detach =
+          CompletableFuture.runAsync(() -> partitionMapper.detachPartition(partition));
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (!partitionMapper.selectDetachPendingPartitionNames().contains(partition)
+          && System.nanoTime() < deadline) {
+        TimeUnit.MILLISECONDS.sleep(50);
+      }
+      assertThat(partitionMapper.selectDetachPendingPartitionNames()).contains(partition);
+      jdbcTemplate.queryForList(
+          "SELECT pg_cancel_backend(pid) FROM pg_stat_activity WHERE query LIKE ?",
+          "ALTER TABLE messages DETACH PARTITION " + partition + "%");
+      assertThatThrownBy(() -> detach.get(10, TimeUnit.SECONDS))
+          .isInstanceOf(ExecutionException.class)
+          .hasCauseInstanceOf(DataAccessException.class);
+      reader.commit();
+    }
+
+    // 等待分离的分区无法再以 CONCURRENTLY 方式分离，维护时以 FINALIZE 完成
+    maintainer.maintain();
+
+    assertThat(partitionMapper.selectPartitionNames()).doesNotContain(partition);
+    assertThat(partitionMapper.selectDetachPendingPartitionNames()).isEmpty();
+    Long archived =
+        jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM " + partition + " WHERE id = ?", Long.class, messageId);
+    assertThat(archived).isEqualTo(1);
+  }
+
+  private long insertMessageAt(OffsetDateTime createdAt) {
+    Users sender = TestDataFaker.createRandomUser(passwordEncoder);
+    usersMapper.insertSelective(sender);
+    long senderId =
+        usersMapper
+            .selectOne(
+                c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(sender.getUsername())))
+            .orElseThrow()
+            .getId();
+
+    Messages row = new Messages();
+    row.setId(messageIdGenerator.nextId());
+    row.setConversationId(
+        conversationRegistry.register(ConversationIds.direct(senderId, senderId + 1)));
+    row.setSenderId(senderId);
+    row.setType("text");
+    row.setContent(RawJson.of("{\"text\": \"归档\"}"));
+    row.setCreatedAt(createdAt);
+    row.setUpdatedAt(createdAt);
+    messagesMapper.insert(row);
+    return row.getId();
+  }
+
+  private static String partitionName(YearMonth month) {
+    return "messages_%d_%02d".formatted(month.getYear(), month.getMonthValue());
+  }
+}
@@ -0,0 +1,209 @@
+package top.phakeandy.youchat.message;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+import static org.mybatis.dynamic.sql.SqlBuilder.isIn;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.common.RawJson;
+import top.phakeandy.youchat.config.WorkerThreads;
+import top.phakeandy.youchat.mapper.MessagesDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.MessagesMapper;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.message.exception.MessageBackpressureException;
+import top.phakeandy.youchat.model.Messages;
+import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.test.TestDataFaker;
+
+// 每个测试创建独立的缓冲区，写入真实数据库，不影响上下文中的共享实例
+@SpringBootTest
+@ActiveProfiles("integration-test")
+@Testcontainers
+class MessageWriteBufferIntegrationTest {
+
+  @Container @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:latest");
+
+  @Container
+  @ServiceConnection
+  @SuppressWarnings("resource")
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:latest").withExposedPorts(6379);
+
+  @Autowired private MessagesMapper messagesMapper;
+  @Autowired private UsersMapper usersMapper;
+  @Autowired private MessageIdGenerator messageIdGenerator;
+  @Autowired private ConversationRegistry conversationRegistry;
+  @Autowired private WorkerThreads workerThreads;
+  @Autowired private PasswordEncoder passwordEncoder;
+
+  private final List<Integer> persistedBatches = new CopyOnWriteArrayList<>();
+  private long senderId;
+  private long conversationId;
+
+  @BeforeEach
+  void setup() {
+    senderId = insertRandomUser().getId();
+    long receiverId = insertRandomUser().getId();
+    conversationId = conversationRegistry.register(ConversationIds.direct(senderId, receiverId));
+  }
+
+  @Test
+  void shouldFlushQueuedMessagesInBatches() throws InterruptedException {
+    MessageWriteBuffer buffer =
+        newBuffer(
+            new MessageProperties.WriteBehind(
+                100, 3, Duration.ofMillis(500), Duration.ofMillis(100), Duration.ofSeconds(5)),
+            recordingPublisher());
+    buffer.start();
+
+    List<Long> ids = enqueue(buffer, 7);
+
+    awaitPersisted(ids);
+    buffer.stop();
+    assertThat(persistedBatches).containsExactly(3, 3, 1);
+  }
+
+  @Test
+  void shouldDrainQueueOnStop() {
+    MessageWriteBuffer buffer =
+        newBuffer(
+            new MessageProperties.WriteBehind(
+                100, 100, Duration.ofMillis(200), Duration.ofMillis(100), Duration.ofSeconds(5)),
+            recordingPublisher());
+    buffer.start();
+
+    List<Long> ids = enqueue(buffer, 5);
+    buffer.stop();
+
+    assertThat(countPersisted(ids)).isEqualTo(ids.size());
+    assertThatThrownBy(() -> buffer.enqueue(newMessage()))
+        .isInstanceOf(MessageBackpressureException.class);
+  }
+
+  @Test
+  void shouldRejectWith503_whenQueueIsFull() throws InterruptedException {
+    // 写入线程写完第一批后阻塞在事件监听器中，后续消息只能留在队列里
+    CountDownLatch writerBlocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ApplicationEventPublisher blockingPublisher =
+        event -> {
+          writerBlocked.countDown();
+          try {
+            release.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        };
+    MessageWriteBuffer buffer =
+        newBuffer(
+            new MessageProperties.WriteBehind(
+                2, 1, Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofSeconds(5)),
+            blockingPublisher);
+    buffer.start();
+
+    List<Long> ids = new ArrayList<>(enqueue(buffer, 1));
+    assertThat(writerBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+    ids.addAll(enqueue(buffer, 2));
+
+    assertThatThrownBy(() -> buffer.enqueue(newMessage()))
+        .isInstanceOfSatisfying(
+            MessageBackpressureException.class,
+            e -> {
+              assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+              assertThat(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+            });
+
+    release.countDown();
+    buffer.stop();
+    assertThat(countPersisted(ids)).isEqualTo(ids.size());
+  }
+
+  private MessageWriteBuffer newBuffer(
+      MessageProperties.WriteBehind writeBehind, ApplicationEventPublisher publisher) {
+    MessageProperties properties =
+        new MessageProperties(
+            0,
+            writeBehind,
+            false,
+            new MessageProperties.Partitions(3, 0, Duration.ofHours(1)),
+            new MessageProperties.Export(1000, 4));
+    return new MessageWriteBuffer(
+        messagesMapper, publisher, properties, workerThreads, new SimpleMeterRegistry());
+  }
+
+  private ApplicationEventPublisher recordingPublisher() {
+    return event -> {
+      if (event instanceof MessagesPersistedEvent persisted) {
+        persistedBatches.add(persisted.messages().size());
+      }
+    };
+  }
+
+  private List<Long> enqueue(MessageWriteBuffer buffer, int count) {
+    List<Long> ids = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Messages message = newMessage();
+      buffer.enqueue(message);
+      ids.add(message.getId());
+    }
+    return ids;
+  }
+
+  private Messages newMessage() {
+    OffsetDateTime now = OffsetDateTime.now();
+    Messages message = new Messages();
+    message.setId(messageIdGenerator.nextId());
+    message.setConversationId(conversationId);
+    message.setSenderId(senderId);
+    message.setType("text");
+    message.setContent(RawJson.of("{\"text\": \"批量写入\"}"));
+    message.setCreatedAt(now);
+    message.setUpdatedAt(now);
+    return message;
+  }
+
+  private long countPersisted(List<Long> ids) {
+    return messagesMapper.count(c -> c.where(MessagesDynamicSqlSupport.id, isIn(ids)));
+  }
+
+  private void awaitPersisted(List<Long> ids) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (countPersisted(ids) < ids.size() && System.nanoTime() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(50);
+    }
+    assertThat(countPersisted(ids)).isEqualTo(ids.size());
+  }
+
+  private Users insertRandomUser() {
+    Users user = TestDataFaker.createRandomUser(passwordEncoder);
+    usersMapper.insertSelective(user);
+    return usersMapper
+        .selectOne(c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(user.getUsername())))
+        .orElseThrow();
+  }
+}
@@ -0,0 +1,153 @@
+package top.phakeandy.youchat.read;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.common.RawJson;
+import top.phakeandy.youchat.config.WorkerThreads;
+import top.phakeandy.youchat.mapper.ConversationReadStatesDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.ConversationReadStatesMapper;
+import top.phakeandy.youchat.mapper.MessagesMapper;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.message.ConversationAccessService;
+import top.phakeandy.youchat.message.ConversationIds;
+import top.phakeandy.youchat.message.ConversationRegistry;
+import top.phakeandy.youchat.message.MessageIdGenerator;
+import top.phakeandy.youchat.model.ConversationReadStates;
+import top.phakeandy.youchat.model.Messages;
+import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.test.TestDataFaker;
+
+// 合并缓冲区在自己的线程中写入，测试数据必须提交后才能被看到，因此不使用 @Transactional
+@SpringBootTest
+@ActiveProfiles("integration-test")
+@Testcontainers
+class ReadReceiptCoalescerIntegrationTest {
+
+  @Container @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:latest");
+
+  @Container
+  @ServiceConnection
+  @SuppressWarnings("resource")
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:latest").withExposedPorts(6379);
+
+  @Autowired private ReadStateMapper readStateMapper;
+  @Autowired private ConversationAccessService conversationAccessService;
+  @Autowired private ReadReceiptPublisher readReceiptPublisher;
+  @Autowired private UnreadCounterService unreadCounterService;
+  @Autowired private WorkerThreads workerThreads;
+  @Autowired private ConversationReadStatesMapper conversationReadStatesMapper;
+  @Autowired private MessagesMapper messagesMapper;
+  @Autowired private UsersMapper usersMapper;
+  @Autowired private MessageIdGenerator messageIdGenerator;
+  @Autowired private ConversationRegistry conversationRegistry;
+  @Autowired private PasswordEncoder passwordEncoder;
+
+  private Users reader;
+  private String conversationId;
+  private List<Messages> messages;
+
+  @BeforeEach
+  void setup() {
+    Users sender = insertRandomUser();
+    reader = insertRandomUser();
+    conversationId = ConversationIds.direct(sender.getId(), reader.getId());
+
+    messages = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Messages row = new Messages();
+      row.setId(messageIdGenerator.nextId());
+      row.setConversationId(conversationRegistry.register(conversationId));
+      row.setSenderId(sender.getId());
+      row.setType("text");
+      row.setContent(RawJson.of("{\"text\": \"消息" + i + "\"}"));
+      row.setCreatedAt(OffsetDateTime.now());
+      row.setUpdatedAt(row.getCreatedAt());
+      messages.add(row);
+    }
+    messagesMapper.insertMultiple(messages);
+  }
+
+  @Test
+  void shouldWritePendingAcksOnStop() {
+    // 写入间隔远大于测试时长，水位只可能由 stop() 的最后一轮写入落库
+    ReadReceiptCoalescer coalescer = newCoalescer();
+    coalescer.start();
+
+    coalescer.ack(reader.getId(), conversationId, messages.get(1).getId());
+    coalescer.ack(reader.getId(), conversationId, messages.get(0).getId());
+    assertThat(watermark()).isEmpty();
+
+    coalescer.stop();
+
+    assertThat(watermark())
+        .map(ConversationReadStates::getLastReadMessageId)
+        .contains(messages.get(1).getId());
+  }
+
+  @Test
+  void shouldClampWatermarkToLatestMessage_whenAckIsAheadOfConversation() {
+    ReadReceiptCoalescer coalescer = newCoalescer();
+
+    coalescer.ack(reader.getId(), conversationId, Long.MAX_VALUE);
+    coalescer.flush();
+
+    assertThat(watermark())
+        .map(ConversationReadStates::getLastReadMessageId)
+        .contains(messages.get(2).getId());
+  }
+
+  private ReadReceiptCoalescer newCoalescer() {
+    return new ReadReceiptCoalescer(
+        readStateMapper,
+        conversationAccessService,
+        readReceiptPublisher,
+        unreadCounterService,
+        new ReadProperties(
+            Duration.ofHours(1),
+            500,
+            Duration.ofSeconds(5),
+            new ReadProperties.Unread(
+                "youchat:unread:", Duration.ofDays(30), Duration.ofMinutes(1))),
+        workerThreads,
+        new SimpleMeterRegistry());
+  }
+
+  private Optional<ConversationReadStates> watermark() {
+    return conversationReadStatesMapper.selectOne(
+        c ->
+            c.where(ConversationReadStatesDynamicSqlSupport.userId, isEqualTo(reader.getId()))
+                .and(
+                    ConversationReadStatesDynamicSqlSupport.conversationId,
+                    isEqualTo(conversationId)));
+  }
+
+  private Users insertRandomUser() {
+    Users user = TestDataFaker.createRandomUser(passwordEncoder);
+    usersMapper.insertSelective(user);
+    return usersMapper
+        .selectOne(c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(user.getUsername())))
+        .orElseThrow();
+  }
+}
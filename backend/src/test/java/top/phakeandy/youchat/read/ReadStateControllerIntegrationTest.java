@@ -0,0 +1,271 @@
+package top.phakeandy.youchat.read;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import top.phakeandy.youchat.auth.CustomUserDetails;
+import top.phakeandy.youchat.common.RawJson;
+import top.phakeandy.youchat.mapper.MessageReadRecordsDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.MessageReadRecordsMapper;
+import top.phakeandy.youchat.mapper.MessagesMapper;
+import top.phakeandy.youchat.mapper.UsersDynamicSqlSupport;
+import top.phakeandy.youchat.mapper.UsersMapper;
+import top.phakeandy.youchat.message.ConversationIds;
+import top.phakeandy.youchat.message.ConversationRegistry;
+import top.phakeandy.youchat.message.ConversationType;
+import top.phakeandy.youchat.message.MessageAcceptedEvent;
+import top.phakeandy.youchat.message.MessageIdGenerator;
+import top.phakeandy.youchat.model.Messages;
+import top.phakeandy.youchat.model.Users;
+import top.phakeandy.youchat.test.TestDataFaker;
+
+@SpringBootTest
+@AutoConfigureWebMvc
+@ActiveProfiles("integration-test")
+@Testcontainers
+@Transactional
+class ReadStateControllerIntegrationTest {
+
+  @Container @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:latest");
+
+  @Container
+  @ServiceConnection
+  @SuppressWarnings("resource")
+  private static final GenericContainer<?> redis =
+      new GenericContainer<>("redis:latest").withExposedPorts(6379);
+
+  @Autowired private WebApplicationContext context;
+  @Autowired private UsersMapper usersMapper;
+  @Autowired private MessagesMapper messagesMapper;
+  @Autowired private MessageReadRecordsMapper messageReadRecordsMapper;
+  @Autowired private MessageIdGenerator messageIdGenerator;
+  @Autowired private ConversationRegistry conversationRegistry;
+  @Autowired private PasswordEncoder passwordEncoder;
+  @Autowired private ApplicationEventPublisher eventPublisher;
+  @Autowired private UnreadCounterService unreadCounterService;
+
+  private MockMvc mockMvc;
+  private Users sender;
+  private CustomUserDetails reader;
+  private String conversationId;
+  private List<Messages> messages;
+
+  @BeforeEach
+  void setup() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+    sender = insertRandomUser();
+    reader = CustomUserDetails.fromUsers(insertRandomUser());
+    conversationId = ConversationIds.direct(sender.getId(), reader.getId());
+
+    messages = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      messages.add(newMessage(i));
+    }
+    messagesMapper.insertMultiple(messages);
+  }
+
+  private Messages newMessage(int index) {
+    Messages row = new Messages();
+    row.setId(messageIdGenerator.nextId());
+    row.setConversationId(conversationRegistry.register(conversationId));
+    row.setSenderId(sender.getId());
+    row.setType("text");
+    row.setContent(RawJson.of("{\"text\": \"消息" + index + "\"}"));
+    row.setCreatedAt(OffsetDateTime.now());
+    row.setUpdatedAt(row.getCreatedAt());
+    return row;
+  }
+
+  @Test
+  void shouldCountAllMessagesAsUnread_whenNothingHasBeenRead() throws Exception {
+    mockMvc
+        .perform(get("/api/v1/conversations/{id}/read-state", conversationId).with(user(reader)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.lastReadMessageId").doesNotExist())
+        .andExpect(jsonPath("$.unreadCount").value(5));
+  }
+
+  @Test
+  void shouldAdvanceWatermarkMonotonically() throws Exception {
+    markRead(messages.get(2).getId(), false)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.lastReadMessageId").value(String.valueOf(messages.get(2).getId())))
+        .andExpect(jsonPath("$.unreadCount").value(2));
+
+    // 迟到的旧确认不能让水位回退
+    markRead(messages.get(0).getId(), false)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.lastReadMessageId").value(String.valueOf(messages.get(2).getId())))
+        .andExpect(jsonPath("$.unreadCount").value(2));
+  }
+
+  @Test
+  void shouldClampWatermarkToLatestMessage_whenAckIsAheadOfConversation() throws Exception {
+    // 不存在的消息 ID 不能把水位推到未来，否则之后的新消息都会被当作已读
+    markRead(Long.MAX_VALUE, false)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.lastReadMessageId").value(String.valueOf(messages.get(4).getId())))
+        .andExpect(jsonPath("$.unreadCount").value(0));
+  }
+
+  @Test
+  void shouldRecordPerMessageReceipt_onlyWhenRequested() throws Exception {
+    markRead(messages.get(1).getId(), false).andExpect(status().isOk());
+    markRead(messages.get(3).getId(), true).andExpect(status().isOk());
+
+    long receipts =
+        messageReadRecordsMapper.count(
+            c -> c.where(MessageReadRecordsDynamicSqlSupport.userId, isEqualTo(reader.getId())));
+    assertThat(receipts).isEqualTo(1);
+  }
+
+  @Test
+  void shouldRebuildBadgesFromDatabase_whenCacheIsIncomplete() throws Exception {
+    markRead(messages.get(2).getId(), false).andExpect(status().isOk());
+
+    mockMvc
+        .perform(get("/api/v1/conversations/badges").with(user(reader)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.conversations['%s']".formatted(conversationId)).value(2))
+        .andExpect(jsonPath("$.total").value(2));
+  }
+
+  @Test
+  void shouldIncrementBadgeOnMessageAccepted_withoutQueryingMessages() throws Exception {
+    markRead(messages.get(4).getId(), false).andExpect(status().isOk());
+    mockMvc
+        .perform(get("/api/v1/conversations/badges").with(user(reader)))
+        .andExpect(jsonPath("$.total").value(0));
+
+    // 消息只进入了写入队列，计数必须来自 Redis 的增量而不是数据库
+    eventPublisher.publishEvent(
+        new MessageAcceptedEvent(
+            messageIdGenerator.nextId(),
+            conversationId,
+            ConversationType.PRIVATE,
+            sender.getId(),
+            reader.getId()));
+
+    mockMvc
+        .perform(get("/api/v1/conversations/badges").with(user(reader)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.conversations['%s']".formatted(conversationId)).value(1))
+        .andExpect(jsonPath("$.total").value(1));
+  }
+
+  @Test
+  void shouldKeepIncrementForUnpersistedMessage_whenWatermarkAdvances() throws Exception {
+    markRead(messages.get(2).getId(), false).andExpect(status().isOk());
+    mockMvc
+        .perform(get("/api/v1/conversations/badges").with(user(reader)))
+        .andExpect(jsonPath("$.conversations['%s']".formatted(conversationId)).value(2));
+    // 新消息已计入未读数但还在写入队列中，数据库统计不到它
+    Messages pending = newMessage(5);
+    eventPublisher.publishEvent(
+        new MessageAcceptedEvent(
+            pending.getId(),
+            conversationId,
+            ConversationType.PRIVATE,
+            sender.getId(),
+            reader.getId()));
+
+    // 按数据库覆盖会丢掉这条消息的增量，因此暂时保留原计数
+    markRead(messages.get(4).getId(), false).andExpect(status().isOk());
+    mockMvc
+        .perform(get("/api/v1/conversations/badges").with(user(reader)))
+        .andExpect(jsonPath("$.conversations['%s']".formatted(conversationId)).value(3));
+
+    // 消息落库前的重建同样不能丢掉这条消息的增量
+    unreadCounterService.reconcile();
+    mockMvc
+        .perform(get("/api/v1/conversations/badges").with(user(reader)))
+        .andExpect(jsonPath("$.conversations['%s']".formatted(conversationId)).value(3));
+
+    // 消息落库后由定时任务按数据库重建
+    messagesMapper.insert(pending);
+    unreadCounterService.reconcile();
+    mockMvc
+        .perform(get("/api/v1/conversations/badges").with(user(reader)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.conversations['%s']".formatted(conversationId)).value(1))
+        .andExpect(jsonPath("$.total").value(1));
+  }
+
+  @Test
+  void shouldReturn403_whenUserIsNotParticipant() throws Exception {
+    CustomUserDetails outsider = CustomUserDetails.fromUsers(insertRandomUser());
+
+    mockMvc
+        .perform(
+            put("/api/v1/conversations/{id}/read-state", conversationId)
+                .with(user(outsider))
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"messageId\": %d}".formatted(messages.getFirst().getId())))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  @WithAnonymousUser
+  void shouldReturn401_whenUserIsNotAuthenticated() throws Exception {
+    mockMvc
+        .perform(get("/api/v1/conversations/{id}/read-state", conversationId))
+        .andExpect(status().isUnauthorized());
+  }
+
+  private ResultActions markRead(long messageId, boolean receipt) throws Exception {
+    return mockMvc.perform(
+        put("/api/v1/conversations/{id}/read-state", conversationId)
+            .with(user(reader))
+            .with(csrf())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(
+                """
+                {
+                  "messageId": "%d",
+                  "receipt": %b
+                }
+                """
+                    .formatted(messageId, receipt)));
+  }
+
+  private Users insertRandomUser() {
+    Users user = TestDataFaker.createRandomUser(passwordEncoder);
+    usersMapper.insertSelective(user);
+    return usersMapper
+        .selectOne(c -> c.where(UsersDynamicSqlSupport.username, isEqualTo(user.getUsername())))
+        .orElseThrow();
+  }
+}
@@ -0,0 +1,37 @@
+package top.phakeandy.youchat.test;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+// 设计为 final 类，并提供私有构造函数，防止被实例化
+public final class AsyncMockMvc {
+
+  private AsyncMockMvc() {
+    // 私有构造函数，这是一个工具类
+  }
+
+  /**
+   * 执行请求，异步处理的请求等待结果后再完成异步分派。
+   *
+   * <p>登录和注册在密码哈希线程池上完成，而参数校验、限流等失败在请求线程上直接返回，调用方无需区分两种情况。
+   *
+   * @param mockMvc 执行请求的 MockMvc
+   * @param requestBuilder 请求
+   * @return 最终响应的断言入口
+   */
+  public static ResultActions perform(MockMvc mockMvc, RequestBuilder requestBuilder)
+      throws Exception {
+    ResultActions actions = mockMvc.perform(requestBuilder);
+    MvcResult result = actions.andReturn();
+    if (!result.getRequest().isAsyncStarted()) {
+      return actions;
+    }
+    // getAsyncResult() 会等待异步结果，之后再分派
+    result.getAsyncResult();
+    return mockMvc.perform(asyncDispatch(result));
+  }
+}